@@ -35,4 +35,39 @@ public interface EventDeliveryService extends EventDispatcher, EventSinkRegistry
      */
     long getDispatchTimeLimit();
 
+    /**
+     * Sets the number of lanes across which each class of events is
+     * dispatched, along with the capacity of each lane. Events pertaining to
+     * the same element are always dispatched through the same lane and thus
+     * in order; events for different elements may be delivered concurrently.
+     * Events pertaining to no single element are dispatched through one more
+     * lane, each only once the events posted before it have been delivered.
+     * Posting to a full lane holds back the posting thread until the lane
+     * catches up; event sinks are never held back, nor are events dropped.
+     *
+     * @param lanes     number of lanes per class of events
+     * @param queueSize maximum number of events queued per lane; 0 for no limit
+     */
+    default void setDispatchLanes(int lanes, int queueSize) {
+    }
+
+    /**
+     * Returns the number of lanes across which each class of events is
+     * dispatched.
+     *
+     * @return number of lanes per class of events
+     */
+    default int getDispatchLanes() {
+        return 1;
+    }
+
+    /**
+     * Returns the maximum number of events queued per dispatch lane.
+     *
+     * @return lane capacity; 0 if unlimited
+     */
+    default int getDispatchQueueSize() {
+        return 0;
+    }
+
 }
@@ -50,4 +50,18 @@ public interface WorkPartitionService
      * @return the leader node identifier
      */
     <K> NodeId getLeader(K id, Function<K, Long> hasher);
+
+    /**
+     * Returns the partition a given identifier maps to. Identifiers mapping
+     * to the same partition always share the same leader. By default, all
+     * identifiers map to a single partition.
+     *
+     * @param id identifier to query
+     * @param hasher function that maps id to a long value
+     * @param <K> entity type
+     * @return partition number
+     */
+    default <K> int getPartition(K id, Function<K, Long> hasher) {
+        return 0;
+    }
 }
@@ -16,8 +16,8 @@
 package org.onosproject.net.packet;
 
 /**
- * Packet processor entry tracking the processor, its priority and
- * time consumption.
+ * Packet processor entry tracking the processor, its priority, packet
+ * rate and time consumption.
  */
 public interface PacketProcessorEntry {
 
@@ -55,4 +55,23 @@ public interface PacketProcessorEntry {
      * @return average time in nanos
      */
     long averageNanos();
+
+    /**
+     * Returns the number of packets dropped, rather than processed, because
+     * the queue of the processor was full.
+     *
+     * @return number of dropped packets
+     */
+    default long drops() {
+        return 0;
+    }
+
+    /**
+     * Returns the recent rate, in packets per second, of packets processed.
+     *
+     * @return packets per second
+     */
+    default double packetRate() {
+        return 0;
+    }
 }
@@ -43,7 +43,52 @@ public interface PacketService {
      */
     void addProcessor(PacketProcessor processor, int priority);
 
-    // TODO allow processors to register for particular types of packets
+    /**
+     * Adds the specified processor to the list of packet processors, limiting
+     * the packets it is given to those matching the specified interest.
+     * The interest selector may only use the {@code ETH_TYPE} and
+     * {@code IN_PORT} criteria; if a device is given, only packets received
+     * by that device are considered.
+     *
+     * @param processor processor to be added
+     * @param priority  priority in the reverse natural order
+     * @param interest  selector of the packets of interest
+     * @param deviceId  optional device of interest
+     * @throws java.lang.IllegalArgumentException if the interest uses
+     *                                            unsupported criteria
+     */
+    default void addProcessor(PacketProcessor processor, int priority,
+                              TrafficSelector interest, Optional<DeviceId> deviceId) {
+        addProcessor(processor, priority);
+    }
+
+    /**
+     * Adds the specified processor to the list of packet processors, limiting
+     * the packets it is given to those matching the specified interest.
+     * <p>
+     * If the queue size is positive, the processor is invoked by a dedicated
+     * executor rather than by the thread delivering the packet, so that a slow
+     * processor does not delay the ones following it. Packets arriving while
+     * the queue of the processor is full are dropped for that processor only.
+     * Since the processor then runs concurrently with the rest of the pipeline,
+     * the way it handles the packet context is not visible to the processors
+     * following it.
+     * </p>
+     *
+     * @param processor processor to be added
+     * @param priority  priority in the reverse natural order
+     * @param interest  selector of the packets of interest
+     * @param deviceId  optional device of interest
+     * @param queueSize maximum number of packets pending for the processor;
+     *                  zero to invoke the processor inline
+     * @throws java.lang.IllegalArgumentException if the interest uses
+     *                                            unsupported criteria
+     */
+    default void addProcessor(PacketProcessor processor, int priority,
+                              TrafficSelector interest, Optional<DeviceId> deviceId,
+                              int queueSize) {
+        addProcessor(processor, priority, interest, deviceId);
+    }
 
     /**
      * Removes the specified processor from the processing pipeline.
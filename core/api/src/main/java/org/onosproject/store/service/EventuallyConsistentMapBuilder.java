@@ -190,6 +190,21 @@ public interface EventuallyConsistentMapBuilder<K, V> {
      */
     EventuallyConsistentMapBuilder<K, V> withPersistence();
 
+    /**
+     * Configure the map to compress the batches of updates sent to peers.
+     * Suited to maps with large values or bursts of updates, at the cost of
+     * the CPU needed to compress and decompress them.
+     * <p>
+     * The default behavior is no compression; builders that do not support
+     * compression ignore this option.
+     * </p>
+     *
+     * @return this EventuallyConsistentMapBuilder
+     */
+    default EventuallyConsistentMapBuilder<K, V> withCompression() {
+        return this;
+    }
+
     /**
      * Builds an eventually consistent map based on the configuration options
      * supplied to this builder.
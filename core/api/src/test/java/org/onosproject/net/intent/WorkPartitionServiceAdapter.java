@@ -33,6 +33,11 @@ public class WorkPartitionServiceAdapter implements WorkPartitionService {
         return null;
     }
 
+    @Override
+    public <K> int getPartition(K id, Function<K, Long> hasher) {
+        return 0;
+    }
+
     @Override
     public void addListener(WorkPartitionEventListener listener) {
 
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import org.onlab.packet.ChassisId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultDevice;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.net.topology.DefaultGraphDescription;
+import org.onosproject.net.topology.GraphDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.onosproject.net.DeviceId.deviceId;
+import static org.onosproject.net.PortNumber.portNumber;
+
+/**
+ * Measures computing the clusters and broadcast sets of a grid topology from
+ * scratch, with or without the link pair in the middle of the grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultTopologyBenchmark {
+
+    private static final ProviderId PID = new ProviderId("of", "org.onosproject.benchmark");
+
+    /**
+     * Whether the link pair in the middle of the grid is present.
+     */
+    public enum Change {
+        LINK_ADDED, LINK_REMOVED
+    }
+
+    /**
+     * Number of devices along each side of the grid.
+     */
+    @Param({"10", "30"})
+    public int size;
+
+    @Param
+    public Change change;
+
+    private GraphDescription description;
+    private ConnectPoint probe;
+
+    @Setup
+    public void setUp() {
+        List<Device> devices = new ArrayList<>();
+        for (int i = 0; i < size * size; i++) {
+            devices.add(new DefaultDevice(PID, did(i), Device.Type.SWITCH,
+                                          "mfg", "1.0", "1.1", "1234", new ChassisId(i)));
+        }
+
+        // Connect each device to its right and lower neighbours in both
+        // directions; the link pair in the middle of the grid is the one
+        // that is added or removed.
+        List<Link> links = new ArrayList<>();
+        List<Link> changed = new ArrayList<>();
+        int middle = (size / 2) * size + size / 2;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int device = i * size + j;
+                if (j + 1 < size) {
+                    addLinks(device == middle ? changed : links, device, device + 1, 1);
+                }
+                if (i + 1 < size) {
+                    addLinks(links, device, device + size, 2);
+                }
+            }
+        }
+
+        if (change == Change.LINK_ADDED) {
+            links.addAll(changed);
+        }
+        probe = changed.get(0).src();
+        description = description(devices, links);
+    }
+
+    private static GraphDescription description(List<Device> devices, List<Link> links) {
+        return new DefaultGraphDescription(System.nanoTime(), System.currentTimeMillis(),
+                                           devices, links);
+    }
+
+    private static void addLinks(List<Link> links, int one, int two, int port) {
+        links.add(link(one, port, two, port + 2));
+        links.add(link(two, port + 2, one, port));
+    }
+
+    private static Link link(int src, int srcPort, int dst, int dstPort) {
+        return DefaultLink.builder().providerId(PID)
+                .src(new ConnectPoint(did(src), portNumber(srcPort)))
+                .dst(new ConnectPoint(did(dst), portNumber(dstPort)))
+                .type(Link.Type.DIRECT)
+                .build();
+    }
+
+    private static DeviceId did(int id) {
+        return deviceId(String.format("of:%016x", id));
+    }
+
+    // Forces the computation of the clusters and broadcast sets.
+    private boolean resolve(DefaultTopology topology) {
+        return topology.clusterCount() > 0 && topology.isBroadcastPoint(probe);
+    }
+
+    @Benchmark
+    public boolean fullComputation() {
+        return resolve(new DefaultTopology(PID, description, null));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import org.onlab.graph.DefaultEdgeWeigher;
+import org.onlab.graph.DijkstraGraphSearch;
+import org.onlab.graph.ScalarWeight;
+import org.onlab.graph.Weight;
+import org.onlab.packet.ChassisId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultDevice;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.net.topology.DefaultGraphDescription;
+import org.onosproject.net.topology.GraphDescription;
+import org.onosproject.net.topology.LinkWeigher;
+import org.onosproject.net.topology.TopologyEdge;
+import org.onosproject.net.topology.TopologyVertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.onosproject.net.DeviceId.deviceId;
+import static org.onosproject.net.PortNumber.portNumber;
+
+/**
+ * Measures the path computations of the intents between the edge devices of
+ * a grid topology with link metrics, as carried out when rerouting the
+ * intents on a new topology.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopologyPathBenchmark {
+
+    private static final ProviderId PID = new ProviderId("of", "org.onosproject.benchmark");
+    private static final long SEED = 1234;
+    private static final int INTENTS = 1000;
+
+    /**
+     * Ways of searching for the paths of the topology.
+     */
+    public enum Search {
+        /** Paths derived from the memoized shortest-path tree of the source. */
+        TREE,
+        /** Paths searched for each source and destination pair. */
+        PAIR
+    }
+
+    /**
+     * Number of devices along each side of the grid.
+     */
+    @Param({"10", "30"})
+    public int size;
+
+    @Param
+    public Search search;
+
+    private final Map<Link, Weight> weights = new HashMap<>();
+    private final LinkWeigher weigher = new MetricLinkWeigher();
+
+    private GraphDescription description;
+    private DeviceId[] srcs;
+    private DeviceId[] dsts;
+
+    @Setup
+    public void setUp() {
+        DefaultTopology.setDefaultGraphPathSearch(
+                search == Search.PAIR ? new DijkstraGraphSearch<>() : null);
+
+        List<Device> devices = new ArrayList<>();
+        for (int i = 0; i < size * size; i++) {
+            devices.add(new DefaultDevice(PID, did(i), Device.Type.SWITCH,
+                                          "mfg", "1.0", "1.1", "1234", new ChassisId(i)));
+        }
+        List<Link> links = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int device = i * size + j;
+                if (j + 1 < size) {
+                    addLinks(links, device, device + 1, 1);
+                }
+                if (i + 1 < size) {
+                    addLinks(links, device, device + size, 2);
+                }
+            }
+        }
+        Random random = new Random(SEED);
+        links.forEach(link -> weights.put(link, new ScalarWeight(1 + random.nextInt(100))));
+        description = new DefaultGraphDescription(System.nanoTime(), System.currentTimeMillis(),
+                                                  devices, links);
+
+        // Intents run between the devices along the left and right edges.
+        srcs = new DeviceId[INTENTS];
+        dsts = new DeviceId[INTENTS];
+        for (int i = 0; i < INTENTS; i++) {
+            srcs[i] = did(random.nextInt(size) * size);
+            dsts[i] = did(random.nextInt(size) * size + size - 1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        DefaultTopology.setDefaultGraphPathSearch(null);
+    }
+
+    private static void addLinks(List<Link> links, int one, int two, int port) {
+        links.add(link(one, port, two, port + 2));
+        links.add(link(two, port + 2, one, port));
+    }
+
+    private static Link link(int src, int srcPort, int dst, int dstPort) {
+        return DefaultLink.builder().providerId(PID)
+                .src(new ConnectPoint(did(src), portNumber(srcPort)))
+                .dst(new ConnectPoint(did(dst), portNumber(dstPort)))
+                .type(Link.Type.DIRECT)
+                .build();
+    }
+
+    private static DeviceId did(int id) {
+        return deviceId(String.format("of:%016x", id));
+    }
+
+    @Benchmark
+    public int reroute() {
+        DefaultTopology topology = new DefaultTopology(PID, description);
+        int count = 0;
+        for (int i = 0; i < INTENTS; i++) {
+            count += topology.getPaths(srcs[i], dsts[i], weigher).size();
+        }
+        return count;
+    }
+
+    // Weighs the links with their randomly assigned metrics; unlike hop
+    // counts, these spare the grid from vast numbers of equal-cost paths.
+    private final class MetricLinkWeigher
+            extends DefaultEdgeWeigher<TopologyVertex, TopologyEdge>
+            implements LinkWeigher {
+        @Override
+        public Weight weight(TopologyEdge edge) {
+            return weights.get(edge.link());
+        }
+    }
+}
@@ -18,18 +18,24 @@ package org.onosproject.common;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSetMultimap.Builder;
+import org.onlab.graph.CompactDijkstraGraphSearch;
+import org.onlab.graph.CompactGraph;
 import org.onlab.graph.DefaultEdgeWeigher;
 import org.onlab.graph.DijkstraGraphSearch;
 import org.onlab.graph.DisjointPathPair;
+import org.onlab.graph.EdgeWeigher;
 import org.onlab.graph.GraphPathSearch;
 import org.onlab.graph.GraphPathSearch.Result;
 import org.onlab.graph.KShortestPathsSearch;
 import org.onlab.graph.LazyKShortestPathsSearch;
 import org.onlab.graph.ScalarWeight;
+import org.onlab.graph.ShortestPathTree;
 import org.onlab.graph.SrlgGraphSearch;
 import org.onlab.graph.SuurballeGraphSearch;
 import org.onlab.graph.TarjanGraphSearch;
@@ -62,7 +68,9 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -92,8 +100,21 @@ public class DefaultTopology extends AbstractModel implements Topology {
             new KShortestPathsSearch<>();
     private static final LazyKShortestPathsSearch<TopologyVertex, TopologyEdge> LAZY_KSHORTEST =
             new LazyKShortestPathsSearch<>();
+    private static final CompactDijkstraGraphSearch<TopologyVertex, TopologyEdge> COMPACT_DIJKSTRA =
+            new CompactDijkstraGraphSearch<>();
+    private static final DefaultEdgeWeigher<TopologyVertex, TopologyEdge> DEFAULT_EDGE_WEIGHER =
+            new DefaultEdgeWeigher<>();
 
 
+    // Bounds of the computed paths and of the shortest-path trees they are
+    // derived from, retained by each topology
+    private static final int MAX_CACHED_PATHS = 10000;
+    private static final int MAX_CACHED_TREES = 64;
+
+    private static final LongAdder PATH_CACHE_HITS = new LongAdder();
+    private static final LongAdder PATH_CACHE_MISSES = new LongAdder();
+    private static final LongAdder TREE_SEARCHES = new LongAdder();
+
     private static LinkWeigher defaultLinkWeigher = null;
     private static GraphPathSearch<TopologyVertex, TopologyEdge> defaultGraphPathSearch = null;
 
@@ -111,6 +132,10 @@ public class DefaultTopology extends AbstractModel implements Topology {
     private final Function<ConnectPoint, Boolean> broadcastFunction;
     private final Supplier<ClusterIndexes> clusterIndexes;
 
+    private final Supplier<CompactGraph<TopologyVertex, TopologyEdge>> compactGraph;
+    private final Supplier<Cache<PathKey, Set<Path>>> pathCache;
+    private final Supplier<Cache<PathKey, ShortestPathTree<TopologyVertex, TopologyEdge>>> treeCache;
+
     /**
      * Sets the default link-weight to be used when computing paths. If null is
      * specified, the builtin default link-weight measuring hop-counts will be
@@ -125,7 +150,9 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     /**
      * Sets the default lpath search algorighm to be used when computing paths.
-     * If null is specified, the builtin default Dijkstra will be used.
+     * If null is specified, the builtin default Dijkstra will be used. For
+     * large topologies, {@link org.onlab.graph.CompactDijkstraGraphSearch}
+     * computes the same paths with far fewer allocations.
      *
      * @param graphPathSearch new default algorithm
      */
@@ -135,6 +162,35 @@ public class DefaultTopology extends AbstractModel implements Topology {
         defaultGraphPathSearch = graphPathSearch;
     }
 
+    /**
+     * Returns the number of path computations served by the path caches of
+     * the topologies.
+     *
+     * @return number of cache hits
+     */
+    public static long pathCacheHits() {
+        return PATH_CACHE_HITS.sum();
+    }
+
+    /**
+     * Returns the number of path computations which missed the path caches
+     * of the topologies.
+     *
+     * @return number of cache misses
+     */
+    public static long pathCacheMisses() {
+        return PATH_CACHE_MISSES.sum();
+    }
+
+    /**
+     * Returns the number of shortest-path trees computed for the topologies.
+     *
+     * @return number of shortest-path tree searches
+     */
+    public static long shortestPathTreeSearches() {
+        return TREE_SEARCHES.sum();
+    }
+
 
     /**
      * Creates a topology descriptor attributed to the specified provider.
@@ -162,6 +218,12 @@ public class DefaultTopology extends AbstractModel implements Topology {
         this.hopCountWeigher = new HopCountLinkWeigher(graph.getVertexes().size());
         this.broadcastSets = Suppliers.memoize(this::buildBroadcastSets);
         this.infrastructurePoints = Suppliers.memoize(this::findInfrastructurePoints);
+
+        this.compactGraph = Suppliers.memoize(() -> new CompactGraph<>(graph));
+        this.pathCache = Suppliers.memoize(
+                () -> CacheBuilder.newBuilder().maximumSize(MAX_CACHED_PATHS).build());
+        this.treeCache = Suppliers.memoize(
+                () -> CacheBuilder.newBuilder().maximumSize(MAX_CACHED_TREES).build());
         this.computeCost = Math.max(0, System.nanoTime() - time);
     }
 
@@ -367,6 +429,14 @@ public class DefaultTopology extends AbstractModel implements Topology {
      * {@code maxPaths} a subset of paths of that length will be returned,
      * which paths will be returned depends on the currently specified
      * {@code GraphPathSearch}. See {@link #setDefaultGraphPathSearch}.
+     * <p>
+     * Paths computed with the default link weigher, the hop-count weigher or
+     * no weigher at all are retained by the topology, keyed by the source and
+     * the destination. When the Dijkstra search applies, such paths are
+     * derived from the shortest-path tree of the source, which serves the
+     * paths towards all destinations; among paths of equal cost, the tree may
+     * return a different subset than a search for the single pair would.
+     * Paths computed with any other weigher are searched for on every call.
      *
      * @param src    source device
      * @param dst    destination device
@@ -384,15 +454,68 @@ public class DefaultTopology extends AbstractModel implements Topology {
             return ImmutableSet.of();
         }
 
-        GraphPathSearch.Result<TopologyVertex, TopologyEdge> result =
-                graphPathSearch().search(graph, srcV, dstV, weigher, maxPaths);
+        if (!isCacheable(weigher)) {
+            return networkPaths(graphPathSearch().search(graph, srcV, dstV,
+                                                         weigher, maxPaths).paths());
+        }
+
+        PathKey key = new PathKey(src, dst, weigher, maxPaths);
+        Set<Path> paths = pathCache.get().getIfPresent(key);
+        if (paths != null) {
+            PATH_CACHE_HITS.increment();
+            return paths;
+        }
+        PATH_CACHE_MISSES.increment();
+
+        paths = networkPaths(searchPaths(srcV, dstV, weigher, maxPaths));
+        pathCache.get().put(key, paths);
+        return paths;
+    }
+
+    // Indicates whether paths computed with the given weigher may be retained;
+    // only the weighers known to the topology are trusted to be stateless.
+    private boolean isCacheable(LinkWeigher weigher) {
+        return weigher == null || weigher == hopCountWeigher ||
+                weigher == defaultLinkWeigher;
+    }
+
+    // Converts the given graph paths into network paths.
+    private Set<Path> networkPaths(Set<org.onlab.graph.Path<TopologyVertex, TopologyEdge>> paths) {
         ImmutableSet.Builder<Path> builder = ImmutableSet.builder();
-        for (org.onlab.graph.Path<TopologyVertex, TopologyEdge> path : result.paths()) {
+        for (org.onlab.graph.Path<TopologyVertex, TopologyEdge> path : paths) {
             builder.add(networkPath(path));
         }
         return builder.build();
     }
 
+    // Searches for the shortest paths between the given vertexes, deriving
+    // them from the shortest-path tree of the source if Dijkstra applies.
+    private Set<org.onlab.graph.Path<TopologyVertex, TopologyEdge>> searchPaths(
+            TopologyVertex srcV, TopologyVertex dstV, LinkWeigher weigher, int maxPaths) {
+        GraphPathSearch<TopologyVertex, TopologyEdge> search = graphPathSearch();
+        EdgeWeigher<TopologyVertex, TopologyEdge> edgeWeigher =
+                weigher != null ? weigher : DEFAULT_EDGE_WEIGHER;
+        if ((search == DIJKSTRA || search instanceof CompactDijkstraGraphSearch) &&
+                edgeWeigher.getInitialWeight() instanceof ScalarWeight) {
+            return shortestPathTree(srcV, edgeWeigher).paths(dstV, maxPaths);
+        }
+        return search.search(graph, srcV, dstV, weigher, maxPaths).paths();
+    }
+
+    // Returns the shortest-path tree of the given source, searching for it
+    // unless already known.
+    private ShortestPathTree<TopologyVertex, TopologyEdge> shortestPathTree(
+            TopologyVertex srcV, EdgeWeigher<TopologyVertex, TopologyEdge> weigher) {
+        PathKey key = new PathKey(srcV.deviceId(), null, weigher, ALL_PATHS);
+        ShortestPathTree<TopologyVertex, TopologyEdge> tree = treeCache.get().getIfPresent(key);
+        if (tree == null) {
+            TREE_SEARCHES.increment();
+            tree = COMPACT_DIJKSTRA.searchTree(compactGraph.get(), srcV, weigher);
+            treeCache.get().put(key, tree);
+        }
+        return tree;
+    }
+
     /**
      * Computes on-demand the k-shortest paths between source and
      * destination devices.
@@ -780,6 +903,41 @@ public class DefaultTopology extends AbstractModel implements Topology {
         }
     }
 
+    // Key of retained paths or shortest-path trees; the weighers are
+    // compared by identity.
+    private static final class PathKey {
+        private final DeviceId src;
+        private final DeviceId dst;
+        private final EdgeWeigher<TopologyVertex, TopologyEdge> weigher;
+        private final int maxPaths;
+
+        private PathKey(DeviceId src, DeviceId dst,
+                        EdgeWeigher<TopologyVertex, TopologyEdge> weigher, int maxPaths) {
+            this.src = src;
+            this.dst = dst;
+            this.weigher = weigher;
+            this.maxPaths = maxPaths;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(src, dst, System.identityHashCode(weigher), maxPaths);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof PathKey) {
+                PathKey that = (PathKey) obj;
+                return src.equals(that.src) && Objects.equals(dst, that.dst) &&
+                        weigher == that.weigher && maxPaths == that.maxPaths;
+            }
+            return false;
+        }
+    }
+
     static final class ClusterIndexes {
         final ImmutableMap<DeviceId, TopologyCluster> clustersByDevice;
         final ImmutableSetMultimap<TopologyCluster, DeviceId> devicesByCluster;
@@ -128,6 +128,27 @@ public class DefaultTopologyTest {
 
     }
 
+    @Test
+    public void cachedPaths() {
+        long hits = DefaultTopology.pathCacheHits();
+        long misses = DefaultTopology.pathCacheMisses();
+        long trees = DefaultTopology.shortestPathTreeSearches();
+
+        Set<Path> paths = dt.getPaths(D1, D3);
+        assertEquals("incorrect path count", 2, paths.size());
+        assertSame("paths not cached", paths, dt.getPaths(D1, D3));
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D2).size());
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D3, null, 1).size());
+
+        paths = dt.getPaths(D1, D3, WEIGHER);
+        assertEquals("incorrect path count", 1, paths.size());
+        assertNotSame("custom weigher paths cached", paths, dt.getPaths(D1, D3, WEIGHER));
+
+        assertEquals("incorrect cache hits", hits + 1, DefaultTopology.pathCacheHits());
+        assertEquals("incorrect cache misses", misses + 3, DefaultTopology.pathCacheMisses());
+        assertEquals("incorrect tree searches", trees + 2, DefaultTopology.shortestPathTreeSearches());
+    }
+
     @Test
     public void pointRelated() {
         assertTrue("should be infrastructure point",
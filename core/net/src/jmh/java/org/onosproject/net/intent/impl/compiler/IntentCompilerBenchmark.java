@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl.compiler;
+
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IpPrefix;
+import org.onosproject.cfg.ComponentConfigAdapter;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.FilteredConnectPoint;
+import org.onosproject.net.domain.DomainId;
+import org.onosproject.net.domain.DomainService;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentExtensionServiceAdapter;
+import org.onosproject.net.intent.IntentTestsMocks;
+import org.onosproject.net.intent.LinkCollectionIntent;
+import org.onosproject.net.intent.MockIdGenerator;
+import org.onosproject.net.intent.PointToPointIntent;
+import org.onosproject.net.resource.MockResourceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.onosproject.net.NetTestTools.did;
+import static org.onosproject.net.PortNumber.portNumber;
+import static org.onosproject.net.domain.DomainId.LOCAL;
+
+/**
+ * Measures the compilation phases of a point-to-point intent, i.e. the
+ * compilation into a link collection intent followed by the compilation of
+ * the latter into flow rules, as driven by the intent manager.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntentCompilerBenchmark {
+
+    private static final ApplicationId APP_ID = new DefaultApplicationId(1, "org.onosproject.benchmark");
+
+    /**
+     * Number of devices along the intent path.
+     */
+    @Param({"3", "10"})
+    public int hops;
+
+    private PointToPointIntentCompiler pointToPointCompiler;
+    private LinkCollectionIntentCompiler linkCollectionCompiler;
+    private PointToPointIntent intent;
+    private LinkCollectionIntent linkCollectionIntent;
+
+    @Setup
+    public void setUp() {
+        MockIdGenerator.cleanBind();
+        String[] devices = new String[hops];
+        for (int i = 0; i < hops; i++) {
+            devices[i] = "s" + (i + 1);
+        }
+
+        MockResourceService resourceService = new MockResourceService();
+        pointToPointCompiler = new PointToPointIntentCompiler();
+        pointToPointCompiler.pathService = new IntentTestsMocks.MockPathService(devices);
+        pointToPointCompiler.resourceService = resourceService;
+
+        IntentConfigurableRegistrator registrator = new IntentConfigurableRegistrator();
+        registrator.extensionService = new IntentExtensionServiceAdapter();
+        registrator.cfgService = new ComponentConfigAdapter();
+        registrator.activate();
+
+        linkCollectionCompiler = new LinkCollectionIntentCompiler();
+        linkCollectionCompiler.coreService = new TestCoreService();
+        linkCollectionCompiler.domainService = new TestDomainService();
+        linkCollectionCompiler.resourceService = resourceService;
+        linkCollectionCompiler.registrator = registrator;
+        linkCollectionCompiler.activate();
+
+        intent = PointToPointIntent.builder()
+                .appId(APP_ID)
+                .selector(DefaultTrafficSelector.builder()
+                                  .matchEthType(Ethernet.TYPE_IPV4)
+                                  .matchIPDst(IpPrefix.valueOf("10.0.0.0/24"))
+                                  .build())
+                .treatment(DefaultTrafficTreatment.emptyTreatment())
+                .filteredIngressPoint(new FilteredConnectPoint(
+                        new ConnectPoint(did(devices[0]), portNumber(1))))
+                .filteredEgressPoint(new FilteredConnectPoint(
+                        new ConnectPoint(did(devices[hops - 1]), portNumber(2))))
+                .build();
+        linkCollectionIntent = (LinkCollectionIntent) pointToPointCompiler.compile(intent, null).get(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        MockIdGenerator.unbind();
+    }
+
+    @Benchmark
+    public List<Intent> pointToPoint() {
+        return pointToPointCompiler.compile(intent, null);
+    }
+
+    @Benchmark
+    public List<Intent> linkCollection() {
+        return linkCollectionCompiler.compile(linkCollectionIntent, Collections.emptyList());
+    }
+
+    @Benchmark
+    public List<Intent> endToEnd() {
+        LinkCollectionIntent compiled = (LinkCollectionIntent) pointToPointCompiler.compile(intent, null).get(0);
+        return linkCollectionCompiler.compile(compiled, Collections.emptyList());
+    }
+
+    private static final class TestCoreService extends CoreServiceAdapter {
+        @Override
+        public ApplicationId registerApplication(String name) {
+            return new DefaultApplicationId(2, name);
+        }
+    }
+
+    private static final class TestDomainService implements DomainService {
+        @Override
+        public Set<DomainId> getDomainIds() {
+            return Collections.singleton(LOCAL);
+        }
+
+        @Override
+        public Set<DeviceId> getDeviceIds(DomainId domainId) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public DomainId getDomain(DeviceId deviceId) {
+            return LOCAL;
+        }
+    }
+}
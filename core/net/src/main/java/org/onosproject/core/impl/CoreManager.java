@@ -45,6 +45,10 @@ import java.util.Set;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onosproject.net.OsgiPropertyConstants.CALCULATE_PERFORMANCE_CHECK;
 import static org.onosproject.net.OsgiPropertyConstants.CALCULATE_PERFORMANCE_CHECK_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_DISPATCH_LANES;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_DISPATCH_LANES_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_DISPATCH_QUEUE_SIZE;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_DISPATCH_QUEUE_SIZE_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.MAX_EVENT_TIME_LIMIT;
 import static org.onosproject.net.OsgiPropertyConstants.MAX_EVENT_TIME_LIMIT_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.SHARED_THREAD_POOL_SIZE;
@@ -62,6 +66,8 @@ import static org.onosproject.security.AppPermission.Type.APP_WRITE;
         property = {
                 SHARED_THREAD_POOL_SIZE + ":Integer=" + SHARED_THREAD_POOL_SIZE_DEFAULT,
                 MAX_EVENT_TIME_LIMIT + ":Integer=" + MAX_EVENT_TIME_LIMIT_DEFAULT,
+                EVENT_DISPATCH_LANES + ":Integer=" + EVENT_DISPATCH_LANES_DEFAULT,
+                EVENT_DISPATCH_QUEUE_SIZE + ":Integer=" + EVENT_DISPATCH_QUEUE_SIZE_DEFAULT,
                 CALCULATE_PERFORMANCE_CHECK + ":Boolean=" + CALCULATE_PERFORMANCE_CHECK_DEFAULT
         }
 )
@@ -96,6 +102,12 @@ public class CoreManager implements CoreService {
     /** Maximum number of millis an event sink has to process an event. */
     private int maxEventTimeLimit = MAX_EVENT_TIME_LIMIT_DEFAULT;
 
+    /** Number of lanes per class of events; events for one subject share a lane. */
+    private int eventDispatchLanes = EVENT_DISPATCH_LANES_DEFAULT;
+
+    /** Maximum number of events queued per dispatch lane; 0 for no limit. */
+    private int eventDispatchQueueSize = EVENT_DISPATCH_QUEUE_SIZE_DEFAULT;
+
     /** Enable queue performance check on shared pool. */
     private boolean sharedThreadPerformanceCheck = CALCULATE_PERFORMANCE_CHECK_DEFAULT;
 
@@ -182,13 +194,30 @@ public class CoreManager implements CoreService {
             log.warn("maxEventTimeLimit must be greater than or equal to 0");
         }
 
+        Integer lanes = Tools.getIntegerProperty(properties, EVENT_DISPATCH_LANES);
+        if (lanes != null && lanes > 0) {
+            eventDispatchLanes = lanes;
+        } else if (lanes != null) {
+            log.warn("eventDispatchLanes must be greater than 0");
+        }
+
+        Integer queueSize = Tools.getIntegerProperty(properties, EVENT_DISPATCH_QUEUE_SIZE);
+        if (queueSize != null && queueSize >= 0) {
+            eventDispatchQueueSize = queueSize;
+        } else if (queueSize != null) {
+            log.warn("eventDispatchQueueSize must be greater than or equal to 0");
+        }
+        eventDeliveryService.setDispatchLanes(eventDispatchLanes, eventDispatchQueueSize);
+
         Boolean performanceCheck = Tools.isPropertyEnabled(properties, CALCULATE_PERFORMANCE_CHECK);
         if (performanceCheck != null) {
             sharedThreadPerformanceCheck = performanceCheck;
             SharedExecutors.setMetricsService(sharedThreadPerformanceCheck ? metricsService : null);
         }
 
-        log.info("Settings: sharedThreadPoolSize={}, maxEventTimeLimit={}, sharedThreadPerformanceCheck={}",
-                 sharedThreadPoolSize, maxEventTimeLimit, sharedThreadPerformanceCheck);
+        log.info("Settings: sharedThreadPoolSize={}, maxEventTimeLimit={}, eventDispatchLanes={}, " +
+                         "eventDispatchQueueSize={}, sharedThreadPerformanceCheck={}",
+                 sharedThreadPoolSize, maxEventTimeLimit, eventDispatchLanes,
+                 eventDispatchQueueSize, sharedThreadPerformanceCheck);
     }
 }
@@ -15,34 +15,58 @@
  */
 package org.onosproject.event.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.SharedExecutors;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.DefaultEventSinkRegistry;
 import org.onosproject.event.Event;
 import org.onosproject.event.EventDeliveryService;
 import org.onosproject.event.EventSink;
+import org.onosproject.net.Device;
+import org.onosproject.net.ElementId;
+import org.onosproject.net.Host;
+import org.onosproject.net.Link;
 import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleEvent;
 import org.onosproject.net.host.HostEvent;
+import org.onosproject.net.intent.Intent;
 import org.onosproject.net.intent.IntentEvent;
 import org.onosproject.net.link.LinkEvent;
 import org.onosproject.net.topology.TopologyEvent;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
@@ -53,6 +77,15 @@ import static org.onosproject.security.AppPermission.Type.EVENT_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Simple implementation of an event dispatching service.
+ * <p>
+ * Each class of events is dispatched by its own dispatch loop. A loop may be
+ * partitioned into several lanes, each served by its own thread; events are
+ * assigned to lanes by their subject key, so that events pertaining to the
+ * same element, e.g. the same device or intent, are always delivered in the
+ * order in which they were posted. Events which pertain to no single element,
+ * such as topology events, go through a lane of their own and are delivered
+ * only after the events posted before them.
+ * </p>
  */
 @Component(immediate = true, service = EventDeliveryService.class)
 public class CoreEventDispatcher extends DefaultEventSinkRegistry
@@ -60,6 +93,11 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
     private final Logger log = getLogger(getClass());
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL)
+    protected MetricsService metricsService;
+
+    private volatile int laneCount = 1;
+    private volatile int laneQueueSize = 0;
 
     private DispatchLoop topologyDispatcher = new DispatchLoop("topology");
     private DispatchLoop programmingDispatcher = new DispatchLoop("programming");
@@ -85,12 +123,24 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
     private static final long DEFAULT_EXECUTE_MS = 5_000; // ms
     private static final long WATCHDOG_MS = 250; // ms
 
+    private static final String METRICS_COMPONENT = "EventDispatcher";
+
     @SuppressWarnings("unchecked")
     private static final Event KILL_PILL = new AbstractEvent(null, 0) {
     };
 
+    // Marks the end of the events of a retiring lane
+    @SuppressWarnings("unchecked")
+    private static final Event DRAIN_PILL = new AbstractEvent(null, 0) {
+    };
+
+    // Tells the dispatch threads, whose posts are never held back
+    private static final ThreadLocal<Boolean> DISPATCHING = ThreadLocal.withInitial(() -> false);
+
     private long maxProcessMillis = DEFAULT_EXECUTE_MS;
 
+    private final Map<Class, SinkMetrics> sinkMetrics = new ConcurrentHashMap<>();
+
     private DispatchLoop getDispatcher(Event event) {
         DispatchLoop dispatcher = dispatcherMap.get(event.getClass());
         if (dispatcher == null) {
@@ -101,10 +151,8 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
     @Override
     public void post(Event event) {
-
-        if (!getDispatcher(event).add(event)) {
-            log.error("Unable to post event {}", event);
-        }
+        sinkMetrics(event.getClass()).pending.incrementAndGet();
+        getDispatcher(event).add(event);
     }
 
     @Activate
@@ -113,6 +161,7 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         if (maxProcessMillis != 0) {
             dispatchers.forEach(DispatchLoop::start);
         }
+        dispatchers.forEach(DispatchLoop::registerMetrics);
 
         log.info("Started");
     }
@@ -120,6 +169,9 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
     @Deactivate
     public void deactivate() {
         dispatchers.forEach(DispatchLoop::stop);
+        dispatchers.forEach(DispatchLoop::unregisterMetrics);
+        sinkMetrics.values().forEach(SinkMetrics::unregister);
+        sinkMetrics.clear();
 
         log.info("Stopped");
     }
@@ -145,8 +197,285 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return maxProcessMillis;
     }
 
-    // Auxiliary event dispatching loop that feeds off the events queue.
-    private class DispatchLoop implements Runnable {
+    @Override
+    public void setDispatchLanes(int lanes, int queueSize) {
+        checkPermission(EVENT_WRITE);
+        checkArgument(lanes > 0, "Lane count must be greater than 0");
+        checkArgument(queueSize >= 0, "Lane queue size must not be negative");
+        if (lanes == laneCount && queueSize == laneQueueSize) {
+            return;
+        }
+        laneCount = lanes;
+        laneQueueSize = queueSize;
+        dispatchers.forEach(DispatchLoop::reconfigure);
+    }
+
+    @Override
+    public int getDispatchLanes() {
+        checkPermission(EVENT_READ);
+        return laneCount;
+    }
+
+    @Override
+    public int getDispatchQueueSize() {
+        checkPermission(EVENT_READ);
+        return laneQueueSize;
+    }
+
+    // Returns the key by which the given event is assigned to a lane; events
+    // with equal keys are delivered in order. Events about devices, their
+    // ports and the links leaving them share the key of the device; events
+    // which pertain to no single element have none.
+    private static Object partitionKey(Event event) {
+        Object subject = event.subject();
+        if (subject instanceof ElementId) {
+            return subject;
+        } else if (subject instanceof Device) {
+            return ((Device) subject).id();
+        } else if (subject instanceof Link) {
+            return ((Link) subject).src().deviceId();
+        } else if (subject instanceof Host) {
+            return ((Host) subject).id();
+        } else if (subject instanceof FlowRule) {
+            return ((FlowRule) subject).deviceId();
+        } else if (subject instanceof Intent) {
+            return ((Intent) subject).key();
+        }
+        return null;
+    }
+
+    // Returns the metrics of the sink for the given event class.
+    private SinkMetrics sinkMetrics(Class eventClass) {
+        SinkMetrics metrics = sinkMetrics.get(eventClass);
+        return metrics != null ? metrics :
+                sinkMetrics.computeIfAbsent(eventClass, SinkMetrics::new);
+    }
+
+    // Delivery metrics for the sink of one event class.
+    private final class SinkMetrics {
+        private final AtomicInteger pending = new AtomicInteger();
+        private final MetricsFeature feature;
+        private final Timer latency;
+        private final Timer processing;
+
+        private SinkMetrics(Class eventClass) {
+            MetricsService metricsService = CoreEventDispatcher.this.metricsService;
+            if (metricsService != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                feature = component.registerFeature(eventClass.getName());
+                latency = metricsService.createTimer(component, feature, "latency");
+                processing = metricsService.createTimer(component, feature, "processing");
+                metricsService.registerMetric(component, feature, "queueDepth",
+                                              (Gauge<Integer>) pending::get);
+            } else {
+                feature = null;
+                latency = null;
+                processing = null;
+            }
+        }
+
+        // Records the time the event spent waiting to be delivered.
+        private void dispatched(Event event) {
+            pending.decrementAndGet();
+            if (latency != null) {
+                latency.update(Math.max(0, System.currentTimeMillis() - event.time()),
+                               TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void processed(long nanos) {
+            if (processing != null) {
+                processing.update(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void unregister() {
+            if (feature != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                metricsService.removeMetric(component, feature, "latency");
+                metricsService.removeMetric(component, feature, "processing");
+                metricsService.removeMetric(component, feature, "queueDepth");
+            }
+        }
+    }
+
+    // Event dispatch loop, partitioned into one or more lanes. With several
+    // lanes, events are spread across them by their key, while events with
+    // no key go through one more lane of their own, which delivers each of
+    // them only once the events posted to the loop before it have been.
+    private class DispatchLoop {
+        private final String name;
+        // Guards the lanes against reconfiguration while events are posted
+        private final ReadWriteLock lanesLock = new ReentrantReadWriteLock();
+        private volatile DispatchLane[] lanes;
+        private boolean running;
+
+        DispatchLoop(String name) {
+            this.name = name;
+            this.lanes = createLanes(false);
+        }
+
+        private DispatchLane[] createLanes(boolean held) {
+            if (laneCount == 1) {
+                return new DispatchLane[]{new DispatchLane(name, laneQueueSize, null, held)};
+            }
+            DispatchLane[] keyed = new DispatchLane[laneCount];
+            for (int i = 0; i < keyed.length; i++) {
+                keyed[i] = new DispatchLane(name + "-" + i, laneQueueSize, null, held);
+            }
+            DispatchLane[] fresh = Arrays.copyOf(keyed, keyed.length + 1);
+            fresh[keyed.length] = new DispatchLane(name + "-ordered", laneQueueSize, keyed, held);
+            return fresh;
+        }
+
+        private DispatchLane lane(Event event, DispatchLane[] lanes) {
+            if (lanes.length == 1) {
+                return lanes[0];
+            }
+            Object key = partitionKey(event);
+            if (key == null) {
+                return lanes[lanes.length - 1];
+            }
+            return lanes[Math.floorMod(key.hashCode(), lanes.length - 1)];
+        }
+
+        public void add(Event event) {
+            boolean force = false;
+            while (true) {
+                DispatchLane lane;
+                lanesLock.readLock().lock();
+                try {
+                    lane = lane(event, lanes);
+                    if (lane.offer(event, force)) {
+                        return;
+                    }
+                } finally {
+                    lanesLock.readLock().unlock();
+                }
+                // Wait for room outside of the lock, so as not to hold up a
+                // reconfiguration; the lane is looked up again afterwards.
+                // An interrupted poster has its event queued regardless.
+                force = !lane.awaitRoom();
+            }
+        }
+
+        // Replaces the lanes with ones matching the current configuration;
+        // events pending in the old lanes are delivered before any new ones.
+        synchronized void reconfigure() {
+            // The new lanes are running before they are swapped in, but are
+            // held back until the old lanes have delivered all their events.
+            DispatchLane[] fresh = createLanes(running);
+            if (running) {
+                for (DispatchLane lane : fresh) {
+                    lane.start();
+                }
+            }
+
+            DispatchLane[] old;
+            lanesLock.writeLock().lock();
+            try {
+                old = lanes;
+                if (!running) {
+                    // Nothing is being delivered; carry the events over as is
+                    for (DispatchLane lane : old) {
+                        lane.drain(event -> lane(event, fresh).offer(event, true));
+                    }
+                }
+                lanes = fresh;
+            } finally {
+                lanesLock.writeLock().unlock();
+            }
+
+            if (running) {
+                // The ordered lane comes last, after the lanes it waits for
+                for (DispatchLane lane : old) {
+                    lane.retire();
+                }
+                for (DispatchLane lane : fresh) {
+                    lane.release();
+                }
+            }
+            log.info("Dispatch loop({}) now has {} lane(s) with queue size {}",
+                     name, laneCount, laneQueueSize);
+        }
+
+        synchronized void start() {
+            running = true;
+            for (DispatchLane lane : lanes) {
+                lane.start();
+            }
+        }
+
+        synchronized void stop() {
+            running = false;
+            for (DispatchLane lane : lanes) {
+                lane.stop();
+            }
+        }
+
+        void startWatchdog() {
+            for (DispatchLane lane : lanes) {
+                lane.startWatchdog();
+            }
+        }
+
+        void stopWatchdog() {
+            for (DispatchLane lane : lanes) {
+                lane.stopWatchdog();
+            }
+        }
+
+        private int queueDepth() {
+            int depth = 0;
+            for (DispatchLane lane : lanes) {
+                depth += lane.queueDepth();
+            }
+            return depth;
+        }
+
+        private int maxLaneQueueDepth() {
+            int depth = 0;
+            for (DispatchLane lane : lanes) {
+                depth = Math.max(depth, lane.queueDepth());
+            }
+            return depth;
+        }
+
+        void registerMetrics() {
+            if (metricsService != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                MetricsFeature feature = component.registerFeature("dispatch-" + name);
+                metricsService.registerMetric(component, feature, "queueDepth",
+                                              (Gauge<Integer>) this::queueDepth);
+                metricsService.registerMetric(component, feature, "maxLaneQueueDepth",
+                                              (Gauge<Integer>) this::maxLaneQueueDepth);
+            }
+        }
+
+        void unregisterMetrics() {
+            if (metricsService != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                MetricsFeature feature = component.registerFeature("dispatch-" + name);
+                metricsService.removeMetric(component, feature, "queueDepth");
+                metricsService.removeMetric(component, feature, "maxLaneQueueDepth");
+            }
+        }
+    }
+
+    // Event queued on a lane, along with the number of events handed to each
+    // of the lanes it has to wait for at the time it was posted.
+    private static final class Queued {
+        private final Event event;
+        private final long[] after;
+
+        private Queued(Event event, long[] after) {
+            this.event = event;
+            this.after = after;
+        }
+    }
+
+    // Auxiliary event dispatching lane that feeds off its events queue.
+    private class DispatchLane implements Runnable {
         private final String name;
         private volatile boolean stopped;
         private volatile EventSink lastSink;
@@ -154,30 +483,125 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         private final Stopwatch stopwatch = Stopwatch.createUnstarted();
         private TimerTask watchdog;
         private volatile Future<?> dispatchFuture;
-        private final BlockingQueue<Event> eventsQueue;
         private final ExecutorService executor;
 
-        DispatchLoop(String name) {
+        // The queue itself is unbounded; only posters other than the sinks
+        // are held back once it reaches its capacity, if any.
+        private final BlockingQueue<Queued> eventsQueue = new LinkedBlockingQueue<>();
+        private final int capacity;
+        private final Object room = new Object();
+        private volatile int waitingPosters;
+
+        // Lanes whose earlier events have to be delivered before any of this
+        // lane's; null if none
+        private final DispatchLane[] awaited;
+        private final AtomicLong enqueued = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private volatile Thread waiter;
+        // Event taken off the queue whose predecessors are still pending
+        private volatile Queued parked;
+
+        // Opened once the lane may start delivering its events
+        private final CountDownLatch gate;
+        private final CountDownLatch drained = new CountDownLatch(1);
+
+        DispatchLane(String name, int capacity, DispatchLane[] awaited, boolean held) {
             this.name = name;
+            this.capacity = capacity;
+            this.awaited = awaited;
+            this.gate = new CountDownLatch(held ? 1 : 0);
             executor = newSingleThreadExecutor(
                     groupedThreads("onos/event",
                     "dispatch-" + name + "%d", log));
-            eventsQueue = new LinkedBlockingQueue<>();
         }
 
-        public boolean add(Event event) {
-            return eventsQueue.add(event);
+        // Queues the event, unless the lane is full and the poster is to be
+        // held back. Sinks are never held back, lest they wait on lanes which
+        // are themselves waiting on them.
+        boolean offer(Event event, boolean force) {
+            if (!force && capacity > 0 && eventsQueue.size() >= capacity &&
+                    dispatchFuture != null && !stopped && !DISPATCHING.get()) {
+                return false;
+            }
+            long[] after = null;
+            if (awaited != null) {
+                after = new long[awaited.length];
+                for (int i = 0; i < awaited.length; i++) {
+                    after[i] = awaited[i].enqueued.get();
+                }
+            }
+            enqueued.incrementAndGet();
+            eventsQueue.add(new Queued(event, after));
+            return true;
+        }
+
+        // Waits a while for the lane to have room; false if interrupted.
+        boolean awaitRoom() {
+            log.debug("Dispatch loop({}) is full; holding back poster", name);
+            synchronized (room) {
+                waitingPosters++;
+                try {
+                    if (eventsQueue.size() >= capacity && !stopped) {
+                        room.wait(WATCHDOG_MS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                } finally {
+                    waitingPosters--;
+                }
+            }
+            return true;
+        }
+
+        private void roomFreed() {
+            if (waitingPosters > 0) {
+                synchronized (room) {
+                    room.notifyAll();
+                }
+            }
+        }
+
+        private int queueDepth() {
+            return eventsQueue.size();
         }
 
         @Override
         public void run() {
             log.info("Dispatch loop({}) initiated", name);
+            DISPATCHING.set(true);
+            awaitRelease();
             while (!stopped) {
                 try {
-                    // Fetch the next event and if it is the kill-pill, bail
-                    Event event = eventsQueue.take();
-                    if (event != KILL_PILL) {
-                        process(event);
+                    // Fetch the next event and if it is the kill-pill, bail;
+                    // the stop flag is checked at least once per watchdog
+                    // period.
+                    Queued queued = parked;
+                    parked = null;
+                    if (queued == null) {
+                        queued = eventsQueue.poll(WATCHDOG_MS, TimeUnit.MILLISECONDS);
+                        roomFreed();
+                    }
+                    if (queued == null || queued.event == KILL_PILL) {
+                        continue;
+                    }
+                    if (queued.event == DRAIN_PILL) {
+                        stopped = true;
+                        drained.countDown();
+                        break;
+                    }
+                    if (queued.after != null && !awaitPredecessors(queued.after)) {
+                        parked = queued;
+                        continue;
+                    }
+                    try {
+                        process(queued.event);
+                    } finally {
+                        completed.incrementAndGet();
+                        Thread awaiting = waiter;
+                        if (awaiting != null) {
+                            LockSupport.unpark(awaiting);
+                        }
                     }
                 } catch (InterruptedException e) {
                     log.warn("Dispatch loop interrupted");
@@ -188,14 +612,48 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             log.info("Dispatch loop({}) terminated", name);
         }
 
+        private void awaitRelease() {
+            while (!stopped) {
+                try {
+                    if (gate.await(WATCHDOG_MS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    log.debug("Dispatch loop({}) interrupted while held", name);
+                }
+            }
+        }
+
+        // Waits until the awaited lanes have delivered the given number of
+        // events each; false if the lane got stopped meanwhile.
+        private boolean awaitPredecessors(long[] after) {
+            for (int i = 0; i < awaited.length; i++) {
+                DispatchLane lane = awaited[i];
+                while (lane.completed.get() < after[i]) {
+                    if (stopped) {
+                        return false;
+                    }
+                    lane.waiter = Thread.currentThread();
+                    if (lane.completed.get() < after[i]) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(WATCHDOG_MS));
+                    }
+                    lane.waiter = null;
+                }
+            }
+            return true;
+        }
+
         // Locate the sink for the event class and use it to process the event
         @SuppressWarnings("unchecked")
         private void process(Event event) {
+            SinkMetrics metrics = sinkMetrics(event.getClass());
+            metrics.dispatched(event);
             EventSink sink = getSink(event.getClass());
             if (sink != null) {
                 lastSink = sink;
                 stopwatch.start();
                 sink.process(event);
+                metrics.processed(stopwatch.elapsed(TimeUnit.NANOSECONDS));
                 stopwatch.reset();
             } else {
                 log.warn("No sink registered for event class {}",
@@ -205,7 +663,7 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
         void stop() {
             stopped = true;
-            add(KILL_PILL);
+            eventsQueue.add(new Queued(KILL_PILL, null));
             if (null != dispatchFuture) {
                 dispatchFuture.cancel(true);
             }
@@ -218,6 +676,50 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             startWatchdog();
         }
 
+        // Lets a lane started held back deliver its events.
+        void release() {
+            gate.countDown();
+        }
+
+        // Stops the running lane once it has delivered all its events; no
+        // more events are posted to it by then.
+        void retire() {
+            eventsQueue.add(new Queued(DRAIN_PILL, null));
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (drained.await(Math.max(maxProcessMillis, WATCHDOG_MS),
+                                      TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                    log.info("Waiting for dispatch loop({}) to deliver {} event(s)",
+                             name, queueDepth());
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            stopWatchdog();
+            executor.shutdown();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Hands the events of the lane, which is not running, to the consumer.
+        void drain(Consumer<Event> consumer) {
+            Queued queued = parked;
+            parked = null;
+            if (queued != null) {
+                consumer.accept(queued.event);
+            }
+            List<Queued> leftovers = new ArrayList<>();
+            eventsQueue.drainTo(leftovers);
+            leftovers.stream()
+                    .filter(q -> q.event != KILL_PILL && q.event != DRAIN_PILL)
+                    .forEach(q -> consumer.accept(q.event));
+            executor.shutdown();
+        }
+
         // Monitors event sinks to make sure none take too long to execute.
         private class Watchdog extends TimerTask {
             @Override
@@ -32,6 +32,12 @@ public final class OsgiPropertyConstants {
     public static final String MAX_EVENT_TIME_LIMIT = "maxEventTimeLimit";
     public static final int MAX_EVENT_TIME_LIMIT_DEFAULT = 2000;
 
+    public static final String EVENT_DISPATCH_LANES = "eventDispatchLanes";
+    public static final int EVENT_DISPATCH_LANES_DEFAULT = 1;
+
+    public static final String EVENT_DISPATCH_QUEUE_SIZE = "eventDispatchQueueSize";
+    public static final int EVENT_DISPATCH_QUEUE_SIZE_DEFAULT = 0;
+
     public static final String CALCULATE_PERFORMANCE_CHECK = "sharedThreadPerformanceCheck";
     public static final boolean CALCULATE_PERFORMANCE_CHECK_DEFAULT = false;
 
@@ -113,6 +119,9 @@ public final class OsgiPropertyConstants {
     public static final String IM_NUM_THREADS = "numThreads";
     public static final int IM_NUM_THREADS_DEFAULT = 12;
 
+    public static final String IM_MAX_IN_FLIGHT_BATCHES = "maxInFlightBatches";
+    public static final int IM_MAX_IN_FLIGHT_BATCHES_DEFAULT = 1;
+
     public static final String MM_NUM_THREADS = "numThreads";
     public static final int MM_NUM_THREADS_DEFAULT = 12;
 
@@ -27,8 +27,9 @@ import java.util.Map;
 import java.util.Timer;
 
 /**
- * An accumulator for building batches of intent operations. Only one batch should
- * be in process per instance at a time.
+ * An accumulator for building batches of intent operations. A new batch is
+ * only handed to the delegate once the delegate signals that it is ready for
+ * it, which bounds the number of batches in process per instance.
  */
 public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
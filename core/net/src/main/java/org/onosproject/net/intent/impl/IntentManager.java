@@ -15,6 +15,12 @@
  */
 package org.onosproject.net.intent.impl;
 
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
@@ -45,6 +51,7 @@ import org.onosproject.net.intent.Key;
 import org.onosproject.net.intent.ObjectiveTrackerService;
 import org.onosproject.net.intent.PointToPointIntent;
 import org.onosproject.net.intent.TopologyChangeDelegate;
+import org.onosproject.net.intent.WorkPartitionService;
 import org.onosproject.net.intent.impl.compiler.PointToPointIntentCompiler;
 import org.onosproject.net.intent.impl.phase.FinalIntentProcessPhase;
 import org.onosproject.net.intent.impl.phase.IntentProcessPhase;
@@ -58,8 +65,10 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
@@ -67,7 +76,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -75,6 +87,8 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.OsgiPropertyConstants.IM_MAX_IN_FLIGHT_BATCHES;
+import static org.onosproject.net.OsgiPropertyConstants.IM_MAX_IN_FLIGHT_BATCHES_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_THREADS;
 import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_THREADS_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL;
@@ -103,7 +117,8 @@ import static org.slf4j.LoggerFactory.getLogger;
     },
     property = {
         IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL + ":Boolean=" + IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL_DEFAULT,
-        IM_NUM_THREADS + ":Integer=" + IM_NUM_THREADS_DEFAULT
+        IM_NUM_THREADS + ":Integer=" + IM_NUM_THREADS_DEFAULT,
+        IM_MAX_IN_FLIGHT_BATCHES + ":Integer=" + IM_MAX_IN_FLIGHT_BATCHES_DEFAULT
     }
 )
 public class IntentManager
@@ -120,12 +135,26 @@ public class IntentManager
     private static final EnumSet<IntentState> WITHDRAW
             = EnumSet.of(WITHDRAW_REQ, WITHDRAWING, WITHDRAWN);
 
+    private static final String METRICS_COMPONENT = "IntentManager";
+    private static final String METRICS_FEATURE = "batches";
+    private static final String BATCH_LATENCY = "batchLatency";
+    private static final String BATCH_SIZE = "batchSize";
+    private static final String IN_FLIGHT_BATCHES = "inFlightBatches";
+    private static final String IN_FLIGHT_INTENTS = "inFlightIntents";
+
     /** Indicates whether skipping resource releases on withdrawal is enabled or not. */
     private boolean skipReleaseResourcesOnWithdrawal = IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL_DEFAULT;
 
     /** Number of worker threads. */
     private int numThreads = IM_NUM_THREADS_DEFAULT;
 
+    /**
+     * Maximum number of intent batches processed at a time; if more than one,
+     * the operations of each batch are processed per work partition, after
+     * those of the previous batches in the same partition.
+     */
+    private int maxInFlightBatches = IM_MAX_IN_FLIGHT_BATCHES_DEFAULT;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected CoreService coreService;
 
@@ -156,6 +185,13 @@ public class IntentManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     private NetworkConfigService networkConfigService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected WorkPartitionService partitionService;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
     private ExecutorService batchExecutor;
     private ExecutorService workerExecutor;
 
@@ -171,6 +207,13 @@ public class IntentManager
 
     private final IntentAccumulator accumulator = new IntentAccumulator(batchDelegate);
 
+    // Completion of the operations last dispatched for each work partition
+    private final Map<Integer, CompletableFuture<Void>> partitionTails = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+    private final AtomicInteger inFlightIntents = new AtomicInteger();
+    private Histogram batchLatency = new Histogram(new ExponentiallyDecayingReservoir());
+    private Histogram batchSize = new Histogram(new ExponentiallyDecayingReservoir());
+
     @Activate
     public void activate() {
         configService.registerProperties(getClass());
@@ -187,6 +230,17 @@ public class IntentManager
         Intent.unbindIdGenerator(idGenerator);
         Intent.bindIdGenerator(idGenerator);
         installCoordinator = new InstallCoordinator(installerRegistry, store);
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            batchLatency = metricsService.createHistogram(component, feature, BATCH_LATENCY);
+            batchSize = metricsService.createHistogram(component, feature, BATCH_SIZE);
+            metricsService.registerMetric(component, feature, IN_FLIGHT_BATCHES,
+                                          (Gauge<Integer>) inFlightBatches::get);
+            metricsService.registerMetric(component, feature, IN_FLIGHT_INTENTS,
+                                          (Gauge<Integer>) inFlightIntents::get);
+        }
         log.info("Started");
     }
 
@@ -203,6 +257,15 @@ public class IntentManager
         batchExecutor.shutdown();
         workerExecutor.shutdown();
         Intent.unbindIdGenerator(idGenerator);
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            metricsService.removeMetric(component, feature, BATCH_LATENCY);
+            metricsService.removeMetric(component, feature, BATCH_SIZE);
+            metricsService.removeMetric(component, feature, IN_FLIGHT_BATCHES);
+            metricsService.removeMetric(component, feature, IN_FLIGHT_INTENTS);
+        }
         log.info("Stopped");
     }
 
@@ -239,10 +302,18 @@ public class IntentManager
             }
             logConfig("Reconfigured number of worker threads");
         }
+
+        s = Tools.get(context.getProperties(), IM_MAX_IN_FLIGHT_BATCHES);
+        int newMaxInFlightBatches = isNullOrEmpty(s) ? maxInFlightBatches : Integer.parseInt(s.trim());
+        if (newMaxInFlightBatches != maxInFlightBatches && newMaxInFlightBatches > 0) {
+            maxInFlightBatches = newMaxInFlightBatches;
+            logConfig("Reconfigured maximum number of in-flight batches");
+        }
     }
 
     private void logConfig(String prefix) {
-        log.info("{} with skipReleaseResourcesOnWithdrawal = {}", prefix, skipReleaseResourcesOnWithdrawal);
+        log.info("{} with skipReleaseResourcesOnWithdrawal = {}, maxInFlightBatches = {}",
+                 prefix, skipReleaseResourcesOnWithdrawal, maxInFlightBatches);
     }
 
     @Override
@@ -518,49 +589,30 @@ public class IntentManager
     }
 
     private class InternalBatchDelegate implements IntentBatchDelegate {
+        // Batches which did not yet signal the accumulator for the next one
+        private int heldBatches;
+
         @Override
         public void execute(Collection<IntentData> operations) {
             log.debug("Execute {} operation(s).", operations.size());
             log.trace("Execute operations: {}", operations);
 
-            // batchExecutor is single-threaded, so only one batch is in flight at a time
-            CompletableFuture.runAsync(() -> {
-                // process intent until the phase reaches one of the final phases
-                List<CompletableFuture<IntentData>> futures = operations.stream()
-                        .map(data -> {
-                            log.debug("Start processing of {} {}@{}", data.request(), data.key(), data.version());
-                            return data;
-                        })
-                        .map(x -> CompletableFuture.completedFuture(x)
-                                .thenApply(IntentManager.this::createInitialPhase)
-                                .thenApplyAsync(IntentProcessPhase::process, workerExecutor)
-                                .thenApply(FinalIntentProcessPhase::data)
-                                .exceptionally(e -> {
-                                    // When the future fails, we update the Intent to simulate the failure of
-                                    // the installation/withdrawal phase and we save in the current map. In
-                                    // the next round the CleanUp Thread will pick this Intent again.
-                                    log.warn("Future failed", e);
-                                    log.warn("Intent {} - state {} - request {}",
-                                             x.key(), x.state(), x.request());
-                                    switch (x.state()) {
-                                        case INSTALL_REQ:
-                                        case INSTALLING:
-                                        case WITHDRAW_REQ:
-                                        case WITHDRAWING:
-                                            // TODO should we swtich based on current
-                                            IntentData current = store.getIntentData(x.key());
-                                            return IntentData.nextState(current, FAILED);
-                                        default:
-                                            return null;
-                                    }
-                                }))
-                        .collect(Collectors.toList());
-
-                // write multiple data to store in order
-                store.batchWrite(Tools.allOf(futures).join().stream()
-                                         .filter(Objects::nonNull)
-                                         .collect(Collectors.toList()));
-            }, batchExecutor).exceptionally(e -> {
+            long start = System.nanoTime();
+            inFlightIntents.addAndGet(operations.size());
+            batchSize.update(operations.size());
+
+            CompletableFuture<Void> future;
+            if (maxInFlightBatches > 1) {
+                future = executePipelined(operations);
+            } else {
+                // batchExecutor is single-threaded, so only one batch is in flight at a time;
+                // any batches still pipelined from before a reconfiguration are awaited first
+                future = CompletableFuture.allOf(partitionTails.values().toArray(new CompletableFuture[0]))
+                        .thenRunAsync(() -> writeBatch(Tools.allOf(processOperations(operations)).join()),
+                                      batchExecutor);
+            }
+
+            future.exceptionally(e -> {
                 log.error("Error submitting batches:", e);
                 // FIXME incomplete Intents should be cleaned up
                 //       (transition to FAILED, etc.)
@@ -569,11 +621,95 @@ public class IntentManager
                 // TODO: maybe we should do more?
                 log.error("Walk the plank, matey...");
                 return null;
-            }).thenRun(accumulator::ready);
+            }).thenRun(() -> {
+                batchLatency.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                inFlightIntents.addAndGet(-operations.size());
+                batchDone();
+            });
+            batchStarted();
+        }
+
+        // Accepts the next batch right away if the pipeline has room for it,
+        // or else once an earlier batch is done; either way, the accumulator
+        // is signalled exactly once per batch.
+        private synchronized void batchStarted() {
+            if (inFlightBatches.incrementAndGet() < maxInFlightBatches) {
+                accumulator.ready();
+            } else {
+                heldBatches++;
+            }
+        }
+
+        private synchronized void batchDone() {
+            if (inFlightBatches.decrementAndGet() < maxInFlightBatches && heldBatches > 0) {
+                heldBatches--;
+                accumulator.ready();
+            }
+        }
 
+        // Processes the operations of each work partition once those of the
+        // previous batches in the same partition are done. Operations on the
+        // same intent key always fall into the same partition, so they are
+        // never processed concurrently, while the batches may otherwise overlap.
+        private CompletableFuture<Void> executePipelined(Collection<IntentData> operations) {
+            Map<Integer, List<IntentData>> partitions = operations.stream()
+                    .collect(Collectors.groupingBy(data -> partitionService.getPartition(data.key(), Key::hash)));
+
+            // batches are dispatched one at a time by the accumulator
+            List<CompletableFuture<Void>> futures = new ArrayList<>(partitions.size());
+            partitions.forEach((partition, data) -> {
+                CompletableFuture<Void> tail = partitionTails.get(partition);
+                CompletableFuture<Void> future = (tail != null ? tail : CompletableFuture.<Void>completedFuture(null))
+                        .thenComposeAsync(v -> Tools.allOf(processOperations(data)), batchExecutor)
+                        .thenAccept(IntentManager.this::writeBatch);
+                // failure of this batch must not hold back the later ones
+                partitionTails.put(partition, future.handle((r, e) -> null));
+                futures.add(future);
+            });
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
         }
     }
 
+    private List<CompletableFuture<IntentData>> processOperations(Collection<IntentData> operations) {
+        // process intent until the phase reaches one of the final phases
+        return operations.stream()
+                .map(data -> {
+                    log.debug("Start processing of {} {}@{}", data.request(), data.key(), data.version());
+                    return data;
+                })
+                .map(x -> CompletableFuture.completedFuture(x)
+                        .thenApply(IntentManager.this::createInitialPhase)
+                        .thenApplyAsync(IntentProcessPhase::process, workerExecutor)
+                        .thenApply(FinalIntentProcessPhase::data)
+                        .exceptionally(e -> {
+                            // When the future fails, we update the Intent to simulate the failure of
+                            // the installation/withdrawal phase and we save in the current map. In
+                            // the next round the CleanUp Thread will pick this Intent again.
+                            log.warn("Future failed", e);
+                            log.warn("Intent {} - state {} - request {}",
+                                     x.key(), x.state(), x.request());
+                            switch (x.state()) {
+                                case INSTALL_REQ:
+                                case INSTALLING:
+                                case WITHDRAW_REQ:
+                                case WITHDRAWING:
+                                    // TODO should we swtich based on current
+                                    IntentData current = store.getIntentData(x.key());
+                                    return IntentData.nextState(current, FAILED);
+                                default:
+                                    return null;
+                            }
+                        }))
+                .collect(Collectors.toList());
+    }
+
+    private void writeBatch(List<IntentData> data) {
+        // write multiple data to store in order
+        store.batchWrite(data.stream()
+                                 .filter(Objects::nonNull)
+                                 .collect(Collectors.toList()));
+    }
+
     private IntentProcessPhase createInitialPhase(IntentData data) {
         IntentData pending = store.getPendingData(data.key());
         if (pending == null || pending.version().isNewerThan(data.version())) {
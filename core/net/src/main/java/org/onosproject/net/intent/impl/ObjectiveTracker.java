@@ -15,10 +15,13 @@
  */
 package org.onosproject.net.intent.impl;
 
-import com.google.common.collect.HashMultimap;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.SetMultimap;
-import org.onosproject.event.Event;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.ElementId;
 import org.onosproject.net.HostId;
@@ -58,17 +61,19 @@ import org.slf4j.Logger;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Multimaps.synchronizedSetMultimap;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
@@ -89,12 +94,18 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
     private final Logger log = getLogger(getClass());
 
-    private final SetMultimap<LinkKey, Key> intentsByLink =
-            //TODO this could be slow as a point of synchronization
-            synchronizedSetMultimap(HashMultimap.<LinkKey, Key>create());
+    private static final String METRICS_COMPONENT = "ObjectiveTracker";
+    private static final String METRICS_FEATURE = "topologyChange";
+    private static final String AFFECTED_INTENTS_TIME = "affectedIntentsTime";
+    private static final String AFFECTED_INTENTS = "affectedIntents";
 
-    private final SetMultimap<ElementId, Key> intentsByDevice =
-            synchronizedSetMultimap(HashMultimap.<ElementId, Key>create());
+    // Number of link reasons of a topology event above which the affected
+    // intents are looked up in parallel
+    private static final int PARALLEL_LOOKUP_THRESHOLD = 32;
+
+    private final ResourceIndex<LinkKey> intentsByLink = new ResourceIndex<>();
+
+    private final ResourceIndex<ElementId> intentsByDevice = new ResourceIndex<>();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected TopologyService topologyService;
@@ -117,6 +128,10 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected WorkPartitionService partitionService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
     private ExecutorService executorService =
             newSingleThreadExecutor(groupedThreads("onos/intent", "objectivetracker", log));
     private ScheduledExecutorService executor =
@@ -131,6 +146,10 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
     protected final AtomicBoolean updateScheduled = new AtomicBoolean(false);
 
+    // not registered until activated
+    private Timer affectedIntentsTime = new Timer();
+    private Histogram affectedIntents = new Histogram(new ExponentiallyDecayingReservoir());
+
     /**
      * Hook for wiring up optional reference to a service.
      *
@@ -161,6 +180,13 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         deviceService.addListener(deviceListener);
         hostService.addListener(hostListener);
         partitionService.addListener(partitionListener);
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            affectedIntentsTime = metricsService.createTimer(component, feature, AFFECTED_INTENTS_TIME);
+            affectedIntents = metricsService.createHistogram(component, feature, AFFECTED_INTENTS);
+        }
         scheduleIntentUpdate(1);
         log.info("Started");
     }
@@ -172,6 +198,13 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         deviceService.removeListener(deviceListener);
         hostService.removeListener(hostListener);
         partitionService.removeListener(partitionListener);
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            metricsService.removeMetric(component, feature, AFFECTED_INTENTS_TIME);
+            metricsService.removeMetric(component, feature, AFFECTED_INTENTS);
+        }
         log.info("Stopped");
     }
 
@@ -206,9 +239,9 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
                                     Collection<NetworkResource> resources) {
         for (NetworkResource resource : resources) {
             if (resource instanceof Link) {
-                intentsByLink.put(linkKey((Link) resource), intentKey);
+                intentsByLink.add(linkKey((Link) resource), intentKey);
             } else if (resource instanceof ElementId) {
-                intentsByDevice.put((ElementId) resource, intentKey);
+                intentsByDevice.add((ElementId) resource, intentKey);
             }
         }
     }
@@ -220,7 +253,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
             if (resource instanceof Link) {
                 intentsByLink.remove(linkKey((Link) resource), intentKey);
             } else if (resource instanceof ElementId) {
-                intentsByDevice.remove(resource, intentKey);
+                intentsByDevice.remove((ElementId) resource, intentKey);
             }
         }
     }
@@ -241,7 +274,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         if (log.isTraceEnabled()) {
             log.trace("intent {}, old: {}, new: {}, installableCount: {}, resourceCount: {}",
                       key,
-                      intentsByDevice.values().contains(key),
+                      intentsByDevice.contains(key),
                       isLocal && isInstalled,
                       installables.size(),
                       intent.resources().size() +
@@ -297,27 +330,32 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
                 delegate.triggerCompile(Collections.emptySet(), true);
 
             } else {
-                Set<Key> intentsToRecompile = new HashSet<>();
-                boolean dontRecompileAllFailedIntents = true;
-
-                // Scan through the list of reasons and keep accruing all
-                // intents that need to be recompiled.
-                for (Event reason : event.reasons()) {
-                    if (reason instanceof LinkEvent) {
-                        LinkEvent linkEvent = (LinkEvent) reason;
-                        final LinkKey linkKey = linkKey(linkEvent.subject());
-                        synchronized (intentsByLink) {
+                List<LinkEvent> linkEvents = event.reasons().stream()
+                        .filter(reason -> reason instanceof LinkEvent)
+                        .map(reason -> (LinkEvent) reason)
+                        .collect(Collectors.toList());
+                boolean dontRecompileAllFailedIntents = linkEvents.stream()
+                        .allMatch(linkEvent -> linkEvent.type() == LINK_REMOVED ||
+                                (linkEvent.type() == LINK_UPDATED &&
+                                linkEvent.subject().isExpected()));
+
+                // Accrue all intents that need to be recompiled; the index
+                // is not locked, so the links can be looked up in parallel.
+                final Timer.Context time = affectedIntentsTime.time();
+                Stream<LinkEvent> lookups = linkEvents.size() > PARALLEL_LOOKUP_THRESHOLD ?
+                        linkEvents.parallelStream() : linkEvents.stream();
+                Set<Key> intentsToRecompile = lookups
+                        .flatMap(linkEvent -> {
+                            final LinkKey linkKey = linkKey(linkEvent.subject());
                             Set<Key> intentKeys = intentsByLink.get(linkKey);
                             log.debug("recompile triggered by LinkEvent {} ({}) for {}",
                                     linkKey, linkEvent.type(), intentKeys);
-                            intentsToRecompile.addAll(intentKeys);
-                        }
-                        dontRecompileAllFailedIntents = dontRecompileAllFailedIntents &&
-                                (linkEvent.type() == LINK_REMOVED ||
-                                (linkEvent.type() == LINK_UPDATED &&
-                                linkEvent.subject().isExpected()));
-                    }
-                }
+                            return intentKeys.stream();
+                        })
+                        .collect(Collectors.toSet());
+                time.stop();
+                affectedIntents.update(intentsToRecompile.size());
+
                 delegate.triggerCompile(intentsToRecompile, !dontRecompileAllFailedIntents);
             }
         }
@@ -362,11 +400,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
             // TODO should we recompile on available==true?
 
-            final ImmutableSet<Key> snapshot;
-            synchronized (intentsByDevice) {
-                snapshot = ImmutableSet.copyOf(intentsByDevice.get(id));
-            }
-            delegate.triggerCompile(snapshot, available);
+            delegate.triggerCompile(intentsByDevice.get(id), available);
         }
     }
 
@@ -445,6 +479,44 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         }
     }
 
+    /**
+     * Index of the intents tracking each resource.
+     * <p>
+     * Updates of a resource are serialized by the lock of the map bin
+     * holding it, so updates of unrelated resources do not contend, and
+     * lookups do not lock at all.
+     *
+     * @param <R> type of resource
+     */
+    private static final class ResourceIndex<R> {
+
+        private final ConcurrentMap<R, Set<Key>> intents = new ConcurrentHashMap<>();
+
+        void add(R resource, Key intentKey) {
+            intents.compute(resource, (r, keys) -> {
+                Set<Key> updated = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+                updated.add(intentKey);
+                return updated;
+            });
+        }
+
+        void remove(R resource, Key intentKey) {
+            intents.computeIfPresent(resource, (r, keys) -> {
+                keys.remove(intentKey);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+
+        ImmutableSet<Key> get(R resource) {
+            Set<Key> keys = intents.get(resource);
+            return keys == null ? ImmutableSet.of() : ImmutableSet.copyOf(keys);
+        }
+
+        boolean contains(Key intentKey) {
+            return intents.values().stream().anyMatch(keys -> keys.contains(intentKey));
+        }
+    }
+
     private final class InternalPartitionListener implements WorkPartitionEventListener {
         @Override
         public void event(WorkPartitionEvent event) {
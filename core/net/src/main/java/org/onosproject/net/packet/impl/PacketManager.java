@@ -16,14 +16,18 @@
 package org.onosproject.net.packet.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import org.onlab.packet.Ethernet;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
+import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
@@ -32,6 +36,9 @@ import org.onosproject.net.driver.DriverService;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.TrafficSelector;
 import org.onosproject.net.flow.TrafficTreatment;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.EthTypeCriterion;
+import org.onosproject.net.flow.criteria.PortCriterion;
 import org.onosproject.net.flowobjective.DefaultForwardingObjective;
 import org.onosproject.net.flowobjective.FlowObjectiveService;
 import org.onosproject.net.flowobjective.ForwardingObjective;
@@ -63,14 +70,24 @@ import org.onosproject.net.packet.PacketInFilter;
 import org.onosproject.net.packet.PacketInFilter.FilterAction;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-
-
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.security.AppGuard.checkPermission;
@@ -93,8 +110,12 @@ public class PacketManager
     private static final String ERROR_NULL_SELECTOR = "Selector cannot be null";
     private static final String ERROR_NULL_APP_ID = "Application ID cannot be null";
     private static final String ERROR_NULL_DEVICE_ID = "Device ID cannot be null";
+    private static final String ERROR_UNSUPPORTED_INTEREST =
+            "Interest can only select on ETH_TYPE and IN_PORT";
     private static final String SUPPORT_PACKET_REQUEST_PROPERTY = "supportPacketRequest";
 
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     private final PacketStoreDelegate delegate = new InternalStoreDelegate();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
@@ -121,6 +142,9 @@ public class PacketManager
 
     private final List<ProcessorEntry> processors = Lists.newCopyOnWriteArrayList();
 
+    // Processors indexed by the ethertype of the packets they are interested in
+    private volatile ProcessorIndex processorIndex = new ProcessorIndex(ImmutableList.of());
+
     private final PacketDriverProvider defaultProvider = new PacketDriverProvider();
 
     private ApplicationId appId;
@@ -157,6 +181,7 @@ public class PacketManager
         store.unsetDelegate(delegate);
         deviceService.removeListener(deviceListener);
         eventHandlingExecutor.shutdown();
+        processors.forEach(ProcessorEntry::shutdown);
         log.info("Stopped");
     }
 
@@ -169,16 +194,50 @@ public class PacketManager
     public void addProcessor(PacketProcessor processor, int priority) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
-        ProcessorEntry entry = new ProcessorEntry(processor, priority);
+        addEntry(new ProcessorEntry(processor, priority, null, null, null, 0));
+    }
 
+    @Override
+    public void addProcessor(PacketProcessor processor, int priority,
+                             TrafficSelector interest, Optional<DeviceId> deviceId) {
+        addProcessor(processor, priority, interest, deviceId, 0);
+    }
+
+    @Override
+    public void addProcessor(PacketProcessor processor, int priority,
+                             TrafficSelector interest, Optional<DeviceId> deviceId,
+                             int queueSize) {
+        checkPermission(PACKET_EVENT);
+        checkNotNull(processor, ERROR_NULL_PROCESSOR);
+        checkNotNull(interest, ERROR_NULL_SELECTOR);
+        checkNotNull(deviceId, ERROR_NULL_DEVICE_ID);
+        checkArgument(queueSize >= 0, "Queue size cannot be negative");
+
+        Short ethType = null;
+        PortNumber inPort = null;
+        for (Criterion criterion : interest.criteria()) {
+            if (criterion.type() == Criterion.Type.ETH_TYPE) {
+                ethType = ((EthTypeCriterion) criterion).ethType().toShort();
+            } else if (criterion.type() == Criterion.Type.IN_PORT) {
+                inPort = ((PortCriterion) criterion).port();
+            } else {
+                throw new IllegalArgumentException(ERROR_UNSUPPORTED_INTEREST);
+            }
+        }
+        addEntry(new ProcessorEntry(processor, priority, ethType,
+                                    deviceId.orElse(null), inPort, queueSize));
+    }
+
+    private synchronized void addEntry(ProcessorEntry entry) {
         // Insert the new processor according to its priority.
         int i = 0;
         for (; i < processors.size(); i++) {
-            if (priority < processors.get(i).priority()) {
+            if (entry.priority() < processors.get(i).priority()) {
                 break;
             }
         }
         processors.add(i, entry);
+        processorIndex = new ProcessorIndex(processors);
     }
 
     @Override
@@ -187,10 +246,13 @@ public class PacketManager
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
 
         // Remove the processor entry.
-        for (int i = 0; i < processors.size(); i++) {
-            if (processors.get(i).processor() == processor) {
-                processors.remove(i);
-                break;
+        synchronized (this) {
+            for (int i = 0; i < processors.size(); i++) {
+                if (processors.get(i).processor() == processor) {
+                    processors.remove(i).shutdown();
+                    processorIndex = new ProcessorIndex(processors);
+                    break;
+                }
             }
         }
     }
@@ -476,24 +538,11 @@ public class PacketManager
                 }
                 return;
             }
-            // TODO filter packets sent to processors based on registrations
-            for (ProcessorEntry entry : processors) {
-                try {
-                    if (log.isTraceEnabled()) {
-                        log.trace("Starting packet processing by {}",
-                                entry.processor().getClass().getName());
-                    }
-
-                    long start = System.nanoTime();
-                    entry.processor().process(context);
-                    entry.addNanos(System.nanoTime() - start);
-
-                    if (log.isTraceEnabled()) {
-                        log.trace("Finished packet processing by {}",
-                                entry.processor().getClass().getName());
-                    }
-                } catch (Exception e) {
-                    log.warn("Packet processor {} threw an exception", entry.processor(), e);
+            Ethernet eth = context.inPacket().parsed();
+            ConnectPoint receivedFrom = context.inPacket().receivedFrom();
+            for (ProcessorEntry entry : processorIndex.processors(eth)) {
+                if (entry.isInterested(receivedFrom)) {
+                    entry.submit(context);
                 }
             }
         }
@@ -579,18 +628,79 @@ public class PacketManager
         }
     }
 
+    /**
+     * Immutable index of the packet processors, listing for each ethertype
+     * the processors interested in it, in the order of their priority.
+     */
+    private static final class ProcessorIndex {
+        private final Map<Short, List<ProcessorEntry>> byEthType;
+        private final List<ProcessorEntry> anyEthType;
+
+        ProcessorIndex(List<ProcessorEntry> entries) {
+            Set<Short> ethTypes = new TreeSet<>();
+            List<ProcessorEntry> any = new ArrayList<>();
+            for (ProcessorEntry entry : entries) {
+                if (entry.ethType == null) {
+                    any.add(entry);
+                } else {
+                    ethTypes.add(entry.ethType);
+                }
+            }
+
+            Map<Short, List<ProcessorEntry>> map = new HashMap<>();
+            for (Short ethType : ethTypes) {
+                List<ProcessorEntry> list = new ArrayList<>();
+                for (ProcessorEntry entry : entries) {
+                    if (entry.ethType == null || entry.ethType.equals(ethType)) {
+                        list.add(entry);
+                    }
+                }
+                map.put(ethType, ImmutableList.copyOf(list));
+            }
+            this.byEthType = ImmutableMap.copyOf(map);
+            this.anyEthType = ImmutableList.copyOf(any);
+        }
+
+        // Returns the processors which may be interested in the given frame.
+        List<ProcessorEntry> processors(Ethernet eth) {
+            if (eth == null) {
+                return anyEthType;
+            }
+            return byEthType.getOrDefault(eth.getEtherType(), anyEthType);
+        }
+    }
+
     /**
      * Entity for tracking stats for a packet processor.
      */
     private class ProcessorEntry implements PacketProcessorEntry {
         private final PacketProcessor processor;
         private final int priority;
-        private long invocations = 0;
-        private long nanos = 0;
+        private final Short ethType;
+        private final DeviceId deviceId;
+        private final PortNumber inPort;
+        private final ExecutorService executor;
 
-        public ProcessorEntry(PacketProcessor processor, int priority) {
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder drops = new LongAdder();
+
+        private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+        private final LongAdder windowCount = new LongAdder();
+        private volatile double rate = 0;
+
+        public ProcessorEntry(PacketProcessor processor, int priority, Short ethType,
+                              DeviceId deviceId, PortNumber inPort, int queueSize) {
             this.processor = processor;
             this.priority = priority;
+            this.ethType = ethType;
+            this.deviceId = deviceId;
+            this.inPort = inPort;
+            this.executor = queueSize == 0 ? null :
+                    new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                           new ArrayBlockingQueue<>(queueSize),
+                                           groupedThreads("onos/net/packet",
+                                                          "processor-" + priority + "-%d", log));
         }
 
         @Override
@@ -605,22 +715,94 @@ public class PacketManager
 
         @Override
         public long invocations() {
-            return invocations;
+            return invocations.sum();
         }
 
         @Override
         public long totalNanos() {
-            return nanos;
+            return nanos.sum();
         }
 
         @Override
         public long averageNanos() {
-            return invocations > 0 ? nanos / invocations : 0;
+            long count = invocations.sum();
+            return count > 0 ? nanos.sum() / count : 0;
+        }
+
+        @Override
+        public long drops() {
+            return drops.sum();
+        }
+
+        @Override
+        public double packetRate() {
+            long elapsed = System.nanoTime() - windowStart.get();
+            if (elapsed < 2 * RATE_WINDOW_NANOS) {
+                return rate;
+            }
+            // No packet closed the current window in a while; report its rate.
+            return windowCount.sum() * (double) RATE_WINDOW_NANOS / elapsed;
+        }
+
+        // Indicates whether a packet received at the given connect point
+        // is of interest; the ethertype is already matched by the index.
+        boolean isInterested(ConnectPoint receivedFrom) {
+            return (deviceId == null || deviceId.equals(receivedFrom.deviceId())) &&
+                    (inPort == null || inPort.equals(receivedFrom.port()));
+        }
+
+        // Hands the packet to the processor, either inline or via its executor.
+        void submit(PacketContext context) {
+            if (executor == null) {
+                process(context);
+                return;
+            }
+            try {
+                executor.execute(() -> process(context));
+            } catch (RejectedExecutionException e) {
+                drops.increment();
+                if (log.isTraceEnabled()) {
+                    log.trace("Packet dropped by processor {}", processor.getClass().getName());
+                }
+            }
+        }
+
+        private void process(PacketContext context) {
+            try {
+                if (log.isTraceEnabled()) {
+                    log.trace("Starting packet processing by {}",
+                            processor.getClass().getName());
+                }
+
+                long start = System.nanoTime();
+                processor.process(context);
+                addNanos(System.nanoTime() - start);
+
+                if (log.isTraceEnabled()) {
+                    log.trace("Finished packet processing by {}",
+                            processor.getClass().getName());
+                }
+            } catch (Exception e) {
+                log.warn("Packet processor {} threw an exception", processor, e);
+            }
         }
 
         void addNanos(long nanos) {
-            this.nanos += nanos;
-            this.invocations++;
+            this.nanos.add(nanos);
+            this.invocations.increment();
+            this.windowCount.increment();
+
+            long now = System.nanoTime();
+            long start = windowStart.get();
+            if (now - start >= RATE_WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+                rate = windowCount.sumThenReset() * (double) RATE_WINDOW_NANOS / (now - start);
+            }
+        }
+
+        void shutdown() {
+            if (executor != null) {
+                executor.shutdown();
+            }
         }
     }
 }
@@ -89,48 +89,50 @@ import org.onosproject.net.pi.runtime.PiTernaryFieldMatch;
 import org.onosproject.net.pi.service.PiTranslationException;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 import static java.lang.String.format;
 import static org.onlab.util.ImmutableByteSequence.ByteSequenceTrimException;
 import static org.onosproject.net.pi.impl.CriterionTranslator.CriterionTranslatorException;
+import static org.onosproject.net.pi.impl.PiUtils.intern;
 
 /**
  * Helper class to translate criterion instances to PI field matches.
  */
 final class CriterionTranslatorHelper {
-    private static final Map<Class<? extends Criterion>, Class<? extends CriterionTranslator>> TRANSLATORS =
+    private static final Map<Class<? extends Criterion>, Supplier<CriterionTranslator>> TRANSLATORS =
             // Add here new CriterionTranslator implementations.
-            new ImmutableMap.Builder<Class<? extends Criterion>, Class<? extends CriterionTranslator>>()
-                    .put(PortCriterion.class, PortCriterionTranslator.class)
-                    .put(EthCriterion.class, EthCriterionTranslator.class)
-                    .put(EthTypeCriterion.class, EthTypeCriterionTranslator.class)
-                    .put(IPCriterion.class, IpCriterionTranslator.class)
-                    .put(VlanIdCriterion.class, VlanIdCriterionTranslator.class)
-                    .put(UdpPortCriterion.class, UdpPortCriterionTranslator.class)
-                    .put(IPDscpCriterion.class, IPDscpCriterionTranslator.class)
-                    .put(IPProtocolCriterion.class, IPProtocolCriterionTranslator.class)
-                    .put(IPv6ExthdrFlagsCriterion.class, IPv6ExthdrFlagsCriterionTranslator.class)
-                    .put(IPv6FlowLabelCriterion.class, IPv6FlowLabelCriterionTranslator.class)
-                    .put(IPv6NDLinkLayerAddressCriterion.class, IPv6NDLinkLayerAddressCriterionTranslator.class)
-                    .put(IPv6NDTargetAddressCriterion.class, IPv6NDTargetAddressCriterionTranslator.class)
-                    .put(IcmpCodeCriterion.class, IcmpCodeCriterionTranslator.class)
-                    .put(IcmpTypeCriterion.class, IcmpTypeCriterionTranslator.class)
-                    .put(Icmpv6CodeCriterion.class, Icmpv6CodeCriterionTranslator.class)
-                    .put(Icmpv6TypeCriterion.class, Icmpv6TypeCriterionTranslator.class)
-                    .put(MplsBosCriterion.class, MplsBosCriterionTranslator.class)
-                    .put(MplsCriterion.class, MplsCriterionTranslator.class)
-                    .put(MplsTcCriterion.class, MplsTcCriterionTranslator.class)
-                    .put(PbbIsidCriterion.class, PbbIsidCriterionTranslator.class)
-                    .put(SctpPortCriterion.class, SctpPortCriterionTranslator.class)
-                    .put(TcpFlagsCriterion.class, TcpFlagsCriterionTranslator.class)
-                    .put(TcpPortCriterion.class, TcpPortCriterionTranslator.class)
-                    .put(TunnelIdCriterion.class, TunnelIdCriterionTranslator.class)
-                    .put(VlanPcpCriterion.class, VlanPcpCriterionTranslator.class)
-                    .put(ArpHaCriterion.class, ArpHaCriterionTranslator.class)
-                    .put(ArpOpCriterion.class, ArpOpCriterionTranslator.class)
-                    .put(ArpPaCriterion.class, ArpPaCriterionTranslator.class)
-                    .put(IPEcnCriterion.class, IPEcnCriterionTranslator.class)
-                    .put(MetadataCriterion.class, MetadataCriterionTranslator.class)
+            new ImmutableMap.Builder<Class<? extends Criterion>, Supplier<CriterionTranslator>>()
+                    .put(PortCriterion.class, PortCriterionTranslator::new)
+                    .put(EthCriterion.class, EthCriterionTranslator::new)
+                    .put(EthTypeCriterion.class, EthTypeCriterionTranslator::new)
+                    .put(IPCriterion.class, IpCriterionTranslator::new)
+                    .put(VlanIdCriterion.class, VlanIdCriterionTranslator::new)
+                    .put(UdpPortCriterion.class, UdpPortCriterionTranslator::new)
+                    .put(IPDscpCriterion.class, IPDscpCriterionTranslator::new)
+                    .put(IPProtocolCriterion.class, IPProtocolCriterionTranslator::new)
+                    .put(IPv6ExthdrFlagsCriterion.class, IPv6ExthdrFlagsCriterionTranslator::new)
+                    .put(IPv6FlowLabelCriterion.class, IPv6FlowLabelCriterionTranslator::new)
+                    .put(IPv6NDLinkLayerAddressCriterion.class, IPv6NDLinkLayerAddressCriterionTranslator::new)
+                    .put(IPv6NDTargetAddressCriterion.class, IPv6NDTargetAddressCriterionTranslator::new)
+                    .put(IcmpCodeCriterion.class, IcmpCodeCriterionTranslator::new)
+                    .put(IcmpTypeCriterion.class, IcmpTypeCriterionTranslator::new)
+                    .put(Icmpv6CodeCriterion.class, Icmpv6CodeCriterionTranslator::new)
+                    .put(Icmpv6TypeCriterion.class, Icmpv6TypeCriterionTranslator::new)
+                    .put(MplsBosCriterion.class, MplsBosCriterionTranslator::new)
+                    .put(MplsCriterion.class, MplsCriterionTranslator::new)
+                    .put(MplsTcCriterion.class, MplsTcCriterionTranslator::new)
+                    .put(PbbIsidCriterion.class, PbbIsidCriterionTranslator::new)
+                    .put(SctpPortCriterion.class, SctpPortCriterionTranslator::new)
+                    .put(TcpFlagsCriterion.class, TcpFlagsCriterionTranslator::new)
+                    .put(TcpPortCriterion.class, TcpPortCriterionTranslator::new)
+                    .put(TunnelIdCriterion.class, TunnelIdCriterionTranslator::new)
+                    .put(VlanPcpCriterion.class, VlanPcpCriterionTranslator::new)
+                    .put(ArpHaCriterion.class, ArpHaCriterionTranslator::new)
+                    .put(ArpOpCriterion.class, ArpOpCriterionTranslator::new)
+                    .put(ArpPaCriterion.class, ArpPaCriterionTranslator::new)
+                    .put(IPEcnCriterion.class, IPEcnCriterionTranslator::new)
+                    .put(MetadataCriterion.class, MetadataCriterionTranslator::new)
                     .build();
 
     private CriterionTranslatorHelper() {
@@ -158,17 +160,17 @@ final class CriterionTranslatorHelper {
         }
 
         try {
-            final CriterionTranslator translator = TRANSLATORS.get(criterion.getClass()).newInstance();
+            final CriterionTranslator translator = TRANSLATORS.get(criterion.getClass()).get();
             translator.init(criterion, bitWidth);
             switch (matchType) {
                 case EXACT:
-                    return new PiExactFieldMatch(fieldId, translator.exactMatch());
+                    return new PiExactFieldMatch(fieldId, intern(translator.exactMatch()));
                 case TERNARY:
                     final Pair<ImmutableByteSequence, ImmutableByteSequence> tp = translator.ternaryMatch();
-                    return new PiTernaryFieldMatch(fieldId, tp.getLeft(), tp.getRight());
+                    return new PiTernaryFieldMatch(fieldId, intern(tp.getLeft()), intern(tp.getRight()));
                 case LPM:
                     final Pair<ImmutableByteSequence, Integer> lp = translator.lpmMatch();
-                    return new PiLpmFieldMatch(fieldId, lp.getLeft(), lp.getRight());
+                    return new PiLpmFieldMatch(fieldId, intern(lp.getLeft()), lp.getRight());
                 default:
                     throw new PiTranslationException(format(
                             "Translation of criterion %s (%s class) to match type %s is not implemented.",
@@ -180,9 +182,6 @@ final class CriterionTranslatorHelper {
         } catch (CriterionTranslatorException e) {
             throw new PiTranslationException(format(
                     "Unable to translate criterion %s: %s", criterion.type(), e.getMessage()));
-        } catch (InstantiationException | IllegalAccessException e) {
-            // Was not able to instantiate the criterion translator.
-            throw new IllegalStateException(e);
         }
     }
 }
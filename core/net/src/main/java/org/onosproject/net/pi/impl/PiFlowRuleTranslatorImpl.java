@@ -16,8 +16,13 @@
 
 package org.onosproject.net.pi.impl;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.onlab.util.ImmutableByteSequence;
 import org.onosproject.net.Device;
 import org.onosproject.net.flow.FlowRule;
@@ -33,6 +38,7 @@ import org.onosproject.net.pi.model.PiMatchFieldId;
 import org.onosproject.net.pi.model.PiMatchFieldModel;
 import org.onosproject.net.pi.model.PiMatchType;
 import org.onosproject.net.pi.model.PiPipeconf;
+import org.onosproject.net.pi.model.PiPipeconfId;
 import org.onosproject.net.pi.model.PiPipelineInterpreter;
 import org.onosproject.net.pi.model.PiPipelineModel;
 import org.onosproject.net.pi.model.PiTableId;
@@ -53,9 +59,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 import static org.onlab.util.ImmutableByteSequence.ByteSequenceTrimException;
@@ -63,6 +76,7 @@ import static org.onlab.util.ImmutableByteSequence.prefixOnes;
 import static org.onosproject.net.flow.criteria.Criterion.Type.PROTOCOL_INDEPENDENT;
 import static org.onosproject.net.pi.impl.CriterionTranslatorHelper.translateCriterion;
 import static org.onosproject.net.pi.impl.PiUtils.getInterpreterOrNull;
+import static org.onosproject.net.pi.impl.PiUtils.intern;
 import static org.onosproject.net.pi.impl.PiUtils.translateTableId;
 
 /**
@@ -90,6 +104,23 @@ final class PiFlowRuleTranslatorImpl {
      */
     static PiTableEntry translate(FlowRule rule, PiPipeconf pipeconf, Device device)
             throws PiTranslationException {
+        return translate(rule, pipeconf, device, null);
+    }
+
+    /**
+     * Returns a PI table entry equivalent to the given flow rule, for the given
+     * pipeconf and device, reusing the match layouts in the given cache, if
+     * any.
+     *
+     * @param rule        flow rule
+     * @param pipeconf    pipeconf
+     * @param device      device
+     * @param layoutCache match layout cache, or null
+     * @return PI table entry
+     * @throws PiTranslationException if the flow rule cannot be translated
+     */
+    static PiTableEntry translate(FlowRule rule, PiPipeconf pipeconf, Device device, LayoutCache layoutCache)
+            throws PiTranslationException {
 
         PiPipelineModel pipelineModel = pipeconf.pipelineModel();
 
@@ -97,24 +128,21 @@ final class PiFlowRuleTranslatorImpl {
         final PiPipelineInterpreter interpreter = getInterpreterOrNull(device, pipeconf);
         // Get table model.
         final PiTableId piTableId = translateTableId(rule.table(), interpreter);
-        final PiTableModel tableModel = getTableModel(piTableId, pipelineModel);
+        final PiTableModel tableModel;
         // Translate selector.
         final PiMatchKey piMatchKey;
         final boolean needPriority;
         if (rule.selector().criteria().isEmpty()) {
+            tableModel = getTableModel(piTableId, pipelineModel);
             piMatchKey = PiMatchKey.EMPTY;
             needPriority = false;
         } else {
-            final Collection<PiFieldMatch> fieldMatches = translateFieldMatches(
-                    interpreter, rule.selector(), tableModel);
+            final MatchLayout layout = getLayout(rule.selector(), piTableId, interpreter, pipeconf, layoutCache);
+            tableModel = layout.tableModel;
             piMatchKey = PiMatchKey.builder()
-                    .addFieldMatches(fieldMatches)
+                    .addFieldMatches(translateFieldMatches(layout, rule.selector()))
                     .build();
-            // FIXME: P4Runtime limit
-            // Need to ignore priority if no TCAM lookup match field
-            needPriority = tableModel.matchFields().stream()
-                    .anyMatch(match -> match.matchType() == PiMatchType.TERNARY ||
-                            match.matchType() == PiMatchType.RANGE);
+            needPriority = layout.needPriority;
         }
         // Translate treatment.
         final PiTableAction piTableAction = translateTreatment(rule.treatment(), interpreter, piTableId, pipelineModel);
@@ -277,7 +305,7 @@ final class PiFlowRuleTranslatorImpl {
                             "Not such parameter '%s' for action '%s'", param.id(), actionModel)));
             try {
                 newActionBuilder.withParameter(new PiActionParam(param.id(),
-                                                                 param.value().fit(paramModel.bitWidth())));
+                                                                 intern(param.value().fit(paramModel.bitWidth()))));
             } catch (ByteSequenceTrimException e) {
                 throw new PiTranslationException(format(
                         "Size mismatch for parameter '%s' of action '%s': %s",
@@ -289,36 +317,47 @@ final class PiFlowRuleTranslatorImpl {
     }
 
     /**
-     * Builds a collection of PI field matches out of the given selector,
-     * optionally using the given interpreter. The field matches returned are
-     * guaranteed to be compatible for the given table model.
+     * Returns the match layout of the given selector for the given table,
+     * from the given cache if any.
      */
-    private static Collection<PiFieldMatch> translateFieldMatches(PiPipelineInterpreter interpreter,
-                                                                  TrafficSelector selector, PiTableModel tableModel)
+    private static MatchLayout getLayout(TrafficSelector selector, PiTableId tableId,
+                                         PiPipelineInterpreter interpreter, PiPipeconf pipeconf,
+                                         LayoutCache layoutCache)
             throws PiTranslationException {
+        final Set<Criterion.Type> criterionTypes = EnumSet.noneOf(Criterion.Type.class);
+        Set<PiMatchFieldId> piCriterionFieldIds = Collections.emptySet();
+        for (Criterion criterion : selector.criteria()) {
+            if (criterion.type() == PROTOCOL_INDEPENDENT) {
+                piCriterionFieldIds = ((PiCriterion) criterion).fieldMatches().stream()
+                        .map(PiFieldMatch::fieldId)
+                        .collect(Collectors.toSet());
+            } else {
+                criterionTypes.add(criterion.type());
+            }
+        }
+        final Set<PiMatchFieldId> piFieldIds = piCriterionFieldIds;
+        if (layoutCache == null) {
+            return compileLayout(interpreter, criterionTypes, piFieldIds,
+                                 getTableModel(tableId, pipeconf.pipelineModel()));
+        }
+        final LayoutKey key = new LayoutKey(pipeconf, interpreter, tableId, criterionTypes, piFieldIds);
+        return layoutCache.get(key, () -> compileLayout(
+                interpreter, criterionTypes, piFieldIds, getTableModel(tableId, pipeconf.pipelineModel())));
+    }
 
-        Map<PiMatchFieldId, PiFieldMatch> fieldMatches = Maps.newHashMap();
+    /**
+     * Builds the match layout of the selectors with criteria of the given
+     * types and a PiCriterion with the given fields, optionally using the given
+     * interpreter. The field matches of the layout are guaranteed to be
+     * compatible for the given table model.
+     */
+    private static MatchLayout compileLayout(PiPipelineInterpreter interpreter,
+                                             Set<Criterion.Type> criterionTypes,
+                                             Set<PiMatchFieldId> piCriterionFieldIds,
+                                             PiTableModel tableModel)
+            throws PiTranslationException {
 
-        // If present, find a PiCriterion and get its field matches as a map. Otherwise, use an empty map.
-        Map<PiMatchFieldId, PiFieldMatch> piCriterionFields = selector.criteria().stream()
-                .filter(c -> c.type().equals(PROTOCOL_INDEPENDENT))
-                .map(c -> (PiCriterion) c)
-                .findFirst()
-                .map(PiCriterion::fieldMatches)
-                .map(c -> {
-                    Map<PiMatchFieldId, PiFieldMatch> fieldMap = Maps.newHashMap();
-                    c.forEach(fieldMatch -> fieldMap.put(fieldMatch.fieldId(), fieldMatch));
-                    return fieldMap;
-                })
-                .orElse(Maps.newHashMap());
-
-        Set<Criterion> translatedCriteria = Sets.newHashSet();
-        Set<Criterion> ignoredCriteria = Sets.newHashSet();
-        Set<PiMatchFieldId> usedPiCriterionFields = Sets.newHashSet();
-        Set<PiMatchFieldId> ignoredPiCriterionFields = Sets.newHashSet();
-
-
-        Map<PiMatchFieldId, Criterion> criterionMap = Maps.newHashMap();
+        Map<PiMatchFieldId, Criterion.Type> criterionMap = Maps.newHashMap();
         if (interpreter != null) {
             // NOTE: if two criterion types map to the same match field ID, and
             //  those two criterion types are present in the selector, this won't
@@ -327,33 +366,32 @@ final class PiFlowRuleTranslatorImpl {
             //  e.g. ICMPV6_TYPE ->  metadata.my_normalized_icmp_type
             //       ICMPV4_TYPE ->  metadata.my_normalized_icmp_type
             //  A packet can be either ICMPv6 or ICMPv4 but not both.
-            selector.criteria()
-                    .stream()
-                    .map(Criterion::type)
-                    .filter(t -> t != PROTOCOL_INDEPENDENT)
-                    .forEach(t -> {
-                        PiMatchFieldId mfid = interpreter.mapCriterionType(t)
-                                .orElse(null);
-                        if (mfid != null) {
-                            if (criterionMap.containsKey(mfid)) {
-                                log.warn("Detected criterion mapping " +
-                                                 "conflict for PiMatchFieldId {}",
-                                         mfid);
-                            }
-                            criterionMap.put(mfid, selector.getCriterion(t));
-                        }
-                    });
+            criterionTypes.forEach(t -> {
+                PiMatchFieldId mfid = interpreter.mapCriterionType(t)
+                        .orElse(null);
+                if (mfid != null) {
+                    if (criterionMap.containsKey(mfid)) {
+                        log.warn("Detected criterion mapping " +
+                                         "conflict for PiMatchFieldId {}",
+                                 mfid);
+                    }
+                    criterionMap.put(mfid, t);
+                }
+            });
         }
 
+        List<FieldLayout> fields = Lists.newArrayList();
+        Set<Criterion.Type> mappedCriterionTypes = EnumSet.noneOf(Criterion.Type.class);
+
         for (PiMatchFieldModel fieldModel : tableModel.matchFields()) {
 
             PiMatchFieldId fieldId = fieldModel.id();
 
-            int bitWidth = fieldModel.bitWidth();
+            Criterion.Type criterionType = criterionMap.get(fieldId);
 
-            Criterion criterion = criterionMap.get(fieldId);
+            boolean inPiCriterion = piCriterionFieldIds.contains(fieldId);
 
-            if (!piCriterionFields.containsKey(fieldId) && criterion == null) {
+            if (!inPiCriterion && criterionType == null) {
                 // Neither a field in PiCriterion is available nor a Criterion mapping is possible.
                 // Can ignore if the match is ternary or LPM.
                 switch (fieldModel.matchType()) {
@@ -370,24 +408,76 @@ final class PiFlowRuleTranslatorImpl {
                 continue;
             }
 
+            if (criterionType != null) {
+                mappedCriterionTypes.add(criterionType);
+            }
+            fields.add(new FieldLayout(fieldModel, criterionType, inPiCriterion));
+        }
+
+        // Check if all criteria can be translated.
+        StringJoiner skippedCriteriaJoiner = new StringJoiner(", ");
+        criterionTypes.stream()
+                .filter(t -> !mappedCriterionTypes.contains(t))
+                .forEach(t -> skippedCriteriaJoiner.add(t.name()));
+        if (skippedCriteriaJoiner.length() > 0) {
+            throw new PiTranslationException(format(
+                    "The following criteria cannot be translated for table '%s': %s",
+                    tableModel.id(), skippedCriteriaJoiner.toString()));
+        }
+
+        // Check if all fields found in PiCriterion can be used.
+        StringJoiner skippedPiFieldsJoiner = new StringJoiner(", ");
+        piCriterionFieldIds.stream()
+                .filter(k -> !tableModel.matchField(k).isPresent())
+                .forEach(k -> skippedPiFieldsJoiner.add(k.id()));
+        if (skippedPiFieldsJoiner.length() > 0) {
+            throw new PiTranslationException(format(
+                    "The following PiCriterion field matches are not supported in table '%s': %s",
+                    tableModel.id(), skippedPiFieldsJoiner.toString()));
+        }
+
+        return new MatchLayout(tableModel, fields);
+    }
+
+    /**
+     * Builds a collection of PI field matches out of the given selector,
+     * following the given match layout.
+     */
+    private static Collection<PiFieldMatch> translateFieldMatches(MatchLayout layout, TrafficSelector selector)
+            throws PiTranslationException {
+
+        // If present, find a PiCriterion and get its field matches as a map. Otherwise, use an empty map.
+        Map<PiMatchFieldId, PiFieldMatch> piCriterionFields = Maps.newHashMap();
+        PiCriterion piCriterion = (PiCriterion) selector.getCriterion(PROTOCOL_INDEPENDENT);
+        if (piCriterion != null) {
+            piCriterion.fieldMatches().forEach(fieldMatch -> piCriterionFields.put(fieldMatch.fieldId(), fieldMatch));
+        }
+
+        List<PiFieldMatch> fieldMatches = Lists.newArrayListWithCapacity(layout.fields.size());
+
+        for (FieldLayout field : layout.fields) {
+
+            PiMatchFieldModel fieldModel = field.fieldModel;
+
+            PiMatchFieldId fieldId = fieldModel.id();
+
+            Criterion criterion = field.criterionType != null ? selector.getCriterion(field.criterionType) : null;
+
             PiFieldMatch fieldMatch = null;
 
             if (criterion != null) {
                 // Criterion mapping is possible for this field id.
                 try {
-                    fieldMatch = translateCriterion(criterion, fieldId, fieldModel.matchType(), bitWidth);
-                    translatedCriteria.add(criterion);
+                    fieldMatch = translateCriterion(criterion, fieldId, fieldModel.matchType(), fieldModel.bitWidth());
                 } catch (PiTranslationException ex) {
                     // Ignore exception if the same field was found in PiCriterion.
-                    if (piCriterionFields.containsKey(fieldId)) {
-                        ignoredCriteria.add(criterion);
-                    } else {
+                    if (!field.inPiCriterion) {
                         throw ex;
                     }
                 }
             }
 
-            if (piCriterionFields.containsKey(fieldId)) {
+            if (field.inPiCriterion) {
                 // Field was found in PiCriterion.
                 if (fieldMatch != null) {
                     // Field was already translated from other criterion.
@@ -397,41 +487,15 @@ final class PiFlowRuleTranslatorImpl {
                                 "Duplicate match field '%s': instance translated from criterion '%s' is different to " +
                                         "what found in PiCriterion.", fieldId, criterion.type()));
                     }
-                    ignoredPiCriterionFields.add(fieldId);
                 } else {
-                    fieldMatch = piCriterionFields.get(fieldId);
-                    fieldMatch = typeCheckFieldMatch(fieldMatch, fieldModel);
-                    usedPiCriterionFields.add(fieldId);
+                    fieldMatch = typeCheckFieldMatch(piCriterionFields.get(fieldId), fieldModel);
                 }
             }
 
-            fieldMatches.put(fieldId, fieldMatch);
+            fieldMatches.add(fieldMatch);
         }
 
-        // Check if all criteria have been translated.
-        StringJoiner skippedCriteriaJoiner = new StringJoiner(", ");
-        selector.criteria().stream()
-                .filter(c -> !c.type().equals(PROTOCOL_INDEPENDENT))
-                .filter(c -> !translatedCriteria.contains(c) && !ignoredCriteria.contains(c))
-                .forEach(c -> skippedCriteriaJoiner.add(c.type().name()));
-        if (skippedCriteriaJoiner.length() > 0) {
-            throw new PiTranslationException(format(
-                    "The following criteria cannot be translated for table '%s': %s",
-                    tableModel.id(), skippedCriteriaJoiner.toString()));
-        }
-
-        // Check if all fields found in PiCriterion have been used.
-        StringJoiner skippedPiFieldsJoiner = new StringJoiner(", ");
-        piCriterionFields.keySet().stream()
-                .filter(k -> !usedPiCriterionFields.contains(k) && !ignoredPiCriterionFields.contains(k))
-                .forEach(k -> skippedPiFieldsJoiner.add(k.id()));
-        if (skippedPiFieldsJoiner.length() > 0) {
-            throw new PiTranslationException(format(
-                    "The following PiCriterion field matches are not supported in table '%s': %s",
-                    tableModel.id(), skippedPiFieldsJoiner.toString()));
-        }
-
-        return fieldMatches.values();
+        return fieldMatches;
     }
 
     private static PiFieldMatch typeCheckFieldMatch(PiFieldMatch fieldMatch, PiMatchFieldModel fieldModel)
@@ -451,22 +515,22 @@ final class PiFlowRuleTranslatorImpl {
         pipeline model. We duplicate the field match, fitting the byte sequences to the bit-width specified in the
         model. We also normalize ternary (and LPM) field matches by setting to 0 unused bits, as required by P4Runtime.
 
-        These operations are expensive when performed for each field match of each flow rule, but should be
-        mitigated by the translation cache provided by PiFlowRuleTranslationServiceImpl.
+        These operations are expensive when performed for each field match of each flow rule. The resulting byte
+        sequences are interned, as many entries share the same values.
         */
 
         try {
             switch (fieldModel.matchType()) {
                 case EXACT:
                     return new PiExactFieldMatch(fieldMatch.fieldId(),
-                                                 ((PiExactFieldMatch) fieldMatch).value().fit(modelBitWidth));
+                                                 intern(((PiExactFieldMatch) fieldMatch).value().fit(modelBitWidth)));
                 case TERNARY:
                     PiTernaryFieldMatch ternField = (PiTernaryFieldMatch) fieldMatch;
                     ImmutableByteSequence ternMask = ternField.mask().fit(modelBitWidth);
                     ImmutableByteSequence ternValue = ternField.value()
                             .fit(modelBitWidth)
                             .bitwiseAnd(ternMask);
-                    return new PiTernaryFieldMatch(fieldMatch.fieldId(), ternValue, ternMask);
+                    return new PiTernaryFieldMatch(fieldMatch.fieldId(), intern(ternValue), intern(ternMask));
                 case LPM:
                     PiLpmFieldMatch lpmfield = (PiLpmFieldMatch) fieldMatch;
                     if (lpmfield.prefixLength() > modelBitWidth) {
@@ -480,11 +544,12 @@ final class PiFlowRuleTranslatorImpl {
                                                                lpmfield.prefixLength());
                     lpmValue = lpmValue.bitwiseAnd(lpmMask);
                     return new PiLpmFieldMatch(fieldMatch.fieldId(),
-                                               lpmValue, lpmfield.prefixLength());
+                                               intern(lpmValue), lpmfield.prefixLength());
                 case RANGE:
+                    PiRangeFieldMatch rangeField = (PiRangeFieldMatch) fieldMatch;
                     return new PiRangeFieldMatch(fieldMatch.fieldId(),
-                                                 ((PiRangeFieldMatch) fieldMatch).lowValue().fit(modelBitWidth),
-                                                 ((PiRangeFieldMatch) fieldMatch).highValue().fit(modelBitWidth));
+                                                 intern(rangeField.lowValue().fit(modelBitWidth)),
+                                                 intern(rangeField.highValue().fit(modelBitWidth)));
                 default:
                     // Should never be here.
                     throw new IllegalArgumentException(
@@ -495,4 +560,128 @@ final class PiFlowRuleTranslatorImpl {
                     "Size mismatch for field %s: %s", fieldMatch.fieldId(), e.getMessage()));
         }
     }
+
+    /**
+     * Cache of the match layouts of the translated flow rules.
+     */
+    static final class LayoutCache {
+
+        private final Cache<LayoutKey, MatchLayout> layouts;
+
+        /**
+         * Creates a new cache holding up to the given number of layouts.
+         *
+         * @param maximumSize maximum number of layouts
+         */
+        LayoutCache(long maximumSize) {
+            this.layouts = CacheBuilder.newBuilder()
+                    .maximumSize(maximumSize)
+                    .recordStats()
+                    .build();
+        }
+
+        /**
+         * Returns the ratio of the layout lookups that hit the cache.
+         *
+         * @return hit ratio
+         */
+        double hitRatio() {
+            return layouts.stats().hitRate();
+        }
+
+        private MatchLayout get(LayoutKey key, Callable<MatchLayout> loader)
+                throws PiTranslationException {
+            try {
+                return layouts.get(key, loader);
+            } catch (ExecutionException | UncheckedExecutionException e) {
+                Throwables.throwIfInstanceOf(e.getCause(), PiTranslationException.class);
+                Throwables.throwIfUnchecked(e.getCause());
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Shape of the selectors sharing a match layout.
+     */
+    private static final class LayoutKey {
+
+        private final PiPipeconfId pipeconfId;
+        private final long fingerprint;
+        private final Class<?> interpreterClass;
+        private final PiTableId tableId;
+        private final Set<Criterion.Type> criterionTypes;
+        private final Set<PiMatchFieldId> piCriterionFieldIds;
+
+        private LayoutKey(PiPipeconf pipeconf, PiPipelineInterpreter interpreter, PiTableId tableId,
+                          Set<Criterion.Type> criterionTypes, Set<PiMatchFieldId> piCriterionFieldIds) {
+            this.pipeconfId = pipeconf.id();
+            this.fingerprint = pipeconf.fingerprint();
+            this.interpreterClass = interpreter != null ? interpreter.getClass() : null;
+            this.tableId = tableId;
+            this.criterionTypes = criterionTypes;
+            this.piCriterionFieldIds = piCriterionFieldIds;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pipeconfId, fingerprint, interpreterClass, tableId,
+                                criterionTypes, piCriterionFieldIds);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LayoutKey)) {
+                return false;
+            }
+            final LayoutKey other = (LayoutKey) obj;
+            return fingerprint == other.fingerprint
+                    && Objects.equals(pipeconfId, other.pipeconfId)
+                    && Objects.equals(interpreterClass, other.interpreterClass)
+                    && Objects.equals(tableId, other.tableId)
+                    && Objects.equals(criterionTypes, other.criterionTypes)
+                    && Objects.equals(piCriterionFieldIds, other.piCriterionFieldIds);
+        }
+    }
+
+    /**
+     * Match fields of a table to be translated for selectors of the same
+     * shape.
+     */
+    private static final class MatchLayout {
+
+        private final PiTableModel tableModel;
+        private final List<FieldLayout> fields;
+        private final boolean needPriority;
+
+        private MatchLayout(PiTableModel tableModel, List<FieldLayout> fields) {
+            this.tableModel = tableModel;
+            this.fields = ImmutableList.copyOf(fields);
+            // FIXME: P4Runtime limit
+            // Need to ignore priority if no TCAM lookup match field
+            this.needPriority = tableModel.matchFields().stream()
+                    .anyMatch(match -> match.matchType() == PiMatchType.TERNARY ||
+                            match.matchType() == PiMatchType.RANGE);
+        }
+    }
+
+    /**
+     * Match field to be translated from a criterion, a PiCriterion field or
+     * both.
+     */
+    private static final class FieldLayout {
+
+        private final PiMatchFieldModel fieldModel;
+        private final Criterion.Type criterionType;
+        private final boolean inPiCriterion;
+
+        private FieldLayout(PiMatchFieldModel fieldModel, Criterion.Type criterionType, boolean inPiCriterion) {
+            this.fieldModel = fieldModel;
+            this.criterionType = criterionType;
+            this.inPiCriterion = inPiCriterion;
+        }
+    }
 }
@@ -16,6 +16,11 @@
 
 package org.onosproject.net.pi.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.device.DeviceService;
@@ -42,9 +47,12 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -55,11 +63,21 @@ public class PiTranslationServiceImpl implements PiTranslationService {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
-    // TODO: implement cache to speed up translation.
+    private static final String COMPONENT = "PiTranslationService";
+    private static final String FLOW_RULE_FEATURE = "flowRule";
+    private static final String TRANSLATION = "translation";
+    private static final String LAYOUT_CACHE_HIT_RATIO = "layoutCacheHitRatio";
+    // Match layouts are shared by all rules with the same shape, there are
+    // usually no more than a few per table.
+    private static final long MAX_LAYOUTS = 10_000;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected DeviceService deviceService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     private PiFlowRuleTranslationStore flowRuleTranslationStore;
 
@@ -77,9 +95,26 @@ public class PiTranslationServiceImpl implements PiTranslationService {
     private PiReplicationGroupTranslator repGroupTranslator;
     private PiMeterTranslator meterTranslator;
 
+    private MetricsComponent metricsComponent;
+    private MetricsFeature metricsFeature;
+
     @Activate
     public void activate() {
-        flowRuleTranslator = new InternalFlowRuleTranslator(flowRuleTranslationStore);
+        final PiFlowRuleTranslatorImpl.LayoutCache layoutCache =
+                new PiFlowRuleTranslatorImpl.LayoutCache(MAX_LAYOUTS);
+        final Timer translationTimer;
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent(COMPONENT);
+            metricsFeature = metricsComponent.registerFeature(FLOW_RULE_FEATURE);
+            translationTimer = metricsService.createTimer(metricsComponent, metricsFeature, TRANSLATION);
+            metricsService.registerMetric(metricsComponent, metricsFeature, LAYOUT_CACHE_HIT_RATIO,
+                                          (Gauge<Double>) layoutCache::hitRatio);
+        } else {
+            translationTimer = new Timer();
+        }
+        flowRuleTranslator = new InternalFlowRuleTranslator(
+                flowRuleTranslationStore, layoutCache, translationTimer);
         groupTranslator = new InternalGroupTranslator(groupTranslationStore);
         repGroupTranslator = new InternalReplicationGroupTranslator(repGroupTranslationStore);
         meterTranslator = new InternalMeterTranslator(meterTranslationStore);
@@ -88,6 +123,11 @@ public class PiTranslationServiceImpl implements PiTranslationService {
 
     @Deactivate
     public void deactivate() {
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            metricsService.removeMetric(metricsComponent, metricsFeature, TRANSLATION);
+            metricsService.removeMetric(metricsComponent, metricsFeature, LAYOUT_CACHE_HIT_RATIO);
+        }
         flowRuleTranslator = null;
         groupTranslator = null;
         meterTranslator = null;
@@ -126,8 +166,15 @@ public class PiTranslationServiceImpl implements PiTranslationService {
             extends AbstractPiTranslatorImpl<FlowRule, PiTableEntry>
             implements PiFlowRuleTranslator {
 
-        private InternalFlowRuleTranslator(PiFlowRuleTranslationStore store) {
+        private final PiFlowRuleTranslatorImpl.LayoutCache layoutCache;
+        private final Timer translationTimer;
+
+        private InternalFlowRuleTranslator(PiFlowRuleTranslationStore store,
+                                           PiFlowRuleTranslatorImpl.LayoutCache layoutCache,
+                                           Timer translationTimer) {
             super(store);
+            this.layoutCache = layoutCache;
+            this.translationTimer = translationTimer;
         }
 
         @Override
@@ -135,8 +182,13 @@ public class PiTranslationServiceImpl implements PiTranslationService {
                 throws PiTranslationException {
             checkNotNull(original);
             checkNotNull(pipeconf);
-            return PiFlowRuleTranslatorImpl
-                    .translate(original, pipeconf, getDevice(original.deviceId()));
+            final long start = System.nanoTime();
+            try {
+                return PiFlowRuleTranslatorImpl.translate(
+                        original, pipeconf, getDevice(original.deviceId()), layoutCache);
+            } finally {
+                translationTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
         }
     }
 
@@ -16,6 +16,9 @@
 
 package org.onosproject.net.pi.impl;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.onlab.util.ImmutableByteSequence;
 import org.onosproject.net.Device;
 import org.onosproject.net.flow.IndexTableId;
 import org.onosproject.net.flow.TableId;
@@ -35,10 +38,24 @@ final class PiUtils {
 
     private static final Logger log = LoggerFactory.getLogger(PiUtils.class);
 
+    // Many translated entities share the same values (e.g. masks, ports),
+    // which are stored only once.
+    private static final Interner<ImmutableByteSequence> BYTE_SEQUENCES = Interners.newWeakInterner();
+
     private PiUtils() {
         // Hides constructor.
     }
 
+    /**
+     * Returns the canonical instance of the given byte sequence, equal to it.
+     *
+     * @param value byte sequence
+     * @return canonical byte sequence
+     */
+    static ImmutableByteSequence intern(ImmutableByteSequence value) {
+        return BYTE_SEQUENCES.intern(value);
+    }
+
     static PiPipelineInterpreter getInterpreterOrNull(Device device, PiPipeconf pipeconf) {
         if (device != null) {
             return device.is(PiPipelineInterpreter.class) ? device.as(PiPipelineInterpreter.class) : null;
@@ -15,14 +15,19 @@
  */
 package org.onosproject.event.impl;
 
+import com.google.common.collect.ImmutableList;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.EventSink;
+import org.onosproject.net.DeviceId;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -88,6 +93,126 @@ public class CoreEventDispatcherTest {
         assertTrue(takesTooLong.interrupted);
     }
 
+    @Test
+    public void postAcrossLanes() throws Exception {
+        dispatcher.setDispatchLanes(4, 8);
+        assertEquals("incorrect lane count", 4, dispatcher.getDispatchLanes());
+        assertEquals("incorrect queue size", 8, dispatcher.getDispatchQueueSize());
+
+        BlipSink blipSink = new BlipSink();
+        dispatcher.addSink(Blip.class, blipSink);
+        blipSink.latch = new CountDownLatch(400);
+        for (int i = 0; i < 400; i++) {
+            dispatcher.post(new Blip(DeviceId.deviceId("of:" + (i % 10)), i));
+            if (i == 200) {
+                // Lanes are rebuilt without reordering pending events
+                dispatcher.setDispatchLanes(3, 0);
+            }
+        }
+        assertTrue("events not delivered",
+                   blipSink.latch.await(5000, TimeUnit.MILLISECONDS));
+        dispatcher.removeSink(Blip.class);
+
+        assertEquals("incorrect subject count", 10, blipSink.sequences.size());
+        blipSink.sequences.values().forEach(sequence -> {
+            assertEquals("incorrect event count", 40, sequence.size());
+            for (int i = 1; i < sequence.size(); i++) {
+                assertTrue("events out of order", sequence.get(i - 1) < sequence.get(i));
+            }
+        });
+    }
+
+    @Test
+    public void postFromSinksWhileReconfiguring() throws Exception {
+        dispatcher.setDispatchLanes(2, 16);
+
+        // Each subject posts a chain of events from its sink; the lanes have
+        // room for all chains, so none of the events are dropped
+        ChainSink chainSink = new ChainSink(dispatcher, 100);
+        dispatcher.addSink(Blip.class, chainSink);
+        chainSink.latch = new CountDownLatch(10 * 100);
+        for (int i = 0; i < 10; i++) {
+            dispatcher.post(new Blip(DeviceId.deviceId("of:" + i), 0));
+        }
+        dispatcher.setDispatchLanes(1, 16);
+        dispatcher.setDispatchLanes(4, 16);
+        dispatcher.setDispatchLanes(3, 0);
+        assertTrue("events not delivered",
+                   chainSink.latch.await(5000, TimeUnit.MILLISECONDS));
+        dispatcher.removeSink(Blip.class);
+
+        assertEquals("incorrect subject count", 10, chainSink.sequences.size());
+        chainSink.sequences.values().forEach(sequence -> {
+            assertEquals("incorrect event count", 100, sequence.size());
+            for (int i = 1; i < sequence.size(); i++) {
+                assertTrue("events out of order", sequence.get(i - 1) < sequence.get(i));
+            }
+        });
+    }
+
+    @Test
+    public void postToOwnFullLane() throws Exception {
+        dispatcher.setDispatchLanes(1, 1);
+
+        // The sink overfills its own lane; it is neither held back nor are
+        // the events dropped
+        ChainSink chainSink = new ChainSink(dispatcher, 0);
+        dispatcher.addSink(Blip.class, chainSink);
+        chainSink.latch = new CountDownLatch(4);
+        dispatcher.post(new Blip(DeviceId.deviceId("of:1"), 0));
+        assertTrue("events not delivered",
+                   chainSink.latch.await(1000, TimeUnit.MILLISECONDS));
+        dispatcher.removeSink(Blip.class);
+
+        assertEquals("incorrect events", ImmutableList.of(0, 1, 2, 3),
+                     chainSink.sequences.get(DeviceId.deviceId("of:1")));
+    }
+
+    @Test
+    public void postToFullLanes() throws Exception {
+        dispatcher.setDispatchLanes(2, 1);
+
+        // Posters are held back by the slow sink instead of losing events
+        BlipSink blipSink = new SlowBlipSink();
+        dispatcher.addSink(Blip.class, blipSink);
+        blipSink.latch = new CountDownLatch(40);
+        for (int i = 0; i < 40; i++) {
+            dispatcher.post(new Blip(DeviceId.deviceId("of:" + (i % 4)), i));
+        }
+        assertTrue("events not delivered",
+                   blipSink.latch.await(5000, TimeUnit.MILLISECONDS));
+        dispatcher.removeSink(Blip.class);
+
+        assertEquals("incorrect subject count", 4, blipSink.sequences.size());
+        blipSink.sequences.values().forEach(sequence ->
+                assertEquals("incorrect event count", 10, sequence.size()));
+    }
+
+    @Test
+    public void postUnkeyedAfterKeyed() throws Exception {
+        dispatcher.setDispatchLanes(4, 0);
+
+        // An event with no element key is delivered only once the keyed
+        // events posted before it have been, whatever lanes they took
+        BlipSink blipSink = new SlowBlipSink();
+        dispatcher.addSink(Blip.class, blipSink);
+        blipSink.latch = new CountDownLatch(20);
+        List<Integer> delivered = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        dispatcher.addSink(Prickle.class, event -> {
+            delivered.add(20 - (int) blipSink.latch.getCount());
+            latch.countDown();
+        });
+        for (int i = 0; i < 20; i++) {
+            dispatcher.post(new Blip(DeviceId.deviceId("of:" + i), i));
+        }
+        dispatcher.post(new Prickle("yo"));
+        assertTrue("events not delivered", latch.await(5000, TimeUnit.MILLISECONDS));
+        dispatcher.removeSink(Blip.class);
+
+        assertEquals("keyed events overtaken", ImmutableList.of(20), delivered);
+    }
+
     private void validate(Sink sink, String... strings) {
         int i = 0;
         assertEquals("incorrect event count", strings.length, sink.subjects.size());
@@ -141,6 +266,64 @@ public class CoreEventDispatcherTest {
         }
     }
 
+    private static class Blip extends AbstractEvent<Type, DeviceId> {
+        private final int sequence;
+
+        protected Blip(DeviceId subject, int sequence) {
+            super(Type.FOO, subject);
+            this.sequence = sequence;
+        }
+    }
+
+    private static class BlipSink implements EventSink<Blip> {
+        final Map<DeviceId, List<Integer>> sequences = new ConcurrentHashMap<>();
+        CountDownLatch latch;
+
+        @Override
+        public void process(Blip event) {
+            sequences.computeIfAbsent(event.subject(),
+                                      k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(event.sequence);
+            latch.countDown();
+        }
+    }
+
+    private static class SlowBlipSink extends BlipSink {
+        @Override
+        public void process(Blip event) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.process(event);
+        }
+    }
+
+    // Posts the next event of the subject, or fills the lane on the first
+    // event if there is no chain to follow.
+    private static class ChainSink extends BlipSink {
+        private final CoreEventDispatcher dispatcher;
+        private final int length;
+
+        ChainSink(CoreEventDispatcher dispatcher, int length) {
+            this.dispatcher = dispatcher;
+            this.length = length;
+        }
+
+        @Override
+        public void process(Blip event) {
+            super.process(event);
+            if (event.sequence + 1 < length) {
+                dispatcher.post(new Blip(event.subject(), event.sequence + 1));
+            } else if (length == 0 && event.sequence == 0) {
+                for (int i = 1; i <= 3; i++) {
+                    dispatcher.post(new Blip(event.subject(), i));
+                }
+            }
+        }
+    }
+
     private static class TooLongEvent extends AbstractEvent<Type, String> {
         protected TooLongEvent(String subject) {
             super(Type.FOO, subject);
@@ -26,6 +26,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.onlab.osgi.ComponentContextAdapter;
 import org.onosproject.TestApplicationId;
 import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.cfg.ComponentConfigService;
@@ -55,15 +56,19 @@ import org.onosproject.net.intent.Key;
 import org.onosproject.net.intent.ObjectiveTrackerService;
 import org.onosproject.net.intent.PathIntent;
 import org.onosproject.net.intent.TopologyChangeDelegate;
+import org.onosproject.net.intent.WorkPartitionServiceAdapter;
 import org.onosproject.store.trivial.SimpleIntentStore;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -402,6 +407,51 @@ public class IntentManagerTest {
         verifyState();
     }
 
+    /**
+     * Tests that intents submitted while the batches are pipelined across
+     * the work partitions are all installed and withdrawn.
+     */
+    @Test
+    public void pipelinedBatches() {
+        flowRuleService.setFuture(true);
+        manager.partitionService = new WorkPartitionServiceAdapter() {
+            @Override
+            public <K> int getPartition(K id, Function<K, Long> hasher) {
+                return Math.abs(hasher.apply(id).intValue()) % 4;
+            }
+        };
+        manager.modified(new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, String> props = new Hashtable<>();
+                props.put("maxInFlightBatches", "4");
+                return props;
+            }
+        });
+
+        int count = 40;
+        Intent[] intents = new Intent[count];
+        listener.setLatch(count, Type.INSTALLED);
+        for (int i = 0; i < count; i++) {
+            intents[i] = new MockIntent(MockIntent.nextId());
+            service.submit(intents[i]);
+            if (i % 10 == 9) {
+                delay(20);
+            }
+        }
+        listener.await(Type.INSTALLED);
+        assertEquals(count, service.getIntentCount());
+        assertEquals(count, flowRuleService.getFlowRuleCount());
+
+        listener.setLatch(count, Type.WITHDRAWN);
+        for (Intent intent : intents) {
+            service.withdraw(intent);
+        }
+        listener.await(Type.WITHDRAWN);
+        assertEquals(0L, flowRuleService.getFlowRuleCount());
+        verifyState();
+    }
+
     @Test
     public void stressSubmitWithdrawSame() {
         flowRuleService.setFuture(true);
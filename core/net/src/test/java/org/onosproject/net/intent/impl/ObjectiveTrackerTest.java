@@ -42,8 +42,10 @@ import org.onosproject.net.topology.TopologyEvent;
 import org.onosproject.net.topology.TopologyListener;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -216,6 +218,45 @@ public class ObjectiveTrackerTest extends AbstractIntentTest {
                    equalTo("0x333"));
     }
 
+    /**
+     * Tests an event for many links going down at once, where some of the
+     * links match existing intents, some of them more than once.
+     *
+     * @throws InterruptedException if the latch wait fails.
+     */
+    @Test
+    public void testEventManyLinksDownMatch() throws Exception {
+        Set<Key> expected = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            final Link link = link("src", i, "dst", i);
+            reasons.add(new LinkEvent(LinkEvent.Type.LINK_REMOVED, link));
+            if (i % 2 == 0) {
+                final Key key = Key.of(i / 4, APP_ID);
+                tracker.addTrackedResources(key, ImmutableSet.of(link));
+                expected.add(key);
+            }
+        }
+        // no longer tracked
+        final Key untracked = Key.of(24, APP_ID);
+        tracker.removeTrackedResources(untracked, ImmutableSet.of(link("src", 96, "dst", 96),
+                                                                  link("src", 98, "dst", 98)));
+        expected.remove(untracked);
+
+        final TopologyEvent event = new TopologyEvent(
+                TopologyEvent.Type.TOPOLOGY_CHANGED,
+                topology,
+                reasons);
+
+        listener.event(event);
+        assertThat(
+                delegate.latch.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                is(true));
+
+        assertThat(delegate.intentIdsFromEvent, hasSize(expected.size()));
+        assertThat(new HashSet<>(delegate.intentIdsFromEvent), equalTo(expected));
+        assertThat(delegate.compileAllFailedFromEvent, is(false));
+    }
+
     /**
      * Tests a resource available event.
      *
@@ -20,16 +20,20 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.VlanId;
 import org.onosproject.cluster.ClusterServiceAdapter;
 import org.onosproject.common.event.impl.TestEventDispatcher;
 import org.onosproject.core.CoreServiceAdapter;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.event.TestListener;
 import org.onosproject.net.AnnotationKeys;
+import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultAnnotations;
 import org.onosproject.net.DefaultDevice;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
 import org.onosproject.net.config.NetworkConfigServiceAdapter;
 import org.onosproject.net.device.DeviceServiceAdapter;
 import org.onosproject.net.driver.AbstractHandlerBehaviour;
@@ -37,20 +41,36 @@ import org.onosproject.net.driver.DefaultDriver;
 import org.onosproject.net.driver.DriverRegistry;
 import org.onosproject.net.driver.impl.DriverManager;
 import org.onosproject.net.driver.impl.DriverRegistryManager;
+import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.packet.DefaultInboundPacket;
 import org.onosproject.net.packet.DefaultOutboundPacket;
+import org.onosproject.net.packet.DefaultPacketContext;
 import org.onosproject.net.packet.OutboundPacket;
+import org.onosproject.net.packet.PacketContext;
+import org.onosproject.net.packet.PacketProcessor;
+import org.onosproject.net.packet.PacketProcessorEntry;
 import org.onosproject.net.packet.PacketProgrammable;
+import org.onosproject.net.packet.PacketProvider;
 import org.onosproject.net.packet.PacketProviderRegistry;
+import org.onosproject.net.packet.PacketProviderService;
 import org.onosproject.net.pi.PiPipeconfServiceAdapter;
+import org.onosproject.net.provider.AbstractProvider;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.net.provider.TestProvider;
 import org.onosproject.store.trivial.SimplePacketStore;
 
 import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.junit.TestTools.assertAfter;
 import static org.onosproject.net.NetTestTools.injectEventDispatcher;
 
 /**
@@ -65,6 +85,8 @@ public class PacketManagerTest {
     private static final DefaultAnnotations ANNOTATIONS =
             DefaultAnnotations.builder().set(AnnotationKeys.DRIVER, "foo").build();
 
+    private static final DeviceId BAR_DID = DeviceId.deviceId("foo:003");
+
     private static final Device FOO_DEV =
             new DefaultDevice(FOO_PID, FOO_DID, Device.Type.SWITCH, "", "", "", "", null, ANNOTATIONS);
 
@@ -108,6 +130,132 @@ public class PacketManagerTest {
         assertEquals("Packet not emitted correctly", packet, emittedPacket);
     }
 
+    /**
+     * Tests that packets are only given to processors interested in them.
+     */
+    @Test
+    public void processorInterests() {
+        PacketProviderService providerService = providerRegistry.register(new TestPacketProvider());
+        TestProcessor all = new TestProcessor();
+        TestProcessor arp = new TestProcessor();
+        TestProcessor lldp = new TestProcessor();
+        TestProcessor port = new TestProcessor();
+        TestProcessor device = new TestProcessor();
+
+        mgr.addProcessor(all, 4);
+        mgr.addProcessor(arp, 3, DefaultTrafficSelector.builder()
+                .matchEthType(Ethernet.TYPE_ARP).build(), Optional.empty());
+        mgr.addProcessor(lldp, 1, DefaultTrafficSelector.builder()
+                .matchEthType(Ethernet.TYPE_LLDP).build(), Optional.empty());
+        mgr.addProcessor(port, 2, DefaultTrafficSelector.builder()
+                .matchEthType(Ethernet.TYPE_ARP)
+                .matchInPort(PortNumber.portNumber(2)).build(), Optional.empty());
+        mgr.addProcessor(device, 5, DefaultTrafficSelector.emptySelector(),
+                         Optional.of(BAR_DID));
+
+        providerService.processPacket(context(FOO_DID, 1, Ethernet.TYPE_ARP));
+        providerService.processPacket(context(FOO_DID, 2, Ethernet.TYPE_ARP));
+        providerService.processPacket(context(BAR_DID, 1, Ethernet.TYPE_LLDP));
+        providerService.processPacket(context(BAR_DID, 1, Ethernet.TYPE_IPV4));
+
+        assertEquals("incorrect packets", 4, all.packets.size());
+        assertEquals("incorrect packets", 2, arp.packets.size());
+        assertEquals("incorrect packets", 1, lldp.packets.size());
+        assertEquals("incorrect packets", 1, port.packets.size());
+        assertEquals("incorrect packets", 2, device.packets.size());
+
+        List<PacketProcessorEntry> entries = mgr.getProcessors();
+        assertEquals("incorrect order", lldp, entries.get(0).processor());
+        assertEquals("incorrect order", device, entries.get(4).processor());
+        assertEquals("incorrect invocations", 4, entries.get(3).invocations());
+
+        mgr.removeProcessor(arp);
+        providerService.processPacket(context(FOO_DID, 1, Ethernet.TYPE_ARP));
+        assertEquals("incorrect packets", 2, arp.packets.size());
+        assertEquals("incorrect packets", 5, all.packets.size());
+    }
+
+    /**
+     * Tests that unsupported interest criteria are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedInterest() {
+        mgr.addProcessor(new TestProcessor(), 1, DefaultTrafficSelector.builder()
+                .matchVlanId(VlanId.vlanId((short) 10)).build(), Optional.empty());
+    }
+
+    /**
+     * Tests that a processor with its own queue does not hold up the
+     * pipeline and that it drops packets once its queue is full.
+     */
+    @Test
+    public void queuedProcessor() throws InterruptedException {
+        PacketProviderService providerService = providerRegistry.register(new TestPacketProvider());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TestProcessor slow = new TestProcessor() {
+            @Override
+            public void process(PacketContext context) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.process(context);
+            }
+        };
+        TestProcessor fast = new TestProcessor();
+        mgr.addProcessor(slow, 1, DefaultTrafficSelector.emptySelector(), Optional.empty(), 1);
+        mgr.addProcessor(fast, 2);
+
+        providerService.processPacket(context(FOO_DID, 1, Ethernet.TYPE_ARP));
+        assertTrue("slow processor not started", started.await(5, TimeUnit.SECONDS));
+
+        // One packet waits in the queue, the next one is dropped
+        providerService.processPacket(context(FOO_DID, 1, Ethernet.TYPE_ARP));
+        providerService.processPacket(context(FOO_DID, 1, Ethernet.TYPE_ARP));
+        assertEquals("incorrect packets", 3, fast.packets.size());
+
+        PacketProcessorEntry entry = mgr.getProcessors().get(0);
+        assertEquals("incorrect drops", 1, entry.drops());
+
+        release.countDown();
+        assertAfter(5000, () -> assertEquals("incorrect packets", 2, slow.packets.size()));
+        assertEquals("incorrect invocations", 2, entry.invocations());
+        assertEquals("incorrect drops", 0, mgr.getProcessors().get(1).drops());
+    }
+
+    private static PacketContext context(DeviceId deviceId, long port, short ethType) {
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(ethType);
+        ConnectPoint cp = new ConnectPoint(deviceId, PortNumber.portNumber(port));
+        return new DefaultPacketContext(0, new DefaultInboundPacket(cp, eth, null), null, false) {
+            @Override
+            public void send() {
+            }
+        };
+    }
+
+    private static class TestProcessor implements PacketProcessor {
+        final List<PacketContext> packets = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void process(PacketContext context) {
+            packets.add(context);
+        }
+    }
+
+    private static class TestPacketProvider extends AbstractProvider implements PacketProvider {
+        TestPacketProvider() {
+            super(FOO_PID);
+        }
+
+        @Override
+        public void emit(OutboundPacket packet) {
+        }
+    }
+
     private static class TestDeviceService extends DeviceServiceAdapter {
         @Override
         public int getDeviceCount() {
@@ -173,4 +173,38 @@ public class PiFlowRuleTranslatorImplTest {
                    defActionEntry.matchKey(), is(equalTo(PiMatchKey.EMPTY)));
         assertThat("Priority should not be set", !defActionEntry.priority().isPresent());
     }
+
+    @Test
+    public void testTranslateWithLayoutCache() throws Exception {
+
+        ApplicationId appId = new DefaultApplicationId(1, "test");
+        PiFlowRuleTranslatorImpl.LayoutCache layoutCache = new PiFlowRuleTranslatorImpl.LayoutCache(10);
+
+        for (int i = 0; i < 4; i++) {
+            TrafficSelector selector = DefaultTrafficSelector
+                    .builder()
+                    .matchInPort(PortNumber.portNumber(i))
+                    .matchEthDst(MacAddress.valueOf(random.nextLong()))
+                    .build();
+            FlowRule rule = DefaultFlowRule.builder()
+                    .forDevice(DEVICE_ID)
+                    .forTable(INGRESS_TABLE0_CONTROL_TABLE0)
+                    .fromApp(appId)
+                    .withSelector(selector)
+                    .withTreatment(DefaultTrafficTreatment.builder()
+                                           .setOutput(PortNumber.portNumber(i + 1))
+                                           .build())
+                    .makePermanent()
+                    .withPriority(random.nextInt(100))
+                    .build();
+
+            // same rules must produce same entries with or without cached layouts
+            assertThat("Translation should not depend on the layout cache",
+                       PiFlowRuleTranslatorImpl.translate(rule, pipeconf, null, layoutCache),
+                       is(equalTo(PiFlowRuleTranslatorImpl.translate(rule, pipeconf, null))));
+        }
+
+        // all rules share the same shape
+        assertThat("Incorrect layout cache hit ratio", layoutCache.hitRatio(), is(equalTo(0.75)));
+    }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.Ip4Prefix;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.store.LogicalTimestamp;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the flow table operations performed by the flow rule store on the
+ * master of a device, along with the computation of the changes replicated
+ * to the device backups.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceFlowTableBenchmark {
+
+    private static final DeviceId DEVICE_ID = DeviceId.deviceId("of:0000000000000001");
+    private static final long PERIOD_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Number of flows in the table.
+     */
+    @Param({"1000", "10000"})
+    public int flows;
+
+    private ScheduledExecutorService scheduler;
+    private DeviceFlowTable flowTable;
+    private FlowBucket bucket;
+    private LogicalTimestamp baseline;
+    private FlowEntry[] entries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        ClusterServiceAdapter clusterService = new ClusterServiceAdapter();
+        DeviceReplicaInfo replicaInfo = new DeviceReplicaInfo(
+                1, clusterService.getLocalNode().id(), ImmutableList.of());
+        flowTable = new DeviceFlowTable(
+                DEVICE_ID,
+                clusterService,
+                new ClusterCommunicationServiceAdapter(),
+                new TestLifecycleManager(replicaInfo),
+                scheduler,
+                MoreExecutors.directExecutor(),
+                PERIOD_MILLIS,
+                PERIOD_MILLIS,
+                new Meter(),
+                new Histogram(new ExponentiallyDecayingReservoir()));
+
+        entries = new FlowEntry[flows];
+        for (int i = 0; i < flows; i++) {
+            entries[i] = new DefaultFlowEntry(DefaultFlowRule.builder()
+                    .forDevice(DEVICE_ID)
+                    .withSelector(DefaultTrafficSelector.builder()
+                                          .matchEthType(Ethernet.TYPE_IPV4)
+                                          .matchIPDst(Ip4Prefix.valueOf(0x0a000000 + (i << 8), 24))
+                                          .build())
+                    .withTreatment(DefaultTrafficTreatment.builder()
+                                           .setOutput(PortNumber.portNumber(1 + i % 48))
+                                           .build())
+                    .withPriority(1000)
+                    .fromApp(new DefaultApplicationId(1, "org.onosproject.benchmark"))
+                    .makePermanent()
+                    .build());
+            flowTable.add(entries[i]).join();
+        }
+
+        // Replicate a single bucket, changing a tenth of its flows afterwards.
+        bucket = new FlowBucket(new BucketId(DEVICE_ID, 0));
+        LogicalClock clock = new LogicalClock();
+        for (int i = 0; i < flows; i++) {
+            bucket.add(entries[i], 1, clock);
+        }
+        baseline = bucket.timestamp();
+        for (int i = 0; i < flows; i += 10) {
+            bucket.update(entries[i], stored -> {
+                stored.setBytes(stored.bytes() + 1);
+                return stored;
+            }, 1, clock);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        flowTable.close();
+        scheduler.shutdownNow();
+    }
+
+    private FlowEntry nextEntry() {
+        FlowEntry entry = entries[next];
+        next = (next + 1) % entries.length;
+        return entry;
+    }
+
+    @Benchmark
+    public StoredFlowEntry getFlowEntry() {
+        return flowTable.getFlowEntry(nextEntry());
+    }
+
+    @Benchmark
+    public StoredFlowEntry updateStatistics() {
+        return flowTable.update(nextEntry(), stored -> {
+            stored.setBytes(stored.bytes() + 1);
+            stored.setLastSeen();
+            return stored;
+        }).join();
+    }
+
+    @Benchmark
+    public FlowEntry removeAndAdd() {
+        FlowEntry entry = nextEntry();
+        FlowEntry removed = flowTable.remove(entry).join();
+        flowTable.add(entry).join();
+        return removed;
+    }
+
+    @Benchmark
+    public FlowBucketDelta bucketDelta() {
+        return bucket.getDelta(baseline);
+    }
+
+    @Benchmark
+    public FlowBucketDelta fullBucket() {
+        return bucket.getDelta((LogicalTimestamp) null);
+    }
+
+    /**
+     * Lifecycle manager keeping the local node master for a single term.
+     */
+    private static final class TestLifecycleManager implements LifecycleManager {
+        private final DeviceReplicaInfo replicaInfo;
+
+        private TestLifecycleManager(DeviceReplicaInfo replicaInfo) {
+            this.replicaInfo = replicaInfo;
+        }
+
+        @Override
+        public DeviceReplicaInfo getReplicaInfo() {
+            return replicaInfo;
+        }
+
+        @Override
+        public void activate(long term) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void addListener(LifecycleEventListener listener) {
+        }
+
+        @Override
+        public void removeListener(LifecycleEventListener listener) {
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.resource.DiscreteResource;
+import org.onosproject.net.resource.DiscreteResourceId;
+import org.onosproject.net.resource.Resource;
+import org.onosproject.net.resource.ResourceConsumerId;
+import org.onosproject.net.resource.Resources;
+import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.CommitStatus;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.TransactionContext;
+import org.onosproject.store.service.TransactionalMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Measures the allocation and release of batches of VLANs on the ports of a
+ * synthetic inventory, half of whose VLANs are already allocated, in a single
+ * transaction as ConsistentResourceStore does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscreteResourceAllocationBenchmark {
+
+    private static final DeviceId DEVICE_ID = DeviceId.deviceId("of:0000000000000001");
+    private static final int PORTS = 16;
+    private static final int VLANS = 4094;
+    private static final int ALLOCATED = VLANS / 2;
+
+    /**
+     * Number of VLANs allocated at once, to each consumer.
+     */
+    @Param({"1", "64", "512"})
+    public int batch;
+
+    private final Map<String, Map<Object, byte[]>> store = new HashMap<>();
+    private DiscreteResourceId[] ports;
+    private Set<DiscreteResource> request;
+    private ResourceConsumerId consumerId;
+    private int next;
+
+    private static Set<DiscreteResource> vlans(DiscreteResourceId port, int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(x -> Resources.discrete(port, VlanId.vlanId((short) x)).resource())
+                .collect(Collectors.toSet());
+    }
+
+    @Setup
+    public void setUp() {
+        ports = IntStream.rangeClosed(1, PORTS)
+                .mapToObj(x -> Resources.discrete(DEVICE_ID, PortNumber.portNumber(x)).id())
+                .toArray(DiscreteResourceId[]::new);
+        long consumers = populate();
+
+        request = vlans(ports[0], ALLOCATED + 1, ALLOCATED + 1 + batch);
+        consumerId = IntentId.valueOf(consumers).consumerId();
+    }
+
+    // registers the inventory and allocates the first half of the VLANs of each port
+    private long populate() {
+        TransactionalDiscreteResourceSubStore txStore =
+                new TransactionalDiscreteResourceSubStore(new TestTransactionContext(store));
+
+        DiscreteResourceId device = Resources.discrete(DEVICE_ID).id();
+        txStore.register(Resource.ROOT.id(), ImmutableSet.of(Resources.discrete(device).resource()));
+        txStore.register(device, Stream.of(ports)
+                .map(x -> Resources.discrete(x).resource())
+                .collect(Collectors.toSet()));
+
+        long consumers = 0;
+        for (DiscreteResourceId port : ports) {
+            txStore.register(port, vlans(port, 1, VLANS + 1));
+            for (int vlan = 1; vlan <= ALLOCATED; vlan += batch) {
+                ResourceConsumerId consumer = IntentId.valueOf(consumers++).consumerId();
+                vlans(port, vlan, Math.min(vlan + batch, ALLOCATED + 1))
+                        .forEach(x -> txStore.allocate(consumer, x));
+            }
+        }
+        return consumers;
+    }
+
+    private DiscreteResourceId nextPort() {
+        return ports[next++ % PORTS];
+    }
+
+    @Benchmark
+    public boolean allocation() {
+        DiscreteResourceId port = nextPort();
+        Set<DiscreteResource> resources = request.stream()
+                .map(x -> Resources.discrete(port, x.valueAs(VlanId.class).get()).resource())
+                .collect(Collectors.toSet());
+
+        TransactionalDiscreteResourceSubStore txStore =
+                new TransactionalDiscreteResourceSubStore(new TestTransactionContext(store));
+        if (!resources.stream().allMatch(x -> txStore.allocate(consumerId, x))) {
+            return false;
+        }
+        TransactionalDiscreteResourceSubStore releaseTxStore =
+                new TransactionalDiscreteResourceSubStore(new TestTransactionContext(store));
+        return resources.stream().allMatch(x -> releaseTxStore.release(consumerId, x));
+    }
+
+    // applies the updates to the maps as they are made, values being
+    // serialized as they would be to be shipped to the partitions
+    private static class TestTransactionContext implements TransactionContext {
+        private final Map<String, Map<Object, byte[]>> store;
+
+        TestTransactionContext(Map<String, Map<Object, byte[]>> store) {
+            this.store = store;
+        }
+
+        @Override
+        public String name() {
+            return "benchmark";
+        }
+
+        @Override
+        public TransactionId transactionId() {
+            return TransactionId.from("benchmark");
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public CompletableFuture<CommitStatus> commit() {
+            return CompletableFuture.completedFuture(CommitStatus.SUCCESS);
+        }
+
+        @Override
+        public void abort() {
+        }
+
+        @Override
+        public <K, V> TransactionalMap<K, V> getTransactionalMap(String mapName, Serializer serializer) {
+            return new TestTransactionalMap<>(store.computeIfAbsent(mapName, x -> new HashMap<>()), serializer);
+        }
+    }
+
+    // caches the values read within the transaction like the transactional maps do
+    private static class TestTransactionalMap<K, V> implements TransactionalMap<K, V> {
+        private final Map<Object, byte[]> map;
+        private final Serializer serializer;
+        private final Map<K, V> readCache = new HashMap<>();
+
+        TestTransactionalMap(Map<Object, byte[]> map, Serializer serializer) {
+            this.map = map;
+            this.serializer = serializer;
+        }
+
+        @Override
+        public V get(K key) {
+            return readCache.computeIfAbsent(key, x -> {
+                byte[] bytes = map.get(x);
+                return bytes == null ? null : serializer.decode(bytes);
+            });
+        }
+
+        @Override
+        public boolean containsKey(K key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V oldValue = get(key);
+            map.put(key, serializer.encode(value));
+            readCache.put(key, value);
+            return oldValue;
+        }
+
+        @Override
+        public V remove(K key) {
+            V oldValue = get(key);
+            map.remove(key);
+            readCache.remove(key);
+            return oldValue;
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            V oldValue = get(key);
+            return oldValue == null ? put(key, value) : oldValue;
+        }
+
+        @Override
+        public boolean remove(K key, V value) {
+            if (!Objects.equals(get(key), value)) {
+                return false;
+            }
+            remove(key);
+            return true;
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            if (!Objects.equals(get(key), oldValue)) {
+                return false;
+            }
+            put(key, newValue);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import org.onlab.packet.VlanId;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.resource.DiscreteResourceId;
+import org.onosproject.net.resource.Resources;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.onosproject.store.resource.impl.ConsistentResourceStore.SERIALIZER;
+
+/**
+ * Measures the serialization of the child sets of the discrete resource
+ * store, as taken by a snapshot of the map and read back when restoring it,
+ * for the VLANs of the ports of a synthetic inventory, in the compact format
+ * and in the list of ranges format of previous releases.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscreteResourceSnapshotBenchmark {
+
+    private static final DeviceId DEVICE_ID = DeviceId.deviceId("of:0000000000000001");
+    private static final int PORTS = 256;
+    private static final int VLANS = 4094;
+
+    // the namespace of ConsistentResourceStore as of the previous release
+    private static final Serializer LEGACY_SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
+            .register(KryoNamespaces.API)
+            .register(UnifiedDiscreteResources.class)
+            .register(new EncodableDiscreteResourcesSerializer(), EncodableDiscreteResources.class)
+            .register(GenericDiscreteResources.class)
+            .register(EmptyDiscreteResources.class)
+            .register(new LegacyEncodedResourcesSerializer(), EncodedDiscreteResources.class)
+            .register(ContinuousResourceAllocation.class)
+            .register(PortNumberCodec.class)
+            .register(VlanIdCodec.class)
+            .register(MplsLabelCodec.class)
+            .build());
+
+    /**
+     * VLANs of each port: all of them, every other one, or a random half.
+     */
+    @Param({"contiguous", "alternate", "random"})
+    public String layout;
+
+    /**
+     * Serialization format of the child sets.
+     */
+    @Param({"compact", "legacy"})
+    public String format;
+
+    private Serializer serializer;
+    private DiscreteResources[] children;
+    private byte[][] encoded;
+
+    @Setup
+    public void setUp() {
+        serializer = format.equals("legacy") ? LEGACY_SERIALIZER : SERIALIZER;
+
+        Random random = new Random(0);
+        IntPredicate registered;
+        switch (layout) {
+            case "alternate":
+                registered = x -> x % 2 == 1;
+                break;
+            case "random":
+                registered = x -> random.nextBoolean();
+                break;
+            default:
+                registered = x -> true;
+                break;
+        }
+
+        children = new DiscreteResources[PORTS];
+        encoded = new byte[PORTS][];
+        for (int i = 0; i < PORTS; i++) {
+            DiscreteResourceId port = Resources.discrete(DEVICE_ID, PortNumber.portNumber(i + 1)).id();
+            children[i] = EncodableDiscreteResources.of(IntStream.rangeClosed(1, VLANS)
+                    .filter(registered)
+                    .mapToObj(x -> Resources.discrete(port, VlanId.vlanId((short) x)).resource())
+                    .collect(Collectors.toSet()));
+            encoded[i] = serializer.encode(children[i]);
+        }
+    }
+
+    @Benchmark
+    public long encode() {
+        long bytes = 0;
+        for (DiscreteResources resources : children) {
+            bytes += serializer.encode(resources).length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public int decode() {
+        int values = 0;
+        for (byte[] bytes : encoded) {
+            values += serializer.<DiscreteResources>decode(bytes).isEmpty() ? 0 : 1;
+        }
+        return values;
+    }
+}
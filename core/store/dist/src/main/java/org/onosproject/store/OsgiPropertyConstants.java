@@ -62,6 +62,12 @@ public final class OsgiPropertyConstants {
     public static final String DSS_MESSAGE_HANDLER_THREAD_POOL_SIZE = "messageHandlerThreadPoolSize";
     public static final int DSS_MESSAGE_HANDLER_THREAD_POOL_SIZE_DEFAULT = 4;
 
+    public static final String DHS_REPLICA_VERIFY_PERIOD = "replicaVerifyPeriod";
+    public static final int DHS_REPLICA_VERIFY_PERIOD_DEFAULT = 0;
+
     public static final String LINK_WEIGHT_FUNCTION = "linkWeightFunction";
     public static final String LINK_WEIGHT_FUNCTION_DEFAULT = "hopCount";
+
+    public static final String GRAPH_PATH_SEARCH = "graphPathSearch";
+    public static final String GRAPH_PATH_SEARCH_DEFAULT = "dijkstra";
 }
@@ -29,6 +29,7 @@ import org.onosproject.net.device.DefaultPortDescription;
 import org.onosproject.net.device.DeviceDescription;
 import org.onosproject.net.device.PortDescription;
 import org.onosproject.store.Timestamp;
+import org.onosproject.store.impl.MastershipBasedTimestamp;
 import org.onosproject.store.impl.Timestamped;
 
 /*
@@ -40,9 +41,16 @@ class DeviceDescriptions {
 
     private final ConcurrentMap<PortNumber, Timestamped<PortDescription>> portDescs;
 
+    // order-insensitive digest of the port versions, kept up to date on put
+    private volatile long portDigest;
+
+    // local time at which each port was marked removed
+    private final ConcurrentMap<PortNumber, Long> removalTimes;
+
     public DeviceDescriptions(Timestamped<DeviceDescription> desc) {
         this.deviceDesc = checkNotNull(desc);
         this.portDescs = new ConcurrentHashMap<>();
+        this.removalTimes = new ConcurrentHashMap<>();
     }
 
     public Timestamp getLatestTimestamp() {
@@ -67,6 +75,20 @@ class DeviceDescriptions {
         return Collections.unmodifiableMap(portDescs);
     }
 
+    /**
+     * Returns a digest of the versions of the port descriptions, leaving out
+     * the ports marked removed.
+     * <p>
+     * Two instances holding the same port descriptions at the same timestamps
+     * have the same digest, regardless of the order the descriptions were put
+     * and of whether the removed ports were already pruned.
+     *
+     * @return port digest
+     */
+    public long getPortDigest() {
+        return portDigest;
+    }
+
     /**
      * Puts DeviceDescription, merging annotations as necessary.
      *
@@ -103,5 +125,57 @@ class DeviceDescriptions {
                             newDesc.timestamp());
         }
         portDescs.put(newOne.value().portNumber(), newOne);
+        if (newOne.value().isRemoved()) {
+            removalTimes.put(newOne.value().portNumber(), System.currentTimeMillis());
+        } else {
+            removalTimes.remove(newOne.value().portNumber());
+        }
+        // callers serialize puts under the Device lock
+        portDigest += fingerprint(newOne) - (oldOne == null ? 0 : fingerprint(oldOne));
+    }
+
+    /**
+     * Forgets the ports marked removed for longer than the given time.
+     * <p>
+     * Removed ports are kept so that a removal cannot be undone by an older
+     * update delivered late; once peers had the time to learn of the removal,
+     * they are no longer needed.
+     *
+     * @param horizonMillis time in milliseconds after which removed ports
+     *                      are forgotten
+     */
+    public void pruneRemovedPorts(long horizonMillis) {
+        long expiry = System.currentTimeMillis() - horizonMillis;
+        removalTimes.forEach((number, removedAt) -> {
+            Timestamped<PortDescription> desc = portDescs.get(number);
+            if (removedAt <= expiry && desc != null && desc.value().isRemoved()) {
+                portDescs.remove(number, desc);
+                removalTimes.remove(number, removedAt);
+            }
+        });
+    }
+
+    private static long fingerprint(Timestamped<PortDescription> desc) {
+        if (desc.value().isRemoved()) {
+            return 0;
+        }
+        long version;
+        if (desc.timestamp() instanceof MastershipBasedTimestamp) {
+            MastershipBasedTimestamp ts = (MastershipBasedTimestamp) desc.timestamp();
+            version = ts.termNumber() * 0x9E3779B97F4A7C15L + ts.sequenceNumber();
+        } else {
+            version = desc.timestamp().hashCode();
+        }
+        return mix(mix(desc.value().portNumber().toLong()) + version);
+    }
+
+    // 64-bit finalizer of MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
     }
 }
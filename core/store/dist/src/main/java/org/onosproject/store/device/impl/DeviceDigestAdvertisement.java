@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.device.impl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.store.Timestamp;
+
+
+/**
+ * Device Advertisement message advertising the ports as a single digest per
+ * device and provider, see {@link DeviceDescriptions#getPortDigest()}.
+ * <p>
+ * Peers sending it are known to handle {@link InternalPortDeltaEvent};
+ * {@link DeviceAntiEntropyAdvertisement} is exchanged with the others.
+ */
+public class DeviceDigestAdvertisement {
+
+    private final NodeId sender;
+    private final Map<DeviceFragmentId, Timestamp> deviceFingerPrints;
+    private final Map<DeviceFragmentId, Long> portDigests;
+    private final Map<DeviceId, Timestamp> offline;
+
+
+    public DeviceDigestAdvertisement(NodeId sender,
+                Map<DeviceFragmentId, Timestamp> devices,
+                Map<DeviceFragmentId, Long> portDigests,
+                Map<DeviceId, Timestamp> offline) {
+        this.sender = checkNotNull(sender);
+        this.deviceFingerPrints = checkNotNull(devices);
+        this.portDigests = checkNotNull(portDigests);
+        this.offline = checkNotNull(offline);
+    }
+
+    public NodeId sender() {
+        return sender;
+    }
+
+    public Map<DeviceFragmentId, Timestamp> deviceFingerPrints() {
+        return deviceFingerPrints;
+    }
+
+    public Map<DeviceFragmentId, Long> portDigests() {
+        return portDigests;
+    }
+
+    public Map<DeviceId, Timestamp> offline() {
+        return offline;
+    }
+
+    // For serializer
+    @SuppressWarnings("unused")
+    private DeviceDigestAdvertisement() {
+        this.sender = null;
+        this.deviceFingerPrints = null;
+        this.portDigests = null;
+        this.offline = null;
+    }
+}
@@ -184,7 +184,9 @@ public class ECDeviceStore
                     } catch (IllegalStateException e) {
                         return null;
                     }
-                }).build();
+                })
+                .withCompression()
+                .build();
 
         devicePortStats = storageService.<DeviceId, Map<PortNumber, PortStatistics>>eventuallyConsistentMapBuilder()
                 .withName("onos-port-stats")
@@ -192,6 +194,7 @@ public class ECDeviceStore
                 .withAntiEntropyPeriod(5, TimeUnit.SECONDS)
                 .withTimestampProvider((k, v) -> new WallClockTimestamp())
                 .withTombstonesDisabled()
+                .withCompression()
                 .build();
 
         devicePortDeltaStats = storageService.<DeviceId, Map<PortNumber, PortStatistics>>
@@ -201,6 +204,7 @@ public class ECDeviceStore
                 .withAntiEntropyPeriod(5, TimeUnit.SECONDS)
                 .withTimestampProvider((k, v) -> new WallClockTimestamp())
                 .withTombstonesDisabled()
+                .withCompression()
                 .build();
 
         availableDevices = storageService.<DeviceId>setBuilder()
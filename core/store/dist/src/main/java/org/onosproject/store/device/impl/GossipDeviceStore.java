@@ -38,6 +38,7 @@ import org.onosproject.net.DeviceId;
 import org.onosproject.net.MastershipRole;
 import org.onosproject.net.Port;
 import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DefaultPortDescription;
 import org.onosproject.net.device.DefaultPortStatistics;
 import org.onosproject.net.device.DeviceClockService;
 import org.onosproject.net.device.DeviceDescription;
@@ -98,16 +99,19 @@ import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onlab.util.Tools.minPriority;
 import static org.onosproject.cluster.ControllerNodeToNodeId.toNodeId;
+import static org.onosproject.net.DefaultAnnotations.union;
 import static org.onosproject.net.device.DeviceEvent.Type.DEVICE_AVAILABILITY_CHANGED;
 import static org.onosproject.net.device.DeviceEvent.Type.PORT_ADDED;
 import static org.onosproject.net.device.DeviceEvent.Type.PORT_REMOVED;
 import static org.onosproject.net.device.DeviceEvent.Type.PORT_STATS_UPDATED;
 import static org.onosproject.net.device.DeviceEvent.Type.PORT_UPDATED;
 import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.DEVICE_ADVERTISE;
+import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.DEVICE_DIGEST_ADVERTISE;
 import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.DEVICE_REMOVED;
 import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.DEVICE_REMOVE_REQ;
 import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.DEVICE_STATUS_CHANGE;
 import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.DEVICE_UPDATE;
+import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.PORT_DELTA_UPDATE;
 import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.PORT_STATUS_UPDATE;
 import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.PORT_UPDATE;
 import static org.onosproject.store.service.EventuallyConsistentMapEvent.Type.PUT;
@@ -149,6 +153,10 @@ public class GossipDeviceStore
     // available(=UP) devices
     private final Set<DeviceId> availableDevices = Sets.newConcurrentHashSet();
 
+    // peers known to handle port deltas and digests, from the advertisements
+    // they sent; the others are sent the complete port lists instead
+    private final Set<NodeId> digestPeers = Sets.newConcurrentHashSet();
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected DeviceClockService deviceClockService;
 
@@ -180,6 +188,8 @@ public class GossipDeviceStore
                     .register(DeviceAntiEntropyAdvertisement.class)
                     .register(DeviceFragmentId.class)
                     .register(PortFragmentId.class)
+                    .register(new InternalPortDeltaEventSerializer(), InternalPortDeltaEvent.class)
+                    .register(DeviceDigestAdvertisement.class)
                     .build("GossipDevice"));
 
     private ExecutorService executor;
@@ -189,6 +199,8 @@ public class GossipDeviceStore
     // TODO make these anti-entropy parameters configurable
     private long initialDelaySec = 5;
     private long periodSec = 5;
+    // time removed ports are kept for anti-entropy to propagate the removal
+    private long removedPortHorizonSec = 60;
 
     @Activate
     public void activate() {
@@ -204,6 +216,8 @@ public class GossipDeviceStore
         addSubscriber(PORT_UPDATE, this::handlePortEvent);
         addSubscriber(PORT_STATUS_UPDATE, this::handlePortStatusEvent);
         addSubscriber(DEVICE_ADVERTISE, this::handleDeviceAdvertisement);
+        addSubscriber(PORT_DELTA_UPDATE, this::handlePortDeltaEvent);
+        addSubscriber(DEVICE_DIGEST_ADVERTISE, this::handleDeviceDigestAdvertisement);
 
         // start anti-entropy thread
         backgroundExecutor.scheduleAtFixedRate(new SendAdvertisementTask(),
@@ -221,6 +235,7 @@ public class GossipDeviceStore
                 .withAntiEntropyPeriod(5, TimeUnit.SECONDS)
                 .withTimestampProvider((k, v) -> new WallClockTimestamp())
                 .withTombstonesDisabled()
+                .withCompression()
                 .build();
         devicePortDeltaStats = storageService.<DeviceId, Map<PortNumber, PortStatistics>>
                 eventuallyConsistentMapBuilder()
@@ -229,6 +244,7 @@ public class GossipDeviceStore
                 .withAntiEntropyPeriod(5, TimeUnit.SECONDS)
                 .withTimestampProvider((k, v) -> new WallClockTimestamp())
                 .withTombstonesDisabled()
+                .withCompression()
                 .build();
         devicePortStats.addListener(portStatsListener);
         log.info("Started");
@@ -600,11 +616,12 @@ public class GossipDeviceStore
             final Timestamped<List<PortDescription>> timestampedInput
                     = new Timestamped<>(portDescriptions, newTimestamp);
             final Timestamped<List<PortDescription>> merged;
+            final List<Timestamped<PortDescription>> delta = new ArrayList<>();
 
             final Map<ProviderId, DeviceDescriptions> device = getOrCreateDeviceDescriptionsMap(deviceId);
 
             synchronized (device) {
-                deviceEvents = updatePortsInternal(providerId, deviceId, timestampedInput);
+                deviceEvents = updatePortsInternal(providerId, deviceId, timestampedInput, delta);
                 final DeviceDescriptions descs = device.get(providerId);
                 List<PortDescription> mergedList =
                         FluentIterable.from(portDescriptions)
@@ -615,10 +632,11 @@ public class GossipDeviceStore
                 merged = new Timestamped<>(mergedList, newTimestamp);
             }
 
-            if (!deviceEvents.isEmpty()) {
+            if (!delta.isEmpty()) {
                 log.debug("Notifying peers of a ports update topology event for providerId: {} and deviceId: {}",
                          providerId, deviceId);
-                notifyPeers(new InternalPortEvent(providerId, deviceId, merged));
+                notifyPeers(new InternalPortDeltaEvent(providerId, deviceId, ImmutableList.copyOf(delta)),
+                            new InternalPortEvent(providerId, deviceId, merged));
             }
 
         } else {
@@ -628,9 +646,12 @@ public class GossipDeviceStore
         return deviceEvents;
     }
 
+    // Applies the complete list of ports reported by the device and collects
+    // in delta the merged descriptions whose version changed.
     private List<DeviceEvent> updatePortsInternal(ProviderId providerId,
                                                   DeviceId deviceId,
-                                                  Timestamped<List<PortDescription>> portDescriptions) {
+                                                  Timestamped<List<PortDescription>> portDescriptions,
+                                                  List<Timestamped<PortDescription>> delta) {
 
         Device device = devices.get(deviceId);
         if (device == null) {
@@ -673,10 +694,16 @@ public class GossipDeviceStore
                 final Timestamped<PortDescription> existingPortDesc = descs.getPortDesc(number);
                 if (existingPortDesc == null ||
                         newTimestamp.compareTo(existingPortDesc.timestamp()) >= 0) {
+                    if ((oldPort != null || isRemoved) &&
+                            isUnchanged(existingPortDesc, portDescription, newTimestamp)) {
+                        // keep the version peers already have
+                        continue;
+                    }
                     // on new port or valid update
                     // update description
                     descs.putPortDesc(new Timestamped<>(portDescription,
                                                         portDescriptions.timestamp()));
+                    delta.add(descs.getPortDesc(number));
                     newPort = composePort(device, number, descsMap);
                 } else {
                     // outdated event, ignored.
@@ -692,11 +719,45 @@ public class GossipDeviceStore
                 }
             }
 
+            // mark ports no longer reported as removed, so that the removal
+            // is versioned and propagated like any other port update
+            for (Timestamped<PortDescription> portDesc : ImmutableList.copyOf(descs.getPortDescs().values())) {
+                if (!processed.contains(portDesc.value().portNumber()) &&
+                        !portDesc.value().isRemoved() &&
+                        newTimestamp.compareTo(portDesc.timestamp()) > 0) {
+                    descs.putPortDesc(new Timestamped<>(
+                            DefaultPortDescription.builder(portDesc.value()).isRemoved(true).build(),
+                            newTimestamp));
+                    delta.add(descs.getPortDesc(portDesc.value().portNumber()));
+                }
+            }
+
             events.addAll(pruneOldPorts(device, ports, processed));
         }
         return FluentIterable.from(events).filter(notNull()).toList();
     }
 
+    // Checks if the port description reported again within the same mastership
+    // term is identical to the existing one, once annotations are merged.
+    // Within a term only the master updates the ports, so the existing
+    // version can be kept.
+    private static boolean isUnchanged(Timestamped<PortDescription> existing,
+                                       PortDescription portDescription,
+                                       Timestamp newTimestamp) {
+        if (existing == null ||
+                !(existing.timestamp() instanceof MastershipBasedTimestamp) ||
+                !(newTimestamp instanceof MastershipBasedTimestamp) ||
+                ((MastershipBasedTimestamp) existing.timestamp()).termNumber() !=
+                        ((MastershipBasedTimestamp) newTimestamp).termNumber()) {
+            return false;
+        }
+        PortDescription merged = DefaultPortDescription.builder(portDescription)
+                .annotations(union(existing.value().annotations(), portDescription.annotations()))
+                .build();
+        return merged.isRemoved() == existing.value().isRemoved() &&
+                merged.equals(existing.value());
+    }
+
     // Creates a new port based on the port description adds it to the map and
     // Returns corresponding event.
     // Guarded by deviceDescs value (=Device lock)
@@ -859,7 +920,7 @@ public class GossipDeviceStore
             }
 
             if (oldPort == null) {
-                return createPort(device, newPort, ports);
+                return toDelete ? null : createPort(device, newPort, ports);
             } else {
                 return toDelete ? removePort(deviceId, number) : updatePort(device, oldPort, newPort, ports);
             }
@@ -1287,8 +1348,32 @@ public class GossipDeviceStore
         broadcastMessage(GossipDeviceStoreMessageSubjects.DEVICE_REMOVED, event);
     }
 
-    private void notifyPeers(InternalPortEvent event) {
-        broadcastMessage(GossipDeviceStoreMessageSubjects.PORT_UPDATE, event);
+    // Sends the changed ports to the peers handling port deltas, and the
+    // complete port list to the others (all of them until one is known).
+    private void notifyPeers(InternalPortDeltaEvent deltaEvent, InternalPortEvent event) {
+        if (digestPeers.isEmpty()) {
+            broadcastMessage(PORT_UPDATE, event);
+            return;
+        }
+        final NodeId self = clusterService.getLocalNode().id();
+        Set<NodeId> deltaPeers = new HashSet<>();
+        Set<NodeId> peers = new HashSet<>();
+        for (ControllerNode node : clusterService.getNodes()) {
+            if (node.id().equals(self)) {
+                continue;
+            }
+            if (digestPeers.contains(node.id())) {
+                deltaPeers.add(node.id());
+            } else {
+                peers.add(node.id());
+            }
+        }
+        if (!deltaPeers.isEmpty()) {
+            clusterCommunicator.multicast(deltaEvent, PORT_DELTA_UPDATE, SERIALIZER::encode, deltaPeers);
+        }
+        if (!peers.isEmpty()) {
+            clusterCommunicator.multicast(event, PORT_UPDATE, SERIALIZER::encode, peers);
+        }
     }
 
     private void notifyPeers(InternalPortStatusEvent event) {
@@ -1319,22 +1404,28 @@ public class GossipDeviceStore
         }
     }
 
-    private void notifyPeer(NodeId recipient, InternalPortEvent event) {
+    private void notifyPeer(NodeId recipient, InternalPortStatusEvent event) {
         try {
-            unicastMessage(recipient, GossipDeviceStoreMessageSubjects.PORT_UPDATE, event);
+            unicastMessage(recipient, GossipDeviceStoreMessageSubjects.PORT_STATUS_UPDATE, event);
         } catch (IOException e) {
             log.error("Failed to send" + event + " to " + recipient, e);
         }
     }
 
-    private void notifyPeer(NodeId recipient, InternalPortStatusEvent event) {
+    private void notifyPeer(NodeId recipient, InternalPortDeltaEvent event) {
         try {
-            unicastMessage(recipient, GossipDeviceStoreMessageSubjects.PORT_STATUS_UPDATE, event);
+            unicastMessage(recipient, PORT_DELTA_UPDATE, event);
         } catch (IOException e) {
             log.error("Failed to send" + event + " to " + recipient, e);
         }
     }
 
+    /**
+     * Creates an anti-entropy advertisement of the local state, for peers
+     * which do not handle port digests.
+     *
+     * @return advertisement
+     */
     private DeviceAntiEntropyAdvertisement createAdvertisement() {
         final NodeId self = clusterService.getLocalNode().id();
 
@@ -1501,6 +1592,177 @@ public class GossipDeviceStore
             log.error("Failed to send response advertisement to " + sender, e);
         }
 
+// Sketch of 3-way Anti-Entropy
+//        DeviceAntiEntropyRequest request = new DeviceAntiEntropyRequest(self, reqDevices, reqPorts);
+//        ClusterMessage message = new ClusterMessage(
+//                clusterService.getLocalNode().id(),
+//                GossipDeviceStoreMessageSubjects.DEVICE_REQUEST,
+//                SERIALIZER.encode(request));
+//
+//        try {
+//            clusterCommunicator.unicast(message, advertisement.sender());
+//        } catch (IOException e) {
+//            log.error("Failed to send advertisement reply to "
+//                      + advertisement.sender(), e);
+//        }
+    }
+
+    /**
+     * Creates an anti-entropy advertisement of the local state, advertising
+     * the ports of each device as a digest.
+     *
+     * @return advertisement
+     */
+    DeviceDigestAdvertisement createDigestAdvertisement() {
+        final NodeId self = clusterService.getLocalNode().id();
+
+        final int numDevices = deviceDescs.size();
+        Map<DeviceFragmentId, Timestamp> adDevices = new HashMap<>(numDevices);
+        Map<DeviceFragmentId, Long> adPorts = new HashMap<>(numDevices);
+        Map<DeviceId, Timestamp> adOffline = new HashMap<>(numDevices);
+
+        deviceDescs.forEach((deviceId, devDescs) -> {
+
+            // for each Device...
+            synchronized (devDescs) {
+
+                // send device offline timestamp
+                Timestamp lOffline = this.offline.get(deviceId);
+                if (lOffline != null) {
+                    adOffline.put(deviceId, lOffline);
+                }
+
+                for (Entry<ProviderId, DeviceDescriptions>
+                        prov : devDescs.entrySet()) {
+
+                    // for each Provider Descriptions...
+                    final ProviderId provId = prov.getKey();
+                    final DeviceDescriptions descs = prov.getValue();
+
+                    final DeviceFragmentId fragId = new DeviceFragmentId(deviceId, provId);
+                    adDevices.put(fragId, descs.getDeviceDesc().timestamp());
+                    adPorts.put(fragId, descs.getPortDigest());
+                }
+            }
+        });
+
+        return new DeviceDigestAdvertisement(self, adDevices, adPorts, adOffline);
+    }
+
+    /**
+     * Responds to anti-entropy digest advertisement message.
+     * <p>
+     * Notify sender about out-dated information using regular replication message.
+     * Send back advertisement to sender if not in sync.
+     *
+     * @param advertisement to respond to
+     */
+    private void handleDigestAdvertisement(DeviceDigestAdvertisement advertisement) {
+
+        final NodeId sender = advertisement.sender();
+
+        Map<DeviceFragmentId, Timestamp> devAds = new HashMap<>(advertisement.deviceFingerPrints());
+        Map<DeviceFragmentId, Long> portAds = new HashMap<>(advertisement.portDigests());
+        Map<DeviceId, Timestamp> offlineAds = new HashMap<>(advertisement.offline());
+
+        // Fragments to request
+        Collection<DeviceFragmentId> reqDevices = new ArrayList<>();
+        Collection<DeviceFragmentId> reqPorts = new ArrayList<>();
+
+        for (Entry<DeviceId, Map<ProviderId, DeviceDescriptions>> de : deviceDescs.entrySet()) {
+            final DeviceId deviceId = de.getKey();
+            final Map<ProviderId, DeviceDescriptions> lDevice = de.getValue();
+
+            synchronized (lDevice) {
+                // latestTimestamp across provider
+                // Note: can be null initially
+                Timestamp localLatest = offline.get(deviceId);
+
+                // handle device Ads
+                for (Entry<ProviderId, DeviceDescriptions> prov : lDevice.entrySet()) {
+                    final ProviderId provId = prov.getKey();
+                    final DeviceDescriptions lDeviceDescs = prov.getValue();
+
+                    final DeviceFragmentId devFragId = new DeviceFragmentId(deviceId, provId);
+
+
+                    Timestamped<DeviceDescription> lProvDevice = lDeviceDescs.getDeviceDesc();
+                    Timestamp advDevTimestamp = devAds.get(devFragId);
+
+                    if (advDevTimestamp == null || lProvDevice.isNewerThan(
+                            advDevTimestamp)) {
+                        // remote does not have it or outdated, suggest
+                        notifyPeer(sender, new InternalDeviceEvent(provId, deviceId, lProvDevice));
+                    } else if (!lProvDevice.timestamp().equals(advDevTimestamp)) {
+                        // local is outdated, request
+                        reqDevices.add(devFragId);
+                    }
+
+                    // handle port Ads
+                    Long advPortDigest = portAds.remove(devFragId);
+                    if (advPortDigest == null || advPortDigest != lDeviceDescs.getPortDigest()) {
+                        // which side is outdated is not known from the digest,
+                        // suggest local ports and have the remote do the same
+                        Map<PortNumber, Timestamped<PortDescription>> lPorts = lDeviceDescs.getPortDescs();
+                        if (!lPorts.isEmpty()) {
+                            notifyPeer(sender, new InternalPortDeltaEvent(provId, deviceId,
+                                                                          ImmutableList.copyOf(lPorts.values())));
+                        }
+                        if (advPortDigest != null) {
+                            log.trace("ports of {} differ", devFragId);
+                            reqPorts.add(devFragId);
+                        }
+                    }
+
+                    // remove device Ad already processed
+                    devAds.remove(devFragId);
+
+                    // find latest and update
+                    final Timestamp providerLatest = lDeviceDescs.getLatestTimestamp();
+                    if (localLatest == null ||
+                            providerLatest.compareTo(localLatest) > 0) {
+                        localLatest = providerLatest;
+                    }
+                } // end local provider loop
+
+                // checking if remote timestamp is more recent.
+                Timestamp rOffline = offlineAds.get(deviceId);
+                if (localLatest == null || (rOffline != null && rOffline.compareTo(localLatest) > 0)) {
+                    // remote offline timestamp suggests that the
+                    // device is off-line
+                    markOfflineInternal(deviceId, rOffline);
+                }
+
+                Timestamp lOffline = offline.get(deviceId);
+                if (lOffline != null && rOffline == null) {
+                    // locally offline, but remote is online, suggest offline
+                    notifyPeer(sender, new InternalDeviceStatusChangeEvent(deviceId, lOffline, false));
+                }
+
+                // remove device offline Ad already processed
+                offlineAds.remove(deviceId);
+            } // end local device loop
+        } // device lock
+
+        // If there is any Ads left, request them
+        log.trace("Ads left {}, {}", devAds, portAds);
+        reqDevices.addAll(devAds.keySet());
+        reqPorts.addAll(portAds.keySet());
+
+        if (reqDevices.isEmpty() && reqPorts.isEmpty()) {
+            log.trace("Nothing to request to remote peer {}", sender);
+            return;
+        }
+
+        log.debug("Need to sync {} {}", reqDevices, reqPorts);
+
+        // 2-way Anti-Entropy for now
+        try {
+            unicastMessage(sender, DEVICE_DIGEST_ADVERTISE, createDigestAdvertisement());
+        } catch (IOException e) {
+            log.error("Failed to send response advertisement to " + sender, e);
+        }
+
 // Sketch of 3-way Anti-Entropy
 //        DeviceAntiEntropyRequest request = new DeviceAntiEntropyRequest(self, reqDevices, reqPorts);
 //        ClusterMessage message = new ClusterMessage(
@@ -1550,7 +1812,9 @@ public class GossipDeviceStore
                     peer = nodeIds.get(idx);
                 } while (peer.equals(self));
 
-                DeviceAntiEntropyAdvertisement ad = createAdvertisement();
+                pruneRemovedPorts();
+                // peers not handling digests ignore it and advertise in turn
+                DeviceDigestAdvertisement ad = createDigestAdvertisement();
 
                 if (Thread.currentThread().isInterrupted()) {
                     log.debug("Interrupted, quitting");
@@ -1558,7 +1822,7 @@ public class GossipDeviceStore
                 }
 
                 try {
-                    unicastMessage(peer, DEVICE_ADVERTISE, ad);
+                    unicastMessage(peer, DEVICE_DIGEST_ADVERTISE, ad);
                 } catch (IOException e) {
                     log.debug("Failed to send anti-entropy advertisement to {}", peer);
                     return;
@@ -1631,7 +1895,41 @@ public class GossipDeviceStore
         }
 
         try {
-            notifyDelegate(updatePortsInternal(providerId, deviceId, portDescriptions));
+            List<DeviceEvent> events;
+            final Map<ProviderId, DeviceDescriptions> device = getOrCreateDeviceDescriptionsMap(deviceId);
+            synchronized (device) {
+                events = updatePortsInternal(providerId, deviceId, portDescriptions, new ArrayList<>());
+            }
+            notifyDelegate(events);
+        } catch (Exception e) {
+            log.warn("Exception thrown handling port update", e);
+        }
+    }
+
+    private void handlePortDeltaEvent(InternalPortDeltaEvent event) {
+        ProviderId providerId = event.providerId();
+        DeviceId deviceId = event.deviceId();
+        List<Timestamped<PortDescription>> portDescriptions = event.portDescriptions();
+
+        if (getDevice(deviceId) == null) {
+            log.debug("{} not found on this node yet, ignoring.", deviceId);
+            // Note: dropped information will be recovered by anti-entropy
+            return;
+        }
+
+        try {
+            // each port carries its own version, merge them one by one
+            List<DeviceEvent> events = new ArrayList<>();
+            final Map<ProviderId, DeviceDescriptions> device = getOrCreateDeviceDescriptionsMap(deviceId);
+            synchronized (device) {
+                for (Timestamped<PortDescription> portDescription : portDescriptions) {
+                    DeviceEvent portEvent = updatePortStatusInternal(providerId, deviceId, portDescription);
+                    if (portEvent != null) {
+                        events.add(portEvent);
+                    }
+                }
+            }
+            notifyDelegate(events);
         } catch (Exception e) {
             log.warn("Exception thrown handling port update", e);
         }
@@ -1656,6 +1954,8 @@ public class GossipDeviceStore
     }
 
     private void handleDeviceAdvertisement(DeviceAntiEntropyAdvertisement advertisement) {
+        // only peers not handling digests send these
+        digestPeers.remove(advertisement.sender());
         try {
             handleAdvertisement(advertisement);
         } catch (Exception e) {
@@ -1663,6 +1963,25 @@ public class GossipDeviceStore
         }
     }
 
+    void handleDeviceDigestAdvertisement(DeviceDigestAdvertisement advertisement) {
+        digestPeers.add(advertisement.sender());
+        try {
+            handleDigestAdvertisement(advertisement);
+        } catch (Exception e) {
+            log.warn("Exception thrown handling Device advertisements.", e);
+        }
+    }
+
+    // Forgets the ports removed long enough ago for peers to know of it.
+    private void pruneRemovedPorts() {
+        final long horizonMillis = TimeUnit.SECONDS.toMillis(removedPortHorizonSec);
+        deviceDescs.values().forEach(devDescs -> {
+            synchronized (devDescs) {
+                devDescs.values().forEach(descs -> descs.pruneRemovedPorts(horizonMillis));
+            }
+        });
+    }
+
     private class InternalPortStatsListener
             implements EventuallyConsistentMapListener<DeviceId, Map<PortNumber, PortStatistics>> {
         @Override
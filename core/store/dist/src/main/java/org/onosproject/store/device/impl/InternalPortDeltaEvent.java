@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.device.impl;
+
+import java.util.List;
+
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.PortDescription;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.store.impl.Timestamped;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Information published by GossipDeviceStore to notify peers of the ports
+ * which changed.
+ * <p>
+ * Carries only the port descriptions which changed, each with its own
+ * timestamp, so that peers can merge them port by port in any order.
+ * Sent only to peers known to handle it, see {@link InternalPortEvent}
+ * for the full port list understood by all peers.
+ */
+public class InternalPortDeltaEvent {
+
+    private final ProviderId providerId;
+    private final DeviceId deviceId;
+    private final List<Timestamped<PortDescription>> portDescriptions;
+
+    protected InternalPortDeltaEvent(
+            ProviderId providerId,
+            DeviceId deviceId,
+            List<Timestamped<PortDescription>> portDescriptions) {
+        this.providerId = providerId;
+        this.deviceId = deviceId;
+        this.portDescriptions = portDescriptions;
+    }
+
+    public DeviceId deviceId() {
+        return deviceId;
+    }
+
+    public ProviderId providerId() {
+        return providerId;
+    }
+
+    public List<Timestamped<PortDescription>> portDescriptions() {
+        return portDescriptions;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("providerId", providerId)
+                .add("deviceId", deviceId)
+                .add("portDescriptions", portDescriptions)
+                .toString();
+    }
+
+    // for serializer
+    protected InternalPortDeltaEvent() {
+        this.providerId = null;
+        this.deviceId = null;
+        this.portDescriptions = null;
+    }
+}
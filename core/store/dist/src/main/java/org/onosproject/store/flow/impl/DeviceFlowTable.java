@@ -26,10 +26,13 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.onlab.util.KryoNamespace;
@@ -56,10 +59,13 @@ import org.slf4j.LoggerFactory;
  * table performs communication independent of other device flow tables for more parallelism.
  * <p>
  * This implementation uses several different replication protocols. Changes that occur on the device master are
- * replicated to the backups provided in the {@link DeviceReplicaInfo} for the master's term. Additionally, a periodic
- * anti-entropy protocol is used to detect missing flows on backups (e.g. due to a node restart). Finally, when a
- * device mastership change occurs, the new master synchronizes flows with the prior master and/or backups for the
- * device, allowing mastership to be reassigned to non-backup nodes.
+ * replicated to the backups provided in the {@link DeviceReplicaInfo} for the master's term. Once a bucket has been
+ * backed up to a node, only the flows changed since the last backup are sent to that node as a {@link FlowBucketDelta}.
+ * Additionally, a periodic anti-entropy protocol is used to detect missing flows on backups (e.g. due to a node
+ * restart). Anti-entropy compares content hashes top-down: first a root hash for the whole table, then the hashes of
+ * each bucket, and finally the hashes of each flow in the buckets that differ, so that only divergent flows are
+ * transferred. Finally, when a device mastership change occurs, the new master synchronizes flows with the prior
+ * master and/or backups for the device, allowing mastership to be reassigned to non-backup nodes.
  */
 public class DeviceFlowTable {
     private static final int NUM_BUCKETS = 128;
@@ -67,6 +73,7 @@ public class DeviceFlowTable {
         .register(KryoNamespaces.API)
         .register(BucketId.class)
         .register(FlowBucket.class)
+        .register(FlowBucketDelta.class)
         .register(FlowBucketDigest.class)
         .register(LogicalTimestamp.class)
         .register(Timestamped.class)
@@ -74,7 +81,9 @@ public class DeviceFlowTable {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    private final MessageSubject getRootDigestSubject;
     private final MessageSubject getDigestsSubject;
+    private final MessageSubject getFlowDigestsSubject;
     private final MessageSubject getBucketSubject;
     private final MessageSubject backupSubject;
 
@@ -84,6 +93,8 @@ public class DeviceFlowTable {
     private final ScheduledExecutorService scheduler;
     private final Executor executor;
     private final NodeId localNodeId;
+    private final Meter backupBytes;
+    private final Histogram antiEntropyBytes;
 
     private final LogicalClock clock = new LogicalClock();
 
@@ -115,20 +126,26 @@ public class DeviceFlowTable {
         ScheduledExecutorService scheduler,
         Executor executor,
         long backupPeriod,
-        long antiEntropyPeriod) {
+        long antiEntropyPeriod,
+        Meter backupBytes,
+        Histogram antiEntropyBytes) {
         this.deviceId = deviceId;
         this.clusterCommunicator = clusterCommunicator;
         this.lifecycleManager = lifecycleManager;
         this.scheduler = scheduler;
         this.executor = executor;
         this.localNodeId = clusterService.getLocalNode().id();
+        this.backupBytes = backupBytes;
+        this.antiEntropyBytes = antiEntropyBytes;
         this.replicaInfo = lifecycleManager.getReplicaInfo();
 
         for (int i = 0; i < NUM_BUCKETS; i++) {
             flowBuckets.put(i, new FlowBucket(new BucketId(deviceId, i)));
         }
 
+        getRootDigestSubject = new MessageSubject(String.format("flow-store-%s-root", deviceId));
         getDigestsSubject = new MessageSubject(String.format("flow-store-%s-digests", deviceId));
+        getFlowDigestsSubject = new MessageSubject(String.format("flow-store-%s-flow-digests", deviceId));
         getBucketSubject = new MessageSubject(String.format("flow-store-%s-bucket", deviceId));
         backupSubject = new MessageSubject(String.format("flow-store-%s-backup", deviceId));
 
@@ -246,6 +263,29 @@ public class DeviceFlowTable {
             .collect(Collectors.toSet());
     }
 
+    /**
+     * Returns the root digest for the flow table, combining the content hashes of all buckets.
+     *
+     * @return the root digest for the flow table
+     */
+    private long getRootDigest() {
+        long hash = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            hash = hash * 31 + flowBuckets.get(i).hash();
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the flow digests for the given bucket.
+     *
+     * @param bucket the bucket for which to return the flow digests
+     * @return the content hashes of the flows in the given bucket
+     */
+    private Map<FlowId, Long> getFlowDigests(int bucket) {
+        return flowBuckets.get(bucket).getFlowDigests();
+    }
+
     /**
      * Returns the digest for the given bucket.
      *
@@ -398,11 +438,32 @@ public class DeviceFlowTable {
                     .stream()
                     .map(nodeId -> backupBucketToNode(bucket, nodeId))
                     .toArray(CompletableFuture[]::new);
-            return CompletableFuture.allOf(futures);
+            return CompletableFuture.allOf(futures).thenRun(() -> pruneChanges(bucket));
         }
         return CompletableFuture.completedFuture(null);
     }
 
+    /**
+     * Discards changes to the given bucket that have been replicated to all current backups.
+     * <p>
+     * Backups to which the bucket has not been replicated will be sent the full bucket, so they do not constrain
+     * which changes can be discarded.
+     *
+     * @param bucket the bucket for which to discard replicated changes
+     */
+    private void pruneChanges(FlowBucket bucket) {
+        DeviceReplicaInfo replicaInfo = lifecycleManager.getReplicaInfo();
+        LogicalTimestamp timestamp = bucket.timestamp();
+        for (NodeId nodeId : replicaInfo.backups()) {
+            BackupOperation operation = new BackupOperation(nodeId, bucket.bucketId().bucket());
+            LogicalTimestamp lastBackupTime = lastBackupTimes.get(operation);
+            if (lastBackupTime != null && lastBackupTime.isOlderThan(timestamp)) {
+                timestamp = lastBackupTime;
+            }
+        }
+        bucket.pruneChanges(timestamp);
+    }
+
     /**
      * Backs up the given flow bucket to the given node.
      *
@@ -418,15 +479,17 @@ public class DeviceFlowTable {
         BackupOperation operation = new BackupOperation(nodeId, bucket.bucketId().bucket());
         if (startBackup(operation, timestamp)) {
             CompletableFuture<Void> future = new CompletableFuture<>();
-            backup(bucket, nodeId).whenCompleteAsync((succeeded, error) -> {
+            backup(bucket, nodeId, lastBackupTimes.get(operation)).whenCompleteAsync((succeeded, error) -> {
                 if (error != null) {
                     log.debug("Backup operation {} failed", operation, error);
                     failBackup(operation);
                 } else if (succeeded) {
                     succeedBackup(operation, timestamp);
                 } else {
+                    // The backup could not apply the changes; send the full bucket on the next attempt.
                     log.debug("Backup operation {} failed: term mismatch", operation);
                     failBackup(operation);
+                    resetBackup(operation);
                 }
                 future.complete(null);
             }, executor);
@@ -489,40 +552,53 @@ public class DeviceFlowTable {
      *
      * @param bucket the bucket to backup
      * @param nodeId the node to which to backup the bucket
+     * @param since  the timestamp of the last successful backup to the node, or {@code null} to send the full bucket
      * @return a future to be completed with a boolean indicating whether the backup operation was successful
      */
-    private CompletableFuture<Boolean> backup(FlowBucket bucket, NodeId nodeId) {
+    private CompletableFuture<Boolean> backup(FlowBucket bucket, NodeId nodeId, LogicalTimestamp since) {
+        FlowBucketDelta delta = bucket.getDelta(since);
         if (log.isDebugEnabled()) {
-            log.debug("Backing up {} flow entries in bucket {} to {}", bucket.count(), bucket.bucketId(), nodeId);
-        }
-        synchronized (bucket) {
-            return sendWithTimestamp(bucket, backupSubject, nodeId);
+            log.debug("Backing up {} flows in bucket {} to {}", delta.flows().size(), bucket.bucketId(), nodeId);
         }
+        AtomicLong bytes = new AtomicLong();
+        return this.<FlowBucketDelta, Boolean>sendWithTimestamp(delta, backupSubject, nodeId, bytes)
+            .whenComplete((result, error) -> backupBytes.mark(bytes.get()));
     }
 
     /**
      * Handles a flow bucket backup from a remote peer.
      *
-     * @param flowBucket the flow bucket to back up
-     * @return the set of flows that could not be backed up
+     * @param delta the flow bucket changes to back up
+     * @return indicates whether the changes were backed up
      */
-    private boolean onBackup(FlowBucket flowBucket) {
+    private boolean onBackup(FlowBucketDelta delta) {
         if (log.isDebugEnabled()) {
-            log.debug("{} - Received {} flow entries in bucket {} to backup",
-                deviceId, flowBucket.count(), flowBucket.bucketId());
+            log.debug("{} - Received {} flows in bucket {} to backup",
+                deviceId, delta.flows().size(), delta.bucketId());
         }
 
         try {
             DeviceReplicaInfo replicaInfo = lifecycleManager.getReplicaInfo();
 
             // If the backup is for a different term, reject the request until we learn about the new term.
-            if (flowBucket.term() != replicaInfo.term()) {
-                log.debug("Term mismatch for device {}: {} != {}", deviceId, flowBucket.term(), replicaInfo);
+            if (delta.term() != replicaInfo.term()) {
+                log.debug("Term mismatch for device {}: {} != {}", deviceId, delta.term(), replicaInfo);
                 return false;
             }
 
-            flowBuckets.compute(flowBucket.bucketId().bucket(),
-                (id, bucket) -> flowBucket.getDigest().isNewerThan(bucket.getDigest()) ? flowBucket : bucket);
+            FlowBucket bucket = getBucket(delta.bucketId().bucket());
+            synchronized (bucket) {
+                // Changes relative to a baseline can only be applied if the bucket has caught up with the baseline.
+                if (delta.baseline() != null
+                    && (bucket.term() != delta.term() || bucket.timestamp().isOlderThan(delta.baseline()))) {
+                    log.debug("Missing changes for bucket {} prior to {}", delta.bucketId(), delta.baseline());
+                    return false;
+                }
+                if (!bucket.applyIfNotOlder(delta)) {
+                    log.debug("Ignoring stale changes for bucket {}", delta.bucketId());
+                    return false;
+                }
+            }
             return true;
         } catch (Exception e) {
             log.warn("Failure processing backup request", e);
@@ -550,19 +626,78 @@ public class DeviceFlowTable {
      * @param nodeId the node with which to execute the anti-entropy protocol
      */
     private void runAntiEntropy(NodeId nodeId) {
-        backupAll().whenCompleteAsync((result, error) -> {
-            requestDigests(nodeId).thenAcceptAsync((digests) -> {
-                // Compute a set of missing BucketIds based on digest times and send them back to the master.
-                for (FlowBucketDigest remoteDigest : digests) {
-                    FlowBucket localBucket = getBucket(remoteDigest.bucket());
-                    if (localBucket.getDigest().isNewerThan(remoteDigest)) {
-                        log.debug("Detected missing flow entries on node {} in bucket {}/{}",
-                                nodeId, deviceId, remoteDigest.bucket());
-                        resetBackup(new BackupOperation(nodeId, remoteDigest.bucket()));
-                    }
+        AtomicLong bytes = new AtomicLong();
+        backupAll()
+            .thenComposeAsync(v -> requestRootDigest(nodeId, bytes), executor)
+            .thenComposeAsync(rootDigest -> {
+                // If the root digests match, the flow tables are identical and no further comparison is necessary.
+                if (rootDigest == getRootDigest()) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                return requestDigests(nodeId, bytes).thenComposeAsync(digests -> Tools.allOf(digests.stream()
+                    .filter(digest -> digest.hash() != getBucket(digest.bucket()).hash())
+                    .map(digest -> repairBucket(nodeId, digest.bucket(), bytes))
+                    .collect(Collectors.toList())), executor);
+            }, executor)
+            .whenComplete((result, error) -> {
+                if (error != null) {
+                    log.debug("Anti-entropy with node {} failed for device {}", nodeId, deviceId, error);
                 }
+                antiEntropyBytes.update(bytes.get());
+            });
+    }
+
+    /**
+     * Sends the flows that differ between the given bucket and its replica to the given node.
+     *
+     * @param nodeId the node on which to repair the bucket
+     * @param bucket the bucket to repair
+     * @param bytes  the counter to which to add the number of bytes transferred
+     * @return a future to be completed once the bucket has been repaired
+     */
+    private CompletableFuture<Void> repairBucket(NodeId nodeId, int bucket, AtomicLong bytes) {
+        FlowBucket flowBucket = getBucket(bucket);
+        DeviceReplicaInfo replicaInfo = lifecycleManager.getReplicaInfo();
+        if (flowBucket.term() != replicaInfo.term() || !replicaInfo.isMaster(localNodeId)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Exclude concurrent backups to the node to ensure the flow digests remain valid until the repair is applied.
+        BackupOperation operation = new BackupOperation(nodeId, bucket);
+        if (!inFlightUpdates.add(operation)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        log.debug("Detected divergent flow entries on node {} in bucket {}/{}", nodeId, deviceId, bucket);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        this.<Integer, Map<FlowId, Long>>sendWithTimestamp(bucket, getFlowDigestsSubject, nodeId, bytes)
+            .thenComposeAsync(flowDigests -> {
+                FlowBucketDelta delta = flowBucket.getDelta(flowDigests);
+                return this.<FlowBucketDelta, Boolean>sendWithTimestamp(delta, backupSubject, nodeId, bytes)
+                    .thenApply(succeeded -> succeeded ? delta.timestamp() : null);
+            }, executor)
+            .whenCompleteAsync((timestamp, error) -> {
+                if (error == null && timestamp != null) {
+                    succeedBackup(operation, timestamp);
+                } else {
+                    log.debug("Repair of bucket {}/{} on node {} failed", deviceId, bucket, nodeId, error);
+                    failBackup(operation);
+                    resetBackup(operation);
+                }
+                future.complete(null);
             }, executor);
-        }, executor);
+        return future;
+    }
+
+    /**
+     * Sends a root digest request to the given node.
+     *
+     * @param nodeId the node to which to send the request
+     * @param bytes  the counter to which to add the number of bytes transferred
+     * @return future to be completed with the root digest for the given device on the given node
+     */
+    private CompletableFuture<Long> requestRootDigest(NodeId nodeId, AtomicLong bytes) {
+        return sendWithTimestamp(deviceId, getRootDigestSubject, nodeId, bytes);
     }
 
     /**
@@ -575,6 +710,17 @@ public class DeviceFlowTable {
         return sendWithTimestamp(deviceId, getDigestsSubject, nodeId);
     }
 
+    /**
+     * Sends a digest request to the given node.
+     *
+     * @param nodeId the node to which to send the request
+     * @param bytes  the counter to which to add the number of bytes transferred
+     * @return future to be completed with the set of digests for the given device on the given node
+     */
+    private CompletableFuture<Set<FlowBucketDigest>> requestDigests(NodeId nodeId, AtomicLong bytes) {
+        return sendWithTimestamp(deviceId, getDigestsSubject, nodeId, bytes);
+    }
+
     /**
      * Synchronizes flows from the previous master or backups.
      *
@@ -704,6 +850,8 @@ public class DeviceFlowTable {
     private void activateMaster(DeviceReplicaInfo replicaInfo) {
         if (replicaInfo.isMaster(localNodeId)) {
             log.debug("Activating term {} for device {}", replicaInfo.term(), deviceId);
+            // Backups are not guaranteed to have the changes replicated in prior terms, so send full buckets first.
+            lastBackupTimes.clear();
             for (int i = 0; i < NUM_BUCKETS; i++) {
                 activateBucket(i);
             }
@@ -815,6 +963,38 @@ public class DeviceFlowTable {
             });
     }
 
+    /**
+     * Sends a message to the given node wrapped in a Lamport timestamp, counting the bytes transferred.
+     *
+     * @param message  the message to send
+     * @param subject  the message subject
+     * @param toNodeId the node to which to send the message
+     * @param bytes    the counter to which to add the size of the encoded message and response
+     * @param <M>      the message type
+     * @param <R>      the response type
+     * @return a future to be completed with the response
+     */
+    private <M, R> CompletableFuture<R> sendWithTimestamp(
+        M message, MessageSubject subject, NodeId toNodeId, AtomicLong bytes) {
+        return clusterCommunicator.<Timestamped<M>, Timestamped<R>>sendAndReceive(
+            clock.timestamp(message),
+            subject,
+            request -> {
+                byte[] payload = SERIALIZER.encode(request);
+                bytes.addAndGet(payload.length);
+                return payload;
+            },
+            payload -> {
+                bytes.addAndGet(payload.length);
+                return SERIALIZER.decode(payload);
+            },
+            toNodeId)
+            .thenApply(response -> {
+                clock.tick(response.timestamp());
+                return response.value();
+            });
+    }
+
     /**
      * Receives messages to the given subject wrapped in Lamport timestamps.
      * <p>
@@ -837,7 +1017,9 @@ public class DeviceFlowTable {
      * Registers internal message subscribers.
      */
     private void registerSubscribers() {
+        receiveWithTimestamp(getRootDigestSubject, v -> getRootDigest());
         receiveWithTimestamp(getDigestsSubject, v -> getDigests());
+        receiveWithTimestamp(getFlowDigestsSubject, this::getFlowDigests);
         receiveWithTimestamp(getBucketSubject, this::onGetBucket);
         receiveWithTimestamp(backupSubject, this::onBackup);
     }
@@ -846,7 +1028,9 @@ public class DeviceFlowTable {
      * Unregisters internal message subscribers.
      */
     private void unregisterSubscribers() {
+        clusterCommunicator.removeSubscriber(getRootDigestSubject);
         clusterCommunicator.removeSubscriber(getDigestsSubject);
+        clusterCommunicator.removeSubscriber(getFlowDigestsSubject);
         clusterCommunicator.removeSubscriber(getBucketSubject);
         clusterCommunicator.removeSubscriber(backupSubject);
     }
@@ -15,11 +15,17 @@
 */
 package org.onosproject.store.flow.impl;
 
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.OrderedExecutor;
 import org.onlab.util.Tools;
@@ -78,6 +84,7 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 
 import java.util.Collections;
@@ -133,6 +140,10 @@ public class ECFlowRuleStore
     private final Logger log = getLogger(getClass());
 
     private static final long FLOW_RULE_STORE_TIMEOUT_MILLIS = 5000;
+    private static final String METRICS_COMPONENT = "FlowRuleStore";
+    private static final String METRICS_FEATURE = "replication";
+    private static final String BACKUP_BYTES = "backupBytes";
+    private static final String ANTI_ENTROPY_BYTES = "antiEntropyBytes";
 
     /** Number of threads in the message handler pool. */
     private int msgHandlerPoolSize = MESSAGE_HANDLER_THREAD_POOL_SIZE_DEFAULT;
@@ -189,6 +200,14 @@ public class ECFlowRuleStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected StorageService storageService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
+    // Bytes sent to and received from backups by the replication protocols
+    private Meter backupBytes = new Meter();
+    private Histogram antiEntropyBytes = new Histogram(new ExponentiallyDecayingReservoir());
+
     protected final Serializer serializer = Serializer.using(KryoNamespace.newBuilder()
         .register(KryoNamespaces.API)
         .register(BucketId.class)
@@ -220,6 +239,14 @@ public class ECFlowRuleStore
 
         local = clusterService.getLocalNode().id();
 
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            backupBytes = metricsService.createMeter(component, feature, BACKUP_BYTES);
+            antiEntropyBytes = metricsService.createHistogram(component, feature, ANTI_ENTROPY_BYTES);
+        }
+
         eventHandler = Executors.newSingleThreadExecutor(
             groupedThreads("onos/flow", "event-handler", log));
         messageHandlingExecutor = Executors.newFixedThreadPool(
@@ -260,6 +287,13 @@ public class ECFlowRuleStore
         backupExecutor.shutdownNow();
         backupScheduler = null;
         backupExecutor = null;
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            metricsService.removeMetric(component, feature, BACKUP_BYTES);
+            metricsService.removeMetric(component, feature, ANTI_ENTROPY_BYTES);
+        }
         log.info("Stopped");
     }
 
@@ -720,7 +754,9 @@ public class ECFlowRuleStore
                 backupScheduler,
                 new OrderedExecutor(backupExecutor),
                 backupPeriod,
-                antiEntropyPeriod));
+                antiEntropyPeriod,
+                backupBytes,
+                antiEntropyBytes));
         }
 
         /**
@@ -757,7 +793,9 @@ public class ECFlowRuleStore
                 backupScheduler,
                 new OrderedExecutor(backupExecutor),
                 backupPeriod,
-                antiEntropyPeriod));
+                antiEntropyPeriod,
+                backupBytes,
+                antiEntropyBytes));
         }
 
         /**
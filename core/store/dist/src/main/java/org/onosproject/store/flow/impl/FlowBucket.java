@@ -16,6 +16,9 @@
 package org.onosproject.store.flow.impl;
 
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -34,15 +37,28 @@ import org.slf4j.LoggerFactory;
  * Container for a bucket of flows assigned to a specific device.
  * <p>
  * The bucket is mutable. When changes are made to the bucket, the term and timestamp in which the change
- * occurred is recorded for ordering changes.
+ * occurred is recorded for ordering changes. The timestamp of the last change to each flow is recorded as well,
+ * allowing the bucket to be replicated as a {@link FlowBucketDelta} relative to a previously replicated timestamp.
+ * <p>
+ * The bucket also maintains a content hash of each flow, and of the bucket as a whole, which is updated
+ * incrementally as flows are changed. The hashes depend only on the flows in the bucket (not on the order in which
+ * changes occurred) and allow replicas to locate divergent flows without exchanging the flows themselves.
+ * <p>
+ * Bucket mutations are expected to be performed while holding the bucket's monitor.
  */
 public class FlowBucket {
     private static final Logger LOGGER = LoggerFactory.getLogger(FlowBucket.class);
+    private static final long HASH_MULTIPLIER = 0x9e3779b97f4a7c15L;
     private final BucketId bucketId;
     private volatile long term;
     private volatile LogicalTimestamp timestamp;
     private final Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBucket;
 
+    // Derived state is not replicated with the bucket and is rebuilt lazily
+    private transient Map<FlowId, Long> flowHashes;
+    private transient long hash;
+    private transient Map<FlowId, LogicalTimestamp> changes;
+
     FlowBucket(BucketId bucketId) {
         this(bucketId, 0, new LogicalTimestamp(0), Maps.newConcurrentMap());
     }
@@ -91,7 +107,26 @@ public class FlowBucket {
      * @return the digest for the bucket
      */
     public FlowBucketDigest getDigest() {
-        return new FlowBucketDigest(bucketId().bucket(), term(), timestamp());
+        return new FlowBucketDigest(bucketId().bucket(), term(), timestamp(), hash());
+    }
+
+    /**
+     * Returns the content hash of the bucket.
+     *
+     * @return the content hash of the bucket
+     */
+    public synchronized long hash() {
+        flowHashes();
+        return hash;
+    }
+
+    /**
+     * Returns the content hashes of the flows in the bucket.
+     *
+     * @return the content hashes of the flows in the bucket
+     */
+    public synchronized Map<FlowId, Long> getFlowDigests() {
+        return Maps.newHashMap(flowHashes());
     }
 
     /**
@@ -150,6 +185,109 @@ public class FlowBucket {
         this.timestamp = timestamp;
     }
 
+    /**
+     * Records an update to the given flow in the bucket.
+     */
+    private void recordUpdate(FlowId flowId, long term, LogicalClock clock) {
+        LogicalTimestamp timestamp = clock.getTimestamp();
+        recordUpdate(term, timestamp);
+        changes().put(flowId, timestamp);
+        updateHash(flowId);
+    }
+
+    /**
+     * Returns the timestamps of the last change to each flow, creating the map if necessary.
+     */
+    private Map<FlowId, LogicalTimestamp> changes() {
+        Map<FlowId, LogicalTimestamp> changes = this.changes;
+        if (changes == null) {
+            changes = Maps.newHashMap();
+            this.changes = changes;
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the content hashes of the flows in the bucket, computing them if necessary.
+     */
+    private Map<FlowId, Long> flowHashes() {
+        Map<FlowId, Long> flowHashes = this.flowHashes;
+        if (flowHashes == null) {
+            flowHashes = Maps.newHashMap();
+            long hash = 0;
+            for (Map.Entry<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> entry : flowBucket.entrySet()) {
+                long flowHash = hash(entry.getValue());
+                if (flowHash != 0) {
+                    flowHashes.put(entry.getKey(), flowHash);
+                    hash += flowHash;
+                }
+            }
+            this.flowHashes = flowHashes;
+            this.hash = hash;
+        }
+        return flowHashes;
+    }
+
+    /**
+     * Recomputes the content hash of the given flow and updates the bucket hash accordingly.
+     */
+    private void updateHash(FlowId flowId) {
+        Map<FlowId, Long> flowHashes = this.flowHashes;
+        if (flowHashes == null) {
+            // The hashes will be computed from scratch when they're first needed.
+            return;
+        }
+        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(flowId);
+        long flowHash = flowEntries != null ? hash(flowEntries) : 0;
+        Long previousHash = flowHash != 0 ? flowHashes.put(flowId, flowHash) : flowHashes.remove(flowId);
+        hash += flowHash - (previousHash != null ? previousHash : 0);
+    }
+
+    /**
+     * Computes the content hash of the given flow entries.
+     * <p>
+     * Entry hashes are combined by addition so that the result is independent of iteration order.
+     */
+    private static long hash(Map<StoredFlowEntry, StoredFlowEntry> flowEntries) {
+        long hash = 0;
+        for (StoredFlowEntry entry : flowEntries.values()) {
+            hash += hash(entry);
+        }
+        return hash;
+    }
+
+    /**
+     * Computes the content hash of the given flow entry.
+     * <p>
+     * The hash must be identical on all nodes, so it's derived from primitive entry fields rather than from
+     * {@link Object#hashCode()}. Entry statistics are included, so that replicas with stale statistics are
+     * repaired as well.
+     *
+     * @param entry the flow entry
+     * @return the content hash of the entry
+     */
+    static long hash(StoredFlowEntry entry) {
+        long hash = entry.id().value();
+        hash = hash * HASH_MULTIPLIER + entry.priority();
+        hash = hash * HASH_MULTIPLIER + entry.tableId();
+        hash = hash * HASH_MULTIPLIER + entry.appId();
+        hash = hash * HASH_MULTIPLIER + entry.state().ordinal();
+        hash = hash * HASH_MULTIPLIER + entry.life(TimeUnit.NANOSECONDS);
+        hash = hash * HASH_MULTIPLIER + entry.packets();
+        hash = hash * HASH_MULTIPLIER + entry.bytes();
+        hash = hash * HASH_MULTIPLIER + entry.lastSeen();
+        if (entry instanceof DefaultFlowEntry) {
+            hash = hash * HASH_MULTIPLIER + ((DefaultFlowEntry) entry).created();
+        }
+        // Finalize the hash so that similar entries are spread over the whole hash space.
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash != 0 ? hash : 1;
+    }
+
     /**
      * Adds the given flow rule to the bucket.
      *
@@ -163,7 +301,7 @@ public class FlowBucket {
             flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
         }
         flowEntries.put((StoredFlowEntry) rule, (StoredFlowEntry) rule);
-        recordUpdate(term, clock.getTimestamp());
+        recordUpdate(rule.id(), term, clock);
     }
 
     /**
@@ -178,13 +316,14 @@ public class FlowBucket {
         if (flowEntries == null) {
             flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
         }
+        AtomicBoolean replaced = new AtomicBoolean();
         flowEntries.computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
             if (rule instanceof DefaultFlowEntry) {
                 DefaultFlowEntry updated = (DefaultFlowEntry) rule;
                 if (stored instanceof DefaultFlowEntry) {
                     DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
                     if (updated.created() >= storedEntry.created()) {
-                        recordUpdate(term, clock.getTimestamp());
+                        replaced.set(true);
                         return updated;
                     } else {
                         LOGGER.debug("Trying to update more recent flow entry {} (stored: {})", updated, stored);
@@ -194,6 +333,9 @@ public class FlowBucket {
             }
             return stored;
         });
+        if (replaced.get()) {
+            recordUpdate(rule.id(), term, clock);
+        }
     }
 
     /**
@@ -217,12 +359,14 @@ public class FlowBucket {
             if (stored != null) {
                 T result = function.apply(stored);
                 if (result != null) {
-                    recordUpdate(term, clock.getTimestamp());
                     resultRef.set(result);
                 }
             }
             return stored;
         });
+        if (resultRef.get() != null) {
+            recordUpdate(rule.id(), term, clock);
+        }
         return resultRef.get();
     }
 
@@ -256,26 +400,139 @@ public class FlowBucket {
         });
 
         if (removedRule.get() != null) {
-            recordUpdate(term, clock.getTimestamp());
+            recordUpdate(rule.id(), term, clock);
             return removedRule.get();
         } else {
             return null;
         }
     }
 
+    /**
+     * Returns the changes to the bucket since the given timestamp.
+     *
+     * @param since the timestamp since which to return changes, or {@code null} to return the full bucket
+     * @return the changes to the bucket since the given timestamp
+     */
+    public synchronized FlowBucketDelta getDelta(LogicalTimestamp since) {
+        if (since == null) {
+            Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flows = Maps.newHashMap();
+            flowBucket.forEach((flowId, flowEntries) -> flows.put(flowId, Maps.newHashMap(flowEntries)));
+            return new FlowBucketDelta(bucketId, term, timestamp, null, true, flows);
+        }
+
+        Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flows = Maps.newHashMap();
+        changes().forEach((flowId, changed) -> {
+            if (changed.isNewerThan(since)) {
+                flows.put(flowId, copyFlowEntries(flowId));
+            }
+        });
+        return new FlowBucketDelta(bucketId, term, timestamp, since, false, flows);
+    }
+
+    /**
+     * Returns the changes required to bring a replica with the given flow digests up to date with the bucket.
+     *
+     * @param flowDigests the content hashes of the flows in the replica
+     * @return the changes to the flows that differ from the given digests
+     */
+    public synchronized FlowBucketDelta getDelta(Map<FlowId, Long> flowDigests) {
+        Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flows = Maps.newHashMap();
+        Map<FlowId, Long> flowHashes = flowHashes();
+        flowHashes.forEach((flowId, flowHash) -> {
+            if (!Objects.equals(flowDigests.get(flowId), flowHash)) {
+                flows.put(flowId, copyFlowEntries(flowId));
+            }
+        });
+        flowDigests.keySet().forEach(flowId -> {
+            if (!flowHashes.containsKey(flowId)) {
+                flows.put(flowId, Maps.newHashMap());
+            }
+        });
+        return new FlowBucketDelta(bucketId, term, timestamp, null, false, flows);
+    }
+
+    /**
+     * Returns a copy of the entries for the given flow.
+     */
+    private Map<StoredFlowEntry, StoredFlowEntry> copyFlowEntries(FlowId flowId) {
+        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(flowId);
+        return flowEntries != null ? Maps.newHashMap(flowEntries) : Maps.newHashMap();
+    }
+
+    /**
+     * Applies the given changes to the bucket.
+     * <p>
+     * Changes are applied as replicated from the bucket's master: the bucket term and timestamp are set to those
+     * of the delta and no local changes are recorded.
+     *
+     * @param delta the changes to apply
+     */
+    public synchronized void apply(FlowBucketDelta delta) {
+        if (delta.isFull()) {
+            flowBucket.keySet().removeIf(flowId -> !delta.flows().containsKey(flowId));
+        }
+        delta.flows().forEach((flowId, flowEntries) -> {
+            if (flowEntries.isEmpty()) {
+                flowBucket.remove(flowId);
+            } else {
+                Map<StoredFlowEntry, StoredFlowEntry> entries = Maps.newConcurrentMap();
+                entries.putAll(flowEntries);
+                flowBucket.put(flowId, entries);
+            }
+        });
+        if (delta.isFull()) {
+            flowHashes = null;
+        } else {
+            delta.flows().keySet().forEach(this::updateHash);
+        }
+        recordUpdate(delta.term(), delta.timestamp());
+    }
+
+    /**
+     * Applies the given changes to the bucket unless the bucket is already more recent than the changes.
+     * <p>
+     * Changes as recent as the bucket are applied, as repairs computed from flow digests carry the master's
+     * current timestamp and must reconcile replicas which caught up with that timestamp but still diverge.
+     *
+     * @param delta the changes to apply
+     * @return indicates whether the changes were applied
+     */
+    public synchronized boolean applyIfNotOlder(FlowBucketDelta delta) {
+        if (term > delta.term() || (term == delta.term() && timestamp.isNewerThan(delta.timestamp()))) {
+            return false;
+        }
+        apply(delta);
+        return true;
+    }
+
+    /**
+     * Discards the record of changes that occurred at or before the given timestamp.
+     * <p>
+     * Once pruned, changes can no longer be included in a delta relative to an earlier timestamp.
+     *
+     * @param timestamp the timestamp up to which to discard changes
+     */
+    public synchronized void pruneChanges(LogicalTimestamp timestamp) {
+        changes().values().removeIf(changed -> !changed.isNewerThan(timestamp));
+    }
+
     /**
      * Purges the bucket.
      */
-    public void purge() {
+    public synchronized void purge() {
         flowBucket.clear();
+        flowHashes = null;
+        changes = null;
     }
 
     /**
      * Clears the bucket.
      */
-    public void clear() {
+    public synchronized void clear() {
         term = 0;
         timestamp = new LogicalTimestamp(0);
         flowBucket.clear();
+        flowHashes = null;
+        changes = null;
     }
 }
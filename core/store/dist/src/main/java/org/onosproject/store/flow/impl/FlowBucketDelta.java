@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Map;
+
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.store.LogicalTimestamp;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Set of changes to a flow bucket.
+ * <p>
+ * The delta carries the complete set of entries for each flow it covers; a flow mapped to no entries has been
+ * removed. A full delta covers the whole bucket, i.e. any flow it does not cover is to be removed. Otherwise, the
+ * delta may be relative to a baseline timestamp, in which case it can only be applied to a bucket that is up to date
+ * with that baseline in the same term.
+ */
+public class FlowBucketDelta {
+    private final BucketId bucketId;
+    private final long term;
+    private final LogicalTimestamp timestamp;
+    private final LogicalTimestamp baseline;
+    private final boolean full;
+    private final Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flows;
+
+    FlowBucketDelta(
+        BucketId bucketId,
+        long term,
+        LogicalTimestamp timestamp,
+        LogicalTimestamp baseline,
+        boolean full,
+        Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flows) {
+        this.bucketId = bucketId;
+        this.term = term;
+        this.timestamp = timestamp;
+        this.baseline = baseline;
+        this.full = full;
+        this.flows = flows;
+    }
+
+    /**
+     * Returns the identifier of the bucket to which the delta applies.
+     *
+     * @return the flow bucket identifier
+     */
+    public BucketId bucketId() {
+        return bucketId;
+    }
+
+    /**
+     * Returns the bucket term as of the delta.
+     *
+     * @return the flow bucket term
+     */
+    public long term() {
+        return term;
+    }
+
+    /**
+     * Returns the bucket timestamp as of the delta.
+     *
+     * @return the flow bucket timestamp
+     */
+    public LogicalTimestamp timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the bucket timestamp the delta is relative to.
+     *
+     * @return the baseline timestamp or {@code null} if the delta does not depend on a baseline
+     */
+    public LogicalTimestamp baseline() {
+        return baseline;
+    }
+
+    /**
+     * Returns a boolean indicating whether the delta covers the whole bucket.
+     *
+     * @return indicates whether the delta covers the whole bucket
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Returns the entries of the flows covered by the delta.
+     *
+     * @return the flow entries by flow identifier
+     */
+    public Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flows() {
+        return flows;
+    }
+
+    /**
+     * Returns the digest for the bucket as of the delta.
+     *
+     * @return the digest for the bucket
+     */
+    public FlowBucketDigest getDigest() {
+        return new FlowBucketDigest(bucketId.bucket(), term, timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+            .add("bucketId", bucketId)
+            .add("term", term)
+            .add("timestamp", timestamp)
+            .add("baseline", baseline)
+            .add("full", full)
+            .add("flows", flows.size())
+            .toString();
+    }
+}
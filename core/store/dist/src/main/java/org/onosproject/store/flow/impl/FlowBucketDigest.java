@@ -26,11 +26,17 @@ public class FlowBucketDigest {
     private final int bucket;
     private final long term;
     private final LogicalTimestamp timestamp;
+    private final long hash;
 
     FlowBucketDigest(int bucket, long term, LogicalTimestamp timestamp) {
+        this(bucket, term, timestamp, 0);
+    }
+
+    FlowBucketDigest(int bucket, long term, LogicalTimestamp timestamp, long hash) {
         this.bucket = bucket;
         this.term = term;
         this.timestamp = timestamp;
+        this.hash = hash;
     }
 
     /**
@@ -60,6 +66,15 @@ public class FlowBucketDigest {
         return timestamp;
     }
 
+    /**
+     * Returns the content hash of the bucket.
+     *
+     * @return the content hash of the bucket
+     */
+    public long hash() {
+        return hash;
+    }
+
     /**
      * Returns a boolean indicating whether this digest is newer than the given digest.
      *
@@ -15,12 +15,22 @@
  */
 package org.onosproject.store.host.impl;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.MacAddress;
 import org.onlab.packet.VlanId;
 import org.onlab.util.KryoNamespace;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.net.Annotations;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultAnnotations;
@@ -43,57 +53,97 @@ import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.DistributedPrimitive.Status;
 import org.onosproject.store.service.Versioned;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Dictionary;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.DefaultAnnotations.merge;
 import static org.onosproject.net.host.HostEvent.Type.*;
+import static org.onosproject.store.OsgiPropertyConstants.DHS_REPLICA_VERIFY_PERIOD;
+import static org.onosproject.store.OsgiPropertyConstants.DHS_REPLICA_VERIFY_PERIOD_DEFAULT;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
- * Manages the inventory of hosts using a {@code EventuallyConsistentMap}.
+ * Manages the inventory of hosts using a {@code ConsistentMap}, serving the
+ * queries from a local replica of the map maintained by its events.
  */
-@Component(immediate = true, service = HostStore.class)
+@Component(
+        immediate = true,
+        service = HostStore.class,
+        property = {
+                DHS_REPLICA_VERIFY_PERIOD + ":Integer=" + DHS_REPLICA_VERIFY_PERIOD_DEFAULT
+        }
+)
 public class DistributedHostStore
     extends AbstractStore<HostEvent, HostStoreDelegate>
     implements HostStore {
 
+    private static final String METRICS_COMPONENT = "HostStore";
+    private static final String METRICS_FEATURE = "replica";
+    private static final String HOSTS = "hosts";
+    private static final String MAC_INDEX_SIZE = "macIndexSize";
+    private static final String IP_INDEX_SIZE = "ipIndexSize";
+    private static final String VLAN_INDEX_SIZE = "vlanIndexSize";
+    private static final String LOCATION_INDEX_SIZE = "locationIndexSize";
+    private static final String DEVICE_INDEX_SIZE = "deviceIndexSize";
+    private static final String UPDATE_LAG = "updateLag";
+    private static final String DRIFT = "drift";
+
     private final Logger log = getLogger(getClass());
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected StorageService storageService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
+    /** Period in seconds of the verification of the local replica of the hosts; 0 to disable. */
+    private int replicaVerifyPeriod = DHS_REPLICA_VERIFY_PERIOD_DEFAULT;
+
     private ConsistentMap<HostId, DefaultHost> hostsConsistentMap;
-    private Map<HostId, DefaultHost> hosts;
-    private Map<IpAddress, Set<Host>> hostsByIp;
+    private final LocalHostReplica hosts = new LocalHostReplica();
     MapEventListener<HostId, DefaultHost> hostLocationTracker =
             new HostLocationTracker();
 
+    // Milliseconds between the update of a host and its application to the replica
+    private Histogram updateLag = new Histogram(new ExponentiallyDecayingReservoir());
+    // Hosts found out of sync and repaired by the verification
+    private Counter drift = new Counter();
+
+    // Hosts found out of sync by the last verification, with their version in the replica
+    private Map<HostId, Long> suspects = Maps.newHashMap();
+    private ScheduledFuture<?> verifyTask;
+
     private ScheduledExecutorService executor;
 
     private Consumer<Status> statusChangeListener;
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
         KryoNamespace.Builder hostSerializer = KryoNamespace.newBuilder()
                 .register(KryoNamespaces.API);
         hostsConsistentMap = storageService.<HostId, DefaultHost>consistentMapBuilder()
@@ -102,39 +152,152 @@ public class DistributedHostStore
                 .withSerializer(Serializer.using(hostSerializer.build()))
                 .build();
         hostsConsistentMap.addListener(hostLocationTracker);
-        hosts = hostsConsistentMap.asJavaMap();
+
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            metricsService.registerMetric(component, feature, HOSTS, (Gauge<Integer>) hosts::size);
+            metricsService.registerMetric(component, feature, MAC_INDEX_SIZE, (Gauge<Integer>) hosts::macIndexSize);
+            metricsService.registerMetric(component, feature, IP_INDEX_SIZE, (Gauge<Integer>) hosts::ipIndexSize);
+            metricsService.registerMetric(component, feature, VLAN_INDEX_SIZE, (Gauge<Integer>) hosts::vlanIndexSize);
+            metricsService.registerMetric(component, feature, LOCATION_INDEX_SIZE,
+                                          (Gauge<Integer>) hosts::locationIndexSize);
+            metricsService.registerMetric(component, feature, DEVICE_INDEX_SIZE,
+                                          (Gauge<Integer>) hosts::deviceIndexSize);
+            updateLag = metricsService.createHistogram(component, feature, UPDATE_LAG);
+            drift = metricsService.createCounter(component, feature, DRIFT);
+        }
 
         executor = newSingleThreadScheduledExecutor(groupedThreads("onos/hosts", "status-listener", log));
         statusChangeListener = status -> {
             if (status == Status.ACTIVE) {
-                executor.execute(this::loadHostsByIp);
+                executor.execute(this::loadHosts);
             }
         };
         hostsConsistentMap.addStatusChangeListener(statusChangeListener);
-        loadHostsByIp();
+        loadHosts();
+        modified(context);
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
+        cfgService.unregisterProperties(getClass(), false);
         hostsConsistentMap.removeListener(hostLocationTracker);
         executor.shutdown();
 
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            ImmutableSet.of(HOSTS, MAC_INDEX_SIZE, IP_INDEX_SIZE, VLAN_INDEX_SIZE, LOCATION_INDEX_SIZE,
+                            DEVICE_INDEX_SIZE, UPDATE_LAG, DRIFT)
+                    .forEach(name -> metricsService.removeMetric(component, feature, name));
+        }
         log.info("Stopped");
     }
 
-    private void loadHostsByIp() {
-        hostsByIp = new ConcurrentHashMap<IpAddress, Set<Host>>();
-        hostsConsistentMap.asJavaMap().values().forEach(host -> {
-            host.ipAddresses().forEach(ip -> {
-                Set<Host> existingHosts = hostsByIp.get(ip);
-                if (existingHosts == null) {
-                    hostsByIp.put(ip, addHosts(host));
-                } else {
-                    existingHosts.add(host);
-                }
-            });
+    @Modified
+    public void modified(ComponentContext context) {
+        Dictionary<?, ?> properties = context != null ? context.getProperties() : null;
+        int newReplicaVerifyPeriod = properties != null ?
+                Tools.getIntegerProperty(properties, DHS_REPLICA_VERIFY_PERIOD, DHS_REPLICA_VERIFY_PERIOD_DEFAULT) :
+                DHS_REPLICA_VERIFY_PERIOD_DEFAULT;
+        if (newReplicaVerifyPeriod != replicaVerifyPeriod || verifyTask == null) {
+            replicaVerifyPeriod = newReplicaVerifyPeriod;
+            scheduleReplicaVerification();
+        }
+        log.info("Settings: {}={}", DHS_REPLICA_VERIFY_PERIOD, replicaVerifyPeriod);
+    }
+
+    private synchronized void scheduleReplicaVerification() {
+        if (verifyTask != null) {
+            verifyTask.cancel(false);
+            verifyTask = null;
+        }
+        if (replicaVerifyPeriod > 0) {
+            verifyTask = executor.scheduleAtFixedRate(this::verifyReplica, replicaVerifyPeriod,
+                                                      replicaVerifyPeriod, TimeUnit.SECONDS);
+        }
+    }
+
+    private Map<HostId, Versioned<DefaultHost>> snapshot() {
+        Map<HostId, Versioned<DefaultHost>> snapshot = Maps.newHashMap();
+        hostsConsistentMap.entrySet().forEach(entry -> snapshot.put(entry.getKey(), entry.getValue()));
+        return snapshot;
+    }
+
+    /**
+     * Synchronizes the local replica with the distributed map, including the
+     * removals missed while the map was not active.
+     */
+    void loadHosts() {
+        long knownVersion = hosts.latestVersion();
+        int changes = hosts.load(snapshot(), knownVersion);
+        log.debug("Loaded {} host changes in the local replica", changes);
+    }
+
+    /**
+     * Compares the local replica with the distributed map and repairs the
+     * hosts that are out of sync in two consecutive verifications, with the
+     * same version in the replica; hosts out of sync only once are likely to
+     * have events in flight.
+     */
+    void verifyReplica() {
+        Map<HostId, Versioned<DefaultHost>> snapshot = snapshot();
+        Map<HostId, Long> mismatches = Maps.newHashMap();
+        Sets.union(snapshot.keySet(), ImmutableSet.copyOf(hosts.hostIds())).forEach(hostId -> {
+            Versioned<DefaultHost> expected = snapshot.get(hostId);
+            Versioned<DefaultHost> actual = hosts.getVersioned(hostId);
+            if (!inSync(expected, actual)) {
+                mismatches.put(hostId, actual == null ? -1 : actual.version());
+            }
+        });
+
+        Map<HostId, Long> newSuspects = Maps.newHashMap();
+        mismatches.forEach((hostId, version) -> {
+            if (!version.equals(suspects.get(hostId))) {
+                newSuspects.put(hostId, version);
+                return;
+            }
+            Versioned<DefaultHost> expected = snapshot.get(hostId);
+            log.warn("Host {} out of sync in the local replica, repairing it", hostId);
+            drift.inc();
+            if (expected != null) {
+                hosts.putIfNewer(hostId, expected);
+            } else {
+                hosts.removeIfNotNewer(hostId, version);
+            }
         });
+        suspects = newSuspects;
+    }
+
+    private boolean inSync(Versioned<DefaultHost> expected, Versioned<DefaultHost> actual) {
+        if (expected == null || actual == null) {
+            return expected == actual;
+        }
+        return expected.version() == actual.version() && Objects.equals(expected.value(), actual.value());
+    }
+
+    /**
+     * Applies to the local replica the result of a local update of a host,
+     * so that it can be read right away, before the map event.
+     *
+     * Removals are applied only if the replica was up to date with the
+     * removed host, otherwise they are left to the map event.
+     *
+     * @param hostId    host identifier
+     * @param prevValue versioned host in the replica before the update
+     * @param value     versioned host after the update, or null if removed
+     */
+    private void applyLocal(HostId hostId, Versioned<DefaultHost> prevValue,
+                            Versioned<DefaultHost> value) {
+        if (value != null) {
+            hosts.putIfNewer(hostId, value);
+        } else if (prevValue != null) {
+            hosts.removeIfNotNewer(hostId, prevValue.version());
+        }
     }
 
     private boolean shouldUpdate(DefaultHost existingHost,
@@ -185,7 +348,8 @@ public class DistributedHostStore
                                         HostId hostId,
                                         HostDescription hostDescription,
                                         boolean replaceIPs) {
-        hostsConsistentMap.computeIf(hostId,
+        Versioned<DefaultHost> prevValue = hosts.getVersioned(hostId);
+        Versioned<DefaultHost> value = hostsConsistentMap.computeIf(hostId,
                 existingHost -> shouldUpdate(existingHost, providerId,
                         hostDescription, replaceIPs),
                 (id, existingHost) -> {
@@ -217,20 +381,25 @@ public class DistributedHostStore
                             hostDescription.configured(),
                             annotations);
                 });
+        applyLocal(hostId, prevValue, value);
         return null;
     }
 
     // TODO No longer need to return HostEvent
     @Override
     public HostEvent removeHost(HostId hostId) {
-        hosts.remove(hostId);
+        Versioned<DefaultHost> prevValue = hostsConsistentMap.remove(hostId);
+        if (prevValue != null) {
+            hosts.removeIfNotNewer(hostId, prevValue.version());
+        }
         return null;
     }
 
     // TODO No longer need to return HostEvent
     @Override
     public HostEvent removeIp(HostId hostId, IpAddress ipAddress) {
-        hosts.compute(hostId, (id, existingHost) -> {
+        Versioned<DefaultHost> prevValue = hosts.getVersioned(hostId);
+        Versioned<DefaultHost> value = hostsConsistentMap.compute(hostId, (id, existingHost) -> {
             if (existingHost != null) {
                 checkState(Objects.equals(hostId.mac(), existingHost.mac()),
                         "Existing and new MAC addresses differ.");
@@ -241,7 +410,6 @@ public class DistributedHostStore
                 if (addresses != null && addresses.contains(ipAddress)) {
                     addresses = new HashSet<>(existingHost.ipAddresses());
                     addresses.remove(ipAddress);
-                    removeIpFromHostsByIp(existingHost, ipAddress);
                     return new DefaultHost(existingHost.providerId(),
                             hostId,
                             existingHost.mac(),
@@ -256,13 +424,15 @@ public class DistributedHostStore
             }
             return null;
         });
+        applyLocal(hostId, prevValue, value);
         return null;
     }
 
     @Override
     public void appendLocation(HostId hostId, HostLocation location) {
         log.debug("Appending location {} to host {}", location, hostId);
-        hosts.compute(hostId, (id, existingHost) -> {
+        Versioned<DefaultHost> prevValue = hosts.getVersioned(hostId);
+        Versioned<DefaultHost> value = hostsConsistentMap.compute(hostId, (id, existingHost) -> {
             if (existingHost != null) {
                 checkState(Objects.equals(hostId.mac(), existingHost.mac()),
                         "Existing and new MAC addresses differ.");
@@ -282,12 +452,14 @@ public class DistributedHostStore
             }
             return null;
         });
+        applyLocal(hostId, prevValue, value);
     }
 
     @Override
     public void removeLocation(HostId hostId, HostLocation location) {
         log.debug("Removing location {} from host {}", location, hostId);
-        hosts.compute(hostId, (id, existingHost) -> {
+        Versioned<DefaultHost> prevValue = hosts.getVersioned(hostId);
+        Versioned<DefaultHost> value = hostsConsistentMap.compute(hostId, (id, existingHost) -> {
             if (existingHost != null) {
                 checkState(Objects.equals(hostId.mac(), existingHost.mac()),
                         "Existing and new MAC addresses differ.");
@@ -306,6 +478,7 @@ public class DistributedHostStore
             }
             return null;
         });
+        applyLocal(hostId, prevValue, value);
     }
 
     @Override
@@ -315,7 +488,7 @@ public class DistributedHostStore
 
     @Override
     public Iterable<Host> getHosts() {
-        return ImmutableSet.copyOf(hosts.values());
+        return hosts.getHosts();
     }
 
     @Override
@@ -325,42 +498,33 @@ public class DistributedHostStore
 
     @Override
     public Set<Host> getHosts(VlanId vlanId) {
-        return filter(hosts.values(), host -> Objects.equals(host.vlan(), vlanId));
+        return hosts.getHostsByVlan(vlanId);
     }
 
     @Override
     public Set<Host> getHosts(MacAddress mac) {
-        return filter(hosts.values(), host -> Objects.equals(host.mac(), mac));
+        return hosts.getHostsByMac(mac);
     }
 
     @Override
     public Set<Host> getHosts(IpAddress ip) {
-        Set<Host> hosts = hostsByIp.get(ip);
-        return hosts != null ? ImmutableSet.copyOf(hosts) : ImmutableSet.of();
+        return hosts.getHostsByIp(ip);
     }
 
     @Override
     public Set<Host> getConnectedHosts(ConnectPoint connectPoint) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().locations().contains(connectPoint))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return hosts.getHostsByLocation(connectPoint);
     }
 
     @Override
     public Set<Host> getConnectedHosts(DeviceId deviceId) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().locations().stream()
-                        .map(HostLocation::deviceId).anyMatch(dpid -> dpid.equals(deviceId)))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return hosts.getHostsByDevice(deviceId);
     }
 
     @Override
     public void suspend(HostId hostId) {
-        hosts.compute(hostId, (id, existingHost) -> {
+        Versioned<DefaultHost> prevValue = hosts.getVersioned(hostId);
+        Versioned<DefaultHost> value = hostsConsistentMap.compute(hostId, (id, existingHost) -> {
             if (existingHost != null) {
                 if (!existingHost.suspended()) {
                     return new DefaultHost(existingHost.providerId(),
@@ -379,11 +543,13 @@ public class DistributedHostStore
             }
             return null;
         });
+        applyLocal(hostId, prevValue, value);
     }
 
     @Override
     public void unsuspend(HostId hostId) {
-        hosts.compute(hostId, (id, existingHost) -> {
+        Versioned<DefaultHost> prevValue = hosts.getVersioned(hostId);
+        Versioned<DefaultHost> value = hostsConsistentMap.compute(hostId, (id, existingHost) -> {
             if (existingHost != null) {
                 if (existingHost.suspended()) {
                     return new DefaultHost(existingHost.providerId(),
@@ -402,53 +568,7 @@ public class DistributedHostStore
             }
             return null;
         });
-    }
-
-    private Set<Host> filter(Collection<DefaultHost> collection, Predicate<DefaultHost> predicate) {
-        return collection.stream().filter(predicate).collect(Collectors.toSet());
-    }
-
-    private Set<Host> addHosts(Host host) {
-        Set<Host> hosts = Sets.newConcurrentHashSet();
-        hosts.add(host);
-        return hosts;
-    }
-
-    private Set<Host> updateHosts(Set<Host> existingHosts, Host host) {
-        existingHosts.removeIf(existingHost -> existingHost.id().equals(host.id()));
-        existingHosts.add(host);
-        return existingHosts;
-    }
-
-    private Set<Host> removeHosts(Set<Host> existingHosts, Host host) {
-
-        if (existingHosts != null) {
-            existingHosts.removeIf(existingHost -> existingHost.id().equals(host.id()));
-        }
-
-        if (existingHosts == null || existingHosts.isEmpty()) {
-            return null;
-        }
-        return existingHosts;
-    }
-
-    private void updateHostsByIp(DefaultHost host, DefaultHost prevHost) {
-        // Let's update first the current ips
-        host.ipAddresses().forEach(
-                ip -> hostsByIp.compute(ip, (k, v) -> v == null ? addHosts(host) : updateHosts(v, host)));
-
-        // Let's remove then each old ip
-        Set<IpAddress> oldIps = prevHost != null ? prevHost.ipAddresses() : Collections.emptySet();
-        Sets.difference(oldIps, host.ipAddresses()).forEach(
-                ip -> hostsByIp.computeIfPresent(ip, (k, v) -> removeHosts(v, host)));
-    }
-
-    private void removeHostsByIp(DefaultHost host) {
-        host.ipAddresses().forEach(ip -> hostsByIp.computeIfPresent(ip, (k, v) -> removeHosts(v, host)));
-    }
-
-    private void removeIpFromHostsByIp(DefaultHost host, IpAddress ip) {
-        hostsByIp.computeIfPresent(ip, (k, v) -> removeHosts(v, host));
+        applyLocal(hostId, prevValue, value);
     }
 
     private class HostLocationTracker implements MapEventListener<HostId, DefaultHost> {
@@ -456,13 +576,17 @@ public class DistributedHostStore
         public void event(MapEvent<HostId, DefaultHost> event) {
             DefaultHost host = Versioned.valueOrNull(event.newValue());
             DefaultHost prevHost = Versioned.valueOrNull(event.oldValue());
+            if (event.newValue() != null) {
+                hosts.putIfNewer(event.key(), event.newValue());
+                updateLag.update(System.currentTimeMillis() - event.newValue().creationTime());
+            } else {
+                hosts.removeIfNotNewer(event.key(), event.oldValue().version());
+            }
             switch (event.type()) {
                 case INSERT:
-                    updateHostsByIp(host, prevHost);
                     notifyDelegate(new HostEvent(HOST_ADDED, host));
                     break;
                 case UPDATE:
-                    updateHostsByIp(host, prevHost);
                     if (host.suspended() && !prevHost.suspended()) {
                         notifyDelegate(new HostEvent(HOST_SUSPENDED, host, prevHost));
                     } else if (!host.suspended() && prevHost.suspended()) {
@@ -474,7 +598,6 @@ public class DistributedHostStore
                     }
                     break;
                 case REMOVE:
-                    removeHostsByIp(prevHost);
                     notifyDelegate(new HostEvent(HOST_REMOVED, prevHost));
                     break;
                 default:
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.store.host.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultHost;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.store.service.Versioned;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Local replica of the hosts of the distributed host store, indexed by MAC
+ * address, IP address, VLAN, location and device, such that all queries are
+ * served locally. The replica is maintained with the versioned values of the
+ * map events and of the local updates.
+ * <p>
+ * Updates are serialized, while reads are lock-free and might observe an
+ * update partially applied to the indexes.
+ */
+final class LocalHostReplica {
+
+    private final Map<HostId, Versioned<DefaultHost>> hosts = Maps.newConcurrentMap();
+    private final Index<MacAddress> hostsByMac = new Index<>(host -> ImmutableSet.of(host.mac()));
+    private final Index<IpAddress> hostsByIp = new Index<>(Host::ipAddresses);
+    private final Index<VlanId> hostsByVlan = new Index<>(host -> ImmutableSet.of(host.vlan()));
+    private final Index<ConnectPoint> hostsByLocation = new Index<>(Host::locations);
+    private final Index<DeviceId> hostsByDevice = new Index<>(
+            host -> host.locations().stream()
+                    .map(HostLocation::deviceId)
+                    .collect(Collectors.toSet()));
+
+    /**
+     * Applies the given value of a host, regardless of its version.
+     *
+     * @param hostId host identifier
+     * @param value  versioned host
+     */
+    private void put(HostId hostId, Versioned<DefaultHost> value) {
+        Versioned<DefaultHost> prevValue = hosts.put(hostId, value);
+        reindex(hostId, value.value(), Versioned.valueOrNull(prevValue));
+    }
+
+    /**
+     * Applies the given value of a host, if newer than the one in the replica.
+     *
+     * @param hostId host identifier
+     * @param value  versioned host
+     * @return true if the value was applied
+     */
+    synchronized boolean putIfNewer(HostId hostId, Versioned<DefaultHost> value) {
+        Versioned<DefaultHost> prevValue = hosts.get(hostId);
+        if (prevValue != null && prevValue.version() >= value.version()) {
+            return false;
+        }
+        put(hostId, value);
+        return true;
+    }
+
+    /**
+     * Removes a host, regardless of its version.
+     *
+     * @param hostId host identifier
+     */
+    private void remove(HostId hostId) {
+        Versioned<DefaultHost> prevValue = hosts.remove(hostId);
+        if (prevValue != null) {
+            reindex(hostId, null, prevValue.value());
+        }
+    }
+
+    /**
+     * Removes a host, if its version in the replica is not newer than the
+     * given one.
+     *
+     * @param hostId  host identifier
+     * @param version version of the removed host
+     * @return true if the host was removed
+     */
+    synchronized boolean removeIfNotNewer(HostId hostId, long version) {
+        Versioned<DefaultHost> prevValue = hosts.get(hostId);
+        if (prevValue == null || prevValue.version() > version) {
+            return false;
+        }
+        remove(hostId);
+        return true;
+    }
+
+    /**
+     * Synchronizes the replica with the given snapshot of the distributed
+     * map. Hosts absent from the snapshot are removed if not newer than the
+     * snapshot or than the given version, the latest one of the replica when
+     * the snapshot was requested; newer hosts might have been added after
+     * the snapshot was taken.
+     *
+     * @param snapshot     versioned hosts
+     * @param knownVersion latest version of the replica before the snapshot
+     * @return number of hosts that were added, updated or removed
+     */
+    synchronized int load(Map<HostId, Versioned<DefaultHost>> snapshot, long knownVersion) {
+        long snapshotVersion = snapshot.values().stream()
+                .mapToLong(Versioned::version).max().orElse(0);
+        long removeVersion = Math.max(snapshotVersion, knownVersion);
+        int changes = 0;
+        for (Map.Entry<HostId, Versioned<DefaultHost>> entry : snapshot.entrySet()) {
+            if (putIfNewer(entry.getKey(), entry.getValue())) {
+                changes++;
+            }
+        }
+        for (HostId hostId : ImmutableSet.copyOf(hosts.keySet())) {
+            if (!snapshot.containsKey(hostId) && removeIfNotNewer(hostId, removeVersion)) {
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the latest version of the hosts in the replica.
+     *
+     * @return latest version, or 0 if the replica is empty
+     */
+    long latestVersion() {
+        return hosts.values().stream()
+                .mapToLong(Versioned::version).max().orElse(0);
+    }
+
+    /**
+     * Returns the versioned value of the given host.
+     *
+     * @param hostId host identifier
+     * @return versioned host, or null if not present
+     */
+    Versioned<DefaultHost> getVersioned(HostId hostId) {
+        return hosts.get(hostId);
+    }
+
+    Host get(HostId hostId) {
+        return Versioned.valueOrNull(hosts.get(hostId));
+    }
+
+    Set<HostId> hostIds() {
+        return hosts.keySet();
+    }
+
+    Set<Host> getHosts() {
+        return hosts.values().stream()
+                .map(Versioned::value)
+                .collect(ImmutableSet.toImmutableSet());
+    }
+
+    int size() {
+        return hosts.size();
+    }
+
+    Set<Host> getHostsByMac(MacAddress mac) {
+        return hostsByMac.get(mac);
+    }
+
+    Set<Host> getHostsByIp(IpAddress ip) {
+        return hostsByIp.get(ip);
+    }
+
+    Set<Host> getHostsByVlan(VlanId vlanId) {
+        return hostsByVlan.get(vlanId);
+    }
+
+    Set<Host> getHostsByLocation(ConnectPoint connectPoint) {
+        return hostsByLocation.get(connectPoint);
+    }
+
+    Set<Host> getHostsByDevice(DeviceId deviceId) {
+        return hostsByDevice.get(deviceId);
+    }
+
+    int macIndexSize() {
+        return hostsByMac.size();
+    }
+
+    int ipIndexSize() {
+        return hostsByIp.size();
+    }
+
+    int vlanIndexSize() {
+        return hostsByVlan.size();
+    }
+
+    int locationIndexSize() {
+        return hostsByLocation.size();
+    }
+
+    int deviceIndexSize() {
+        return hostsByDevice.size();
+    }
+
+    private void reindex(HostId hostId, DefaultHost host, DefaultHost prevHost) {
+        hostsByMac.update(hostId, host, prevHost);
+        hostsByIp.update(hostId, host, prevHost);
+        hostsByVlan.update(hostId, host, prevHost);
+        hostsByLocation.update(hostId, host, prevHost);
+        hostsByDevice.update(hostId, host, prevHost);
+    }
+
+    /**
+     * Secondary index of the hosts by the keys extracted from them.
+     *
+     * @param <K> key type
+     */
+    private final class Index<K> {
+
+        private final Map<K, Set<HostId>> index = Maps.newConcurrentMap();
+        private final Function<Host, Collection<? extends K>> keys;
+
+        private Index(Function<Host, Collection<? extends K>> keys) {
+            this.keys = keys;
+        }
+
+        private void update(HostId hostId, Host host, Host prevHost) {
+            Set<K> newKeys = host == null ? ImmutableSet.of() : ImmutableSet.copyOf(keys.apply(host));
+            Set<K> oldKeys = prevHost == null ? ImmutableSet.of() : ImmutableSet.copyOf(keys.apply(prevHost));
+            Sets.difference(oldKeys, newKeys).forEach(key -> index.computeIfPresent(key, (k, ids) -> {
+                ids.remove(hostId);
+                return ids.isEmpty() ? null : ids;
+            }));
+            Sets.difference(newKeys, oldKeys).forEach(key -> index.computeIfAbsent(
+                    key, k -> Sets.newConcurrentHashSet()).add(hostId));
+        }
+
+        private Set<Host> get(K key) {
+            Set<HostId> hostIds = index.get(key);
+            if (hostIds == null) {
+                return ImmutableSet.of();
+            }
+            ImmutableSet.Builder<Host> builder = ImmutableSet.builder();
+            hostIds.forEach(hostId -> {
+                Host host = LocalHostReplica.this.get(hostId);
+                if (host != null) {
+                    builder.add(host);
+                }
+            });
+            return builder.build();
+        }
+
+        private int size() {
+            return index.size();
+        }
+    }
+}
@@ -129,11 +129,17 @@ public class WorkPartitionManager implements WorkPartitionService {
 
     @Override
     public <K> NodeId getLeader(K id, Function<K, Long> hasher) {
-        int partition = Math.abs(hasher.apply(id).intValue()) % NUM_PARTITIONS;
-        PartitionId partitionId = new PartitionId(partition);
+        PartitionId partitionId = new PartitionId(getPartition(id, hasher));
         return leadershipService.getLeadership(getPartitionPath(partitionId.value())).leaderNodeId();
     }
 
+    @Override
+    public <K> int getPartition(K id, Function<K, Long> hasher) {
+        int hash = hasher.apply(id).intValue();
+        // Math.abs(Integer.MIN_VALUE) is still negative
+        return hash == Integer.MIN_VALUE ? 0 : Math.abs(hash) % NUM_PARTITIONS;
+    }
+
     @Override
     public void addListener(WorkPartitionEventListener listener) {
         listenerRegistry.addListener(listener);
@@ -179,7 +179,9 @@ public class ECLinkStore
                     } catch (IllegalStateException e) {
                         return null;
                     }
-                }).build();
+                })
+                .withCompression()
+                .build();
 
         clusterCommunicator.addSubscriber(LINK_INJECT_MESSAGE,
                                           SERIALIZER::decode,
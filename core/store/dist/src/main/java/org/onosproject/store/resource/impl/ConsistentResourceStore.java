@@ -81,11 +81,14 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
             .register(new EncodableDiscreteResourcesSerializer(), EncodableDiscreteResources.class)
             .register(GenericDiscreteResources.class)
             .register(EmptyDiscreteResources.class)
-            .register(new EncodedResourcesSerializer(), EncodedDiscreteResources.class)
+            // reads the values persisted by previous releases under their former ID
+            .register(new LegacyEncodedResourcesSerializer(), EncodedDiscreteResources.class)
             .register(ContinuousResourceAllocation.class)
             .register(PortNumberCodec.class)
             .register(VlanIdCodec.class)
             .register(MplsLabelCodec.class)
+            // registered last, so that Kryo writes new values in this format
+            .register(new EncodedResourcesSerializer(), EncodedDiscreteResources.class)
             .build());
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
@@ -19,39 +19,136 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeSet;
 import com.google.common.collect.TreeRangeSet;
-import org.onlab.util.ClosedOpenRange;
 import org.onosproject.net.resource.DiscreteResourceCodec;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Kryo Serializer for {@link EncodedDiscreteResources}.
+ * <p>
+ * The encoded values are written either as a list of ranges, each one as the
+ * gap from the previous range and its length, or as a bitmap spanning from the
+ * lowest to the highest value, whichever is the smaller: long runs of values
+ * are best kept as ranges while dense but fragmented values take one bit each.
+ * </p>
+ * <p>
+ * Values written by previous releases are read by
+ * {@link LegacyEncodedResourcesSerializer} under their former registration.
+ * </p>
  */
 final class EncodedResourcesSerializer extends Serializer<EncodedDiscreteResources> {
+    static final byte RANGES = 0;
+    static final byte BITMAP = 1;
+
     @Override
     public void write(Kryo kryo, Output output, EncodedDiscreteResources object) {
-        List<ClosedOpenRange> ranges = object.rangeSet().asRanges().stream()
-                .map(ClosedOpenRange::of)
-                .collect(Collectors.toList());
-        kryo.writeObject(output, ranges);
+        List<Range<Integer>> ranges = ImmutableList.copyOf(object.rangeSet().asRanges());
+        if (bitmapLength(ranges) < rangesLength(ranges)) {
+            output.writeByte(BITMAP);
+            writeBitmap(output, ranges);
+        } else {
+            output.writeByte(RANGES);
+            writeRanges(output, ranges);
+        }
         kryo.writeClassAndObject(output, object.codec());
     }
 
     @Override
     public EncodedDiscreteResources read(Kryo kryo, Input input, Class<EncodedDiscreteResources> cls) {
-        @SuppressWarnings("unchecked")
-        List<ClosedOpenRange> ranges = kryo.readObject(input, ArrayList.class);
+        byte format = input.readByte();
+        RangeSet<Integer> rangeSet = format == BITMAP ? readBitmap(input) : readRanges(input);
         DiscreteResourceCodec codec = (DiscreteResourceCodec) kryo.readClassAndObject(input);
 
-        RangeSet<Integer> rangeSet = TreeRangeSet.create();
-        ranges.stream()
-                .map(x -> Range.closedOpen(x.lowerBound(), x.upperBound()))
-                .forEach(rangeSet::add);
         return new EncodedDiscreteResources(rangeSet, codec);
     }
+
+    // number of bytes taken by the ranges format
+    private static long rangesLength(List<Range<Integer>> ranges) {
+        long length = varLength(ranges.size());
+        long previous = 0;
+        for (Range<Integer> range : ranges) {
+            length += varLength(zigZag((long) range.lowerEndpoint() - previous));
+            length += varLength((long) range.upperEndpoint() - range.lowerEndpoint());
+            previous = range.upperEndpoint();
+        }
+        return length;
+    }
+
+    // number of bytes taken by the bitmap format, which is not used for empty sets
+    private static long bitmapLength(List<Range<Integer>> ranges) {
+        if (ranges.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        long words = words(ranges);
+        return varLength(zigZag(ranges.get(0).lowerEndpoint())) + varLength(words) + words * Long.BYTES;
+    }
+
+    private static long words(List<Range<Integer>> ranges) {
+        long span = (long) ranges.get(ranges.size() - 1).upperEndpoint() - ranges.get(0).lowerEndpoint();
+        return (span + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private static void writeRanges(Output output, List<Range<Integer>> ranges) {
+        output.writeVarInt(ranges.size(), true);
+        long previous = 0;
+        for (Range<Integer> range : ranges) {
+            output.writeVarLong((long) range.lowerEndpoint() - previous, false);
+            output.writeVarLong((long) range.upperEndpoint() - range.lowerEndpoint(), true);
+            previous = range.upperEndpoint();
+        }
+    }
+
+    private static RangeSet<Integer> readRanges(Input input) {
+        RangeSet<Integer> rangeSet = TreeRangeSet.create();
+        int size = input.readVarInt(true);
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            long lower = previous + input.readVarLong(false);
+            long upper = lower + input.readVarLong(true);
+            rangeSet.add(Range.closedOpen((int) lower, (int) upper));
+            previous = upper;
+        }
+        return rangeSet;
+    }
+
+    private static void writeBitmap(Output output, List<Range<Integer>> ranges) {
+        int base = ranges.get(0).lowerEndpoint();
+        BitSet bits = new BitSet();
+        for (Range<Integer> range : ranges) {
+            bits.set(range.lowerEndpoint() - base, range.upperEndpoint() - base);
+        }
+        long[] words = bits.toLongArray();
+
+        output.writeVarInt(base, false);
+        output.writeVarInt(words.length, true);
+        output.writeLongs(words);
+    }
+
+    private static RangeSet<Integer> readBitmap(Input input) {
+        int base = input.readVarInt(false);
+        long[] words = input.readLongs(input.readVarInt(true));
+
+        RangeSet<Integer> rangeSet = TreeRangeSet.create();
+        BitSet bits = BitSet.valueOf(words);
+        for (int from = bits.nextSetBit(0); from >= 0; from = bits.nextSetBit(from)) {
+            int to = bits.nextClearBit(from);
+            rangeSet.add(Range.closedOpen(base + from, base + to));
+            from = to;
+        }
+        return rangeSet;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // number of bytes of a non-negative value written as a variable length integer
+    private static int varLength(long value) {
+        return (Long.SIZE - Long.numberOfLeadingZeros(value | 1) + 6) / 7;
+    }
 }
@@ -15,7 +15,12 @@
  */
 package org.onosproject.store.topology.impl;
 
+import com.codahale.metrics.Gauge;
+import org.onlab.graph.CompactDijkstraGraphSearch;
 import org.onlab.graph.GraphPathSearch;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.KryoNamespace;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.common.DefaultTopology;
@@ -72,6 +77,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static org.onlab.util.Tools.get;
 import static org.onlab.util.Tools.isNullOrEmpty;
 import static org.onosproject.net.topology.TopologyEvent.Type.TOPOLOGY_CHANGED;
+import static org.onosproject.store.OsgiPropertyConstants.GRAPH_PATH_SEARCH;
+import static org.onosproject.store.OsgiPropertyConstants.GRAPH_PATH_SEARCH_DEFAULT;
 import static org.onosproject.store.OsgiPropertyConstants.LINK_WEIGHT_FUNCTION;
 import static org.onosproject.store.OsgiPropertyConstants.LINK_WEIGHT_FUNCTION_DEFAULT;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -89,7 +96,8 @@ import static org.slf4j.LoggerFactory.getLogger;
                 TopologyStore.class, PathAdminService.class
         },
         property = {
-                LINK_WEIGHT_FUNCTION + "=" + LINK_WEIGHT_FUNCTION_DEFAULT
+                LINK_WEIGHT_FUNCTION + "=" + LINK_WEIGHT_FUNCTION_DEFAULT,
+                GRAPH_PATH_SEARCH + "=" + GRAPH_PATH_SEARCH_DEFAULT
         }
 )
 public class DistributedTopologyStore
@@ -98,7 +106,7 @@ public class DistributedTopologyStore
 
     private final Logger log = getLogger(getClass());
 
-    private static final String FORMAT = "Settings: linkWeightFunction={}";
+    private static final String FORMAT = "Settings: linkWeightFunction={}, graphPathSearch={}";
 
     private volatile DefaultTopology current =
             new DefaultTopology(ProviderId.NONE,
@@ -121,13 +129,27 @@ public class DistributedTopologyStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected DeviceService deviceService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL)
+    protected MetricsService metricsService;
+
+    private static final String METRICS_COMPONENT = "TopologyStore";
+    private static final String METRICS_FEATURE = "paths";
+    private static final String PATH_CACHE_HITS = "pathCacheHits";
+    private static final String PATH_CACHE_MISSES = "pathCacheMisses";
+    private static final String TREE_SEARCHES = "shortestPathTreeSearches";
+
     private static final String HOP_COUNT = "hopCount";
     private static final String LINK_METRIC = "linkMetric";
     private static final String GEO_DISTANCE = "geoDistance";
 
+    private static final String COMPACT_DIJKSTRA = "compactDijkstra";
+
     /** Default link-weight function: hopCount, linkMetric, geoDistance. */
     private String linkWeightFunction = LINK_WEIGHT_FUNCTION_DEFAULT;
 
+    /** Default path search algorithm: dijkstra, compactDijkstra. */
+    private String graphPathSearch = GRAPH_PATH_SEARCH_DEFAULT;
+
     // Cluster root to broadcast points bindings to allow convergence to
     // a shared broadcast tree; node that is the master of the cluster root
     // is the primary.
@@ -149,6 +171,18 @@ public class DistributedTopologyStore
                 .withTimestampProvider((k, v) -> clockService.getTimestamp())
                 .build();
         broadcastPoints.addListener(listener);
+
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            metricsService.registerMetric(component, feature, PATH_CACHE_HITS,
+                                          (Gauge<Long>) DefaultTopology::pathCacheHits);
+            metricsService.registerMetric(component, feature, PATH_CACHE_MISSES,
+                                          (Gauge<Long>) DefaultTopology::pathCacheMisses);
+            metricsService.registerMetric(component, feature, TREE_SEARCHES,
+                                          (Gauge<Long>) DefaultTopology::shortestPathTreeSearches);
+        }
         log.info("Started");
     }
 
@@ -157,6 +191,15 @@ public class DistributedTopologyStore
         configService.unregisterProperties(getClass(), false);
         broadcastPoints.removeListener(listener);
         broadcastPoints.destroy();
+
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            metricsService.removeMetric(component, feature, PATH_CACHE_HITS);
+            metricsService.removeMetric(component, feature, PATH_CACHE_MISSES);
+            metricsService.removeMetric(component, feature, TREE_SEARCHES);
+        }
         log.info("Stopped");
     }
 
@@ -174,7 +217,15 @@ public class DistributedTopologyStore
                             new GeoDistanceLinkWeight(deviceService) : null;
             setDefaultLinkWeigher(weight);
         }
-        log.info(FORMAT, linkWeightFunction);
+
+        String newGraphPathSearch = get(properties, GRAPH_PATH_SEARCH);
+        if (newGraphPathSearch != null &&
+                !Objects.equals(newGraphPathSearch, graphPathSearch)) {
+            graphPathSearch = newGraphPathSearch;
+            setDefaultGraphPathSearch(graphPathSearch.equals(COMPACT_DIJKSTRA) ?
+                                              new CompactDijkstraGraphSearch<>() : null);
+        }
+        log.info(FORMAT, linkWeightFunction, graphPathSearch);
     }
 
     @Override
@@ -15,9 +15,12 @@
  */
 package org.onosproject.store.device.impl;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.easymock.Capture;
+import org.easymock.CaptureType;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -56,28 +59,35 @@ import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.ClusterMessage;
 import org.onosproject.store.cluster.messaging.MessageSubject;
 import org.onosproject.store.impl.MastershipBasedTimestamp;
+import org.onosproject.store.impl.Timestamped;
 import org.onosproject.store.service.EventuallyConsistentMap;
 import org.onosproject.store.service.EventuallyConsistentMapBuilder;
 import org.onosproject.store.service.StorageService;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
 import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
@@ -100,6 +110,10 @@ import static org.onosproject.net.device.DeviceEvent.Type.DEVICE_UPDATED;
 import static org.onosproject.net.device.DeviceEvent.Type.PORT_ADDED;
 import static org.onosproject.net.device.DeviceEvent.Type.PORT_REMOVED;
 import static org.onosproject.net.device.DeviceEvent.Type.PORT_UPDATED;
+import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.DEVICE_DIGEST_ADVERTISE;
+import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.DEVICE_UPDATE;
+import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.PORT_DELTA_UPDATE;
+import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.PORT_UPDATE;
 
 
 // TODO add tests for remote replication
@@ -185,6 +199,7 @@ public class GossipDeviceStoreTest {
         expect(ecMapBuilder.withAntiEntropyPeriod(5, TimeUnit.SECONDS)).andReturn(ecMapBuilder).anyTimes();
         expect(ecMapBuilder.withTimestampProvider(anyObject(BiFunction.class))).andReturn(ecMapBuilder).anyTimes();
         expect(ecMapBuilder.withTombstonesDisabled()).andReturn(ecMapBuilder).anyTimes();
+        expect(ecMapBuilder.withCompression()).andReturn(ecMapBuilder).anyTimes();
 
         ecMap = createNiceMock(EventuallyConsistentMap.class);
         expect(ecMapBuilder.build()).andReturn(ecMap).anyTimes();
@@ -603,6 +618,211 @@ public class GossipDeviceStoreTest {
         }
     }
 
+    @Test
+    public final void testUpdatePortsDelta() {
+        putDevice(DID1, SW1);
+        addDigestPeer(NID2);
+        Capture<InternalPortDeltaEvent> message = Capture.newInstance();
+        Capture<MessageSubject> subject = Capture.newInstance();
+        Capture<Function<InternalPortDeltaEvent, byte[]>> encoder = Capture.newInstance();
+
+        resetCommunicatorExpectingSingleMulticast(message, subject, encoder);
+        deviceStore.updatePorts(PID, DID1, asList(portDesc(P1, true), portDesc(P2, true)));
+        verify(clusterCommunicator);
+        assertEquals(PORT_DELTA_UPDATE, subject.getValue());
+        assertEquals(ImmutableMap.of(P1, true, P2, true), portStates(message.getValue()));
+
+        // only the changed port is propagated
+        resetCommunicatorExpectingSingleMulticast(message, subject, encoder);
+        deviceStore.updatePorts(PID, DID1, asList(portDesc(P1, false), portDesc(P2, true)));
+        verify(clusterCommunicator);
+        assertEquals(ImmutableMap.of(P1, false), portStates(message.getValue()));
+
+        // nothing to propagate
+        resetCommunicatorExpectingNoBroadcast(message, subject, encoder);
+        assertTrue(deviceStore.updatePorts(PID, DID1, asList(portDesc(P1, false), portDesc(P2, true))).isEmpty());
+        verify(clusterCommunicator);
+        assertFalse(message.hasCaptured());
+
+        // ports no longer reported are propagated as removed
+        resetCommunicatorExpectingSingleMulticast(message, subject, encoder);
+        deviceStore.updatePorts(PID, DID1, asList(portDesc(P1, false)));
+        verify(clusterCommunicator);
+        assertEquals(1, message.getValue().portDescriptions().size());
+        PortDescription removed = message.getValue().portDescriptions().get(0).value();
+        assertEquals(P2, removed.portNumber());
+        assertTrue(removed.isRemoved());
+    }
+
+    @Test
+    public final void testUpdatePortsLegacyPeer() {
+        InternalDeviceEvent deviceEvent = putDeviceCapturingEvent(DID1, SW1);
+        Capture<InternalPortEvent> message = Capture.newInstance();
+        Capture<MessageSubject> subject = Capture.newInstance();
+        Capture<Function<InternalPortEvent, byte[]>> encoder = Capture.newInstance();
+
+        // peers not known to handle deltas are sent the complete port list
+        resetCommunicatorExpectingSingleBroadcast(message, subject, encoder);
+        deviceStore.updatePorts(PID, DID1, asList(portDesc(P1, true), portDesc(P2, true)));
+        verify(clusterCommunicator);
+        assertEquals(PORT_UPDATE, subject.getValue());
+
+        resetCommunicatorExpectingSingleBroadcast(message, subject, encoder);
+        deviceStore.updatePorts(PID, DID1, asList(portDesc(P1, false), portDesc(P2, true)));
+        verify(clusterCommunicator);
+        assertEquals(PORT_UPDATE, subject.getValue());
+        assertEquals(asList(P1, P2), message.getValue().portDescriptions().value().stream()
+                .map(PortDescription::portNumber).collect(Collectors.toList()));
+
+        // and applied by the peer as before
+        TestPeer peer = new TestPeer();
+        try {
+            peer.deliver(DEVICE_UPDATE, deviceEvent);
+            peer.deliver(PORT_UPDATE, message.getValue());
+            assertEquals(ImmutableMap.of(P1, false, P2, true), portStates(peer.store.getPorts(DID1)));
+        } finally {
+            peer.store.deactivate();
+        }
+    }
+
+    @Test
+    public final void testPortEventsReordered() {
+        InternalDeviceEvent deviceEvent = putDeviceCapturingEvent(DID1, SW1);
+        addDigestPeer(NID2);
+        List<InternalPortDeltaEvent> portEvents = updatePortsCapturingEvents();
+        Map<PortNumber, Boolean> expected = portStates(deviceStore.getPorts(DID1));
+        assertEquals(ImmutableMap.of(P1, true, P3, true), expected);
+
+        List<List<InternalPortDeltaEvent>> orders = new ArrayList<>();
+        orders.add(portEvents);
+        orders.add(Lists.reverse(portEvents));
+        Random random = new Random(0);
+        for (int i = 0; i < 8; i++) {
+            List<InternalPortDeltaEvent> shuffled = new ArrayList<>(portEvents);
+            Collections.shuffle(shuffled, random);
+            orders.add(shuffled);
+        }
+
+        for (List<InternalPortDeltaEvent> order : orders) {
+            TestPeer peer = new TestPeer();
+            try {
+                peer.deliver(DEVICE_UPDATE, deviceEvent);
+                order.forEach(event -> peer.deliver(PORT_DELTA_UPDATE, event));
+                assertEquals("converged for " + order, expected, portStates(peer.store.getPorts(DID1)));
+                assertEquals(gossipDeviceStore.createDigestAdvertisement().portDigests(),
+                             peer.store.createDigestAdvertisement().portDigests());
+            } finally {
+                peer.store.deactivate();
+            }
+        }
+    }
+
+    @Test
+    public final void testPortAntiEntropy() {
+        InternalDeviceEvent deviceEvent = putDeviceCapturingEvent(DID1, SW1);
+        addDigestPeer(NID2);
+        List<InternalPortDeltaEvent> portEvents = updatePortsCapturingEvents();
+        Map<PortNumber, Boolean> expected = portStates(deviceStore.getPorts(DID1));
+
+        TestPeer peer1 = new TestPeer();
+        TestPeer peer2 = new TestPeer();
+        try {
+            peer1.deliver(DEVICE_UPDATE, deviceEvent);
+            peer2.deliver(DEVICE_UPDATE, deviceEvent);
+            portEvents.forEach(event -> peer1.deliver(PORT_DELTA_UPDATE, event));
+            // peer2 misses the last update
+            portEvents.subList(0, 2).forEach(event -> peer2.deliver(PORT_DELTA_UPDATE, event));
+            assertEquals(ImmutableMap.of(P1, false, P2, true), portStates(peer2.store.getPorts(DID1)));
+
+            // peer1 answers the advertisement of peer2 with its ports
+            peer1.deliver(DEVICE_DIGEST_ADVERTISE, peer2.store.createDigestAdvertisement());
+            assertEquals(1, peer1.sentPorts.getValues().size());
+            peer2.deliver(PORT_DELTA_UPDATE, peer1.sentPorts.getValue());
+            assertEquals(expected, portStates(peer2.store.getPorts(DID1)));
+
+            // in sync, nothing left to send
+            peer1.sentPorts.reset();
+            peer1.deliver(DEVICE_DIGEST_ADVERTISE, peer2.store.createDigestAdvertisement());
+            assertFalse(peer1.sentPorts.hasCaptured());
+        } finally {
+            peer1.store.deactivate();
+            peer2.store.deactivate();
+        }
+    }
+
+    @Test
+    public final void testPruneRemovedPorts() {
+        DeviceDescriptions descs = new DeviceDescriptions(new Timestamped<>(
+                new DefaultDeviceDescription(DID1.uri(), SWITCH, MFR, HW, SW1, SN, CID),
+                new MastershipBasedTimestamp(1, 0)));
+        descs.putPortDesc(new Timestamped<>(portDesc(P1, true), new MastershipBasedTimestamp(1, 1)));
+        long digest = descs.getPortDigest();
+        descs.putPortDesc(new Timestamped<>(portDesc(P2, true), new MastershipBasedTimestamp(1, 2)));
+        descs.putPortDesc(new Timestamped<>(DefaultPortDescription.builder(portDesc(P2, true))
+                                                    .isRemoved(true).build(),
+                                            new MastershipBasedTimestamp(1, 3)));
+
+        // removed ports are kept until the horizon, but left out of the digest
+        assertEquals(digest, descs.getPortDigest());
+        descs.pruneRemovedPorts(TimeUnit.MINUTES.toMillis(1));
+        assertTrue(descs.getPortDesc(P2).value().isRemoved());
+
+        descs.pruneRemovedPorts(0);
+        assertNull(descs.getPortDesc(P2));
+        assertTrue(descs.getPortDesc(P1).value().isEnabled());
+        assertEquals(digest, descs.getPortDigest());
+    }
+
+    private static PortDescription portDesc(PortNumber number, boolean enabled) {
+        return DefaultPortDescription.builder().withPortNumber(number).isEnabled(enabled).build();
+    }
+
+    private static Map<PortNumber, Boolean> portStates(InternalPortDeltaEvent event) {
+        return event.portDescriptions().stream()
+                .collect(Collectors.toMap(desc -> desc.value().portNumber(), desc -> desc.value().isEnabled()));
+    }
+
+    private static Map<PortNumber, Boolean> portStates(List<Port> ports) {
+        return ports.stream().collect(Collectors.toMap(Port::number, Port::isEnabled));
+    }
+
+    // Has the store learn that the given peer handles port deltas.
+    private void addDigestPeer(NodeId peer) {
+        gossipDeviceStore.handleDeviceDigestAdvertisement(new DeviceDigestAdvertisement(
+                peer, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap()));
+    }
+
+    private InternalDeviceEvent putDeviceCapturingEvent(DeviceId deviceId, String swVersion) {
+        Capture<InternalDeviceEvent> message = Capture.newInstance();
+        Capture<MessageSubject> subject = Capture.newInstance();
+        Capture<Function<InternalDeviceEvent, byte[]>> encoder = Capture.newInstance();
+        resetCommunicatorExpectingSingleBroadcast(message, subject, encoder);
+        deviceStore.createOrUpdateDevice(PID, deviceId, new DefaultDeviceDescription(deviceId.uri(), SWITCH, MFR,
+                                                                                    HW, swVersion, SN, CID));
+        verify(clusterCommunicator);
+        return message.getValue();
+    }
+
+    // Adds, updates, removes and re-adds ports of DID1, returning the
+    // events sent to peers.
+    private List<InternalPortDeltaEvent> updatePortsCapturingEvents() {
+        List<List<PortDescription>> updates = asList(
+                asList(portDesc(P1, true), portDesc(P2, true), portDesc(P3, true)),
+                asList(portDesc(P1, false), portDesc(P2, true)),
+                asList(portDesc(P1, true), portDesc(P3, true)));
+        List<InternalPortDeltaEvent> events = new ArrayList<>();
+        for (List<PortDescription> update : updates) {
+            Capture<InternalPortDeltaEvent> message = Capture.newInstance();
+            Capture<MessageSubject> subject = Capture.newInstance();
+            Capture<Function<InternalPortDeltaEvent, byte[]>> encoder = Capture.newInstance();
+            resetCommunicatorExpectingSingleMulticast(message, subject, encoder);
+            deviceStore.updatePorts(PID, DID1, update);
+            verify(clusterCommunicator);
+            events.add(message.getValue());
+        }
+        return events;
+    }
+
     @Test
     public final void testUpdatePortStatus() {
         putDevice(DID1, SW1);
@@ -741,6 +961,24 @@ public class GossipDeviceStoreTest {
         replay(clusterCommunicator);
     }
 
+    private <T> void resetCommunicatorExpectingSingleMulticast(
+            Capture<T> message,
+            Capture<MessageSubject> subject,
+            Capture<Function<T, byte[]>> encoder) {
+
+        message.reset();
+        subject.reset();
+        encoder.reset();
+        reset(clusterCommunicator);
+        clusterCommunicator.multicast(
+                    capture(message),
+                    capture(subject),
+                    capture(encoder),
+                    eq(Collections.singleton(NID2)));
+        expectLastCall().once();
+        replay(clusterCommunicator);
+    }
+
     private <T> void resetCommunicatorExpectingSingleBroadcast(
             Capture<T> message,
             Capture<MessageSubject> subject,
@@ -905,6 +1143,43 @@ public class GossipDeviceStoreTest {
         }
     }
 
+    /**
+     * Remote instance receiving the messages delivered by the tests.
+     */
+    private final class TestPeer {
+
+        private final GossipDeviceStore store;
+        private final Map<MessageSubject, Capture<Consumer<Object>>> handlers = new HashMap<>();
+        private final Capture<InternalPortDeltaEvent> sentPorts = Capture.newInstance(CaptureType.ALL);
+
+        private TestPeer() {
+            ClusterCommunicationService communicator = createNiceMock(ClusterCommunicationService.class);
+            for (MessageSubject subject : asList(DEVICE_UPDATE, PORT_UPDATE, PORT_DELTA_UPDATE,
+                                                 DEVICE_DIGEST_ADVERTISE)) {
+                Capture<Consumer<Object>> handler = Capture.newInstance();
+                communicator.addSubscriber(eq(subject), anyObject(Function.class),
+                                           capture(handler), anyObject(Executor.class));
+                handlers.put(subject, handler);
+            }
+            expect(communicator.unicast(capture(sentPorts), eq(PORT_DELTA_UPDATE), anyObject(Function.class),
+                                        anyObject(NodeId.class)))
+                    .andReturn(CompletableFuture.completedFuture(null)).anyTimes();
+            replay(communicator);
+
+            TestGossipDeviceStore peer = new TestGossipDeviceStore(new TestDeviceClockService(),
+                                                                   new TestClusterService(),
+                                                                   communicator);
+            peer.mastershipService = new TestMastershipService();
+            peer.storageService = testStorageService;
+            peer.activate();
+            store = peer;
+        }
+
+        private void deliver(MessageSubject subject, Object message) {
+            handlers.get(subject).getValue().accept(message);
+        }
+    }
+
     private static final class TestGossipDeviceStore extends GossipDeviceStore {
 
         public TestGossipDeviceStore(
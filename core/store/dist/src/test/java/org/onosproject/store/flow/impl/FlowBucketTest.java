@@ -0,0 +1,225 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.intent.IntentTestsMocks;
+import org.onosproject.store.LogicalTimestamp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for the flow bucket digests and deltas.
+ */
+public class FlowBucketTest {
+
+    private static final long TERM = 1;
+    private final DeviceId deviceId = did("device1");
+
+    private LogicalClock clock;
+    private FlowBucket master;
+    private FlowBucket backup;
+
+    @Before
+    public void setUp() {
+        clock = new LogicalClock();
+        master = new FlowBucket(new BucketId(deviceId, 0));
+        backup = new FlowBucket(new BucketId(deviceId, 0));
+    }
+
+    private FlowEntry flowEntry(int priority) {
+        FlowRule rule = DefaultFlowRule.builder()
+                .forDevice(deviceId)
+                .withSelector(new IntentTestsMocks.MockSelector())
+                .withTreatment(new IntentTestsMocks.MockTreatment())
+                .withPriority(priority)
+                .makePermanent()
+                .fromApp(APP_ID)
+                .build();
+        return new DefaultFlowEntry(rule);
+    }
+
+    private long rebuiltHash(FlowBucket bucket) {
+        FlowBucket copy = bucket.copy();
+        return copy.hash();
+    }
+
+    /**
+     * Tests that the bucket hash is maintained incrementally and is independent of the order of changes.
+     */
+    @Test
+    public void incrementalHash() {
+        assertEquals(0, master.hash());
+
+        FlowEntry entry1 = flowEntry(10);
+        FlowEntry entry2 = flowEntry(20);
+        master.add(entry1, TERM, clock);
+        long hash1 = master.hash();
+        assertNotEquals(0, hash1);
+
+        master.add(entry2, TERM, clock);
+        long hash2 = master.hash();
+        assertEquals(rebuiltHash(master), hash2);
+
+        backup.add(entry2, TERM, clock);
+        backup.add(entry1, TERM, clock);
+        assertEquals(hash2, backup.hash());
+
+        master.update(entry2, stored -> {
+            stored.setState(FlowEntryState.ADDED);
+            return true;
+        }, TERM, clock);
+        assertNotEquals(hash2, master.hash());
+        assertEquals(rebuiltHash(master), master.hash());
+
+        // Statistics are part of the hash.
+        long hash = master.hash();
+        master.update(entry2, stored -> {
+            stored.setBytes(100);
+            return true;
+        }, TERM, clock);
+        assertNotEquals(hash, master.hash());
+        assertEquals(rebuiltHash(master), master.hash());
+
+        master.remove(entry2, TERM, clock);
+        assertEquals(hash1, master.hash());
+
+        master.clear();
+        assertEquals(0, master.hash());
+    }
+
+    /**
+     * Tests replicating the changes since a previous backup.
+     */
+    @Test
+    public void deltaSince() {
+        FlowEntry entry1 = flowEntry(10);
+        FlowEntry entry2 = flowEntry(20);
+        FlowEntry entry3 = flowEntry(30);
+        master.add(entry1, TERM, clock);
+        master.add(entry2, TERM, clock);
+
+        FlowBucketDelta full = master.getDelta((LogicalTimestamp) null);
+        assertTrue(full.isFull());
+        assertEquals(2, full.flows().size());
+        backup.apply(full);
+        assertEquals(master.getDigest().timestamp(), backup.timestamp());
+        assertEquals(master.hash(), backup.hash());
+
+        LogicalTimestamp lastBackup = master.timestamp();
+        master.remove(entry1, TERM, clock);
+        master.add(entry3, TERM, clock);
+
+        FlowBucketDelta delta = master.getDelta(lastBackup);
+        assertFalse(delta.isFull());
+        assertEquals(lastBackup, delta.baseline());
+        assertEquals(2, delta.flows().size());
+        assertTrue(delta.flows().get(entry1.id()).isEmpty());
+        assertTrue(delta.flows().containsKey(entry3.id()));
+
+        backup.apply(delta);
+        assertEquals(master.hash(), backup.hash());
+        assertEquals(2, backup.count());
+        assertEquals(master.timestamp(), backup.timestamp());
+
+        // Once pruned, changes are no longer included in deltas.
+        master.pruneChanges(master.timestamp());
+        assertTrue(master.getDelta(lastBackup).flows().isEmpty());
+    }
+
+    /**
+     * Tests repairing a replica from its flow digests.
+     */
+    @Test
+    public void deltaFromDigests() {
+        FlowEntry entry1 = flowEntry(10);
+        FlowEntry entry2 = flowEntry(20);
+        FlowEntry entry3 = flowEntry(30);
+        master.add(entry1, TERM, clock);
+        master.add(entry2, TERM, clock);
+        backup.apply(master.getDelta((LogicalTimestamp) null));
+
+        // The replica misses an addition and holds a stale flow.
+        master.add(entry3, TERM, clock);
+        backup.add(flowEntry(40), TERM, new LogicalClock());
+
+        Map<FlowId, Long> flowDigests = backup.getFlowDigests();
+        assertEquals(3, flowDigests.size());
+        FlowBucketDelta delta = master.getDelta(flowDigests);
+        assertFalse(delta.isFull());
+        assertEquals(2, delta.flows().size());
+        assertTrue(delta.flows().containsKey(entry3.id()));
+        assertTrue(delta.flows().get(flowEntry(40).id()).isEmpty());
+
+        backup.apply(delta);
+        assertEquals(master.hash(), backup.hash());
+        assertEquals(master.getFlowDigests(), backup.getFlowDigests());
+        assertTrue(master.getDelta(backup.getFlowDigests()).flows().isEmpty());
+    }
+
+    /**
+     * Tests that a replica which caught up with the master's timestamp, but whose statistics diverge, is repaired.
+     */
+    @Test
+    public void repairStatistics() {
+        FlowEntry entry = flowEntry(10);
+        master.add(entry, TERM, clock);
+
+        // The replica holds its own copy of the flow, as recent as the master's.
+        backup.add(new DefaultFlowEntry(entry), TERM, new LogicalClock());
+        backup.apply(new FlowBucketDelta(backup.bucketId(), TERM, master.timestamp(), null, false,
+                                         Maps.newHashMap()));
+        assertEquals(master.hash(), backup.hash());
+
+        // The replica misses a statistics update.
+        master.update(entry, stored -> {
+            stored.setPackets(10);
+            return true;
+        }, TERM, clock);
+        backup.apply(new FlowBucketDelta(backup.bucketId(), TERM, master.timestamp(), null, false,
+                                         Maps.newHashMap()));
+        assertNotEquals(master.hash(), backup.hash());
+
+        // The repair carries the master's current timestamp, and is applied nonetheless.
+        assertTrue(backup.applyIfNotOlder(master.getDelta(backup.getFlowDigests())));
+        assertEquals(master.hash(), backup.hash());
+        assertEquals(master.getFlowDigests(), backup.getFlowDigests());
+
+        // Changes older than the replica are not applied.
+        LogicalTimestamp before = master.timestamp();
+        master.add(flowEntry(20), TERM, clock);
+        backup.apply(master.getDelta((LogicalTimestamp) null));
+        assertFalse(backup.applyIfNotOlder(
+                new FlowBucketDelta(backup.bucketId(), TERM, before, null, false, Maps.newHashMap())));
+    }
+}
@@ -21,6 +21,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultHost;
 import org.onosproject.net.DeviceId;
@@ -95,15 +97,19 @@ public class DistributedHostStoreTest {
                                                                 HOST_ADDRESS,
                                                                 HOST_LEARNT_WITH_ADDRESSES.configured(),
                                                                 HOST_LEARNT_WITH_ADDRESSES.annotations());
+    // Update from another instance, newer than the local writes of the tests
     private static final MapEvent<HostId, DefaultHost> HOST_EVENT =
-            new MapEvent<>("foobar", HOSTID, new Versioned<>(NEW_HOST, 0), new Versioned<>(OLD_HOST, 0));
+            new MapEvent<>("foobar", HOSTID, new Versioned<>(NEW_HOST, 10), new Versioned<>(OLD_HOST, 1));
+    private static final MapEvent<HostId, DefaultHost> STALE_HOST_EVENT =
+            new MapEvent<>("foobar", HOSTID, new Versioned<>(NEW_HOST, 0), null);
 
     @Before
     public void setUp() {
         ecXHostStore = new DistributedHostStore();
 
         ecXHostStore.storageService = new TestStorageService();
-        ecXHostStore.activate();
+        ecXHostStore.cfgService = new ComponentConfigAdapter();
+        ecXHostStore.activate(null);
     }
 
     @After
@@ -300,6 +306,117 @@ public class DistributedHostStoreTest {
     }
 
 
+    /**
+     * Tests the queries served by the indexes of the local replica.
+     */
+    @Test
+    public void testIndexes() {
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, HOST_LEARNT_WITH_LOCATIONS, false);
+        ecXHostStore.createOrUpdateHost(PID, HOSTID1, createHostDesc(HOSTID1, HOST_ADDRESSES), false);
+        Host host = ecXHostStore.getHost(HOSTID);
+        Host host1 = ecXHostStore.getHost(HOSTID1);
+
+        assertEquals(ImmutableSet.of(host), ecXHostStore.getHosts(HOSTID.mac()));
+        assertEquals(ImmutableSet.of(host, host1), ecXHostStore.getHosts(VlanId.NONE));
+        assertEquals(ImmutableSet.of(host, host1), ecXHostStore.getHosts(IP1));
+        assertEquals(ImmutableSet.of(host1), ecXHostStore.getHosts(IP2));
+        assertEquals(ImmutableSet.of(host), ecXHostStore.getConnectedHosts(CP12));
+        assertEquals(ImmutableSet.of(host), ecXHostStore.getConnectedHosts(DEV1));
+
+        // Move the host out of one location
+        ecXHostStore.removeLocation(HOSTID, HOST_LOC12);
+        host = ecXHostStore.getHost(HOSTID);
+        assertEquals(ImmutableSet.of(), ecXHostStore.getConnectedHosts(CP12));
+        assertEquals(ImmutableSet.of(host), ecXHostStore.getConnectedHosts(CP11));
+        assertEquals(ImmutableSet.of(host), ecXHostStore.getConnectedHosts(DEV1));
+
+        // Remove the host from all indexes
+        ecXHostStore.removeHost(HOSTID);
+        assertNull(ecXHostStore.getHost(HOSTID));
+        assertEquals(ImmutableSet.of(), ecXHostStore.getHosts(HOSTID.mac()));
+        assertEquals(ImmutableSet.of(host1), ecXHostStore.getHosts(VlanId.NONE));
+        assertEquals(ImmutableSet.of(host1), ecXHostStore.getHosts(IP1));
+        assertEquals(ImmutableSet.of(), ecXHostStore.getConnectedHosts(DEV1));
+        assertEquals(1, ecXHostStore.getHostCount());
+    }
+
+    /**
+     * Tests that map events older than the replica are ignored.
+     */
+    @Test
+    public void testStaleEvent() {
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, HOST_LEARNT_WITH_ADDRESSES, false);
+        Host host = ecXHostStore.getHost(HOSTID);
+
+        ecXHostStore.hostLocationTracker.event(STALE_HOST_EVENT);
+        assertEquals(host, ecXHostStore.getHost(HOSTID));
+        assertEquals(ImmutableSet.of(host), ecXHostStore.getHosts(IP2));
+
+        // A removal of an older version does not remove the host either
+        ecXHostStore.hostLocationTracker.event(new MapEvent<>(
+                "foobar", HOSTID, null, new Versioned<>(OLD_HOST, 0)));
+        assertEquals(host, ecXHostStore.getHost(HOSTID));
+    }
+
+    /**
+     * Tests that the verification repairs the hosts that are out of sync in
+     * consecutive runs only.
+     */
+    @Test
+    public void testVerifyReplica() {
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, HOST_LEARNT_WITH_ADDRESSES, false);
+        Host host = ecXHostStore.getHost(HOSTID);
+
+        // Host not in the map, as if its removal had been missed
+        ecXHostStore.hostLocationTracker.event(new MapEvent<>(
+                "foobar", HOSTID1, new Versioned<>(host1(), 10), null));
+        assertNotNull(ecXHostStore.getHost(HOSTID1));
+
+        // First run only suspects the host, second run repairs it
+        ecXHostStore.verifyReplica();
+        assertNotNull(ecXHostStore.getHost(HOSTID1));
+        ecXHostStore.verifyReplica();
+        assertNull(ecXHostStore.getHost(HOSTID1));
+        assertEquals(ImmutableSet.of(host), ecXHostStore.getHosts(IP1));
+
+        // Nothing left to repair
+        ecXHostStore.verifyReplica();
+        assertEquals(host, ecXHostStore.getHost(HOSTID));
+        assertEquals(1, ecXHostStore.getHostCount());
+    }
+
+    /**
+     * Tests that reloading the map removes the hosts missed while it was not
+     * active, also when the map is empty.
+     */
+    @Test
+    public void testLoadHosts() {
+        ecXHostStore.hostLocationTracker.event(new MapEvent<>(
+                "foobar", HOSTID1, new Versioned<>(host1(), 10), null));
+        assertNotNull(ecXHostStore.getHost(HOSTID1));
+
+        ecXHostStore.loadHosts();
+        assertNull(ecXHostStore.getHost(HOSTID1));
+        assertEquals(0, ecXHostStore.getHostCount());
+        assertEquals(ImmutableSet.of(), ecXHostStore.getHosts(IP1));
+
+        // Hosts in the map are kept
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, HOST_LEARNT_WITH_ADDRESSES, false);
+        Host host = ecXHostStore.getHost(HOSTID);
+        ecXHostStore.hostLocationTracker.event(new MapEvent<>(
+                "foobar", HOSTID1, new Versioned<>(host1(), 10), null));
+        ecXHostStore.loadHosts();
+        assertEquals(host, ecXHostStore.getHost(HOSTID));
+        assertNull(ecXHostStore.getHost(HOSTID1));
+    }
+
+    private static DefaultHost host1() {
+        HostDescription description = createHostDesc(HOSTID1, HOST_ADDRESSES);
+        return new DefaultHost(PID, HOSTID1, description.hwAddress(), description.vlan(),
+                               description.locations(), description.ipAddress(),
+                               description.configured(), description.annotations());
+    }
+
     private static HostDescription createHostDesc(HostId hostId, Set<IpAddress> ips) {
         return createHostDesc(hostId, ips, false, Collections.emptySet());
     }
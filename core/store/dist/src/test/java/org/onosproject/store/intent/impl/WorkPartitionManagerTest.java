@@ -47,6 +47,7 @@ import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -175,6 +176,19 @@ public class WorkPartitionManagerTest {
         assertFalse(partitionManager.isMine(new ControllableHashKey(4), Key::hash));
     }
 
+    /**
+     * Tests that the getPartition method maps identifiers onto the partitions
+     * in the same way as the leadership lookups do.
+     */
+    @Test
+    public void testGetPartition() {
+        assertEquals(0, partitionManager.getPartition(new ControllableHashKey(0), Key::hash));
+        assertEquals(3, partitionManager.getPartition(new ControllableHashKey(3), Key::hash));
+        assertEquals(1, partitionManager.getPartition(
+                new ControllableHashKey(WorkPartitionManager.NUM_PARTITIONS + 1), Key::hash));
+        assertEquals(2, partitionManager.getPartition(new ControllableHashKey(-2), Key::hash));
+    }
+
     /**
      * Tests sending in LeadershipServiceEvents in the case when we have
      * too many partitions. The event will trigger the partition manager to
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.store.resource.impl;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
+import org.junit.Test;
+import org.onlab.packet.VlanId;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.resource.DiscreteResource;
+import org.onosproject.net.resource.DiscreteResourceId;
+import org.onosproject.net.resource.Resources;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.Serializer;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.onosproject.store.resource.impl.ConsistentResourceStore.SERIALIZER;
+
+/**
+ * Unit tests for EncodedResourcesSerializer.
+ */
+public class EncodedResourcesSerializerTest {
+
+    // the namespace of ConsistentResourceStore as of the previous release
+    private static final Serializer LEGACY_SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
+            .register(KryoNamespaces.API)
+            .register(UnifiedDiscreteResources.class)
+            .register(new EncodableDiscreteResourcesSerializer(), EncodableDiscreteResources.class)
+            .register(GenericDiscreteResources.class)
+            .register(EmptyDiscreteResources.class)
+            .register(new LegacyEncodedResourcesSerializer(), EncodedDiscreteResources.class)
+            .register(ContinuousResourceAllocation.class)
+            .register(PortNumberCodec.class)
+            .register(VlanIdCodec.class)
+            .register(MplsLabelCodec.class)
+            .build());
+
+    private static EncodedDiscreteResources encoded(RangeSet<Integer> rangeSet) {
+        return new EncodedDiscreteResources(TreeRangeSet.create(rangeSet), new VlanIdCodec());
+    }
+
+    private static void assertRoundTrip(EncodedDiscreteResources resources, byte format) {
+        Kryo kryo = new Kryo();
+        kryo.setReferences(false);
+        kryo.register(VlanIdCodec.class);
+        Output output = new Output(1024, -1);
+        kryo.writeObject(output, resources, new EncodedResourcesSerializer());
+        byte[] bytes = output.toBytes();
+
+        assertThat(bytes[0], is(format));
+        assertThat(kryo.readObject(new Input(bytes), EncodedDiscreteResources.class, new EncodedResourcesSerializer()),
+                   is(resources));
+        assertThat(SERIALIZER.decode(SERIALIZER.encode(resources)), is(resources));
+    }
+
+    @Test
+    public void testRanges() {
+        assertRoundTrip(encoded(ImmutableRangeSet.of(Range.closedOpen(1, 4095))), EncodedResourcesSerializer.RANGES);
+        assertRoundTrip(encoded(ImmutableRangeSet.<Integer>builder()
+                .add(Range.closedOpen(-5, 10))
+                .add(Range.closedOpen(100, 200))
+                .add(Range.closedOpen(Integer.MAX_VALUE - 10, Integer.MAX_VALUE - 1))
+                .build()), EncodedResourcesSerializer.RANGES);
+    }
+
+    @Test
+    public void testBitmap() {
+        RangeSet<Integer> everyOther = TreeRangeSet.create();
+        for (int i = 1; i < 4095; i += 2) {
+            everyOther.add(Range.closedOpen(i, i + 1));
+        }
+        assertRoundTrip(encoded(everyOther), EncodedResourcesSerializer.BITMAP);
+
+        RangeSet<Integer> runs = TreeRangeSet.create();
+        for (int i = 100; i < 1000; i += 5) {
+            runs.add(Range.closedOpen(i, i + 3));
+        }
+        assertRoundTrip(encoded(runs), EncodedResourcesSerializer.BITMAP);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertRoundTrip(encoded(ImmutableRangeSet.of()), EncodedResourcesSerializer.RANGES);
+    }
+
+    @Test
+    public void testCompactSize() {
+        RangeSet<Integer> everyOther = TreeRangeSet.create();
+        for (int i = 1; i < 4095; i += 2) {
+            everyOther.add(Range.closedOpen(i, i + 1));
+        }
+        // a bit per value in the span
+        assertThat(SERIALIZER.encode(encoded(everyOther)).length, lessThan(4095 / 8 + 16));
+        // a few bytes per range
+        assertThat(SERIALIZER.encode(encoded(ImmutableRangeSet.of(Range.closedOpen(1, 4095)))).length,
+                   lessThan(16));
+    }
+
+    @Test
+    public void testLegacyFormat() {
+        DiscreteResourceId port = Resources.discrete(DeviceId.deviceId("of:1"), PortNumber.portNumber(1)).id();
+        Set<DiscreteResource> vlans = IntStream.range(1, 4095)
+                .filter(x -> x % 3 != 0)
+                .mapToObj(x -> Resources.discrete(port, VlanId.vlanId((short) x)).resource())
+                .collect(Collectors.toSet());
+        DiscreteResources resources = EncodableDiscreteResources.of(vlans);
+
+        // values persisted by the previous release are still readable
+        DiscreteResources decoded = SERIALIZER.decode(LEGACY_SERIALIZER.encode(resources));
+        assertThat(decoded.values(), is(vlans));
+
+        // while new values are written in the compact format
+        byte[] bytes = SERIALIZER.encode(resources);
+        assertThat(bytes.length, lessThan(LEGACY_SERIALIZER.encode(resources).length / 10));
+        assertThat(SERIALIZER.<DiscreteResources>decode(bytes).values(), is(vlans));
+    }
+}
@@ -23,6 +23,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Supplier;
 
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.KryoNamespace;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.persistence.PersistenceService;
@@ -56,7 +57,9 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
     private boolean convergeFaster = false;
     private boolean persistent = false;
     private boolean persistentMap = false;
+    private boolean compression = false;
     private final PersistenceService persistenceService;
+    private final MetricsService metricsService;
     private Supplier<List<NodeId>> peersSupplier;
     private Supplier<List<NodeId>> bootstrapPeersSupplier;
 
@@ -74,9 +77,30 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
             PersistenceService persistenceService,
             Supplier<List<NodeId>> peersSupplier,
             Supplier<List<NodeId>> bootstrapPeersSupplier
+    ) {
+        this(localNodeId, clusterCommunicator, persistenceService, null, peersSupplier, bootstrapPeersSupplier);
+    }
+
+    /**
+     * Creates a new eventually consistent map builder.
+     * @param localNodeId               local node id
+     * @param clusterCommunicator       cluster communication service
+     * @param persistenceService        persistence service
+     * @param metricsService            metrics service; null to disable metrics
+     * @param peersSupplier             supplier for peers
+     * @param bootstrapPeersSupplier    supplier for peers for bootstrap
+     */
+    public EventuallyConsistentMapBuilderImpl(
+            NodeId localNodeId,
+            ClusterCommunicationService clusterCommunicator,
+            PersistenceService persistenceService,
+            MetricsService metricsService,
+            Supplier<List<NodeId>> peersSupplier,
+            Supplier<List<NodeId>> bootstrapPeersSupplier
     ) {
         this.localNodeId = localNodeId;
         this.persistenceService = persistenceService;
+        this.metricsService = metricsService;
         this.clusterCommunicator = checkNotNull(clusterCommunicator);
         this.peersSupplier = peersSupplier;
         this.bootstrapPeersSupplier = bootstrapPeersSupplier;
@@ -161,6 +185,12 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
         return this;
     }
 
+    @Override
+    public EventuallyConsistentMapBuilder<K, V> withCompression() {
+        compression = true;
+        return this;
+    }
+
     @Override
     public EventuallyConsistentMap<K, V> build() {
         checkNotNull(name, "name is a mandatory parameter");
@@ -187,6 +217,8 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
                 convergeFaster,
                 persistent,
                 persistenceService,
+                compression,
+                metricsService,
                 peersSupplier,
                 bootstrapPeersSupplier
         );
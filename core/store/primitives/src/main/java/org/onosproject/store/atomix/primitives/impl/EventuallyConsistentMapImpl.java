@@ -15,6 +15,11 @@
  */
 package org.onosproject.store.atomix.primitives.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -25,6 +30,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Timer;
+import java.util.TimerTask;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -39,7 +45,11 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
+import com.codahale.metrics.Meter;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -48,6 +58,9 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.AbstractAccumulator;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.SlidingWindowCounter;
@@ -90,14 +103,28 @@ public class EventuallyConsistentMapImpl<K, V>
     private static final int HIGH_LOAD_THRESHOLD = 2;
     private static final int LOAD_WINDOW = 2;
 
+    // Smallest serialized batch worth compressing
+    private static final int COMPRESSION_THRESHOLD_BYTES = 1024;
+    // Delay before probing again a peer that does not accept compressed updates
+    private static final long COMPRESSION_PROBE_RETRY_MS = 60000;
+
+    private static final String METRICS_COMPONENT = "EventuallyConsistentMap";
+    private static final String SENT_BYTES = "sentBytes";
+    private static final String SENT_UPDATES = "sentUpdates";
+    private static final String RECEIVED_BYTES = "receivedBytes";
+    private static final String RECEIVED_UPDATES = "receivedUpdates";
+
     private final Map<K, MapValue<V>> items;
     private final ClusterCommunicationService clusterCommunicator;
+    private final KryoNamespace namespace;
     private final Serializer serializer;
     private final PersistenceService persistenceService;
     private final BiFunction<K, V, Timestamp> timestampProvider;
     private final MessageSubject bootstrapMessageSubject;
     private final MessageSubject initializeMessageSubject;
     private final MessageSubject updateMessageSubject;
+    private final MessageSubject compressedUpdateMessageSubject;
+    private final MessageSubject compressionProbeSubject;
     private final MessageSubject antiEntropyAdvertisementSubject;
     private final MessageSubject updateRequestSubject;
     private final Set<EventuallyConsistentMapListener<K, V>> listeners
@@ -114,6 +141,12 @@ public class EventuallyConsistentMapImpl<K, V>
     private final boolean lightweightAntiEntropy;
     private final boolean tombstonesDisabled;
     private final boolean persistent;
+    private final boolean compression;
+    private final MetricsService metricsService;
+    private final Meter sentBytes;
+    private final Meter sentUpdates;
+    private final Meter receivedBytes;
+    private final Meter receivedUpdates;
     private final Supplier<List<NodeId>> peersSupplier;
     private final Supplier<List<NodeId>> bootstrapPeersSupplier;
     private final NodeId localNodeId;
@@ -144,6 +177,8 @@ public class EventuallyConsistentMapImpl<K, V>
      * @param convergeFaster         make anti-entropy try to converge faster
      * @param persistent             persist data to disk
      * @param persistenceService     persistence service
+     * @param compression            compress the updates sent to peers
+     * @param metricsService         metrics service; null to disable metrics
      * @param peersSupplier          supplier for peers
      * @param bootstrapPeersSupplier supplier for bootstrap peers
      */
@@ -164,16 +199,34 @@ public class EventuallyConsistentMapImpl<K, V>
             boolean convergeFaster,
             boolean persistent,
             PersistenceService persistenceService,
+            boolean compression,
+            MetricsService metricsService,
             Supplier<List<NodeId>> peersSupplier,
             Supplier<List<NodeId>> bootstrapPeersSupplier
     ) {
         //CHECKSTYLE:ON
         this.localNodeId = localNodeId;
         this.mapName = mapName;
-        this.serializer = createSerializer(ns);
+        this.namespace = createNamespace(ns);
+        this.serializer = Serializer.using(namespace);
         this.persistenceService = persistenceService;
         this.persistent =
                 persistent;
+        this.compression = compression;
+        this.metricsService = metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(mapName);
+            sentBytes = metricsService.createMeter(component, feature, SENT_BYTES);
+            sentUpdates = metricsService.createMeter(component, feature, SENT_UPDATES);
+            receivedBytes = metricsService.createMeter(component, feature, RECEIVED_BYTES);
+            receivedUpdates = metricsService.createMeter(component, feature, RECEIVED_UPDATES);
+        } else {
+            sentBytes = new Meter();
+            sentUpdates = new Meter();
+            receivedBytes = new Meter();
+            receivedUpdates = new Meter();
+        }
         if (persistent) {
             items = this.persistenceService.<K, MapValue<V>>persistentMapBuilder()
                     .withName(mapName)
@@ -259,11 +312,31 @@ public class EventuallyConsistentMapImpl<K, V>
         updateMessageSubject = new MessageSubject("ecm-" + mapName + "-update");
         clusterCommunicator.addSubscriber(
                 updateMessageSubject,
-                serializer::decode,
+                this::decodeUpdates,
+                this::processUpdates,
+                this.executor
+        );
+
+        // Compressed updates have their own subject, and are sent only to
+        // the peers that answer the probe, so that peers running a version
+        // without compression keep receiving the uncompressed updates.
+        compressedUpdateMessageSubject = new MessageSubject("ecm-" + mapName + "-update-compressed");
+        clusterCommunicator.addSubscriber(
+                compressedUpdateMessageSubject,
+                this::decodeCompressedUpdates,
                 this::processUpdates,
                 this.executor
         );
 
+        compressionProbeSubject = new MessageSubject("ecm-" + mapName + "-update-compressed-probe");
+        clusterCommunicator.addSubscriber(
+                compressionProbeSubject,
+                serializer::decode,
+                (Function<NodeId, Boolean>) peer -> true,
+                serializer::encode,
+                this.executor
+        );
+
         antiEntropyAdvertisementSubject = new MessageSubject("ecm-" + mapName + "-anti-entropy");
         clusterCommunicator.addSubscriber(
                 antiEntropyAdvertisementSubject,
@@ -298,8 +371,8 @@ public class EventuallyConsistentMapImpl<K, V>
         this.bootstrap();
     }
 
-    private Serializer createSerializer(KryoNamespace ns) {
-        return Serializer.using(KryoNamespace.newBuilder()
+    private KryoNamespace createNamespace(KryoNamespace ns) {
+        return KryoNamespace.newBuilder()
                 .register(ns)
                 // not so robust way to avoid collision with other
                 // user supplied registrations
@@ -313,7 +386,57 @@ public class EventuallyConsistentMapImpl<K, V>
                 .register(MapValue.class)
                 .register(MapValue.Digest.class)
                 .register(UpdateRequest.class)
-                .build(name() + "-ecmap"));
+                .build(name() + "-ecmap");
+    }
+
+    /**
+     * Compresses a serialized batch of updates.
+     *
+     * @param bytes serialized updates
+     * @return compressed updates
+     */
+    private static byte[] compress(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream stream = new DeflaterOutputStream(compressed, deflater)) {
+            stream.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Deserializes a batch of updates received from a peer.
+     *
+     * @param bytes message
+     * @return updates
+     */
+    private Collection<UpdateEntry<K, V>> decodeUpdates(byte[] bytes) {
+        Collection<UpdateEntry<K, V>> updates = serializer.decode(bytes);
+        receivedBytes.mark(bytes.length);
+        receivedUpdates.mark(updates.size());
+        return updates;
+    }
+
+    /**
+     * Deserializes a compressed batch of updates received from a peer.
+     *
+     * @param bytes message
+     * @return updates
+     */
+    private Collection<UpdateEntry<K, V>> decodeCompressedUpdates(byte[] bytes) {
+        Collection<UpdateEntry<K, V>> updates;
+        try (InputStream stream = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            updates = namespace.deserialize(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        receivedBytes.mark(bytes.length);
+        receivedUpdates.mark(updates.size());
+        return updates;
     }
 
     @Override
@@ -567,8 +690,20 @@ public class EventuallyConsistentMapImpl<K, V>
         clusterCommunicator.removeSubscriber(bootstrapMessageSubject);
         clusterCommunicator.removeSubscriber(initializeMessageSubject);
         clusterCommunicator.removeSubscriber(updateMessageSubject);
+        clusterCommunicator.removeSubscriber(compressedUpdateMessageSubject);
+        clusterCommunicator.removeSubscriber(compressionProbeSubject);
         clusterCommunicator.removeSubscriber(updateRequestSubject);
         clusterCommunicator.removeSubscriber(antiEntropyAdvertisementSubject);
+
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(mapName);
+            metricsService.removeMetric(component, feature, SENT_BYTES);
+            metricsService.removeMetric(component, feature, SENT_UPDATES);
+            metricsService.removeMetric(component, feature, RECEIVED_BYTES);
+            metricsService.removeMetric(component, feature, RECEIVED_UPDATES);
+        }
         return CompletableFuture.completedFuture(null);
     }
 
@@ -894,37 +1029,175 @@ public class EventuallyConsistentMapImpl<K, V>
     private static final int DEFAULT_MAX_EVENTS = 1000;
     private static final int DEFAULT_MAX_IDLE_MS = 10;
     private static final int DEFAULT_MAX_BATCH_MS = 50;
+    // Bounds of the updates held while a previous batch is being sent
+    private static final int DEFAULT_MAX_PENDING_EVENTS = 10 * DEFAULT_MAX_EVENTS;
+    private static final int DEFAULT_MAX_PENDING_MS = 500;
     private static final Timer TIMER = new Timer("onos-ecm-sender-events");
 
+    /**
+     * Accumulator of the updates to be sent to a peer.
+     * <p>
+     * While a batch is being sent to the peer, new updates are held back,
+     * within size and latency bounds, so that the batches adapt to the rate
+     * at which the peer can be reached and more superseded updates of the
+     * same keys are coalesced. Held updates bypass the accumulator, and are
+     * flushed by a single task when the batches in flight are sent or when
+     * the latency bound expires.
+     */
     private final class EventAccumulator extends AbstractAccumulator<UpdateEntry<K, V>> {
 
         private final NodeId peer;
+        // Guarded by this
+        private final Map<K, UpdateEntry<K, V>> held = Maps.newHashMap();
+        private int inFlight;
+        private TimerTask flushTask;
+
+        private volatile boolean acceptsCompression;
+        private final AtomicBoolean probing = new AtomicBoolean();
+        private volatile long lastProbe;
 
         private EventAccumulator(NodeId peer) {
             super(TIMER, DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
             this.peer = peer;
         }
 
+        @Override
+        public void add(UpdateEntry<K, V> item) {
+            List<UpdateEntry<K, V>> batch;
+            synchronized (this) {
+                if (inFlight == 0) {
+                    batch = null;
+                } else {
+                    held.compute(item.key(), (key, existing) ->
+                            item.isNewerThan(existing) ? item : existing);
+                    if (held.size() < DEFAULT_MAX_PENDING_EVENTS) {
+                        if (flushTask == null) {
+                            flushTask = new FlushTask();
+                            TIMER.schedule(flushTask, DEFAULT_MAX_PENDING_MS);
+                        }
+                        return;
+                    }
+                    batch = takeHeld();
+                }
+            }
+            if (batch == null) {
+                super.add(item);
+            } else {
+                processItems(batch);
+            }
+        }
+
+        // Returns the held updates and clears them; guarded by this
+        private List<UpdateEntry<K, V>> takeHeld() {
+            if (flushTask != null) {
+                flushTask.cancel();
+                flushTask = null;
+            }
+            List<UpdateEntry<K, V>> batch = ImmutableList.copyOf(held.values());
+            held.clear();
+            return batch;
+        }
+
+        private void flushHeld() {
+            List<UpdateEntry<K, V>> batch;
+            synchronized (this) {
+                batch = takeHeld();
+            }
+            if (!batch.isEmpty()) {
+                processItems(batch);
+            }
+        }
+
+        private void sent() {
+            boolean flush;
+            synchronized (this) {
+                flush = --inFlight == 0 && !held.isEmpty();
+            }
+            if (flush) {
+                flushHeld();
+            }
+        }
+
         @Override
         public void processItems(List<UpdateEntry<K, V>> items) {
             Map<K, UpdateEntry<K, V>> map = Maps.newHashMap();
             items.forEach(item -> map.compute(item.key(), (key, existing) ->
                     item.isNewerThan(existing) ? item : existing));
+            Lists.partition(ImmutableList.copyOf(map.values()), DEFAULT_MAX_EVENTS)
+                    .forEach(updates -> send(ImmutableList.copyOf(updates)));
+        }
+
+        private void send(List<UpdateEntry<K, V>> updates) {
+            synchronized (this) {
+                inFlight++;
+            }
             communicationExecutor.execute(() -> {
                 try {
-                    clusterCommunicator.unicast(ImmutableList.copyOf(map.values()),
-                            updateMessageSubject,
-                            serializer::encode,
+                    byte[] message = serializer.encode(updates);
+                    MessageSubject subject = updateMessageSubject;
+                    if (compression && message.length >= COMPRESSION_THRESHOLD_BYTES
+                            && acceptsCompression()) {
+                        message = compress(message);
+                        subject = compressedUpdateMessageSubject;
+                    }
+                    sentBytes.mark(message.length);
+                    sentUpdates.mark(updates.size());
+                    clusterCommunicator.unicast(message,
+                            subject,
+                            Function.identity(),
                             peer)
                             .whenComplete((result, error) -> {
+                                sent();
                                 if (error != null) {
                                     log.debug("Failed to send to {}", peer, error);
                                 }
                             });
                 } catch (Exception e) {
+                    sent();
                     log.warn("Failed to send to {}", peer, e);
                 }
             });
         }
+
+        /**
+         * Returns true if the peer is known to accept compressed updates.
+         * Otherwise, probes the peer unless it was probed recently.
+         *
+         * @return true if compressed updates can be sent to the peer
+         */
+        private boolean acceptsCompression() {
+            if (acceptsCompression) {
+                return true;
+            }
+            long now = System.currentTimeMillis();
+            if (now - lastProbe >= COMPRESSION_PROBE_RETRY_MS && probing.compareAndSet(false, true)) {
+                lastProbe = now;
+                clusterCommunicator.<NodeId, Boolean>sendAndReceive(localNodeId,
+                        compressionProbeSubject,
+                        serializer::encode,
+                        serializer::decode,
+                        peer)
+                        .whenComplete((result, error) -> {
+                            acceptsCompression = error == null && Boolean.TRUE.equals(result);
+                            probing.set(false);
+                            if (error != null) {
+                                log.debug("{} does not accept compressed updates of {}", peer, mapName);
+                            }
+                        });
+            }
+            return false;
+        }
+
+        // Task flushing the held updates once the latency bound expires
+        private final class FlushTask extends TimerTask {
+            @Override
+            public void run() {
+                try {
+                    flushHeld();
+                } catch (Exception e) {
+                    log.warn("Unable to send held updates to {}", peer, e);
+                }
+            }
+        }
     }
 }
@@ -22,10 +22,12 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -38,17 +40,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -63,9 +72,11 @@ import org.onosproject.store.Timestamp;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
 import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingException;
 import org.onosproject.store.persistence.TestPersistenceService;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.EventuallyConsistentMap;
+import org.onosproject.store.service.EventuallyConsistentMapBuilder;
 import org.onosproject.store.service.EventuallyConsistentMapEvent;
 import org.onosproject.store.service.EventuallyConsistentMapListener;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -92,6 +103,11 @@ public class EventuallyConsistentMapImplTest {
             = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy");
     private static final MessageSubject UPDATE_REQUEST_SUBJECT
             = new MessageSubject("ecm-" + MAP_NAME + "-update-request");
+    private static final MessageSubject COMPRESSED_UPDATE_MESSAGE_SUBJECT
+            = new MessageSubject("ecm-" + MAP_NAME + "-update-compressed");
+    private static final MessageSubject COMPRESSION_PROBE_SUBJECT
+            = new MessageSubject("ecm-" + MAP_NAME + "-update-compressed-probe");
+    private static final NodeId PEER = NodeId.nodeId("1");
 
     private static final String KEY1 = "one";
     private static final String KEY2 = "two";
@@ -102,6 +118,8 @@ public class EventuallyConsistentMapImplTest {
             new DefaultControllerNode(new NodeId("local"), IpAddress.valueOf(1));
 
     private Consumer<Collection<UpdateEntry<String, String>>> updateHandler;
+    private Function<byte[], Collection<UpdateEntry<String, String>>> updateDecoder;
+    private Function<byte[], Collection<UpdateEntry<String, String>>> compressedUpdateDecoder;
     private Consumer<Collection<UpdateRequest<String>>> requestHandler;
     private Function<AntiEntropyAdvertisement<String>, AntiEntropyResponse> antiEntropyHandler;
     private Supplier<List<NodeId>> peersHandler = ArrayList::new;
@@ -111,35 +129,7 @@ public class EventuallyConsistentMapImplTest {
         clusterCommunicator = createMock(ClusterCommunicationService.class);
 
         persistenceService = new TestPersistenceService();
-        // Add expectation for adding cluster message subscribers which
-        // delegate to our ClusterCommunicationService implementation. This
-        // allows us to get a reference to the map's internal cluster message
-        // handlers so we can induce events coming in from a peer.
-        clusterCommunicator.<Object, Object>addSubscriber(anyObject(MessageSubject.class),
-                anyObject(Function.class),
-                anyObject(Function.class),
-                anyObject(Function.class));
-        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
-        clusterCommunicator.<Object, Object>addSubscriber(anyObject(MessageSubject.class),
-                anyObject(Function.class),
-                anyObject(Function.class),
-                anyObject(Function.class),
-                anyObject(Executor.class));
-        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
-        clusterCommunicator.<Object>addSubscriber(anyObject(MessageSubject.class),
-                anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
-        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
-        clusterCommunicator.<Object, Object>addSubscriber(anyObject(MessageSubject.class),
-                                                          anyObject(Function.class),
-                                                          anyObject(Function.class),
-                                                          anyObject(Function.class),
-                                                          anyObject(Executor.class));
-        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
-        clusterCommunicator.<Object>addSubscriber(anyObject(MessageSubject.class),
-                anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
-        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
-
-        replay(clusterCommunicator);
+        expectSubscribers();
 
         clockService = new SequentialClockService<>();
 
@@ -171,6 +161,38 @@ public class EventuallyConsistentMapImplTest {
         ecMap.destroy();
     }
 
+    private void expectSubscribers() {
+        // Add expectation for adding cluster message subscribers which
+        // delegate to our ClusterCommunicationService implementation. This
+        // allows us to get a reference to the map's internal cluster message
+        // handlers so we can induce events coming in from a peer.
+        clusterCommunicator.<Object, Object>addSubscriber(anyObject(MessageSubject.class),
+                anyObject(Function.class),
+                anyObject(Function.class),
+                anyObject(Function.class));
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
+        clusterCommunicator.<Object, Object>addSubscriber(anyObject(MessageSubject.class),
+                anyObject(Function.class),
+                anyObject(Function.class),
+                anyObject(Function.class),
+                anyObject(Executor.class));
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
+        clusterCommunicator.<Object>addSubscriber(anyObject(MessageSubject.class),
+                anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(2);
+        clusterCommunicator.<Object, Object>addSubscriber(anyObject(MessageSubject.class),
+                                                          anyObject(Function.class),
+                                                          anyObject(Function.class),
+                                                          anyObject(Function.class),
+                                                          anyObject(Executor.class));
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(2);
+        clusterCommunicator.<Object>addSubscriber(anyObject(MessageSubject.class),
+                anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
+
+        replay(clusterCommunicator);
+    }
+
     @SuppressWarnings("unchecked")
     private EventuallyConsistentMapListener<String, String> getListener() {
         return createMock(EventuallyConsistentMapListener.class);
@@ -653,6 +675,8 @@ public class EventuallyConsistentMapImplTest {
         clusterCommunicator.removeSubscriber(BOOTSTRAP_MESSAGE_SUBJECT);
         clusterCommunicator.removeSubscriber(INITIALIZE_MESSAGE_SUBJECT);
         clusterCommunicator.removeSubscriber(UPDATE_MESSAGE_SUBJECT);
+        clusterCommunicator.removeSubscriber(COMPRESSED_UPDATE_MESSAGE_SUBJECT);
+        clusterCommunicator.removeSubscriber(COMPRESSION_PROBE_SUBJECT);
         clusterCommunicator.removeSubscriber(UPDATE_REQUEST_SUBJECT);
         clusterCommunicator.removeSubscriber(ANTI_ENTROPY_MESSAGE_SUBJECT);
 
@@ -677,6 +701,177 @@ public class EventuallyConsistentMapImplTest {
         }
     }
 
+    /**
+     * Replaces the map with one that has a peer, optionally compressing the
+     * updates sent to it.
+     *
+     * @param compression true to compress the updates
+     */
+    private void buildMapWithPeer(boolean compression) {
+        ecMap.destroy();
+        reset(clusterCommunicator);
+        expectSubscribers();
+        EventuallyConsistentMapBuilder<String, String> builder =
+                new EventuallyConsistentMapBuilderImpl<String, String>(
+                        NodeId.nodeId("0"),
+                        clusterCommunicator,
+                        persistenceService,
+                        () -> Lists.newArrayList(PEER),
+                        peersHandler
+                )
+                .withName(MAP_NAME)
+                .withSerializer(KryoNamespace.newBuilder()
+                                        .register(KryoNamespaces.API)
+                                        .register(TestTimestamp.class))
+                .withTimestampProvider((k, v) -> clockService.getTimestamp(k, v))
+                .withCommunicationExecutor(MoreExecutors.newDirectExecutorService());
+        if (compression) {
+            builder.withCompression();
+        }
+        ecMap = builder.build();
+        reset(clusterCommunicator);
+    }
+
+    /**
+     * Sets up the mock ClusterCommunicationService to record the updates
+     * unicast to the peer, and to answer the compression probe.
+     *
+     * @param messages queue of the subjects and messages sent
+     * @param results  supplier of the results of the sends
+     * @param probe    result of the compression probe
+     */
+    private void expectUpdates(BlockingQueue<Pair<MessageSubject, byte[]>> messages,
+                               Supplier<CompletableFuture<Void>> results,
+                               CompletableFuture<Boolean> probe) {
+        expect(clusterCommunicator.<byte[]>unicast(
+                anyObject(byte[].class),
+                anyObject(MessageSubject.class),
+                anyObject(Function.class),
+                eq(PEER)))
+                .andAnswer(() -> {
+                    Object[] args = getCurrentArguments();
+                    messages.add(Pair.of((MessageSubject) args[1], (byte[]) args[0]));
+                    return results.get();
+                })
+                .anyTimes();
+        expect(clusterCommunicator.<NodeId, Boolean>sendAndReceive(
+                anyObject(NodeId.class),
+                eq(COMPRESSION_PROBE_SUBJECT),
+                anyObject(Function.class),
+                anyObject(Function.class),
+                eq(PEER)))
+                .andReturn(probe)
+                .anyTimes();
+        replay(clusterCommunicator);
+    }
+
+    private Map<String, String> decode(Function<byte[], Collection<UpdateEntry<String, String>>> decoder,
+                                       byte[] message) {
+        Map<String, String> updates = Maps.newHashMap();
+        decoder.apply(message).forEach(update -> updates.put(update.key(), update.value().get()));
+        return updates;
+    }
+
+    /**
+     * Tests that large batches of updates are compressed once the peer
+     * accepted the compression probe, and that superseded updates of the
+     * same key are sent only once.
+     */
+    @Test
+    public void testCompression() throws Exception {
+        buildMapWithPeer(true);
+        BlockingQueue<Pair<MessageSubject, byte[]>> messages = new LinkedBlockingQueue<>();
+        expectUpdates(messages, () -> CompletableFuture.completedFuture(null),
+                      CompletableFuture.completedFuture(true));
+
+        // Small batches are never compressed
+        ecMap.put(KEY1, VALUE1);
+        Pair<MessageSubject, byte[]> message = messages.poll(1, TimeUnit.SECONDS);
+        assertNotNull("Updates never sent", message);
+        assertEquals(UPDATE_MESSAGE_SUBJECT, message.getLeft());
+        assertEquals(ImmutableMap.of(KEY1, VALUE1), decode(updateDecoder, message.getRight()));
+
+        // The first large batch probes the peer, and is not compressed
+        String value1 = Strings.repeat(VALUE1, 200);
+        String value2 = Strings.repeat(VALUE2, 200);
+        ecMap.put(KEY1, value1);
+        message = messages.poll(1, TimeUnit.SECONDS);
+        assertNotNull("Updates never sent", message);
+        assertEquals(UPDATE_MESSAGE_SUBJECT, message.getLeft());
+        assertEquals(ImmutableMap.of(KEY1, value1), decode(updateDecoder, message.getRight()));
+
+        ecMap.put(KEY1, VALUE1);
+        ecMap.put(KEY1, value1);
+        ecMap.put(KEY2, value2);
+        message = messages.poll(1, TimeUnit.SECONDS);
+        assertNotNull("Updates never sent", message);
+        assertEquals(COMPRESSED_UPDATE_MESSAGE_SUBJECT, message.getLeft());
+        assertTrue(message.getRight().length < value1.length());
+        assertEquals(ImmutableMap.of(KEY1, value1, KEY2, value2),
+                     decode(compressedUpdateDecoder, message.getRight()));
+        assertNull(messages.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Tests that peers rejecting the compression probe, as those running a
+     * version without compression, receive uncompressed updates.
+     */
+    @Test
+    public void testCompressionNotAccepted() throws Exception {
+        buildMapWithPeer(true);
+        BlockingQueue<Pair<MessageSubject, byte[]>> messages = new LinkedBlockingQueue<>();
+        CompletableFuture<Boolean> probe = new CompletableFuture<>();
+        probe.completeExceptionally(new MessagingException.NoRemoteHandler());
+        expectUpdates(messages, () -> CompletableFuture.completedFuture(null), probe);
+
+        String value1 = Strings.repeat(VALUE1, 200);
+        for (int i = 0; i < 3; i++) {
+            ecMap.put(KEY1, value1 + i);
+            Pair<MessageSubject, byte[]> message = messages.poll(1, TimeUnit.SECONDS);
+            assertNotNull("Updates never sent", message);
+            assertEquals(UPDATE_MESSAGE_SUBJECT, message.getLeft());
+            assertEquals(ImmutableMap.of(KEY1, value1 + i), decode(updateDecoder, message.getRight()));
+        }
+    }
+
+    /**
+     * Tests that the updates are held back while a batch is in flight, and
+     * sent in a single batch when it completes or when they are held for too
+     * long.
+     */
+    @Test
+    public void testHoldBack() throws Exception {
+        buildMapWithPeer(false);
+        BlockingQueue<Pair<MessageSubject, byte[]>> messages = new LinkedBlockingQueue<>();
+        BlockingQueue<CompletableFuture<Void>> results = new LinkedBlockingQueue<>();
+        expectUpdates(messages, () -> {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            results.add(result);
+            return result;
+        }, CompletableFuture.completedFuture(false));
+
+        ecMap.put(KEY1, VALUE1);
+        assertNotNull("Updates never sent", messages.poll(1, TimeUnit.SECONDS));
+
+        // Held while the first batch is in flight
+        ecMap.put(KEY1, VALUE2);
+        ecMap.put(KEY2, VALUE1);
+        ecMap.put(KEY2, VALUE2);
+        assertNull(messages.poll(200, TimeUnit.MILLISECONDS));
+
+        // Sent once the first batch completes
+        results.take().complete(null);
+        Pair<MessageSubject, byte[]> message = messages.poll(1, TimeUnit.SECONDS);
+        assertNotNull("Held updates never sent", message);
+        assertEquals(ImmutableMap.of(KEY1, VALUE2, KEY2, VALUE2), decode(updateDecoder, message.getRight()));
+
+        // Sent after the latency bound if the batch in flight never completes
+        ecMap.put(KEY1, VALUE1);
+        message = messages.poll(2, TimeUnit.SECONDS);
+        assertNotNull("Held updates never sent", message);
+        assertEquals(ImmutableMap.of(KEY1, VALUE1), decode(updateDecoder, message.getRight()));
+    }
+
     private UpdateEntry<String, String> generatePutMessage(String key, String value, Timestamp timestamp) {
         return new UpdateEntry<>(key, new MapValue<>(value, timestamp));
     }
@@ -801,6 +996,9 @@ public class EventuallyConsistentMapImplTest {
                 Executor executor) {
             if (subject.equals(UPDATE_MESSAGE_SUBJECT)) {
                 updateHandler = (Consumer<Collection<UpdateEntry<String, String>>>) handler;
+                updateDecoder = (Function<byte[], Collection<UpdateEntry<String, String>>>) decoder;
+            } else if (subject.equals(COMPRESSED_UPDATE_MESSAGE_SUBJECT)) {
+                compressedUpdateDecoder = (Function<byte[], Collection<UpdateEntry<String, String>>>) decoder;
             } else if (subject.equals(UPDATE_REQUEST_SUBJECT)) {
                 requestHandler = (Consumer<Collection<UpdateRequest<String>>>) handler;
             } else {
@@ -813,7 +1011,8 @@ public class EventuallyConsistentMapImplTest {
                 Function<byte[], M> decoder, Function<M, R> handler, Function<R, byte[]> encoder, Executor executor) {
             if (subject.equals(ANTI_ENTROPY_MESSAGE_SUBJECT)) {
                 antiEntropyHandler = (Function<AntiEntropyAdvertisement<String>, AntiEntropyResponse>) handler;
-            } else if (!subject.equals(INITIALIZE_MESSAGE_SUBJECT)) {
+            } else if (!subject.equals(INITIALIZE_MESSAGE_SUBJECT)
+                    && !subject.equals(COMPRESSION_PROBE_SUBJECT)) {
                 throw new IllegalStateException("Unexpected message subject " + subject.toString());
             }
         }
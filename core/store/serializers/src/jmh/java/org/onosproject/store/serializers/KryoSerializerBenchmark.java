@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IpPrefix;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.FilteredConnectPoint;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.TrafficTreatment;
+import org.onosproject.net.intent.Key;
+import org.onosproject.net.intent.MockIdGenerator;
+import org.onosproject.net.intent.PointToPointIntent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization of the objects most frequently exchanged by
+ * the distributed stores using the core API namespace.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KryoSerializerBenchmark {
+
+    private static final ApplicationId APP_ID = new DefaultApplicationId(1, "org.onosproject.benchmark");
+    private static final DeviceId DEVICE_1 = DeviceId.deviceId("of:0000000000000001");
+    private static final DeviceId DEVICE_2 = DeviceId.deviceId("of:0000000000000002");
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Kinds of objects being serialized.
+     */
+    public enum Payload {
+        FLOW_RULE, FLOW_ENTRY, INTENT
+    }
+
+    @Param
+    public Payload payload;
+
+    private final StoreSerializer serializer = StoreSerializer.using(KryoNamespaces.API);
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private Object object;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        MockIdGenerator.cleanBind();
+        TrafficSelector selector = DefaultTrafficSelector.builder()
+                .matchInPort(PortNumber.portNumber(1))
+                .matchEthType(Ethernet.TYPE_IPV4)
+                .matchEthDst(MacAddress.valueOf("00:00:00:00:00:02"))
+                .matchIPDst(IpPrefix.valueOf("10.0.0.0/24"))
+                .build();
+        TrafficTreatment treatment = DefaultTrafficTreatment.builder()
+                .setVlanId(VlanId.vlanId((short) 10))
+                .setOutput(PortNumber.portNumber(2))
+                .build();
+        FlowRule rule = DefaultFlowRule.builder()
+                .forDevice(DEVICE_1)
+                .withSelector(selector)
+                .withTreatment(treatment)
+                .withPriority(40000)
+                .fromApp(APP_ID)
+                .makePermanent()
+                .build();
+
+        switch (payload) {
+            case FLOW_RULE:
+                object = rule;
+                break;
+            case FLOW_ENTRY:
+                object = new DefaultFlowEntry(rule, FlowEntryState.ADDED, 10, 1000, 100000);
+                break;
+            case INTENT:
+                object = PointToPointIntent.builder()
+                        .appId(APP_ID)
+                        .key(Key.of("intent", APP_ID))
+                        .selector(selector)
+                        .treatment(treatment)
+                        .filteredIngressPoint(new FilteredConnectPoint(
+                                new ConnectPoint(DEVICE_1, PortNumber.portNumber(1))))
+                        .filteredEgressPoint(new FilteredConnectPoint(
+                                new ConnectPoint(DEVICE_2, PortNumber.portNumber(1))))
+                        .build();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported payload " + payload);
+        }
+        bytes = serializer.encode(object);
+    }
+
+    @TearDown
+    public void tearDown() {
+        MockIdGenerator.unbind();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.encode(object);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeToBuffer() {
+        buffer.clear();
+        serializer.encode(object, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.decode(bytes);
+    }
+}
@@ -15,6 +15,10 @@
  */
 package org.onosproject.store.serializers;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -79,6 +83,7 @@ import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
+import java.util.Random;
 import java.time.Duration;
 
 import static java.util.Arrays.asList;
@@ -162,6 +167,11 @@ public class KryoSerializerTest {
         new EqualsTester()
             .addEqualityGroup(original, copy, copy2)
             .testEquals();
+
+        buffer.rewind();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertArrayEquals(bytes, serializer.encode(original));
     }
 
     private <T> void testSerializable(T original) {
@@ -507,4 +517,50 @@ public class KryoSerializerTest {
         testSerializedEquals(bs);
     }
 
+    @Test
+    public void testLargePayload() {
+        byte[] payload = new byte[512 * 1024];
+        new Random(1234).nextBytes(payload);
+
+        // the pooled buffer grows beyond its retained size on the first pass
+        for (int i = 0; i < 2; i++) {
+            byte[] bytes = serializer.encode(payload);
+            assertArrayEquals(payload, serializer.<byte[]>decode(bytes));
+        }
+        testSerializedEquals(ImmutableList.of(DID1, DID2));
+    }
+
+    @Test
+    public void testNestedSerialization() {
+        // the serializer of the wrapper encodes the wrapped device id on
+        // the same thread while the outer encoding is under way
+        StoreSerializer nesting = StoreSerializer.using(KryoNamespace.newBuilder()
+                .register(KryoNamespaces.API)
+                .register(new Serializer<Wrapper>() {
+                    @Override
+                    public void write(Kryo kryo, Output output, Wrapper wrapper) {
+                        byte[] inner = serializer.encode(wrapper.deviceId);
+                        output.writeInt(inner.length);
+                        output.writeBytes(inner);
+                    }
+
+                    @Override
+                    public Wrapper read(Kryo kryo, Input input, Class<Wrapper> type) {
+                        return new Wrapper(serializer.decode(input.readBytes(input.readInt())));
+                    }
+                }, Wrapper.class)
+                .build());
+
+        Wrapper copy = nesting.decode(nesting.encode(new Wrapper(DID1)));
+        assertEquals(DID1, copy.deviceId);
+    }
+
+    private static final class Wrapper {
+        private final DeviceId deviceId;
+
+        private Wrapper(DeviceId deviceId) {
+            this.deviceId = deviceId;
+        }
+    }
+
 }
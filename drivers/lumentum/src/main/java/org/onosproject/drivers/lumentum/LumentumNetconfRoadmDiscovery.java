@@ -18,9 +18,9 @@ package org.onosproject.drivers.lumentum;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import org.apache.commons.configuration.HierarchicalConfiguration;
-import org.apache.commons.configuration.XMLConfiguration;
 import org.apache.commons.lang3.StringUtils;
 
 import org.onlab.packet.ChassisId;
@@ -44,12 +44,14 @@ import org.onosproject.net.driver.AbstractHandlerBehaviour;
 import org.onosproject.net.intent.OpticalPathIntent;
 import org.onosproject.netconf.NetconfController;
 import org.onosproject.netconf.NetconfException;
+import org.onosproject.netconf.NetconfReplyParser;
 import org.onosproject.netconf.NetconfSession;
 
 import org.slf4j.Logger;
 
 import java.io.ByteArrayInputStream;
 import java.util.List;
+import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onosproject.net.optical.device.OmsPortHelper.omsPortDescription;
@@ -90,6 +92,12 @@ public class LumentumNetconfRoadmDiscovery
     private static final String DEMUX_PORT_NAME = "Demux Output";
     private static final String LINE_PORT_NAME = "Optical Line";
 
+    private static final String MACHINE = "data/system-state/platform/machine";
+    private static final String OS_VERSION = "data/system-state/platform/os-version";
+    private static final String HARDWARE_REV = "data/chassis-list/chassis/state/loteq:hardware-rev";
+    private static final String SERIAL_NO = "data/chassis-list/chassis/state/loteq:serial-no";
+    private static final String CHASSIS_DN = "data/chassis-list/chassis/dn";
+
     private final Logger log = getLogger(getClass());
 
     @Override
@@ -123,10 +131,12 @@ public class LumentumNetconfRoadmDiscovery
             String reply = session.get(systemRequestBuilder.toString(), null);
             log.debug("Lumentum NETCONF - session.get reply {}", reply);
 
-            XMLConfiguration xconf = (XMLConfiguration) XmlConfigParser.loadXmlString(reply);
+            // Trimmed, as XMLConfiguration did
+            Map<String, String> values = Maps.transformValues(
+                    NetconfReplyParser.first(reply, ImmutableList.of(MACHINE, OS_VERSION)), String::trim);
 
-            vendor    = xconf.getString("data.system-state.platform.machine", vendor);
-            swVersion    = xconf.getString("data.system-state.platform.os-version", swVersion);
+            vendor    = values.getOrDefault(MACHINE, vendor);
+            swVersion    = values.getOrDefault(OS_VERSION, swVersion);
         } catch (NetconfException e) {
             log.error("Lumentum NETCONF error in session.get with filter <system-state>", e);
         }
@@ -140,11 +150,12 @@ public class LumentumNetconfRoadmDiscovery
             String reply = session.get(chassisRequestBuilder.toString(), null);
             log.debug("Lumentum NETCONF - session.get reply {}", reply);
 
-            XMLConfiguration xconf = (XMLConfiguration) XmlConfigParser.loadXmlString(reply);
+            Map<String, String> values = Maps.transformValues(NetconfReplyParser.first(reply,
+                    ImmutableList.of(HARDWARE_REV, SERIAL_NO, CHASSIS_DN)), String::trim);
 
-            hwVersion    = xconf.getString("data.chassis-list.chassis.state.loteq:hardware-rev", hwVersion);
-            serialNumber = xconf.getString("data.chassis-list.chassis.state.loteq:serial-no", serialNumber);
-            chassisData  = xconf.getString("data.chassis-list.chassis.dn", chassisData);
+            hwVersion    = values.getOrDefault(HARDWARE_REV, hwVersion);
+            serialNumber = values.getOrDefault(SERIAL_NO, serialNumber);
+            chassisData  = values.getOrDefault(CHASSIS_DN, chassisData);
 
             String[] parts = chassisData.split("chassis=");
             chassisId = new ChassisId(Long.valueOf(parts[1], 10));
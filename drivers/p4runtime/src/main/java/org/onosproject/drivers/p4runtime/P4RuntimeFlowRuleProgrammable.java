@@ -21,8 +21,10 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.Striped;
+import org.onosproject.drivers.p4runtime.mirror.EntityDigest;
 import org.onosproject.drivers.p4runtime.mirror.P4RuntimeTableMirror;
 import org.onosproject.drivers.p4runtime.mirror.TimedEntry;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.FlowRule;
@@ -136,14 +138,15 @@ public class P4RuntimeFlowRuleProgrammable
         final List<PiTableEntry> inconsistentEntries = Lists.newArrayList();
 
         // Read table entries from device.
-        final Collection<PiTableEntry> deviceEntries = getAllTableEntriesFromDevice();
-        if (deviceEntries == null) {
+        final DeviceTableEntries deviceTableEntries = getAllTableEntriesFromDevice();
+        if (deviceTableEntries == null) {
             // Potential error at the client level.
             return Collections.emptyList();
         }
+        final Collection<PiTableEntry> deviceEntries = deviceTableEntries.entries();
 
         // Synchronize mirror with the device state.
-        tableMirror.sync(deviceId, deviceEntries);
+        syncMirror(tableMirror, deviceId, deviceTableEntries);
 
         if (deviceEntries.isEmpty()) {
             // Nothing to do.
@@ -193,13 +196,15 @@ public class P4RuntimeFlowRuleProgrammable
         return result.build();
     }
 
-    private Collection<PiTableEntry> getAllTableEntriesFromDevice() {
+    private DeviceTableEntries getAllTableEntriesFromDevice() {
+        final DeviceTableEntries deviceTableEntries = new DeviceTableEntries();
         final P4RuntimeReadClient.ReadRequest request = client.read(
                 p4DeviceId, pipeconf);
         // Read entries from all non-constant tables, including default ones.
         pipelineModel.tables().stream()
                 .filter(t -> !t.isConstantTable())
                 .forEach(t -> {
+                    deviceTableEntries.addTable(t.id());
                     request.tableEntries(t.id());
                     if (driverBoolProperty(SUPPORT_DEFAULT_TABLE_ENTRY,
                                            DEFAULT_SUPPORT_DEFAULT_TABLE_ENTRY) &&
@@ -207,17 +212,47 @@ public class P4RuntimeFlowRuleProgrammable
                         request.defaultTableEntry(t.id());
                     }
                 });
-        final P4RuntimeReadClient.ReadResponse response = request.submitSync();
+        // Add entries to the digest of their table as they are received,
+        // instead of waiting for the whole response.
+        final P4RuntimeReadClient.ReadResponse response = Futures.getUnchecked(
+                request.submit(entity -> {
+                    if (entity.piEntityType() != PiEntityType.TABLE_ENTRY) {
+                        return;
+                    }
+                    final PiTableEntry entry = (PiTableEntry) entity;
+                    deviceTableEntries.add(entry.handle(deviceId), entry);
+                }));
         if (!response.isSuccess()) {
             return null;
         }
-        return response.all(PiTableEntry.class).stream()
-                // Device implementation might return duplicate entries. For
-                // example if reading only default ones is not supported and
-                // non-default entries are returned, by using distinct() we
-                // are robust against that possibility.
-                .distinct()
-                .collect(Collectors.toList());
+        return deviceTableEntries;
+    }
+
+    /**
+     * Synchronizes the given mirror with the entries read from the given
+     * device, skipping the tables whose digest is the same on both sides.
+     *
+     * @param tableMirror        table mirror
+     * @param deviceId           device ID
+     * @param deviceTableEntries entries read from the device
+     */
+    static void syncMirror(P4RuntimeTableMirror tableMirror, DeviceId deviceId,
+                           DeviceTableEntries deviceTableEntries) {
+        // Compare digests to skip tables that are the same on the device and
+        // in the mirror, which is the common case.
+        if (deviceTableEntries.digest() == tableMirror.digest(deviceId)) {
+            return;
+        }
+        deviceTableEntries.tables().forEach(tableId -> {
+            if (deviceTableEntries.digest(tableId) != tableMirror.digest(deviceId, tableId)) {
+                tableMirror.sync(deviceId, tableId, deviceTableEntries.entries(tableId));
+            }
+        });
+        if (deviceTableEntries.digest() != tableMirror.digest(deviceId)) {
+            // Mirror has entries for tables that were not read, e.g. of a
+            // previous pipeline.
+            tableMirror.sync(deviceId, deviceTableEntries.entries());
+        }
     }
 
     @Override
@@ -512,4 +547,65 @@ public class P4RuntimeFlowRuleProgrammable
     enum Operation {
         APPLY, REMOVE
     }
+
+    /**
+     * Table entries read from a device, with the digest of each table.
+     */
+    static final class DeviceTableEntries {
+
+        private final Map<PiTableEntryHandle, PiTableEntry> entries = Maps.newLinkedHashMap();
+        private final Map<PiTableId, EntityDigest> digests = Maps.newHashMap();
+        private final EntityDigest digest = new EntityDigest();
+
+        /**
+         * Adds the given table, which is reported even if no entry is read
+         * from it.
+         *
+         * @param tableId table ID
+         */
+        void addTable(PiTableId tableId) {
+            digests.computeIfAbsent(tableId, k -> new EntityDigest());
+        }
+
+        /**
+         * Adds the given entry read from the device.
+         *
+         * @param handle entry handle
+         * @param entry  table entry
+         */
+        void add(PiTableEntryHandle handle, PiTableEntry entry) {
+            // Device implementation might return duplicate entries. For
+            // example if reading only default ones is not supported and
+            // non-default entries are returned, by keeping only the first one
+            // we are robust against that possibility.
+            if (entries.putIfAbsent(handle, entry) == null) {
+                digests.computeIfAbsent(entry.table(), k -> new EntityDigest())
+                        .add(handle, entry);
+                digest.add(handle, entry);
+            }
+        }
+
+        Collection<PiTableEntry> entries() {
+            return entries.values();
+        }
+
+        Collection<PiTableEntry> entries(PiTableId tableId) {
+            return entries.values().stream()
+                    .filter(e -> e.table().equals(tableId))
+                    .collect(Collectors.toList());
+        }
+
+        Set<PiTableId> tables() {
+            return digests.keySet();
+        }
+
+        long digest() {
+            return digest.value();
+        }
+
+        long digest(PiTableId tableId) {
+            final EntityDigest tableDigest = digests.get(tableId);
+            return tableDigest == null ? 0 : tableDigest.value();
+        }
+    }
 }
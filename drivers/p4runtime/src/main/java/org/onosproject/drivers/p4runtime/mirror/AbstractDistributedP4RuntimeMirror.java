@@ -18,6 +18,7 @@ package org.onosproject.drivers.p4runtime.mirror;
 
 import com.google.common.annotations.Beta;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Striped;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.SharedExecutors;
 import org.onosproject.net.Annotations;
@@ -33,6 +34,8 @@ import org.onosproject.p4runtime.api.P4RuntimeWriteClient.WriteRequest;
 import org.onosproject.p4runtime.api.P4RuntimeWriteClient.WriteResponse;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.EventuallyConsistentMap;
+import org.onosproject.store.service.EventuallyConsistentMapEvent;
+import org.onosproject.store.service.EventuallyConsistentMapListener;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.WallClockTimestamp;
 import org.osgi.service.component.annotations.Activate;
@@ -42,9 +45,13 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -81,6 +88,17 @@ public abstract class AbstractDistributedP4RuntimeMirror
     private final PiPipeconfWatchdogListener pipeconfListener =
             new InternalPipeconfWatchdogListener();
 
+    private final EventuallyConsistentMapListener<PiHandle, TimedEntry<E>>
+            mirrorMapListener = new InternalMirrorMapListener();
+
+    // Handles and digests of the entries in the mirror map, by device and
+    // partition, updated on each local or remote change of the map.
+    private final Map<DeviceId, Map<Object, Partition>> partitions =
+            Maps.newConcurrentMap();
+
+    // Serializes the updates of the index for the same handle.
+    private final Striped<Lock> indexLocks = Striped.lock(30);
+
     AbstractDistributedP4RuntimeMirror(PiEntityType entityType) {
         this.entityType = entityType;
         this.flushOnPipelineUnknown = false;
@@ -115,6 +133,11 @@ public abstract class AbstractDistributedP4RuntimeMirror
                 .withTimestampProvider((k, v) -> new WallClockTimestamp())
                 .build();
 
+        mirrorMap.addListener(mirrorMapListener);
+        // Index entries that might have been received before adding the
+        // listener.
+        mirrorMap.keySet().forEach(this::reindex);
+
         pipeconfWatchdogService.addListener(pipeconfListener);
         log.info("Started");
     }
@@ -122,17 +145,19 @@ public abstract class AbstractDistributedP4RuntimeMirror
     @Deactivate
     public void deactivate() {
         pipeconfWatchdogService.removeListener(pipeconfListener);
+        mirrorMap.removeListener(mirrorMapListener);
         mirrorMap.destroy();
         mirrorMap = null;
+        partitions.clear();
         log.info("Stopped");
     }
 
     @Override
     public Collection<TimedEntry<E>> getAll(DeviceId deviceId) {
         checkNotNull(deviceId);
-        return mirrorMap.entrySet().stream()
-                .filter(entry -> entry.getKey().deviceId().equals(deviceId))
-                .map(Map.Entry::getValue)
+        return getHandlesForDevice(deviceId).stream()
+                .map(mirrorMap::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
@@ -181,12 +206,73 @@ public abstract class AbstractDistributedP4RuntimeMirror
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public void sync(DeviceId deviceId, Collection<E> entities) {
         checkNotNull(deviceId);
+        sync(deviceId, deviceHandleMap(getHandlesForDevice(deviceId)), entities);
+    }
+
+    @Override
+    public long digest(DeviceId deviceId) {
+        checkNotNull(deviceId);
+        return partitions.getOrDefault(deviceId, Collections.emptyMap())
+                .values().stream()
+                .mapToLong(Partition::digest)
+                .sum();
+    }
+
+    /**
+     * Returns the partition of the entry with the given handle. Digests are
+     * maintained for each partition of the entries of a device, such that
+     * parts of the device state can be compared and synchronized separately.
+     * By default, all entries of a device belong to the same partition.
+     *
+     * @param handle PI handle
+     * @return partition key
+     */
+    protected Object partition(H handle) {
+        return entityType;
+    }
+
+    /**
+     * Returns the digest of the entries of the given partition for the given
+     * device ID.
+     *
+     * @param deviceId  device ID
+     * @param partition partition key
+     * @return digest value
+     */
+    protected long partitionDigest(DeviceId deviceId, Object partition) {
+        checkNotNull(deviceId);
+        checkNotNull(partition);
+        final Partition p = partitions.getOrDefault(deviceId, Collections.emptyMap())
+                .get(partition);
+        return p == null ? 0 : p.digest();
+    }
+
+    /**
+     * Synchronizes the state of the given partition of the given device ID
+     * with the given collection of PI entities, which are all expected to
+     * belong to that partition.
+     *
+     * @param deviceId  device ID
+     * @param partition partition key
+     * @param entities  collection of PI entities
+     */
+    protected void syncPartition(DeviceId deviceId, Object partition,
+                                 Collection<E> entities) {
+        checkNotNull(deviceId);
+        checkNotNull(partition);
+        final Partition p = partitions.getOrDefault(deviceId, Collections.emptyMap())
+                .get(partition);
+        sync(deviceId, deviceHandleMap(p == null ? Collections.emptySet() : p.handles()),
+             entities);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sync(DeviceId deviceId, Map<PiHandle, E> localState,
+                      Collection<E> entities) {
         final Map<PiHandle, E> deviceState = entities.stream()
                 .collect(Collectors.toMap(e -> e.handle(deviceId), e -> e));
-        final Map<PiHandle, E> localState = deviceHandleMap(deviceId);
 
         final AtomicInteger removeCount = new AtomicInteger(0);
         final AtomicInteger updateCount = new AtomicInteger(0);
@@ -223,19 +309,48 @@ public abstract class AbstractDistributedP4RuntimeMirror
     }
 
     private Set<PiHandle> getHandlesForDevice(DeviceId deviceId) {
-        return mirrorMap.keySet().stream()
-                .filter(h -> h.deviceId().equals(deviceId))
+        return partitions.getOrDefault(deviceId, Collections.emptyMap())
+                .values().stream()
+                .flatMap(p -> p.handles().stream())
                 .collect(Collectors.toSet());
     }
 
-    private Map<PiHandle, E> deviceHandleMap(DeviceId deviceId) {
+    private Map<PiHandle, E> deviceHandleMap(Set<PiHandle> handles) {
         final Map<PiHandle, E> deviceMap = Maps.newHashMap();
-        mirrorMap.entrySet().stream()
-                .filter(e -> e.getKey().deviceId().equals(deviceId))
-                .forEach(e -> deviceMap.put(e.getKey(), e.getValue().entry()));
+        handles.forEach(h -> {
+            final TimedEntry<E> timedEntry = mirrorMap.get(h);
+            if (timedEntry != null) {
+                deviceMap.put(h, timedEntry.entry());
+            }
+        });
         return deviceMap;
     }
 
+    @SuppressWarnings("unchecked")
+    private Partition partitionOf(PiHandle handle) {
+        return partitions
+                .computeIfAbsent(handle.deviceId(), k -> Maps.newConcurrentMap())
+                .computeIfAbsent(partition((H) handle), k -> new Partition());
+    }
+
+    // Updates the index from the current value of the given handle in the
+    // mirror map, rather than from the value of an event, as events for the
+    // same handle may be delivered out of order.
+    private void reindex(PiHandle handle) {
+        final Lock lock = indexLocks.get(handle);
+        lock.lock();
+        try {
+            final TimedEntry<E> timedEntry = mirrorMap.get(handle);
+            if (timedEntry == null) {
+                partitionOf(handle).remove(handle);
+            } else {
+                partitionOf(handle).put(handle, timedEntry.entry());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
 
     private void removeAll(DeviceId deviceId) {
         checkNotNull(deviceId);
@@ -275,6 +390,51 @@ public abstract class AbstractDistributedP4RuntimeMirror
                 });
     }
 
+    /**
+     * Handles and digest of the entries of a partition.
+     */
+    private static final class Partition {
+
+        private final Map<PiHandle, Long> hashes = Maps.newConcurrentMap();
+        private final AtomicLong digest = new AtomicLong();
+
+        void put(PiHandle handle, PiEntity entity) {
+            final long hash = EntityDigest.hash(handle, entity);
+            final Long oldHash = hashes.put(handle, hash);
+            digest.addAndGet(oldHash == null ? hash : hash - oldHash);
+        }
+
+        void remove(PiHandle handle) {
+            final Long oldHash = hashes.remove(handle);
+            if (oldHash != null) {
+                digest.addAndGet(-oldHash);
+            }
+        }
+
+        Set<PiHandle> handles() {
+            return hashes.keySet();
+        }
+
+        long digest() {
+            return digest.get();
+        }
+    }
+
+    private class InternalMirrorMapListener
+            implements EventuallyConsistentMapListener<PiHandle, TimedEntry<E>> {
+        @Override
+        public void event(EventuallyConsistentMapEvent<PiHandle, TimedEntry<E>> event) {
+            switch (event.type()) {
+                case PUT:
+                case REMOVE:
+                    reindex(event.key());
+                    break;
+                default:
+                    log.error("Unknown event type {}", event.type());
+            }
+        }
+    }
+
     public class InternalPipeconfWatchdogListener implements PiPipeconfWatchdogListener {
         @Override
         public void event(PiPipeconfWatchdogEvent event) {
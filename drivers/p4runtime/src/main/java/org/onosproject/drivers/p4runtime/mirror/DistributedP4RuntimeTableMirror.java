@@ -16,11 +16,15 @@
 
 package org.onosproject.drivers.p4runtime.mirror;
 
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.pi.model.PiTableId;
 import org.onosproject.net.pi.runtime.PiEntityType;
 import org.onosproject.net.pi.runtime.PiTableEntry;
 import org.onosproject.net.pi.runtime.PiTableEntryHandle;
 import org.osgi.service.component.annotations.Component;
 
+import java.util.Collection;
+
 /**
  * Distributed implementation of a P4Runtime table mirror.
  */
@@ -33,4 +37,20 @@ public final class DistributedP4RuntimeTableMirror
     public DistributedP4RuntimeTableMirror() {
         super(PiEntityType.TABLE_ENTRY);
     }
+
+    @Override
+    protected Object partition(PiTableEntryHandle handle) {
+        return handle.tableId();
+    }
+
+    @Override
+    public long digest(DeviceId deviceId, PiTableId tableId) {
+        return partitionDigest(deviceId, tableId);
+    }
+
+    @Override
+    public void sync(DeviceId deviceId, PiTableId tableId,
+                     Collection<PiTableEntry> entries) {
+        syncPartition(deviceId, tableId, entries);
+    }
 }
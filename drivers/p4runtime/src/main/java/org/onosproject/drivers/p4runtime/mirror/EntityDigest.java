@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.drivers.p4runtime.mirror;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.onosproject.net.pi.runtime.PiAction;
+import org.onosproject.net.pi.runtime.PiActionParam;
+import org.onosproject.net.pi.runtime.PiEntity;
+import org.onosproject.net.pi.runtime.PiExactFieldMatch;
+import org.onosproject.net.pi.runtime.PiFieldMatch;
+import org.onosproject.net.pi.runtime.PiHandle;
+import org.onosproject.net.pi.runtime.PiLpmFieldMatch;
+import org.onosproject.net.pi.runtime.PiRangeFieldMatch;
+import org.onosproject.net.pi.runtime.PiTableAction;
+import org.onosproject.net.pi.runtime.PiTableEntry;
+import org.onosproject.net.pi.runtime.PiTernaryFieldMatch;
+
+/**
+ * Order-independent digest of a set of PI entities, that can be updated
+ * incrementally as entities are added. Digests can be used to tell whether the
+ * entities read from a device are the same as the ones in a mirror, without
+ * comparing them one by one.
+ */
+public final class EntityDigest {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private long value;
+
+    /**
+     * Adds the given entity to this digest.
+     *
+     * @param handle handle of the entity
+     * @param entity PI entity
+     * @return this
+     */
+    public EntityDigest add(PiHandle handle, PiEntity entity) {
+        value += hash(handle, entity);
+        return this;
+    }
+
+    /**
+     * Returns the value of this digest.
+     *
+     * @return digest value
+     */
+    public long value() {
+        return value;
+    }
+
+    /**
+     * Returns the hash of the given entity. The digest of a set of entities
+     * is the sum of their hashes, so that it can be updated when an entity is
+     * added, modified or removed without looking at the others.
+     * <p>
+     * The hash is a 64-bit digest of the content of the entity, such that two
+     * entities which are not equal have the same hash with negligible
+     * probability. The match fields and action parameters of table entries
+     * are hashed independently of their order, like they are compared.
+     *
+     * @param handle handle of the entity
+     * @param entity PI entity
+     * @return entity hash
+     */
+    static long hash(PiHandle handle, PiEntity entity) {
+        final Hasher hasher = HASH_FUNCTION.newHasher()
+                .putInt(handle.hashCode())
+                .putInt(entity.hashCode());
+        if (entity instanceof PiTableEntry) {
+            putTableEntry(hasher, (PiTableEntry) entity);
+        } else {
+            hasher.putUnencodedChars(entity.toString());
+        }
+        return hasher.hash().asLong();
+    }
+
+    private static void putTableEntry(Hasher hasher, PiTableEntry entry) {
+        hasher.putUnencodedChars(entry.table().id())
+                .putBoolean(entry.isDefaultAction())
+                .putInt(entry.priority().orElse(-1))
+                .putLong(entry.cookie())
+                .putDouble(entry.timeout().orElse(-1.0));
+        long matchHash = 0;
+        for (PiFieldMatch fieldMatch : entry.matchKey().fieldMatches()) {
+            matchHash += fieldMatchHash(fieldMatch);
+        }
+        hasher.putLong(matchHash);
+        final PiTableAction action = entry.action();
+        if (action instanceof PiAction) {
+            final PiAction piAction = (PiAction) action;
+            long paramHash = 0;
+            for (PiActionParam param : piAction.parameters()) {
+                paramHash += HASH_FUNCTION.newHasher()
+                        .putUnencodedChars(param.id().id())
+                        .putBytes(param.value().asArray())
+                        .hash().asLong();
+            }
+            hasher.putUnencodedChars(piAction.id().id()).putLong(paramHash);
+        } else if (action != null) {
+            hasher.putUnencodedChars(action.type().name())
+                    .putUnencodedChars(action.toString());
+        }
+    }
+
+    private static long fieldMatchHash(PiFieldMatch fieldMatch) {
+        final Hasher hasher = HASH_FUNCTION.newHasher()
+                .putUnencodedChars(fieldMatch.fieldId().id())
+                .putUnencodedChars(fieldMatch.type().name());
+        if (fieldMatch instanceof PiExactFieldMatch) {
+            hasher.putBytes(((PiExactFieldMatch) fieldMatch).value().asArray());
+        } else if (fieldMatch instanceof PiTernaryFieldMatch) {
+            final PiTernaryFieldMatch ternary = (PiTernaryFieldMatch) fieldMatch;
+            hasher.putBytes(ternary.value().asArray())
+                    .putBytes(ternary.mask().asArray());
+        } else if (fieldMatch instanceof PiLpmFieldMatch) {
+            final PiLpmFieldMatch lpm = (PiLpmFieldMatch) fieldMatch;
+            hasher.putBytes(lpm.value().asArray())
+                    .putInt(lpm.prefixLength());
+        } else if (fieldMatch instanceof PiRangeFieldMatch) {
+            final PiRangeFieldMatch range = (PiRangeFieldMatch) fieldMatch;
+            hasher.putBytes(range.lowValue().asArray())
+                    .putBytes(range.highValue().asArray());
+        } else {
+            hasher.putUnencodedChars(fieldMatch.toString());
+        }
+        return hasher.hash().asLong();
+    }
+}
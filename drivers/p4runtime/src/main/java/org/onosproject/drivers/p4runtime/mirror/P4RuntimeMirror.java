@@ -100,6 +100,16 @@ public interface P4RuntimeMirror
      */
     void sync(DeviceId deviceId, Collection<E> entities);
 
+    /**
+     * Returns the digest of all entries for the given device ID, to be
+     * compared with the {@link EntityDigest} of the entities read from the
+     * device.
+     *
+     * @param deviceId device ID
+     * @return digest value
+     */
+    long digest(DeviceId deviceId);
+
     /**
      * Uses the given P4Runtime write request to update the state of this
      * mirror by optimistically assuming that all updates in it will succeed.
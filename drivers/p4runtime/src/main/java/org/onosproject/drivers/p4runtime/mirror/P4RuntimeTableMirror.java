@@ -16,12 +16,37 @@
 
 package org.onosproject.drivers.p4runtime.mirror;
 
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.pi.model.PiTableId;
 import org.onosproject.net.pi.runtime.PiTableEntry;
 import org.onosproject.net.pi.runtime.PiTableEntryHandle;
 
+import java.util.Collection;
+
 /**
  * Mirror of table entries installed on a P4Runtime device.
  */
 public interface P4RuntimeTableMirror
         extends P4RuntimeMirror<PiTableEntryHandle, PiTableEntry> {
+
+    /**
+     * Returns the digest of the entries of the given table for the given
+     * device ID, to be compared with the {@link EntityDigest} of the entries
+     * read from the device.
+     *
+     * @param deviceId device ID
+     * @param tableId  table ID
+     * @return digest value
+     */
+    long digest(DeviceId deviceId, PiTableId tableId);
+
+    /**
+     * Synchronizes the state of the given table of the given device ID with
+     * the given collection of table entries, leaving other tables untouched.
+     *
+     * @param deviceId device ID
+     * @param tableId  table ID
+     * @param entries  collection of table entries
+     */
+    void sync(DeviceId deviceId, PiTableId tableId, Collection<PiTableEntry> entries);
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.drivers.p4runtime;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onosproject.drivers.p4runtime.P4RuntimeFlowRuleProgrammable.DeviceTableEntries;
+import org.onosproject.drivers.p4runtime.mirror.P4RuntimeTableMirror;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.pi.model.PiActionId;
+import org.onosproject.net.pi.model.PiMatchFieldId;
+import org.onosproject.net.pi.model.PiTableId;
+import org.onosproject.net.pi.runtime.PiAction;
+import org.onosproject.net.pi.runtime.PiExactFieldMatch;
+import org.onosproject.net.pi.runtime.PiMatchKey;
+import org.onosproject.net.pi.runtime.PiTableEntry;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.util.ImmutableByteSequence.copyFrom;
+
+/**
+ * Tests of the synchronization of the table mirror with the entries read by
+ * the P4Runtime flow rule programmable.
+ */
+public class P4RuntimeFlowRuleProgrammableTest {
+
+    private static final DeviceId DEVICE_ID = DeviceId.deviceId("device:p4runtime:1");
+    private static final PiTableId TABLE_1 = PiTableId.of("table1");
+    private static final PiTableId TABLE_2 = PiTableId.of("table2");
+    private static final PiTableId TABLE_3 = PiTableId.of("table3");
+
+    private static PiTableEntry entry(PiTableId tableId, int key) {
+        return PiTableEntry.builder()
+                .forTable(tableId)
+                .withMatchKey(PiMatchKey.builder()
+                                      .addFieldMatch(new PiExactFieldMatch(
+                                              PiMatchFieldId.of("field"), copyFrom(key)))
+                                      .build())
+                .withAction(PiAction.builder().withId(PiActionId.of("action")).build())
+                .build();
+    }
+
+    private static DeviceTableEntries deviceTableEntries(PiTableEntry... entries) {
+        final DeviceTableEntries deviceTableEntries = new DeviceTableEntries();
+        deviceTableEntries.addTable(TABLE_1);
+        deviceTableEntries.addTable(TABLE_2);
+        for (PiTableEntry entry : entries) {
+            deviceTableEntries.add(entry.handle(DEVICE_ID), entry);
+        }
+        return deviceTableEntries;
+    }
+
+    /**
+     * Tests that entries read twice are kept once, and that tables without
+     * entries are reported.
+     */
+    @Test
+    public void deviceTableEntries() {
+        final PiTableEntry entry = entry(TABLE_1, 1);
+        final DeviceTableEntries device = deviceTableEntries(entry, entry);
+        assertEquals(1, device.entries().size());
+        assertEquals(ImmutableList.of(entry), device.entries(TABLE_1));
+        assertTrue(device.entries(TABLE_2).isEmpty());
+        assertEquals(0, device.digest(TABLE_2));
+        assertEquals(device.digest(), device.digest(TABLE_1));
+        assertEquals(2, device.tables().size());
+    }
+
+    /**
+     * Tests that the mirror is not synchronized when its digest is the one
+     * of the entries read from the device.
+     */
+    @Test
+    public void syncSkipped() {
+        final DeviceTableEntries device = deviceTableEntries(
+                entry(TABLE_1, 1), entry(TABLE_2, 1));
+        final P4RuntimeTableMirror mirror = createMock(P4RuntimeTableMirror.class);
+        expect(mirror.digest(DEVICE_ID)).andReturn(device.digest());
+        replay(mirror);
+        P4RuntimeFlowRuleProgrammable.syncMirror(mirror, DEVICE_ID, device);
+        verify(mirror);
+    }
+
+    /**
+     * Tests that only the tables whose digest differs are synchronized.
+     */
+    @Test
+    public void syncChangedTable() {
+        final PiTableEntry entry1 = entry(TABLE_1, 1);
+        final PiTableEntry entry2 = entry(TABLE_2, 1);
+        final DeviceTableEntries device = deviceTableEntries(entry1, entry2);
+        final P4RuntimeTableMirror mirror = createMock(P4RuntimeTableMirror.class);
+        expect(mirror.digest(DEVICE_ID)).andReturn(device.digest(TABLE_1)).once();
+        expect(mirror.digest(DEVICE_ID, TABLE_1)).andReturn(device.digest(TABLE_1));
+        expect(mirror.digest(DEVICE_ID, TABLE_2)).andReturn(0L);
+        mirror.sync(DEVICE_ID, TABLE_2, ImmutableList.of(entry2));
+        expect(mirror.digest(DEVICE_ID)).andReturn(device.digest());
+        replay(mirror);
+        P4RuntimeFlowRuleProgrammable.syncMirror(mirror, DEVICE_ID, device);
+        verify(mirror);
+    }
+
+    /**
+     * Tests that the whole device is synchronized when the mirror has entries
+     * for tables that were not read.
+     */
+    @Test
+    public void syncUnreadTable() {
+        final PiTableEntry entry1 = entry(TABLE_1, 1);
+        final DeviceTableEntries device = deviceTableEntries(entry1);
+        final DeviceTableEntries mirrored = deviceTableEntries(entry1, entry(TABLE_3, 1));
+        final P4RuntimeTableMirror mirror = createMock(P4RuntimeTableMirror.class);
+        expect(mirror.digest(DEVICE_ID)).andReturn(mirrored.digest()).times(2);
+        expect(mirror.digest(DEVICE_ID, TABLE_1)).andReturn(device.digest(TABLE_1));
+        expect(mirror.digest(DEVICE_ID, TABLE_2)).andReturn(0L);
+        mirror.sync(DEVICE_ID, device.entries());
+        replay(mirror);
+        P4RuntimeFlowRuleProgrammable.syncMirror(mirror, DEVICE_ID, device);
+        verify(mirror);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.drivers.p4runtime.mirror;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.pi.runtime.PiTableEntry;
+import org.onosproject.net.pi.service.PiPipeconfWatchdogService;
+import org.onosproject.store.service.EventuallyConsistentMapAdapter;
+import org.onosproject.store.service.EventuallyConsistentMapBuilder;
+import org.onosproject.store.service.EventuallyConsistentMapEvent;
+import org.onosproject.store.service.EventuallyConsistentMapListener;
+import org.onosproject.store.service.StorageServiceAdapter;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.onosproject.drivers.p4runtime.mirror.EntityDigestTest.DEVICE_ID;
+import static org.onosproject.drivers.p4runtime.mirror.EntityDigestTest.TABLE_1;
+import static org.onosproject.drivers.p4runtime.mirror.EntityDigestTest.TABLE_2;
+import static org.onosproject.drivers.p4runtime.mirror.EntityDigestTest.digest;
+import static org.onosproject.drivers.p4runtime.mirror.EntityDigestTest.entry;
+import static org.onosproject.store.service.EventuallyConsistentMapEvent.Type.PUT;
+import static org.onosproject.store.service.EventuallyConsistentMapEvent.Type.REMOVE;
+
+/**
+ * Tests of the digests maintained by the distributed table mirror.
+ */
+public class DistributedP4RuntimeTableMirrorTest {
+
+    private final List<DelayedEventsMap<?, ?>> maps = Lists.newArrayList();
+    private DistributedP4RuntimeTableMirror mirror;
+
+    @Before
+    public void setUp() {
+        mirror = new DistributedP4RuntimeTableMirror();
+        mirror.storageService = new StorageServiceAdapter() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> EventuallyConsistentMapBuilder<K, V> eventuallyConsistentMapBuilder() {
+                return (EventuallyConsistentMapBuilder<K, V>) Proxy.newProxyInstance(
+                        getClass().getClassLoader(),
+                        new Class<?>[]{EventuallyConsistentMapBuilder.class},
+                        (proxy, method, args) -> {
+                            if (!method.getName().equals("build")) {
+                                return proxy;
+                            }
+                            final DelayedEventsMap<K, V> map = new DelayedEventsMap<>();
+                            maps.add(map);
+                            return map;
+                        });
+            }
+        };
+        mirror.pipeconfWatchdogService = EasyMock.niceMock(PiPipeconfWatchdogService.class);
+        EasyMock.replay(mirror.pipeconfWatchdogService);
+        mirror.activate();
+    }
+
+    @After
+    public void tearDown() {
+        mirror.deactivate();
+    }
+
+    private DelayedEventsMap<?, ?> mirrorMap() {
+        // The mirror map is built before the annotations map.
+        return maps.get(0);
+    }
+
+    private void put(PiTableEntry entry) {
+        mirror.put(entry.handle(DEVICE_ID), entry);
+    }
+
+    /**
+     * Tests that the digests of the mirror are maintained by table.
+     */
+    @Test
+    public void partitionDigests() {
+        final PiTableEntry entry1 = entry(TABLE_1, 1, 1, 2);
+        final PiTableEntry entry2 = entry(TABLE_1, 2, 1, 2);
+        final PiTableEntry entry3 = entry(TABLE_2, 1, 1, 2);
+        put(entry1);
+        put(entry2);
+        put(entry3);
+        mirrorMap().deliver(false);
+        assertEquals(digest(entry1, entry2), mirror.digest(DEVICE_ID, TABLE_1));
+        assertEquals(digest(entry3), mirror.digest(DEVICE_ID, TABLE_2));
+        assertEquals(digest(entry1, entry2, entry3), mirror.digest(DEVICE_ID));
+
+        final PiTableEntry modified = entry(TABLE_1, 2, 3, 4);
+        put(modified);
+        mirror.remove(entry1.handle(DEVICE_ID));
+        mirrorMap().deliver(false);
+        assertEquals(digest(modified), mirror.digest(DEVICE_ID, TABLE_1));
+        assertEquals(digest(modified, entry3), mirror.digest(DEVICE_ID));
+        assertEquals(2, mirror.getAll(DEVICE_ID).size());
+
+        // Synchronizing a table leaves the others untouched.
+        final PiTableEntry entry4 = entry(TABLE_2, 2, 1, 2);
+        mirror.sync(DEVICE_ID, TABLE_2, ImmutableList.of(entry4));
+        mirrorMap().deliver(false);
+        assertEquals(digest(modified), mirror.digest(DEVICE_ID, TABLE_1));
+        assertEquals(digest(entry4), mirror.digest(DEVICE_ID, TABLE_2));
+        assertEquals(digest(modified, entry4), mirror.digest(DEVICE_ID));
+    }
+
+    /**
+     * Tests that the digests reflect the state of the mirror map when events
+     * for the same entry are delivered out of order.
+     */
+    @Test
+    public void outOfOrderEvents() {
+        final PiTableEntry entry = entry(TABLE_1, 1, 1, 2);
+        final PiTableEntry modified = entry(TABLE_1, 1, 3, 4);
+        put(entry);
+        put(modified);
+        mirrorMap().deliver(true);
+        assertEquals(digest(modified), mirror.digest(DEVICE_ID));
+
+        mirror.remove(entry.handle(DEVICE_ID));
+        put(entry);
+        mirrorMap().deliver(true);
+        assertEquals(digest(entry), mirror.digest(DEVICE_ID));
+        assertEquals(1, mirror.getAll(DEVICE_ID).size());
+
+        mirror.remove(entry.handle(DEVICE_ID));
+        mirrorMap().deliver(true);
+        assertEquals(0, mirror.digest(DEVICE_ID));
+    }
+
+    /**
+     * Eventually consistent map holding its events until told to deliver
+     * them, possibly in reverse order.
+     */
+    private static final class DelayedEventsMap<K, V> extends EventuallyConsistentMapAdapter<K, V> {
+
+        private final Map<K, V> map = Maps.newHashMap();
+        private final List<EventuallyConsistentMapListener<K, V>> listeners = Lists.newArrayList();
+        private final List<EventuallyConsistentMapEvent<K, V>> events = Lists.newArrayList();
+
+        @Override
+        public V get(K key) {
+            return map.get(key);
+        }
+
+        @Override
+        public void put(K key, V value) {
+            map.put(key, value);
+            events.add(new EventuallyConsistentMapEvent<>("test", PUT, key, value));
+        }
+
+        @Override
+        public V remove(K key) {
+            final V value = map.remove(key);
+            if (value != null) {
+                events.add(new EventuallyConsistentMapEvent<>("test", REMOVE, key, value));
+            }
+            return value;
+        }
+
+        @Override
+        public Set<K> keySet() {
+            return map.keySet();
+        }
+
+        @Override
+        public void addListener(EventuallyConsistentMapListener<K, V> listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(EventuallyConsistentMapListener<K, V> listener) {
+            listeners.remove(listener);
+        }
+
+        private void deliver(boolean reversed) {
+            final List<EventuallyConsistentMapEvent<K, V>> toDeliver =
+                    reversed ? Lists.reverse(events) : events;
+            toDeliver.forEach(event -> listeners.forEach(l -> l.event(event)));
+            events.clear();
+        }
+    }
+}
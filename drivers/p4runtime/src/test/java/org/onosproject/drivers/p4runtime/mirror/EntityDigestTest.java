@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.drivers.p4runtime.mirror;
+
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.pi.model.PiActionId;
+import org.onosproject.net.pi.model.PiActionParamId;
+import org.onosproject.net.pi.model.PiMatchFieldId;
+import org.onosproject.net.pi.model.PiTableId;
+import org.onosproject.net.pi.runtime.PiAction;
+import org.onosproject.net.pi.runtime.PiActionParam;
+import org.onosproject.net.pi.runtime.PiCounterCellData;
+import org.onosproject.net.pi.runtime.PiExactFieldMatch;
+import org.onosproject.net.pi.runtime.PiMatchKey;
+import org.onosproject.net.pi.runtime.PiTableEntry;
+import org.onosproject.net.pi.runtime.PiTernaryFieldMatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.onlab.util.ImmutableByteSequence.copyFrom;
+
+/**
+ * Tests of the digest of PI entities.
+ */
+public class EntityDigestTest {
+
+    static final DeviceId DEVICE_ID = DeviceId.deviceId("device:p4runtime:1");
+    static final PiTableId TABLE_1 = PiTableId.of("table1");
+    static final PiTableId TABLE_2 = PiTableId.of("table2");
+
+    private static final PiMatchFieldId FIELD_1 = PiMatchFieldId.of("field1");
+    private static final PiMatchFieldId FIELD_2 = PiMatchFieldId.of("field2");
+    private static final PiActionId ACTION = PiActionId.of("action");
+    private static final PiActionParamId PARAM_1 = PiActionParamId.of("param1");
+    private static final PiActionParamId PARAM_2 = PiActionParamId.of("param2");
+
+    /**
+     * Returns a table entry matching the given key, with an action setting
+     * the two given parameters.
+     */
+    static PiTableEntry entry(PiTableId tableId, int key, int param1, int param2) {
+        return PiTableEntry.builder()
+                .forTable(tableId)
+                .withMatchKey(PiMatchKey.builder()
+                                      .addFieldMatch(new PiExactFieldMatch(FIELD_1, copyFrom(key)))
+                                      .addFieldMatch(new PiTernaryFieldMatch(
+                                              FIELD_2, copyFrom(key), copyFrom(0xff)))
+                                      .build())
+                .withAction(PiAction.builder()
+                                    .withId(ACTION)
+                                    .withParameter(new PiActionParam(PARAM_1, copyFrom(param1)))
+                                    .withParameter(new PiActionParam(PARAM_2, copyFrom(param2)))
+                                    .build())
+                .withPriority(10)
+                .build();
+    }
+
+    static long digest(PiTableEntry... entries) {
+        final EntityDigest digest = new EntityDigest();
+        for (PiTableEntry entry : entries) {
+            digest.add(entry.handle(DEVICE_ID), entry);
+        }
+        return digest.value();
+    }
+
+    /**
+     * Tests that the digest does not depend on the order of the entities.
+     */
+    @Test
+    public void orderIndependence() {
+        final PiTableEntry entry1 = entry(TABLE_1, 1, 1, 2);
+        final PiTableEntry entry2 = entry(TABLE_1, 2, 1, 2);
+        final PiTableEntry entry3 = entry(TABLE_2, 1, 1, 2);
+        assertEquals(digest(entry1, entry2, entry3), digest(entry3, entry1, entry2));
+        assertEquals(0, new EntityDigest().value());
+    }
+
+    /**
+     * Tests that equal entries have the same hash, regardless of the order of
+     * their match fields and action parameters, and of their counters.
+     */
+    @Test
+    public void equalEntries() {
+        final PiTableEntry entry = entry(TABLE_1, 1, 1, 2);
+        final PiTableEntry reordered = PiTableEntry.builder()
+                .forTable(TABLE_1)
+                .withMatchKey(PiMatchKey.builder()
+                                      .addFieldMatch(new PiTernaryFieldMatch(
+                                              FIELD_2, copyFrom(1), copyFrom(0xff)))
+                                      .addFieldMatch(new PiExactFieldMatch(FIELD_1, copyFrom(1)))
+                                      .build())
+                .withAction(PiAction.builder()
+                                    .withId(ACTION)
+                                    .withParameter(new PiActionParam(PARAM_2, copyFrom(2)))
+                                    .withParameter(new PiActionParam(PARAM_1, copyFrom(1)))
+                                    .build())
+                .withPriority(10)
+                .withCounterCellData(new PiCounterCellData(10, 1000))
+                .build();
+        assertEquals(entry, reordered);
+        assertEquals(digest(entry), digest(reordered));
+    }
+
+    /**
+     * Tests that entries that are not equal have different hashes.
+     */
+    @Test
+    public void differentEntries() {
+        final PiTableEntry entry = entry(TABLE_1, 1, 1, 2);
+        assertNotEquals(digest(entry), digest(entry(TABLE_2, 1, 1, 2)));
+        assertNotEquals(digest(entry), digest(entry(TABLE_1, 2, 1, 2)));
+        assertNotEquals(digest(entry), digest(entry(TABLE_1, 1, 1, 3)));
+        // Parameter values swapped.
+        assertNotEquals(digest(entry), digest(entry(TABLE_1, 1, 2, 1)));
+        assertNotEquals(digest(entry), digest(PiTableEntry.builder()
+                                                      .forTable(TABLE_1)
+                                                      .withMatchKey(entry.matchKey())
+                                                      .withAction(entry.action())
+                                                      .withPriority(11)
+                                                      .build()));
+    }
+}
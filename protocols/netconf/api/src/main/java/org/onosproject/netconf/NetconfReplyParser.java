@@ -0,0 +1,213 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharSource;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser of NETCONF replies, extracting the values of a few
+ * elements without building a document of the whole reply.
+ * <p>
+ * Elements are selected by paths of a subset of XPath: slash-separated
+ * element names from the child of the root element of the reply, e.g.
+ * {@code data/system-state/platform/machine}, or from any depth when the
+ * path starts with {@code //}. Namespace prefixes in paths are ignored and
+ * {@code *} matches any element. Values are the text of leaf elements.
+ * Parsing stops as soon as the requested values are found.
+ */
+@Beta
+public final class NetconfReplyParser {
+
+    private static final String ANYWHERE = "//";
+    private static final String WILDCARD = "*";
+
+    private NetconfReplyParser() {}
+
+    /**
+     * Returns a pull parser over a reply.
+     *
+     * @param reply reply to parse
+     * @return pull parser; to be closed once done with
+     * @throws NetconfException if the parser cannot be created
+     */
+    public static XMLStreamReader reader(CharSequence reply) throws NetconfException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Replies come from devices; never resolve entities on their behalf
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            return factory.createXMLStreamReader(CharSource.wrap(reply).openStream());
+        } catch (XMLStreamException | IOException e) {
+            throw new NetconfException("Cannot parse reply", e);
+        }
+    }
+
+    /**
+     * Returns the value of the first element at the given path.
+     *
+     * @param reply reply to parse
+     * @param path  path of the element
+     * @return value of the element, if any
+     * @throws NetconfException if the reply is not well-formed up to the element
+     */
+    public static Optional<String> first(CharSequence reply, String path) throws NetconfException {
+        return Optional.ofNullable(first(reply, ImmutableList.of(path)).get(path));
+    }
+
+    /**
+     * Returns the value of the first element at each of the given paths.
+     *
+     * @param reply reply to parse
+     * @param paths paths of the elements
+     * @return values of the elements found, by path
+     * @throws NetconfException if the reply is not well-formed up to the
+     *                          last element found
+     */
+    public static Map<String, String> first(CharSequence reply, Collection<String> paths)
+            throws NetconfException {
+        Map<String, String> values = new LinkedHashMap<>();
+        List<Path> pending = new ArrayList<>();
+        paths.forEach(path -> pending.add(new Path(path)));
+        parse(reply, pending, (path, value) -> {
+            values.putIfAbsent(path.path, value);
+            pending.remove(path);
+            return !pending.isEmpty();
+        });
+        return values;
+    }
+
+    /**
+     * Returns the values of all the elements at the given path.
+     *
+     * @param reply reply to parse
+     * @param path  path of the elements
+     * @return values of the elements, in document order
+     * @throws NetconfException if the reply is not well-formed
+     */
+    public static List<String> all(CharSequence reply, String path) throws NetconfException {
+        List<String> values = new ArrayList<>();
+        forEach(reply, path, values::add);
+        return values;
+    }
+
+    /**
+     * Hands over the values of all the elements at the given path as they
+     * are parsed.
+     *
+     * @param reply    reply to parse
+     * @param path     path of the elements
+     * @param consumer consumer of the values, in document order
+     * @throws NetconfException if the reply is not well-formed
+     */
+    public static void forEach(CharSequence reply, String path, Consumer<String> consumer)
+            throws NetconfException {
+        parse(reply, ImmutableList.of(new Path(path)), (p, value) -> {
+            consumer.accept(value);
+            return true;
+        });
+    }
+
+    // Handles a value found while parsing; returns whether to go on parsing.
+    private interface ValueHandler {
+        boolean value(Path path, String value);
+    }
+
+    private static void parse(CharSequence reply, List<Path> paths, ValueHandler handler)
+            throws NetconfException {
+        XMLStreamReader xsr = reader(reply);
+        try {
+            // Names of the elements enclosing the current one, below the root
+            List<String> stack = new ArrayList<>();
+            int depth = 0;
+            while (xsr.hasNext()) {
+                int event = xsr.next();
+                if (event == XMLStreamReader.END_ELEMENT) {
+                    depth--;
+                    if (depth > 0) {
+                        stack.remove(stack.size() - 1);
+                    }
+                } else if (event == XMLStreamReader.START_ELEMENT) {
+                    depth++;
+                    if (depth == 1) {
+                        continue;
+                    }
+                    stack.add(xsr.getLocalName());
+                    Path match = paths.stream().filter(path -> path.matches(stack)).findFirst().orElse(null);
+                    if (match != null) {
+                        // Reading the text consumes the end of the element
+                        String value = xsr.getElementText();
+                        depth--;
+                        stack.remove(stack.size() - 1);
+                        if (!handler.value(match, value)) {
+                            return;
+                        }
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new NetconfException("Cannot parse reply", e);
+        } finally {
+            try {
+                xsr.close();
+            } catch (XMLStreamException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    // Compiled path of elements.
+    private static final class Path {
+        private final String path;
+        private final boolean anywhere;
+        private final String[] steps;
+
+        private Path(String path) {
+            this.path = path;
+            this.anywhere = path.startsWith(ANYWHERE);
+            this.steps = Arrays.stream((anywhere ? path.substring(ANYWHERE.length()) : path).split("/"))
+                    .map(step -> step.substring(step.indexOf(':') + 1))
+                    .toArray(String[]::new);
+        }
+
+        private boolean matches(List<String> stack) {
+            int offset = stack.size() - steps.length;
+            if (offset < 0 || (!anywhere && offset != 0)) {
+                return false;
+            }
+            for (int i = 0; i < steps.length; i++) {
+                if (!steps[i].equals(WILDCARD) && !steps[i].equals(stack.get(offset + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -20,8 +20,10 @@ import com.google.common.annotations.Beta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.xml.stream.XMLStreamReader;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * NETCONF session object that allows NETCONF operations on top with the physical
@@ -57,6 +59,28 @@ public interface NetconfSession {
      */
     CompletableFuture<String> rpc(String request) throws NetconfException;
 
+    /**
+     * Executes an asynchronous RPC request to the server and obtains a future
+     * for a pull parser over its response, to process large responses without
+     * building a document of them.
+     *
+     * @param request the XML containing the RPC request for the server.
+     * @return pull parser over the server response; to be closed by the caller
+     * @throws NetconfException when there is a problem in the communication process on
+     * the underlying connection
+     * @see NetconfReplyParser
+     */
+    @Beta
+    default CompletableFuture<XMLStreamReader> rpcReader(String request) throws NetconfException {
+        return rpc(request).thenApply(reply -> {
+            try {
+                return NetconfReplyParser.reader(reply);
+            } catch (NetconfException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
     /**
      * Retrieves the specified configuration.
      *
@@ -101,6 +125,23 @@ public interface NetconfSession {
     String get(String filterSchema, String withDefaultsMode)
             throws NetconfException;
 
+    /**
+     * Retrieves the requested data as a pull parser over the response, to
+     * process large responses without building a document of them.
+     *
+     * @param filterSchema XML subtrees to include in the reply
+     * @param withDefaultsMode with-defaults mode
+     * @return pull parser over the server response; to be closed by the caller
+     * @throws NetconfException when there is a problem in the communication process on
+     * the underlying connection
+     * @see NetconfReplyParser
+     */
+    @Beta
+    default XMLStreamReader getReader(String filterSchema, String withDefaultsMode)
+            throws NetconfException {
+        return NetconfReplyParser.reader(get(filterSchema, withDefaultsMode));
+    }
+
     /**
      * Executes an synchronous RPC to the server and wrap the request in RPC header.
      *
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import javax.xml.stream.XMLStreamReader;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the streaming parser of NETCONF replies.
+ */
+public class NetconfReplyParserTest {
+
+    private static final String REPLY =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<rpc-reply xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"7\">\n" +
+            "  <data>\n" +
+            "    <chassis-list xmlns=\"http://www.lumentum.com/lumentum-ote-equipment\"\n" +
+            "                  xmlns:loteq=\"http://www.lumentum.com/lumentum-ote-equipment\">\n" +
+            "      <chassis>\n" +
+            "        <dn>ne=1;chassis=1</dn>\n" +
+            "        <state><loteq:serial-no>S1</loteq:serial-no></state>\n" +
+            "      </chassis>\n" +
+            "      <chassis>\n" +
+            "        <dn>ne=1;chassis=2</dn>\n" +
+            "        <state><loteq:serial-no>S2</loteq:serial-no></state>\n" +
+            "      </chassis>\n" +
+            "    </chassis-list>\n" +
+            "  </data>\n" +
+            "</rpc-reply>\n";
+
+    /**
+     * Tests the extraction of the first values at given paths.
+     */
+    @Test
+    public void first() throws NetconfException {
+        assertEquals(Optional.of("ne=1;chassis=1"), NetconfReplyParser.first(REPLY, "data/chassis-list/chassis/dn"));
+        assertEquals(Optional.empty(), NetconfReplyParser.first(REPLY, "chassis-list/chassis/dn"));
+        assertEquals(ImmutableMap.of("data/chassis-list/chassis/state/loteq:serial-no", "S1",
+                                     "//dn", "ne=1;chassis=1"),
+                     NetconfReplyParser.first(REPLY, ImmutableList.of(
+                             "data/chassis-list/chassis/state/loteq:serial-no", "//dn", "//missing")));
+    }
+
+    /**
+     * Tests the extraction of all values at a path.
+     */
+    @Test
+    public void all() throws NetconfException {
+        assertEquals(ImmutableList.of("S1", "S2"), NetconfReplyParser.all(REPLY, "//state/serial-no"));
+        assertEquals(ImmutableList.of("ne=1;chassis=1", "ne=1;chassis=2"),
+                     NetconfReplyParser.all(REPLY, "data/*/chassis/dn"));
+    }
+
+    /**
+     * Tests that parsing stops once the values are found, leaving the rest
+     * of the reply unread.
+     */
+    @Test
+    public void stopsWhenFound() throws NetconfException {
+        String truncated = REPLY.substring(0, REPLY.indexOf("</loteq:serial-no>") + 18);
+        assertEquals(Optional.of("S1"), NetconfReplyParser.first(truncated, "//serial-no"));
+    }
+
+    /**
+     * Tests that malformed replies are reported.
+     */
+    @Test(expected = NetconfException.class)
+    public void malformed() throws NetconfException {
+        NetconfReplyParser.all(REPLY.substring(0, REPLY.length() - 10), "//serial-no");
+    }
+
+    /**
+     * Tests the pull parser over a reply.
+     */
+    @Test
+    public void reader() throws Exception {
+        XMLStreamReader xsr = NetconfReplyParser.reader(REPLY);
+        xsr.nextTag();
+        assertTrue(xsr.isStartElement());
+        assertEquals("rpc-reply", xsr.getLocalName());
+        assertEquals("7", xsr.getAttributeValue(null, "message-id"));
+        xsr.close();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.netconf.ctl.impl;
+
+import org.onosproject.netconf.NetconfException;
+import org.onosproject.netconf.ctl.impl.NetconfStreamThread.NetconfMessageState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures the decoding of large synthetic get-config replies, either by the
+ * character-wise reading and regular expressions of the stream thread or by
+ * the incremental framer, fed in the size of SSH channel reads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetconfFramingBenchmark {
+
+    private static final int READ_SIZE = 32 * 1024;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Framings of the replies.
+     */
+    public enum Framing {
+        END_OF_MESSAGE, CHUNKED
+    }
+
+    /**
+     * Size of the reply, in kilobytes.
+     */
+    @Param({"64", "4096"})
+    public int size;
+
+    @Param
+    public Framing framing;
+
+    private byte[] bytes;
+    private int decoded;
+
+    @Setup
+    public void setUp() {
+        StringBuilder reply = new StringBuilder("<rpc-reply message-id=\"7\"><data><components>");
+        for (int i = 0; reply.length() < size * 1024; i++) {
+            reply.append("<component><name>port-").append(i).append("</name><state><type>PORT</type>")
+                    .append("<description>Line port ").append(i).append("</description></state></component>");
+        }
+        reply.append("</components></data></rpc-reply>");
+        byte[] content = reply.toString().getBytes(UTF_8);
+
+        if (framing == Framing.END_OF_MESSAGE) {
+            bytes = (reply + "]]>]]>").getBytes(UTF_8);
+        } else {
+            ByteBuffer buffer = ByteBuffer.allocate(content.length + content.length / CHUNK_SIZE * 16 + 32);
+            for (int i = 0; i < content.length; i += CHUNK_SIZE) {
+                int length = Math.min(CHUNK_SIZE, content.length - i);
+                buffer.put(("\n#" + length + "\n").getBytes(UTF_8)).put(content, i, length);
+            }
+            buffer.put("\n##\n".getBytes(UTF_8));
+            bytes = new byte[buffer.position()];
+            buffer.flip();
+            buffer.get(bytes);
+        }
+    }
+
+    @Benchmark
+    public int streamThread() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(bytes), UTF_8))) {
+            NetconfMessageState state = NetconfMessageState.NO_MATCHING_PATTERN;
+            StringBuilder builder = new StringBuilder();
+            int c;
+            while ((c = reader.read()) != -1) {
+                state = state.evaluateChar((char) c);
+                builder.append((char) c);
+                if (state == NetconfMessageState.END_PATTERN) {
+                    return builder.toString().replace("]]>]]>", "").length();
+                } else if (state == NetconfMessageState.END_CHUNKED_PATTERN) {
+                    String reply = builder.toString();
+                    if (!NetconfStreamThread.validateChunkedFraming(reply)) {
+                        throw new IllegalStateException("Badly framed reply");
+                    }
+                    return reply.replaceAll("\n#\\d+\n", "").replaceAll("\n##\n", "").length();
+                }
+            }
+            throw new IllegalStateException("Incomplete reply");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Benchmark
+    public int framer() throws NetconfException {
+        decoded = 0;
+        NetconfMessageFramer framer = new NetconfMessageFramer(
+                message -> decoded += new String(message.array(), 0, message.remaining(), UTF_8).length());
+        for (int i = 0; i < bytes.length; i += READ_SIZE) {
+            framer.decode(ByteBuffer.wrap(bytes, i, Math.min(READ_SIZE, bytes.length - i)));
+        }
+        return decoded;
+    }
+}
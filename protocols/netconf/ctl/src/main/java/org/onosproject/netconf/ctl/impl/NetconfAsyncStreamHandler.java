@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.netconf.ctl.impl;
+
+import com.google.common.collect.Lists;
+import org.apache.sshd.client.channel.ClientChannel;
+import org.apache.sshd.common.channel.BufferedIoOutputStream;
+import org.apache.sshd.common.io.IoInputStream;
+import org.apache.sshd.common.io.IoOutputStream;
+import org.apache.sshd.common.io.IoReadFuture;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.onlab.util.OrderedExecutor;
+import org.onosproject.netconf.NetconfDeviceInfo;
+import org.onosproject.netconf.NetconfDeviceOutputEvent;
+import org.onosproject.netconf.NetconfDeviceOutputEventListener;
+import org.onosproject.netconf.NetconfException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.onlab.util.Tools.groupedThreads;
+
+/**
+ * Handles the input and output of a NETCONF session over the asynchronous
+ * streams of its SSH channel, without a thread of its own.
+ * <p>
+ * The bytes read are framed into messages on the I/O threads of the SSH
+ * client as they arrive; the messages are then handled in order on a thread
+ * pool dedicated to NETCONF sessions.
+ */
+public class NetconfAsyncStreamHandler implements NetconfStreamHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(NetconfAsyncStreamHandler.class);
+
+    private static final String HELLO = "<hello";
+    private static final String RPC_REPLY = "rpc-reply";
+    private static final String RPC_ERROR = "rpc-error";
+    private static final String NOTIFICATION_LABEL = "<notification";
+    private static final int READ_BUFFER_SIZE = 32 * 1024;
+
+    // Threads handling the messages of all sessions, kept apart from the
+    // shared pool so that slow listeners cannot starve other components
+    private static final ExecutorService MESSAGE_EXECUTOR = Executors.newCachedThreadPool(
+            groupedThreads("onos/netconf", "message-handler-%d", log));
+
+    private final IoInputStream in;
+    private final IoOutputStream out;
+    private final NetconfDeviceInfo netconfDeviceInfo;
+    private final NetconfSessionDelegate sessionDelegate;
+    private final Map<Integer, CompletableFuture<String>> replies;
+    private final NetconfMessageFramer framer = new NetconfMessageFramer(this::messageReceived);
+    private final Buffer readBuffer = new ByteArrayBuffer(READ_BUFFER_SIZE);
+    private final Executor executor = new OrderedExecutor(MESSAGE_EXECUTOR);
+    private final List<NetconfDeviceOutputEventListener> netconfDeviceEventListeners
+            = Lists.newCopyOnWriteArrayList();
+    private volatile boolean enableNotifications = true;
+    private volatile boolean closed;
+
+    /**
+     * Creates a stream handler for the given channel, which must have been
+     * opened with asynchronous streaming.
+     *
+     * @param channel    SSH channel of the session
+     * @param deviceInfo device the session is established with
+     * @param delegate   session delegate to notify the replies to
+     * @param replies    futures awaiting the replies, by message id
+     */
+    public NetconfAsyncStreamHandler(ClientChannel channel, NetconfDeviceInfo deviceInfo,
+                                     NetconfSessionDelegate delegate,
+                                     Map<Integer, CompletableFuture<String>> replies) {
+        this.in = channel.getAsyncOut();
+        // Queues the writes, as the channel allows a single pending write
+        this.out = new BufferedIoOutputStream(channel, channel.getAsyncIn());
+        this.netconfDeviceInfo = deviceInfo;
+        this.sessionDelegate = delegate;
+        this.replies = replies;
+        log.debug("Stream handler for device {} session started", deviceInfo);
+        read();
+    }
+
+    @Override
+    public CompletableFuture<String> sendMessage(String request) {
+        Optional<Integer> messageId = NetconfStreamThread.getMsgId(request);
+        return sendMessage(request, messageId.get());
+    }
+
+    @Override
+    public CompletableFuture<String> sendMessage(String request, int messageId) {
+        log.debug("Sending message {} to device {}", request, netconfDeviceInfo);
+        CompletableFuture<String> cf = new CompletableFuture<>();
+        if (closed) {
+            cf.completeExceptionally(new NetconfException("Session with device " +
+                                                          netconfDeviceInfo + " is closed"));
+            return cf;
+        }
+        replies.put(messageId, cf);
+
+        try {
+            out.writePacket(new ByteArrayBuffer(request.getBytes(UTF_8))).addListener(future -> {
+                if (!future.isWritten()) {
+                    writeFailed(cf, future.getException());
+                }
+            });
+        } catch (IOException e) {
+            writeFailed(cf, e);
+        }
+
+        return cf;
+    }
+
+    // Writes still pending are aborted when the session closes, which is
+    // expected once the session was closed on request or by the device.
+    private void writeFailed(CompletableFuture<String> cf, Throwable error) {
+        if (closed || out.isClosing() || out.isClosed()) {
+            log.debug("Writing to {} aborted as the session closes: {}", netconfDeviceInfo, error.toString());
+        } else {
+            log.error("Writing to {} failed", netconfDeviceInfo, error);
+        }
+        cf.completeExceptionally(error);
+    }
+
+    // Reads as long as data is available right away, then awaits more.
+    private void read() {
+        while (!closed) {
+            readBuffer.clear();
+            IoReadFuture future = in.read(readBuffer);
+            if (!future.isDone()) {
+                future.addListener(f -> {
+                    if (dataRead(f)) {
+                        read();
+                    }
+                });
+                return;
+            }
+            if (!dataRead(future)) {
+                return;
+            }
+        }
+    }
+
+    private boolean dataRead(IoReadFuture future) {
+        if (closed) {
+            return false;
+        }
+        if (future.getException() != null) {
+            log.debug("Netconf device {} closed the session, will need to be reopened: {}",
+                      netconfDeviceInfo, future.getException().getMessage());
+            closed = true;
+            NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
+                    NetconfDeviceOutputEvent.Type.SESSION_CLOSED,
+                    null, null, Optional.of(-1), netconfDeviceInfo);
+            executor.execute(() -> netconfDeviceEventListeners.forEach(listener -> listener.event(event)));
+            return false;
+        }
+        Buffer buffer = future.getBuffer();
+        try {
+            framer.decode(ByteBuffer.wrap(buffer.array(), buffer.rpos(), buffer.available()));
+        } catch (NetconfException e) {
+            log.debug("Netconf device {} sent badly framed message", netconfDeviceInfo, e);
+            closed = true;
+            executor.execute(this::deviceUnregistered);
+            return false;
+        }
+        return !closed;
+    }
+
+    private void messageReceived(ByteBuffer message) {
+        if (!message.hasRemaining()) {
+            // A bare end-of-message delimiter ends the session
+            closed = true;
+            executor.execute(this::deviceUnregistered);
+            return;
+        }
+        executor.execute(() -> dealWithReply(new String(message.array(), message.arrayOffset(),
+                                                        message.remaining(), UTF_8)));
+    }
+
+    @Override
+    public void close() {
+        log.debug("Netconf device {} stream handler closed on request", netconfDeviceInfo);
+        closed = true;
+    }
+
+    private void deviceUnregistered() {
+        log.debug("Netconf device {} socketClosed = true DEVICE_UNREGISTERED", netconfDeviceInfo);
+        NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
+                NetconfDeviceOutputEvent.Type.DEVICE_UNREGISTERED,
+                null, null, Optional.of(-1), netconfDeviceInfo);
+        netconfDeviceEventListeners.forEach(listener -> listener.event(event));
+    }
+
+    private void dealWithReply(String deviceReply) {
+        if (deviceReply.contains(RPC_REPLY) ||
+                deviceReply.contains(RPC_ERROR) ||
+                deviceReply.contains(HELLO)) {
+            Optional<Integer> messageId = NetconfStreamThread.getMsgId(deviceReply);
+            log.debug("Netconf device {} sessionDelegate.notify() DEVICE_REPLY {} {}",
+                    netconfDeviceInfo, messageId, deviceReply);
+            NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
+                    NetconfDeviceOutputEvent.Type.DEVICE_REPLY,
+                    null, deviceReply, messageId, netconfDeviceInfo);
+            sessionDelegate.notify(event);
+            netconfDeviceEventListeners.forEach(
+                    listener -> listener.event(event));
+        } else if (deviceReply.contains(NOTIFICATION_LABEL)) {
+            Optional<Integer> messageId = NetconfStreamThread.getMsgId(deviceReply);
+            log.debug("Netconf device {} DEVICE_NOTIFICATION {} {} {}",
+                    netconfDeviceInfo, enableNotifications, messageId, deviceReply);
+            if (enableNotifications) {
+                log.debug("dispatching to {} listeners", netconfDeviceEventListeners.size());
+                NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
+                        NetconfDeviceOutputEvent.Type.DEVICE_NOTIFICATION,
+                        null, deviceReply, messageId, netconfDeviceInfo);
+                netconfDeviceEventListeners.forEach(
+                        listener -> listener.event(event));
+            }
+        } else {
+            log.debug("Error on reply from device {} {}", netconfDeviceInfo, deviceReply);
+        }
+    }
+
+    @Override
+    public void addDeviceEventListener(NetconfDeviceOutputEventListener listener) {
+        if (!netconfDeviceEventListeners.contains(listener)) {
+            netconfDeviceEventListeners.add(listener);
+        }
+    }
+
+    @Override
+    public void removeDeviceEventListener(NetconfDeviceOutputEventListener listener) {
+        netconfDeviceEventListeners.remove(listener);
+    }
+
+    @Override
+    public void setEnableNotifications(boolean enableNotifications) {
+        this.enableNotifications = enableNotifications;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.netconf.ctl.impl;
+
+import org.onosproject.netconf.NetconfException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Incremental decoder of the messages received on a NETCONF session, framed
+ * either by the end-of-message delimiter of NETCONF 1.0 (RFC 4742) or by the
+ * chunked framing of NETCONF 1.1 (RFC 6242).
+ * <p>
+ * The bytes read from the session are fed as they come, in buffers of any
+ * size; the content of each complete message, without its framing, is handed
+ * over as a buffer of its own. The framing of each message is told by its
+ * first bytes, so that the hello exchange and later messages may be framed
+ * differently.
+ */
+public class NetconfMessageFramer {
+
+    private static final byte[] END_PATTERN = "]]>]]>".getBytes(StandardCharsets.US_ASCII);
+    // Longest proper prefix of the end pattern that is also a suffix of its
+    // first n + 1 bytes, to resume matching after a mismatch
+    private static final int[] END_PATTERN_FALLBACK = {0, 1, 0, 1, 2, 3};
+    private static final long MAX_CHUNK_SIZE = 4294967295L;
+    private static final int INITIAL_CAPACITY = 4096;
+    // Capacity beyond which the message buffer is released once a message is done
+    private static final int RETAINED_CAPACITY = 64 * 1024;
+
+    private static final byte LF = '\n';
+    private static final byte HASH = '#';
+
+    private enum State {
+        /** Start of a message, ahead of any framing. */
+        START,
+        /** Line feed at the start of a message. */
+        START_LF,
+        /** Message framed by the end-of-message delimiter. */
+        END_OF_MESSAGE,
+        /** Hash starting a chunk or the end of the chunks. */
+        CHUNK_HASH,
+        /** First digit of a chunk size, or second hash ending the chunks. */
+        CHUNK_SIZE_START,
+        /** Further digits of a chunk size. */
+        CHUNK_SIZE,
+        /** Chunk data. */
+        CHUNK_DATA,
+        /** Line feed following chunk data. */
+        CHUNK_LF,
+        /** Line feed ending the chunks. */
+        CHUNKS_END_LF
+    }
+
+    private final Consumer<ByteBuffer> messageHandler;
+
+    private State state = State.START;
+    private byte[] message = new byte[INITIAL_CAPACITY];
+    private int length;
+    private int endPatternMatched;
+    private long chunkRemaining;
+    private boolean chunked;
+
+    /**
+     * Creates a framer handing over the messages to the given handler.
+     *
+     * @param messageHandler handler of the content of each message
+     */
+    public NetconfMessageFramer(Consumer<ByteBuffer> messageHandler) {
+        this.messageHandler = messageHandler;
+    }
+
+    /**
+     * Decodes the given bytes, handing over the messages they complete.
+     *
+     * @param bytes bytes read from the session; consumed entirely
+     * @throws NetconfException if the bytes break the framing of the message
+     */
+    public void decode(ByteBuffer bytes) throws NetconfException {
+        while (bytes.hasRemaining()) {
+            switch (state) {
+                case END_OF_MESSAGE:
+                    decodeEndOfMessage(bytes);
+                    break;
+                case CHUNK_DATA:
+                    decodeChunkData(bytes);
+                    break;
+                default:
+                    decodeFraming(bytes);
+                    break;
+            }
+        }
+    }
+
+    // Scans for the end-of-message delimiter, then copies the bytes scanned
+    // in bulk.
+    private void decodeEndOfMessage(ByteBuffer bytes) {
+        int start = bytes.position();
+        int end = bytes.limit();
+        int matched = endPatternMatched;
+        int i = start;
+        while (i < end && matched < END_PATTERN.length) {
+            byte b = bytes.get(i++);
+            while (matched > 0 && b != END_PATTERN[matched]) {
+                matched = END_PATTERN_FALLBACK[matched - 1];
+            }
+            if (b == END_PATTERN[matched]) {
+                matched++;
+            }
+        }
+        endPatternMatched = matched;
+
+        ensureCapacity(i - start);
+        bytes.get(message, length, i - start);
+        length += i - start;
+        if (matched == END_PATTERN.length) {
+            length -= END_PATTERN.length;
+            complete();
+        }
+    }
+
+    // Copies as much chunk data as available in bulk.
+    private void decodeChunkData(ByteBuffer bytes) {
+        int count = (int) Math.min(chunkRemaining, bytes.remaining());
+        ensureCapacity(count);
+        bytes.get(message, length, count);
+        length += count;
+        chunkRemaining -= count;
+        if (chunkRemaining == 0) {
+            state = State.CHUNK_LF;
+        }
+    }
+
+    private void decodeFraming(ByteBuffer bytes) throws NetconfException {
+        byte b = bytes.get();
+        switch (state) {
+            case START:
+                if (b == LF) {
+                    state = State.START_LF;
+                } else {
+                    startEndOfMessage(bytes);
+                }
+                break;
+            case START_LF:
+                if (b == HASH) {
+                    chunked = false;
+                    state = State.CHUNK_SIZE_START;
+                } else if (b != LF) {
+                    // Line feeds between messages are insignificant
+                    startEndOfMessage(bytes);
+                }
+                break;
+            case CHUNK_HASH:
+                expect(b, HASH);
+                state = State.CHUNK_SIZE_START;
+                break;
+            case CHUNK_SIZE_START:
+                if (b == HASH && chunked) {
+                    state = State.CHUNKS_END_LF;
+                } else if (b >= '1' && b <= '9') {
+                    chunkRemaining = b - '0';
+                    state = State.CHUNK_SIZE;
+                } else {
+                    throw badFraming("invalid chunk size");
+                }
+                break;
+            case CHUNK_SIZE:
+                if (b == LF) {
+                    chunked = true;
+                    state = State.CHUNK_DATA;
+                } else if (b >= '0' && b <= '9') {
+                    chunkRemaining = chunkRemaining * 10 + b - '0';
+                    if (chunkRemaining > MAX_CHUNK_SIZE) {
+                        throw badFraming("chunk size too large");
+                    }
+                } else {
+                    throw badFraming("invalid chunk size");
+                }
+                break;
+            case CHUNK_LF:
+                expect(b, LF);
+                state = State.CHUNK_HASH;
+                break;
+            case CHUNKS_END_LF:
+                expect(b, LF);
+                complete();
+                break;
+            default:
+                throw new IllegalStateException("Unexpected state " + state);
+        }
+    }
+
+    // Starts a message framed by the end-of-message delimiter, which begins
+    // with the byte just read.
+    private void startEndOfMessage(ByteBuffer bytes) {
+        bytes.position(bytes.position() - 1);
+        state = State.END_OF_MESSAGE;
+        endPatternMatched = 0;
+    }
+
+    private void expect(byte b, byte expected) throws NetconfException {
+        if (b != expected) {
+            throw badFraming("expected " + (expected == LF ? "line feed" : "'" + (char) expected + "'"));
+        }
+    }
+
+    private NetconfException badFraming(String reason) {
+        // Whatever follows cannot be framed reliably
+        reset();
+        return new NetconfException("Badly framed message: " + reason);
+    }
+
+    private void ensureCapacity(int count) {
+        if (length + count > message.length) {
+            message = Arrays.copyOf(message, Math.max(message.length * 2, length + count));
+        }
+    }
+
+    private void complete() {
+        ByteBuffer content = ByteBuffer.wrap(Arrays.copyOf(message, length));
+        reset();
+        messageHandler.accept(content);
+    }
+
+    private void reset() {
+        state = State.START;
+        length = 0;
+        if (message.length > RETAINED_CAPACITY) {
+            message = new byte[INITIAL_CAPACITY];
+        }
+    }
+}
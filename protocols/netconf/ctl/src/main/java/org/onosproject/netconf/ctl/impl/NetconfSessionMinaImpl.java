@@ -25,7 +25,6 @@ import com.google.common.collect.Sets;
 import org.apache.sshd.client.SshClient;
 import org.apache.sshd.client.channel.ClientChannel;
 import org.apache.sshd.client.future.ConnectFuture;
-import org.apache.sshd.client.future.OpenFuture;
 import org.apache.sshd.client.session.ClientSession;
 import org.apache.sshd.common.FactoryManager;
 import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
@@ -293,23 +292,49 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
         return kf.generatePublic(spec);
     }
 
-    // FIXME blocking
-    @Deprecated
     private void openChannel() throws IOException {
+        String serverHelloResponse;
+        try {
+            serverHelloResponse = openChannelAsync()
+                    .get(connectTimeout + (long) replyTimeout, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NetconfException("Interrupted opening channel with device " + deviceInfo, e);
+        } catch (TimeoutException e) {
+            throw new NetconfException("Timed out opening channel with device " + deviceInfo, e);
+        } catch (ExecutionException e) {
+            throw new NetconfException("Failed to open channel with device " + deviceInfo, e.getCause());
+        } finally {
+            replies.remove(-1);
+        }
+        processHello(serverHelloResponse);
+    }
+
+    // Opens the channel and exchanges the hello messages on the I/O threads
+    // of the SSH client, completing with the hello of the device.
+    private CompletableFuture<String> openChannelAsync() throws IOException {
         channel = session.createSubsystemChannel("netconf");
-        OpenFuture channelFuture = channel.open();
-        if (channelFuture.await(connectTimeout, TimeUnit.SECONDS)) {
-            if (channelFuture.isOpened()) {
-                streamHandler = new NetconfStreamThread(channel.getInvertedOut(), channel.getInvertedIn(),
-                        channel.getInvertedErr(), deviceInfo,
-                        new NetconfSessionDelegateImpl(), replies);
-                primaryListeners.forEach(l -> streamHandler.addDeviceEventListener(l));
-            } else {
-                throw new NetconfException("Failed to open channel with device " +
-                        deviceInfo);
+        channel.setStreaming(ClientChannel.Streaming.Async);
+        CompletableFuture<String> serverHello = new CompletableFuture<>();
+        channel.open().addListener(future -> {
+            if (!future.isOpened()) {
+                serverHello.completeExceptionally(future.getException() != null ? future.getException() :
+                        new NetconfException("Failed to open channel with device " + deviceInfo));
+                return;
             }
-            sendHello();
-        }
+            streamHandler = new NetconfAsyncStreamHandler(channel, deviceInfo,
+                    new NetconfSessionDelegateImpl(), replies);
+            primaryListeners.forEach(l -> streamHandler.addDeviceEventListener(l));
+            String hello = formatRequestMessageId(formatXmlHeader(createHelloString()), -1);
+            streamHandler.sendMessage(hello, -1).whenComplete((reply, error) -> {
+                if (error != null) {
+                    serverHello.completeExceptionally(error);
+                } else {
+                    serverHello.complete(reply.trim());
+                }
+            });
+        });
+        return serverHello;
     }
 
 
@@ -428,8 +453,7 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
         }
     }
 
-    private void sendHello() throws NetconfException {
-        String serverHelloResponse = sendRequest(createHelloString(), true);
+    private void processHello(String serverHelloResponse) throws NetconfException {
         Matcher capabilityMatcher = CAPABILITY_REGEX_PATTERN.matcher(serverHelloResponse);
         while (capabilityMatcher.find()) {
             deviceCapabilities.add(capabilityMatcher.group(1));
@@ -628,10 +652,6 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
         return streamHandler.sendMessage(request, messageId);
     }
 
-    private String sendRequest(String request, boolean isHello) throws NetconfException {
-        return sendRequest(request, isHello, replyTimeout);
-    }
-
     private String sendRequest(String request) throws NetconfException {
         // FIXME probably chunk-encoding too early
         request = formatNetconfMessage(request);
@@ -791,6 +811,9 @@ public class NetconfSessionMinaImpl extends AbstractNetconfSession {
             throw new NetconfException(ioe.getMessage());
         } finally {
             disconnected = true;
+            if (streamHandler != null) {
+                streamHandler.close();
+            }
             stopClient();
         }
     }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.netconf.ctl.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onosproject.netconf.NetconfException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the decoding of the framing of NETCONF messages.
+ */
+public class NetconfMessageFramerTest {
+
+    private static final String HELLO = "<hello xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"/>";
+    private static final String REPLY = "<rpc-reply message-id=\"1\"><data>été</data></rpc-reply>";
+
+    private final List<String> messages = new ArrayList<>();
+    private final NetconfMessageFramer framer =
+            new NetconfMessageFramer(message -> messages.add(UTF_8.decode(message).toString()));
+
+    // Feeds the given bytes in pieces of the given size.
+    private void decode(byte[] bytes, int size) throws NetconfException {
+        for (int i = 0; i < bytes.length; i += size) {
+            framer.decode(ByteBuffer.wrap(bytes, i, Math.min(size, bytes.length - i)));
+        }
+    }
+
+    private static byte[] chunked(String message, int chunkSize) {
+        byte[] content = message.getBytes(UTF_8);
+        List<byte[]> parts = new ArrayList<>();
+        for (int i = 0; i < content.length; i += chunkSize) {
+            int size = Math.min(chunkSize, content.length - i);
+            parts.add(("\n#" + size + "\n").getBytes(UTF_8));
+            byte[] part = new byte[size];
+            System.arraycopy(content, i, part, 0, size);
+            parts.add(part);
+        }
+        parts.add("\n##\n".getBytes(UTF_8));
+        ByteBuffer buffer = ByteBuffer.allocate(parts.stream().mapToInt(part -> part.length).sum());
+        parts.forEach(buffer::put);
+        return buffer.array();
+    }
+
+    /**
+     * Tests messages framed by the end-of-message delimiter, read in pieces
+     * splitting the delimiter.
+     */
+    @Test
+    public void endOfMessage() throws NetconfException {
+        byte[] bytes = (HELLO + "]]>]]>" + "]]]>]]" + REPLY + "]]>]]>").getBytes(UTF_8);
+        for (int size : new int[]{1, 2, 5, bytes.length}) {
+            messages.clear();
+            decode(bytes, size);
+            assertEquals(ImmutableList.of(HELLO, "]]]>]]" + REPLY), messages);
+        }
+    }
+
+    /**
+     * Tests chunked messages following a hello framed by the end-of-message
+     * delimiter, with multi-byte characters split across chunks.
+     */
+    @Test
+    public void chunked() throws NetconfException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        buffer.put((HELLO + "]]>]]>\n").getBytes(UTF_8));
+        buffer.put(chunked(REPLY, 3));
+        buffer.put(chunked(REPLY, 1000));
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+
+        for (int size : new int[]{1, 3, 7, bytes.length}) {
+            messages.clear();
+            decode(bytes, size);
+            assertEquals(ImmutableList.of(HELLO, REPLY, REPLY), messages);
+        }
+    }
+
+    /**
+     * Tests that badly framed chunked messages are rejected.
+     */
+    @Test
+    public void badlyFramed() throws NetconfException {
+        for (String bytes : new String[]{"\n##\n", "\n#0\n", "\n#3\nabcd", "\n#a\n", "\n#99999999999\n"}) {
+            try {
+                decode(bytes.getBytes(UTF_8), 1);
+                fail("Badly framed message accepted: " + bytes);
+            } catch (NetconfException e) {
+                assertEquals(0, messages.size());
+            }
+        }
+
+        // The framer starts over with the next message
+        decode(chunked(REPLY, 10), 10);
+        assertEquals(ImmutableList.of(REPLY), messages);
+    }
+}
@@ -118,6 +118,24 @@ public final class DefaultOpenFlowPacketContext implements OpenFlowPacketContext
         return null;
     }
 
+    @Override
+    public Ethernet parsedLazily() {
+        checkPermission(PACKET_READ);
+
+        try {
+            return Ethernet.lazyDeserializer().deserialize(
+                    pktin.getData(), 0, pktin.getData().length);
+        } catch (BufferUnderflowException | NullPointerException |
+                DeserializationException e) {
+            Logger log = LoggerFactory.getLogger(getClass());
+            log.error("Packet deserialization problem", e);
+        } catch (Exception e) {
+            Logger log = LoggerFactory.getLogger(getClass());
+            log.error("Unexpected packet deserialization problem", e);
+        }
+        return null;
+    }
+
     @Override
     public Dpid dpid() {
         checkPermission(PACKET_READ);
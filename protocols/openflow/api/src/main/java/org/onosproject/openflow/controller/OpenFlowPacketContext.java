@@ -71,6 +71,20 @@ public interface OpenFlowPacketContext {
      */
     Ethernet parsed();
 
+    /**
+     * Provides a handle onto the payload with only its Ethernet header
+     * parsed; the upper layers are parsed upon first access to the payload.
+     * Unlike {@link #parsed()}, a malformed upper layer does not fail the
+     * whole frame, but is surfaced as {@link org.onlab.packet.Data} with
+     * the error available from {@link Ethernet#getPayloadError()}.
+     *
+     * @return the lazily parsed form of the payload; null if the Ethernet
+     * header could not be parsed
+     */
+    default Ethernet parsedLazily() {
+        return parsed();
+    }
+
     /**
      * Provide an unparsed copy of the data.
      *
@@ -30,6 +30,7 @@ import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.config.NetworkConfigRegistry;
@@ -108,6 +109,7 @@ public class Controller {
     // Configuration options
     protected List<Integer> openFlowPorts = ImmutableList.of(6633, 6653);
     protected int workerThreads = 0;
+    protected int dispatcherThreads = 0;
     protected int[] cfgQueueSizes = {FIRST_QUEUE_SIZE, 0, 0, 0, 0, 0, 0, DEFAULT_QUEUE_SIZE};
     protected int[] cfgBulkSizes = new int[8];
 
@@ -119,6 +121,11 @@ public class Controller {
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
 
+    // Pool dispatching the messages of all channels; null if each channel
+    // dispatches its messages on its own thread
+    protected OFMessageDispatcher messageDispatcher;
+    private MetricsService metricsService;
+
     enum TlsMode {
         DISABLED, // TLS is not used for OpenFlow connections
         ENABLED,  // Clients are required use TLS and present a client certificate
@@ -148,6 +155,15 @@ public class Controller {
         return cfgBulkSizes[queueId];
     }
 
+    /**
+     * Sets the metrics service used to report the dispatching of messages.
+     *
+     * @param metricsService metrics service; may be null
+     */
+    public void setMetricsService(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
     // **************
     // Initialization
     // **************
@@ -264,6 +280,7 @@ public class Controller {
     public void setConfigParams(Dictionary<?, ?> properties) {
         boolean restartRequired = setOpenFlowPorts(properties);
         restartRequired |= setWorkerThreads(properties);
+        restartRequired |= setDispatcherThreads(properties);
         restartRequired |= setTlsParameters(properties);
         if (restartRequired) {
             restart();
@@ -326,6 +343,30 @@ public class Controller {
         return oldValue != this.workerThreads; // restart if number of threads has changed
     }
 
+    /**
+     * Gets the number of message dispatcher threads from property dict.
+     *
+     * @param properties dictionary
+     * @return true if restart is required
+     */
+    private boolean setDispatcherThreads(Dictionary<?, ?> properties) {
+        int oldValue = this.dispatcherThreads;
+
+        String threads = get(properties, "dispatcherThreads");
+        if (!Strings.isNullOrEmpty(threads)) {
+            int value = Integer.parseInt(threads);
+            if (value >= 0) {
+                this.dispatcherThreads = value;
+            } else {
+                throw new IllegalArgumentException(
+                    "dispatcherThreads value must be either 0 or a positive integer value");
+            }
+        }
+        log.debug("Number of dispatcher threads set to {}", this.dispatcherThreads);
+
+        return oldValue != this.dispatcherThreads; // restart if number of threads has changed
+    }
+
     static class TlsParams {
         final TlsMode mode;
         final String ksLocation;
@@ -640,6 +681,9 @@ public class Controller {
         this.agent = ag;
         this.driverService = driverService;
         this.netCfgService = netCfgService;
+        if (dispatcherThreads > 0) {
+            messageDispatcher = new OFMessageDispatcher(dispatcherThreads, metricsService);
+        }
         this.init();
         this.addListeningPorts(this.openFlowPorts);
     }
@@ -664,6 +708,11 @@ public class Controller {
             log.warn("Interrupted while stopping", e);
             Thread.currentThread().interrupt();
         }
+
+        if (messageDispatcher != null) {
+            messageDispatcher.shutdown();
+            messageDispatcher = null;
+        }
     }
 
     private void restart() {
@@ -44,6 +44,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -221,6 +222,20 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
      */
     private Future<?> dispatcherHandle = CompletableFuture.completedFuture(null);
 
+    /**
+     * Pool shared by all channels for OFMessage dispatching; null if the
+     * channel uses its own dispatcher thread.
+     *
+     * Gets initialized on channelActive, cleared on channelInactive.
+     */
+    private volatile OFMessageDispatcher sharedDispatcher;
+
+    /**
+     * Number of messages dropped because their queue or the dispatch
+     * backlog was full.
+     */
+    private final LongAdder backlogDrops = new LongAdder();
+
     /**
      * Dispatch backlog.
      * <p>
@@ -1327,7 +1342,12 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
             channelId = channel.toString();
         }
 
-        dispatcher = Executors.newSingleThreadExecutor(groupedThreads("onos/of/dispatcher", channelId, log));
+        sharedDispatcher = controller.messageDispatcher;
+        if (sharedDispatcher != null) {
+            sharedDispatcher.register(this);
+        } else {
+            dispatcher = Executors.newSingleThreadExecutor(groupedThreads("onos/of/dispatcher", channelId, log));
+        }
 
         /*
             hack to wait for the switch to tell us what it's
@@ -1349,6 +1369,10 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
             dispatcher.shutdownNow();
             dispatcher = null;
         }
+        if (sharedDispatcher != null) {
+            sharedDispatcher.unregister(this);
+            sharedDispatcher = null;
+        }
 
          if (thisdpid != 0) {
              if (!duplicateDpidFound) {
@@ -1522,6 +1546,9 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
     private boolean pushMessageToQueue(OFMessage message, int idQueue) {
         if (!dispatchQueuesMapProducer.get(idQueue).offer(message)) {
             return false;
+        } else if (sharedDispatcher != null) {
+            totalCount.incrementAndGet();
+            return true;
         } else {
             incrementAndSignal();
             return true;
@@ -1603,19 +1630,56 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
         } while (queuesSize > 0);
     }
 
+    /**
+     * Process one bulk of messages from each dispatch queue; invoked by
+     * the shared dispatcher.
+     */
+    void processMessageBulk() {
+        List<OFMessage> msgs = new ArrayList<>();
+        int processed = 0;
+        for (LinkedBlockingMessagesQueue<OFMessage> queue :
+                dispatchQueuesMapProducer.values()) {
+            processed += queue.drainTo(msgs);
+        }
+        for (OFMessage msg : msgs) {
+            try {
+                sw.handleMessage(msg);
+            } catch (RuntimeException e) {
+                log.warn("Failed to dispatch message {} of {}", msg.getType(), getSwitchInfoString(), e);
+            }
+        }
+        totalCount.addAndGet(-1 * processed);
+    }
+
+    /**
+     * Returns the number of messages in the dispatch queues.
+     *
+     * @return count of messages in all queues
+     */
+    int pendingMessages() {
+        return totalCount.get();
+    }
+
     private void dispatchMessage(OFMessage m) {
         log.debug("Begin dispatch OpenFlow Message");
         boolean backlogEmpty = processDispatchBacklogQueue();
         if (m.getType() == OFType.PACKET_IN) {
             Ethernet pkt = parsePacketInMessage(m);
-            pushMessageToQueue(m, classifyEthernetPacket(pkt));
+            if (!pushMessageToQueue(m, classifyEthernetPacket(pkt))) {
+                backlogDrops.increment();
+            }
         } else {
             if (!backlogEmpty || !pushMessageToQueue(m, NUM_OF_QUEUES - 1)) {
-                dispatchBacklog.offer(m);
+                if (!dispatchBacklog.offer(m)) {
+                    backlogDrops.increment();
+                }
             }
         }
 
-        if (dispatcherHandle.isDone()) {
+        OFMessageDispatcher messageDispatcher = sharedDispatcher;
+        if (messageDispatcher != null) {
+            messageDispatcher.schedule(this);
+        } else if (dispatcherHandle.isDone()) {
             // dispatcher terminated for some reason, restart
             dispatcherHandle = dispatcher.submit((Runnable) () -> {
                 try {
@@ -1643,6 +1707,34 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
         }
     }
 
+    /**
+     * Returns the identifier of the channel, made of the remote address.
+     *
+     * @return channel identifier
+     */
+    String channelId() {
+        return channelId;
+    }
+
+    /**
+     * Returns the number of messages waiting to be dispatched.
+     *
+     * @return number of messages in the dispatch queues and backlog
+     */
+    int queueDepth() {
+        return Math.max(totalCount.get(), 0) + dispatchBacklog.size();
+    }
+
+    /**
+     * Returns the number of messages dropped because their queue or the
+     * dispatch backlog was full.
+     *
+     * @return number of dropped messages
+     */
+    long backlogDrops() {
+        return backlogDrops.sum();
+    }
+
     /**
      * Return a string describing this switch based on the already available
      * information (DPID and/or remote socket).
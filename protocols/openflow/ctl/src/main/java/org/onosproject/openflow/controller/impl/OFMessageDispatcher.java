@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.openflow.controller.impl;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.onlab.util.Tools.groupedThreads;
+
+/**
+ * Pool of worker threads shared by the channel handlers to dispatch the
+ * messages of their queues, in place of a dispatcher thread per switch.
+ * <p>
+ * A channel handler with pending messages is scheduled at most once at a
+ * time, so that the messages of a switch are handled in order. Each run
+ * drains a single bulk from each queue of the handler, which is then
+ * scheduled again behind the other switches waiting for the pool.
+ */
+class OFMessageDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OFMessageDispatcher.class);
+
+    private static final String COMPONENT = "OpenFlowController";
+    private static final String FEATURE = "dispatcher";
+    private static final String LATENCY = "latency";
+    private static final String QUEUE_DEPTH = "queueDepth";
+    private static final String BACKLOG_DROPS = "backlogDrops";
+
+    private final ExecutorService executor;
+    // Channels scheduled on the pool, with the time they were scheduled at
+    private final Map<OFChannelHandler, Long> scheduled = new ConcurrentHashMap<>();
+    private final MetricsService metricsService;
+    private MetricsComponent metricsComponent;
+    private MetricsFeature metricsFeature;
+    private Histogram latency = new Histogram(new ExponentiallyDecayingReservoir());
+
+    /**
+     * Creates a dispatcher with the given number of worker threads.
+     *
+     * @param threads        number of worker threads
+     * @param metricsService metrics service to report to; may be null
+     */
+    OFMessageDispatcher(int threads, MetricsService metricsService) {
+        this.executor = Executors.newFixedThreadPool(threads, groupedThreads("onos/of", "dispatcher-%d", log));
+        this.metricsService = metricsService;
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent(COMPONENT);
+            metricsFeature = metricsComponent.registerFeature(FEATURE);
+            latency = metricsService.createHistogram(metricsComponent, metricsFeature, LATENCY);
+        }
+    }
+
+    /**
+     * Reports the queue depth and the backlog drops of a channel.
+     *
+     * @param channel channel handler
+     */
+    void register(OFChannelHandler channel) {
+        if (metricsService != null) {
+            metricsService.registerMetric(metricsComponent, metricsFeature,
+                                          metricName(channel, QUEUE_DEPTH),
+                                          (Gauge<Integer>) channel::queueDepth);
+            metricsService.registerMetric(metricsComponent, metricsFeature,
+                                          metricName(channel, BACKLOG_DROPS),
+                                          (Gauge<Long>) channel::backlogDrops);
+        }
+    }
+
+    /**
+     * Stops reporting the metrics of a channel.
+     *
+     * @param channel channel handler
+     */
+    void unregister(OFChannelHandler channel) {
+        if (metricsService != null) {
+            metricsService.removeMetric(metricsComponent, metricsFeature, metricName(channel, QUEUE_DEPTH));
+            metricsService.removeMetric(metricsComponent, metricsFeature, metricName(channel, BACKLOG_DROPS));
+        }
+    }
+
+    private static String metricName(OFChannelHandler channel, String name) {
+        return channel.channelId() + "." + name;
+    }
+
+    /**
+     * Schedules the dispatching of the pending messages of a channel,
+     * unless already scheduled.
+     *
+     * @param channel channel handler
+     */
+    void schedule(OFChannelHandler channel) {
+        if (scheduled.putIfAbsent(channel, System.nanoTime()) == null) {
+            try {
+                executor.execute(() -> dispatch(channel));
+            } catch (RejectedExecutionException e) {
+                log.debug("Dispatcher has been shut down; dropping run of {}", channel);
+                scheduled.remove(channel);
+            }
+        }
+    }
+
+    private void dispatch(OFChannelHandler channel) {
+        Long since = scheduled.get(channel);
+        if (since != null) {
+            latency.update(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - since));
+        }
+        channel.processMessageBulk();
+
+        // Messages queued while the channel was being processed could not
+        // schedule it again, so check for them once unscheduled.
+        scheduled.remove(channel);
+        if (channel.pendingMessages() > 0) {
+            schedule(channel);
+        }
+    }
+
+    /**
+     * Returns the distribution of the times, in microseconds, that the
+     * channels waited for a worker thread.
+     *
+     * @return dispatch latency histogram
+     */
+    Histogram latency() {
+        return latency;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+        if (metricsService != null) {
+            metricsService.removeMetric(metricsComponent, metricsFeature, LATENCY);
+        }
+    }
+}
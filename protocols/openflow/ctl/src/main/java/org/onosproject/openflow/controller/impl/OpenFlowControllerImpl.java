@@ -18,6 +18,7 @@ package org.onosproject.openflow.controller.impl;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.DeviceId;
@@ -50,6 +51,7 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.projectfloodlight.openflow.protocol.OFCalientFlowStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFCalientFlowStatsReply;
 import org.projectfloodlight.openflow.protocol.OFCircuitPortStatus;
@@ -103,6 +105,7 @@ import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.*;
         property = {
                 OFPORTS + "=" + OFPORTS_DEFAULT,
                 WORKER_THREADS + ":Integer=" + WORKER_THREADS_DEFAULT,
+                DISPATCHER_THREADS + ":Integer=" + DISPATCHER_THREADS_DEFAULT,
                 TLS_MODE + "=" + TLS_MODE_DEFAULT,
                 KEY_STORE + "=" + KEY_STORE_DEFAULT,
                 KEY_STORE_PASSWORD + "=" + KEY_STORE_PASSWORD_DEFAULT,
@@ -146,12 +149,19 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected NetworkConfigRegistry netCfgService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
     /** Port numbers (comma separated) used by OpenFlow protocol; default is 6633,6653. */
     private String openflowPorts = OFPORTS_DEFAULT;
 
     /** Number of controller worker threads. */
     private int workerThreads = WORKER_THREADS_DEFAULT;
 
+    /** Number of threads dispatching the messages of all switches; 0 for a thread per switch. */
+    private int dispatcherThreads = DISPATCHER_THREADS_DEFAULT;
+
     /** TLS mode for OpenFlow channel; options are: disabled [default], enabled, strict. */
     private String tlsMode;
 
@@ -340,6 +350,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         cfgService.registerProperties(getClass());
         netCfgService.registerConfigFactory(factory);
         netCfgService.addListener(netCfgListener);
+        ctrl.setMetricsService(metricsService);
         ctrl.setConfigParams(context.getProperties());
         ctrl.start(agent, driverService, netCfgService);
         openFlowManager.addListener(openFlowListener);
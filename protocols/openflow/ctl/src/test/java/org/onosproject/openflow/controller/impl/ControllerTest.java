@@ -185,6 +185,26 @@ public class ControllerTest {
         assertThat(controller.workerThreads, is(5));
     }
 
+    /**
+     * Tests the lifecycle of the shared message dispatcher.
+     */
+    @Test
+    public void testSharedDispatcher() {
+        controller.start(null, new MockDriverService(), null);
+        assertThat(controller.messageDispatcher, nullValue());
+        controller.stop();
+
+        Dictionary<String, String> properties = new Hashtable<>();
+        properties.put("dispatcherThreads", "4");
+        controller.setConfigParams(properties);
+        assertThat(controller.dispatcherThreads, is(4));
+
+        controller.start(null, new MockDriverService(), null);
+        assertThat(controller.messageDispatcher, notNullValue());
+        controller.stop();
+        assertThat(controller.messageDispatcher, nullValue());
+    }
+
     /**
      * Tests the SSL/TLS methods in the controller.
      */
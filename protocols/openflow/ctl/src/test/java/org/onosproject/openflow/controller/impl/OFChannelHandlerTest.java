@@ -26,11 +26,23 @@ import org.onosproject.openflow.OFDescStatsReplyAdapter;
 import org.onosproject.openflow.OpenflowSwitchDriverAdapter;
 import org.onosproject.openflow.controller.Dpid;
 import org.projectfloodlight.openflow.protocol.OFDescStatsReply;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.easymock.EasyMock.*;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.junit.TestTools.assertAfter;
 import static org.onosproject.openflow.controller.impl.OFChannelHandler.ChannelState.ACTIVE;
 import static org.onosproject.openflow.controller.impl.OFChannelHandler.ChannelState.WAIT_DESCRIPTION_STAT_REPLY;
 import static org.onosproject.openflow.controller.impl.OFChannelHandler.ChannelState.WAIT_SWITCH_DRIVER_SUB_HANDSHAKE;
@@ -157,4 +169,85 @@ public class OFChannelHandlerTest {
         verify(controller);
     }
 
+    // Messages dispatched in order by the shared dispatcher
+    @Test
+    public void testSharedDispatcher() throws Exception {
+        List<OFMessage> handled = new CopyOnWriteArrayList<>();
+        try {
+            dispatchBarrierReplies(handled::add);
+
+            assertAfter(5000, () -> assertEquals(50, handled.size()));
+            assertEquals(LongStream.range(0, 50).boxed().collect(Collectors.toList()),
+                         handled.stream().map(OFMessage::getXid).collect(Collectors.toList()));
+            assertEquals(0, channelHandler.queueDepth());
+            assertEquals(0, channelHandler.backlogDrops());
+            // Each run drains a single bulk of the queue
+            assertTrue(controller.messageDispatcher.latency().getCount() >= 17);
+        } finally {
+            controller.messageDispatcher.shutdown();
+        }
+
+        // Finally verify
+        verify(controller);
+    }
+
+    // A message failing to be handled does not drop the rest of the bulk
+    @Test
+    public void testSharedDispatcherFailure() throws Exception {
+        List<OFMessage> handled = new CopyOnWriteArrayList<>();
+        try {
+            dispatchBarrierReplies(msg -> {
+                if (msg.getXid() % 10 == 0) {
+                    throw new IllegalStateException("failed " + msg.getXid());
+                }
+                handled.add(msg);
+            });
+
+            assertAfter(5000, () -> assertEquals(45, handled.size()));
+            assertEquals(LongStream.range(0, 50).filter(xid -> xid % 10 != 0).boxed().collect(Collectors.toList()),
+                         handled.stream().map(OFMessage::getXid).collect(Collectors.toList()));
+            assertEquals(0, channelHandler.queueDepth());
+        } finally {
+            controller.messageDispatcher.shutdown();
+        }
+
+        // Finally verify
+        verify(controller);
+    }
+
+    // Activates the channel with a switch passing its messages to the given
+    // handler, and reads 50 barrier replies through the shared dispatcher.
+    private void dispatchBarrierReplies(Consumer<OFMessage> handler) throws Exception {
+        controller = createMock(Controller.class);
+        for (int i = 0; i < OFChannelHandler.NUM_OF_QUEUES - 1; i++) {
+            expect(controller.getQueueSize(i)).andReturn(0);
+        }
+        expect(controller.getQueueSize(OFChannelHandler.NUM_OF_QUEUES - 1)).andReturn(100).anyTimes();
+        expect(controller.getBulkSize(OFChannelHandler.NUM_OF_QUEUES - 1)).andReturn(3);
+
+        OFDescStatsReply reply = new OFDescStatsReplyAdapter();
+        expect(controller.getOFSwitchInstance(0, reply, OF_13)).andReturn(
+                new OpenflowSwitchDriverAdapter(ImmutableSet.of(), Dpid.dpid(Dpid.uri(0)), true) {
+                    @Override
+                    public void handleMessage(OFMessage fromSwitch) {
+                        handler.accept(fromSwitch);
+                    }
+                });
+        replay(controller);
+        controller.messageDispatcher = new OFMessageDispatcher(2, null);
+
+        channelHandler = new OFChannelHandler(controller);
+        channelHandler.ofVersion = OF_13;
+        channelHandler.channelActive(channelHandlerContext);
+        channelHandler.setState(WAIT_DESCRIPTION_STAT_REPLY);
+        channelHandler.channelRead(channelHandlerContext, reply);
+        assertThat(channelHandler.getStateForTesting(), is(ACTIVE));
+
+        OFFactory factory = OFFactories.getFactory(OF_13);
+        for (long xid = 0; xid < 50; xid++) {
+            channelHandler.channelRead(channelHandlerContext,
+                                       factory.buildBarrierReply().setXid(xid).build());
+        }
+    }
+
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdb.controller;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.ovsdb.rfc.notation.Column;
+import org.onosproject.ovsdb.rfc.notation.OvsdbMap;
+import org.onosproject.ovsdb.rfc.notation.Row;
+import org.onosproject.ovsdb.rfc.notation.Uuid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.onosproject.ovsdb.controller.OvsdbConstant.EXTERNAL_ID;
+import static org.onosproject.ovsdb.controller.OvsdbConstant.EXTERNAL_ID_INTERFACE_ID;
+import static org.onosproject.ovsdb.controller.OvsdbConstant.INTERFACE;
+
+/**
+ * Measures the lookup of the interfaces of a few VMs by interface id in the
+ * Interface table of a large synthetic database, either by scanning the rows
+ * or through a secondary index, and the cost of keeping the index updated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OvsdbRowStoreBenchmark {
+
+    private static final String IFACE_ID_INDEX = "iface-id";
+    private static final int LOOKUPS = 4;
+
+    /**
+     * Number of rows of the Interface table.
+     */
+    @Param({"1000", "10000"})
+    public int rows;
+
+    private OvsdbRowStore rowStore;
+    private OvsdbRowStore indexedRowStore;
+    private List<String> ifaceIds;
+    private int updates;
+
+    private static Row row(int i) {
+        Map<String, Column> columns = Maps.newHashMap();
+        columns.put("name", new Column("name", "tap" + i));
+        columns.put(EXTERNAL_ID, new Column(EXTERNAL_ID, OvsdbMap.ovsdbMap(
+                ImmutableMap.of(EXTERNAL_ID_INTERFACE_ID, "iface-" + i, "attached-mac", "fa:16:3e:00:00:01"))));
+        return new Row(INTERFACE, Uuid.uuid("uuid-" + i), columns);
+    }
+
+    private static String ifaceId(Row row) {
+        Column column = row.getColumn(EXTERNAL_ID);
+        Object ifaceId = column == null ? null : ((OvsdbMap) column.data()).map().get(EXTERNAL_ID_INTERFACE_ID);
+        return ifaceId == null ? null : ifaceId.toString();
+    }
+
+    @Setup
+    public void setUp() {
+        rowStore = new OvsdbRowStore();
+        indexedRowStore = new OvsdbRowStore();
+        indexedRowStore.addIndex(IFACE_ID_INDEX, OvsdbRowStoreBenchmark::ifaceId);
+        for (int i = 0; i < rows; i++) {
+            rowStore.insertRow("uuid-" + i, row(i));
+            indexedRowStore.insertRow("uuid-" + i, row(i));
+        }
+        ifaceIds = IntStream.range(0, LOOKUPS).mapToObj(i -> "iface-" + (i * rows / LOOKUPS))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Set<String> scan() {
+        Set<String> ids = Sets.newHashSet(ifaceIds);
+        return rowStore.getRowStore().entrySet().stream()
+                .filter(entry -> ids.contains(ifaceId(entry.getValue())))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public Set<String> index() {
+        Set<String> uuids = Sets.newHashSet();
+        ifaceIds.forEach(ifaceId -> uuids.addAll(indexedRowStore.getRowUuids(IFACE_ID_INDEX, ifaceId)));
+        return uuids;
+    }
+
+    @Benchmark
+    public OvsdbRowStore indexedUpdate() {
+        int i = updates++ % rows;
+        indexedRowStore.insertRow("uuid-" + i, row(i));
+        return indexedRowStore;
+    }
+}
@@ -322,6 +322,20 @@ public interface OvsdbClientService extends OvsdbRpc {
      */
     ListenableFuture<TableUpdates> monitorTables(String dbName, String id);
 
+    /**
+     * Gets the OVSDB table updates, leaving some columns out of the
+     * monitoring, e.g. frequently updated columns no one is interested in.
+     *
+     * @param dbName          database name
+     * @param id              random uuid
+     * @param excludedColumns names of the columns not to monitor, by table name
+     * @return table updates
+     */
+    default ListenableFuture<TableUpdates> monitorTables(String dbName, String id,
+                                                         Map<String, Set<String>> excludedColumns) {
+        return monitorTables(dbName, id);
+    }
+
     /**
      * Gets the OVSDB database schema from local.
      *
@@ -15,18 +15,31 @@
  */
 package org.onosproject.ovsdb.controller;
 
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
 import org.onosproject.ovsdb.rfc.notation.Row;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * The class representing a table data.
+ * <p>
+ * Rows may also be looked up by secondary indexes, which map a key derived
+ * from each row, e.g. the value of one of its columns, to the uuids of the
+ * rows having that key. Indexes are kept up to date as rows are inserted
+ * and deleted.
  */
 public class OvsdbRowStore {
 
     private final ConcurrentMap<String, Row> rowStore = Maps.newConcurrentMap();
+    private final Map<String, Function<Row, String>> indexKeys = Maps.newConcurrentMap();
+    private final Map<String, ConcurrentMap<String, Set<String>>> indexes = Maps.newConcurrentMap();
 
     /**
      * Gets the row.
@@ -45,7 +58,15 @@ public class OvsdbRowStore {
      * @param row a row of the table
      */
     public void insertRow(String uuid, Row row) {
-        rowStore.put(uuid, row);
+        Row oldRow = rowStore.put(uuid, row);
+        indexKeys.forEach((index, indexKey) -> {
+            String oldKey = oldRow == null ? null : indexKey.apply(oldRow);
+            String newKey = indexKey.apply(row);
+            if (!Objects.equals(oldKey, newKey)) {
+                unindex(index, oldKey, uuid);
+                index(index, newKey, uuid);
+            }
+        });
     }
 
     /**
@@ -54,7 +75,55 @@ public class OvsdbRowStore {
      * @param uuid key of the row
      */
     public void deleteRow(String uuid) {
-        rowStore.remove(uuid);
+        Row oldRow = rowStore.remove(uuid);
+        if (oldRow != null) {
+            indexKeys.forEach((index, indexKey) -> unindex(index, indexKey.apply(oldRow), uuid));
+        }
+    }
+
+    /**
+     * Adds a secondary index of the rows, indexing the rows already present.
+     *
+     * @param index    name of the index
+     * @param indexKey function giving the key of a row in the index, or
+     *                 null if the row is not to be indexed
+     */
+    public void addIndex(String index, Function<Row, String> indexKey) {
+        indexes.put(index, Maps.newConcurrentMap());
+        indexKeys.put(index, indexKey);
+        rowStore.forEach((uuid, row) -> index(index, indexKey.apply(row), uuid));
+    }
+
+    /**
+     * Gets the uuids of the rows having the given key in a secondary index.
+     *
+     * @param index name of the index
+     * @param key   key of the rows in the index
+     * @return uuids of the rows, empty if none or if there is no such index
+     */
+    public Set<String> getRowUuids(String index, String key) {
+        Map<String, Set<String>> keys = indexes.get(index);
+        Set<String> uuids = keys == null || key == null ? null : keys.get(key);
+        return uuids == null ? ImmutableSet.of() : ImmutableSet.copyOf(uuids);
+    }
+
+    private void index(String index, String key, String uuid) {
+        if (key != null) {
+            indexes.get(index).compute(key, (k, uuids) -> {
+                Set<String> indexed = uuids == null ? Sets.newConcurrentHashSet() : uuids;
+                indexed.add(uuid);
+                return indexed;
+            });
+        }
+    }
+
+    private void unindex(String index, String key, String uuid) {
+        if (key != null) {
+            indexes.get(index).computeIfPresent(key, (k, uuids) -> {
+                uuids.remove(uuid);
+                return uuids.isEmpty() ? null : uuids;
+            });
+        }
     }
 
     /**
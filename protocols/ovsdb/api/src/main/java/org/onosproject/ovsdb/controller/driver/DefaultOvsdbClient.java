@@ -18,6 +18,7 @@ package org.onosproject.ovsdb.controller.driver;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -139,6 +140,10 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
     private static final int TRANSACTCONFIG_TIMEOUT = 3; //sec
     private static final int OFPORT_ERROR_COMPARISON = 0;
 
+    // Secondary indexes of the rows of the Bridge, Port and Interface tables
+    private static final String NAME_INDEX = "name";
+    private static final String IFACE_ID_INDEX = "iface-id";
+
     private final Logger log = LoggerFactory.getLogger(DefaultOvsdbClient.class);
 
     private Channel channel;
@@ -268,13 +273,45 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
         }
         OvsdbRowStore rowStore = tableStore.getRows(tableName);
         if (rowStore == null) {
-            rowStore = new OvsdbRowStore();
+            rowStore = createRowStore(tableName);
         }
         rowStore.insertRow(uuid, row);
         tableStore.createOrUpdateTable(tableName, rowStore);
         ovsdbStore.createOrUpdateOvsdbStore(dbName, tableStore);
     }
 
+    /**
+     * Creates the row store of a table, indexing the rows looked up by
+     * name or by interface id.
+     *
+     * @param tableName the ovsdb table name
+     * @return ovsRowStore
+     */
+    private static OvsdbRowStore createRowStore(String tableName) {
+        OvsdbRowStore rowStore = new OvsdbRowStore();
+        if (BRIDGE.equals(tableName) || PORT.equals(tableName) || INTERFACE.equals(tableName)) {
+            rowStore.addIndex(NAME_INDEX, DefaultOvsdbClient::getNameKey);
+        }
+        if (INTERFACE.equals(tableName)) {
+            rowStore.addIndex(IFACE_ID_INDEX, DefaultOvsdbClient::getIfaceIdKey);
+        }
+        return rowStore;
+    }
+
+    private static String getNameKey(Row row) {
+        Column column = row.getColumn(Interface.InterfaceColumn.NAME.columnName());
+        return column != null && column.data() instanceof String ? (String) column.data() : null;
+    }
+
+    private static String getIfaceIdKey(Row row) {
+        Column column = row.getColumn(EXTERNAL_ID);
+        if (column == null || !(column.data() instanceof OvsdbMap)) {
+            return null;
+        }
+        Object ifaceId = ((OvsdbMap) column.data()).map().get(EXTERNAL_ID_INTERFACE_ID);
+        return ifaceId == null ? null : ifaceId.toString();
+    }
+
     @Override
     public String getMirrorUuid(String mirrorName) {
         DatabaseSchema dbSchema = schema.get(DATABASENAME);
@@ -394,27 +431,13 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
 
     @Override
     public String getBridgeUuid(String bridgeName) {
-        DatabaseSchema dbSchema = schema.get(DATABASENAME);
         OvsdbRowStore rowStore = getRowStore(DATABASENAME, BRIDGE);
         if (rowStore == null) {
             log.debug("The bridge uuid is null");
             return null;
         }
 
-        ConcurrentMap<String, Row> bridgeTableRows = rowStore.getRowStore();
-        if (bridgeTableRows == null) {
-            log.debug("The bridge uuid is null");
-            return null;
-        }
-
-        for (String uuid : bridgeTableRows.keySet()) {
-            Bridge bridge = (Bridge) TableGenerator
-                    .getTable(dbSchema, bridgeTableRows.get(uuid), OvsdbTable.BRIDGE);
-            if (bridge.getName().equals(bridgeName)) {
-                return uuid;
-            }
-        }
-        return null;
+        return rowStore.getRowUuids(NAME_INDEX, bridgeName).stream().findFirst().orElse(null);
     }
 
     private String getOvsUuid(String dbName) {
@@ -1342,6 +1365,12 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
 
     @Override
     public ListenableFuture<TableUpdates> monitorTables(String dbName, String id) {
+        return monitorTables(dbName, id, ImmutableMap.of());
+    }
+
+    @Override
+    public ListenableFuture<TableUpdates> monitorTables(String dbName, String id,
+                                                        Map<String, Set<String>> excludedColumns) {
         if (dbName == null) {
             return null;
         }
@@ -1356,7 +1385,7 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
                 }
                 return updates;
             };
-            return futureTransform(monitor(dbSchema, id), rowFunction);
+            return futureTransform(monitor(dbSchema, id, excludedColumns), rowFunction);
         }
         return null;
     }
@@ -1416,9 +1445,14 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
     @Override
     public ListenableFuture<JsonNode> monitor(DatabaseSchema dbSchema,
                                               String monitorId) {
+        return monitor(dbSchema, monitorId, ImmutableMap.of());
+    }
+
+    private ListenableFuture<JsonNode> monitor(DatabaseSchema dbSchema, String monitorId,
+                                               Map<String, Set<String>> excludedColumns) {
         String id = java.util.UUID.randomUUID().toString();
         String monitorString = JsonRpcWriterUtil.monitorStr(id, monitorId,
-                                                            dbSchema);
+                                                            dbSchema, excludedColumns);
 
         SettableFuture<JsonNode> sf = SettableFuture.create();
         requestResult.put(id, sf);
@@ -1638,8 +1672,15 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
 
     @Override
     public Interface getInterface(String intf) {
-        return getInterfaces().stream()
-                .filter(ovsdbIntf -> ovsdbIntf.getName().equals(intf))
+        OvsdbRowStore rowStore = getRowStore(DATABASENAME, INTERFACE);
+        if (rowStore == null) {
+            return null;
+        }
+        return rowStore.getRowUuids(NAME_INDEX, intf).stream()
+                .map(rowStore::getRow)
+                .filter(Objects::nonNull)
+                .map(this::getInterface)
+                .filter(Objects::nonNull)
                 .findAny().orElse(null);
     }
 
@@ -1779,49 +1820,33 @@ public class DefaultOvsdbClient implements OvsdbProviderService, OvsdbClientServ
         if (rowStore == null) {
             return null;
         }
-        ConcurrentMap<String, Row> rows = rowStore.getRowStore();
-        for (String uuid : rows.keySet()) {
-            Row row = getRow(DATABASENAME, INTERFACE, uuid);
-            DatabaseSchema dbSchema = getDatabaseSchema(DATABASENAME);
-            Interface intf = (Interface) TableGenerator
-                    .getTable(dbSchema, row, OvsdbTable.INTERFACE);
-            if (intf == null || getIfaceid(intf) == null) {
-                continue;
-            }
-            String portName = intf.getName();
-            if (portName == null) {
-                continue;
-            }
-            Set<String> ifaceidSet = Sets.newHashSet(ifaceids);
-            if (portName.startsWith(TYPEVXLAN) || !ifaceidSet.contains(getIfaceid(intf))) {
-                continue;
-            }
-            long ofPort = getOfPort(intf);
-            if (ofPort < 0) {
-                continue;
+        DatabaseSchema dbSchema = getDatabaseSchema(DATABASENAME);
+        for (String ifaceid : Sets.newHashSet(ifaceids)) {
+            for (String uuid : rowStore.getRowUuids(IFACE_ID_INDEX, ifaceid)) {
+                Row row = rowStore.getRow(uuid);
+                if (row == null) {
+                    continue;
+                }
+                Interface intf = (Interface) TableGenerator
+                        .getTable(dbSchema, row, OvsdbTable.INTERFACE);
+                if (intf == null) {
+                    continue;
+                }
+                String portName = intf.getName();
+                if (portName == null || portName.startsWith(TYPEVXLAN)) {
+                    continue;
+                }
+                long ofPort = getOfPort(intf);
+                if (ofPort < 0) {
+                    continue;
+                }
+                ovsdbPorts.add(new OvsdbPort(new OvsdbPortNumber(ofPort),
+                                             new OvsdbPortName(portName)));
             }
-            ovsdbPorts.add(new OvsdbPort(new OvsdbPortNumber(ofPort),
-                                         new OvsdbPortName(portName)));
         }
         return ovsdbPorts;
     }
 
-    private String getIfaceid(Interface intf) {
-        OvsdbMap ovsdbMap = (OvsdbMap) intf.getExternalIdsColumn().data();
-        @SuppressWarnings("unchecked")
-        Map<String, String> externalIds = ovsdbMap.map();
-        if (externalIds.isEmpty()) {
-            log.warn("The external_ids is null");
-            return null;
-        }
-        String ifaceid = externalIds.get(EXTERNAL_ID_INTERFACE_ID);
-        if (ifaceid == null) {
-            log.warn("The ifaceid is null");
-            return null;
-        }
-        return ifaceid;
-    }
-
     @Override
     public void disconnect() {
         channel.disconnect();
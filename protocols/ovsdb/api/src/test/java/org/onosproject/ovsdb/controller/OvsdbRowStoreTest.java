@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ovsdb.controller;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.ovsdb.rfc.notation.Column;
+import org.onosproject.ovsdb.rfc.notation.Row;
+import org.onosproject.ovsdb.rfc.notation.Uuid;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the secondary indexes of the row store.
+ */
+public class OvsdbRowStoreTest {
+
+    private static final String NAME = "name";
+
+    private OvsdbRowStore rowStore;
+
+    private static Row row(String uuid, String name) {
+        Row row = new Row(OvsdbConstant.INTERFACE, Uuid.uuid(uuid), Maps.newHashMap());
+        if (name != null) {
+            row.addColumn(NAME, new Column(NAME, name));
+        }
+        return row;
+    }
+
+    private static String name(Row row) {
+        Column column = row.getColumn(NAME);
+        return column == null ? null : (String) column.data();
+    }
+
+    @Before
+    public void setUp() {
+        rowStore = new OvsdbRowStore();
+        rowStore.insertRow("1", row("1", "tap1"));
+        rowStore.addIndex(NAME, OvsdbRowStoreTest::name);
+    }
+
+    /**
+     * Tests that the index follows insertions, updates and deletions.
+     */
+    @Test
+    public void index() {
+        assertEquals(ImmutableSet.of("1"), rowStore.getRowUuids(NAME, "tap1"));
+
+        rowStore.insertRow("2", row("2", "tap1"));
+        rowStore.insertRow("3", row("3", null));
+        assertEquals(ImmutableSet.of("1", "2"), rowStore.getRowUuids(NAME, "tap1"));
+
+        rowStore.insertRow("1", row("1", "tap2"));
+        assertEquals(ImmutableSet.of("2"), rowStore.getRowUuids(NAME, "tap1"));
+        assertEquals(ImmutableSet.of("1"), rowStore.getRowUuids(NAME, "tap2"));
+
+        rowStore.deleteRow("2");
+        rowStore.deleteRow("3");
+        assertEquals(ImmutableSet.of(), rowStore.getRowUuids(NAME, "tap1"));
+        assertEquals(ImmutableSet.of("1"), rowStore.getRowUuids(NAME, "tap2"));
+    }
+
+    /**
+     * Tests lookups of missing keys and indexes.
+     */
+    @Test
+    public void missing() {
+        assertEquals(ImmutableSet.of(), rowStore.getRowUuids(NAME, "tap3"));
+        assertEquals(ImmutableSet.of(), rowStore.getRowUuids(NAME, null));
+        assertEquals(ImmutableSet.of(), rowStore.getRowUuids("iface-id", "tap1"));
+    }
+}
@@ -41,4 +41,7 @@ public final class OsgiPropertyConstants {
     public static final String TS_PASSWORD = "trustStorePassword";
     public static final String TS_PASSWORD_DEFAULT = "222222";
 
+    public static final String MONITOR_EXCLUDED_COLUMNS = "monitorExcludedColumns";
+    public static final String MONITOR_EXCLUDED_COLUMNS_DEFAULT = "";
+
 }
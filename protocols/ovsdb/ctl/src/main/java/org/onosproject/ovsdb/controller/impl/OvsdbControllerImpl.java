@@ -18,6 +18,9 @@ package org.onosproject.ovsdb.controller.impl;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Multimaps;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.MacAddress;
 import org.onlab.packet.TpPort;
@@ -95,6 +98,7 @@ import static org.onosproject.ovsdb.controller.impl.OsgiPropertyConstants.*;
                 "keyStorePassword" + "=" + KS_PASSWORD_DEFAULT,
                 "trustStoreLocation" + "=" + TS_FILE_DEFAULT,
                 "trustStorePassword" + "=" + TS_PASSWORD_DEFAULT,
+                MONITOR_EXCLUDED_COLUMNS + "=" + MONITOR_EXCLUDED_COLUMNS_DEFAULT,
         })
 public class OvsdbControllerImpl implements OvsdbController {
 
@@ -133,6 +137,11 @@ public class OvsdbControllerImpl implements OvsdbController {
     /** TrustStore Password. */
     protected String trustStorePassword = TS_PASSWORD_DEFAULT;
 
+    /** Columns left out of the monitoring of newly connected nodes, as comma-separated Table:column pairs. */
+    protected String monitorExcludedColumns = MONITOR_EXCLUDED_COLUMNS_DEFAULT;
+
+    private volatile Map<String, Set<String>> excludedColumns = ImmutableMap.of();
+
     @Activate
     public void activate(ComponentContext context) {
         configService.registerProperties(getClass());
@@ -162,6 +171,7 @@ public class OvsdbControllerImpl implements OvsdbController {
      * @param properties dictionary
      */
     public void setConfigParams(Dictionary<?, ?> properties) {
+        setMonitorExcludedColumns(properties);
         boolean restartRequired = setServerMode(properties);
         TlsParams tlsParams = getTlsParams(properties);
         restartRequired |= controller.setTlsParameters(tlsParams);
@@ -219,6 +229,27 @@ public class OvsdbControllerImpl implements OvsdbController {
         return tlsParams;
     }
 
+    private void setMonitorExcludedColumns(Dictionary<?, ?> properties) {
+        String columns = get(properties, MONITOR_EXCLUDED_COLUMNS);
+        if (columns == null) {
+            return;
+        }
+        ImmutableSetMultimap.Builder<String, String> builder = ImmutableSetMultimap.builder();
+        for (String column : columns.split(",")) {
+            String[] names = column.trim().split(":");
+            if (names.length != 2 || names[0].isEmpty() || names[1].isEmpty()) {
+                if (!column.trim().isEmpty()) {
+                    log.warn("Ignoring badly formatted excluded column {}", column);
+                }
+                continue;
+            }
+            builder.put(names[0], names[1]);
+        }
+        monitorExcludedColumns = columns;
+        excludedColumns = Multimaps.asMap(builder.build());
+        log.info("Configured. Columns left out of monitoring are {}", excludedColumns);
+    }
+
     private boolean setServerMode(Dictionary<?, ?> properties) {
         boolean flag = Tools.isPropertyEnabled(properties, "serverMode");
         if (Objects.isNull(flag) || flag == serverMode) {
@@ -487,7 +518,8 @@ public class OvsdbControllerImpl implements OvsdbController {
                         log.debug("Begin to monitor tables");
                         String id = java.util.UUID.randomUUID().toString();
                         TableUpdates updates = ovsdbClient
-                                .monitorTables(dbName, id).get(DEFAULT_OVSDB_RPC_TIMEOUT, TimeUnit.MILLISECONDS);
+                                .monitorTables(dbName, id, excludedColumns)
+                                .get(DEFAULT_OVSDB_RPC_TIMEOUT, TimeUnit.MILLISECONDS);
 
                         requestDbName.put(id, dbName);
                         requestNotification.put(id, ovsdbClient);
@@ -18,8 +18,8 @@ package org.onosproject.ovsdb.rfc.utils;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 
-import java.io.DataInput;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Stack;
 
@@ -40,6 +40,9 @@ import com.fasterxml.jackson.databind.MappingJsonFactory;
  */
 public final class JsonRpcReaderUtil {
 
+    // Factories are thread-safe and costly to create, being bound to a mapper
+    private static final MappingJsonFactory JSON_FACTORY = new MappingJsonFactory();
+
     /**
      * Constructs a JsonRpcReaderUtil object. Utility classes should not have a
      * public or default constructor, otherwise IDE will compile unsuccessfully.
@@ -97,9 +100,11 @@ public final class JsonRpcReaderUtil {
 
             if (jrContext.isStartMatch() && bufStack.isEmpty()) {
                 ByteBuf buf = in.readSlice(i - in.readerIndex() + 1);
-                JsonParser jf = new MappingJsonFactory().createParser((DataInput) new ByteBufInputStream(buf));
-                JsonNode jsonNode = jf.readValueAsTree();
-                out.add(jsonNode);
+                // Parse from a buffered stream of the slice rather than byte by byte
+                try (JsonParser jf = JSON_FACTORY.createParser((InputStream) new ByteBufInputStream(buf))) {
+                    JsonNode jsonNode = jf.readValueAsTree();
+                    out.add(jsonNode);
+                }
                 lastReadBytes = 0;
                 jrContext.setLastReadBytes(lastReadBytes);
                 break;
@@ -16,6 +16,8 @@
 package org.onosproject.ovsdb.rfc.utils;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.onosproject.ovsdb.rfc.jsonrpc.JsonRpcRequest;
 import org.onosproject.ovsdb.rfc.operations.Operation;
@@ -88,6 +90,22 @@ public final class JsonRpcWriterUtil {
                              ParamUtil.getMonitorParams(monotorId, dbSchema));
     }
 
+    /**
+     * Returns string of monitor request leaving out some columns.
+     * @param uuid id of monitor request
+     * @param monotorId json-value in params of monitor request
+     * @param dbSchema DatabaseSchema entity
+     * @param excludedColumns names of the columns not to monitor, by table name
+     * @return monitor Request String
+     */
+    public static String monitorStr(String uuid, String monotorId,
+                                    DatabaseSchema dbSchema,
+                                    Map<String, Set<String>> excludedColumns) {
+        String methodName = "monitor";
+        return getRequestStr(uuid, methodName,
+                             ParamUtil.getMonitorParams(monotorId, dbSchema, excludedColumns));
+    }
+
     /**
      * Returns string of list_dbs request.
      * @param uuid id of list_dbs request
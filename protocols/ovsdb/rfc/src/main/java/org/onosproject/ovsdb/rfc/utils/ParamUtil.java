@@ -25,8 +25,10 @@ import org.onosproject.ovsdb.rfc.operations.Operation;
 import org.onosproject.ovsdb.rfc.schema.DatabaseSchema;
 import org.onosproject.ovsdb.rfc.schema.TableSchema;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * Params utility class. Params of the request object, refer to RFC7047's
@@ -48,8 +50,18 @@ public final class ParamUtil {
      * @return MonitorRequest
      */
     private static MonitorRequest getAllColumnsMonitorRequest(TableSchema tableSchema) {
+        return getColumnsMonitorRequest(tableSchema, tableSchema.getColumnNames());
+    }
+
+    /**
+     * Returns MonitorRequest of some columns, refer to RFC7047's Section 4.1.5.
+     * @param tableSchema entity
+     * @param columns names of the columns to monitor
+     * @return MonitorRequest
+     */
+    private static MonitorRequest getColumnsMonitorRequest(TableSchema tableSchema,
+                                                           Set<String> columns) {
         String tableName = tableSchema.name();
-        Set<String> columns = tableSchema.getColumnNames();
         MonitorSelect select = new MonitorSelect(true, true, true, true);
         MonitorRequest monitorRequest = new MonitorRequest(tableName, columns, select);
         return monitorRequest;
@@ -72,6 +84,28 @@ public final class ParamUtil {
         return Lists.newArrayList(dbSchema.name(), monotorId, mrMap);
     }
 
+    /**
+     * Returns params of monitor method leaving out some columns, refer to
+     * RFC7047's Section 4.1.5.
+     * @param monotorId json-value, refer to RFC7047's Section 4.1.5.
+     * @param dbSchema DatabaseSchema entity
+     * @param excludedColumns names of the columns not to monitor, by table name
+     * @return List of Object, the params of monitor request
+     */
+    public static List<Object> getMonitorParams(String monotorId, DatabaseSchema dbSchema,
+                                                Map<String, Set<String>> excludedColumns) {
+        Set<String> tables = dbSchema.getTableNames();
+        Map<String, MonitorRequest> mrMap = Maps.newHashMap();
+        for (String tableName : tables) {
+            TableSchema tableSchema = dbSchema.getTableSchema(tableName);
+            Set<String> columns = Sets.difference(tableSchema.getColumnNames(),
+                                                  excludedColumns.getOrDefault(tableName, ImmutableSet.of()));
+            MonitorRequest monitorRequest = getColumnsMonitorRequest(tableSchema, ImmutableSet.copyOf(columns));
+            mrMap.put(tableName, monitorRequest);
+        }
+        return Lists.newArrayList(dbSchema.name(), monotorId, mrMap);
+    }
+
     /**
      * Returns params of transact method, refer to RFC7047's Section 4.1.3.
      * @param dbSchema DatabaseSchema entity
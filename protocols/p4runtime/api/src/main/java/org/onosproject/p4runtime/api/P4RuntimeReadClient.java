@@ -26,6 +26,7 @@ import org.onosproject.net.pi.runtime.PiHandle;
 
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * P4Runtime client interface for the Read RPC that allows reading multiple
@@ -216,10 +217,20 @@ public interface P4RuntimeReadClient {
          */
         ReadResponse submitSync();
 
-        //TODO: implement per-entity asynchronous reads. This would allow a user
-        // of this client to process read entities as they arrive, instead of
-        // waiting for the client to receive them all. Java 9 Reactive Streams
-        // seems a good way of doing it.
+        /**
+         * Submits the read request and passes each entity to the given
+         * consumer as soon as it is received by the P4Runtime client, instead
+         * of accumulating all entities in the read response. The future is
+         * completed once all entities have been consumed; the read response
+         * signals the outcome of the request but does not contain any entity.
+         * <p>
+         * The consumer is invoked sequentially, in the order entities are
+         * returned by the server.
+         *
+         * @param consumer consumer of PI entities
+         * @return completable future of a read response with no entities
+         */
+        CompletableFuture<ReadResponse> submit(Consumer<PiEntity> consumer);
     }
 
     /**
@@ -70,6 +70,7 @@ public final class P4RuntimeClientImpl
     private final PipelineConfigClientImpl pipelineConfigClient;
     private final PiPipeconfService pipeconfService;
     private final MasterElectionIdStore masterElectionIdStore;
+    private final WriteDispatcher writeDispatcher;
     private final ConcurrentMap<Long, StreamClientImpl> streamClients = Maps.newConcurrentMap();
 
     /**
@@ -96,6 +97,7 @@ public final class P4RuntimeClientImpl
         this.pipeconfService = pipeconfService;
         this.masterElectionIdStore = masterElectionIdStore;
         this.pipelineConfigClient = new PipelineConfigClientImpl(this);
+        this.writeDispatcher = new WriteDispatcher(this, controller);
     }
 
     @Override
@@ -231,6 +233,15 @@ public final class P4RuntimeClientImpl
         return this.deviceId;
     }
 
+    /**
+     * Returns the dispatcher of the write requests of this client.
+     *
+     * @return write dispatcher
+     */
+    WriteDispatcher writeDispatcher() {
+        return writeDispatcher;
+    }
+
     /**
      * Returns the election ID last used in a MasterArbitrationUpdate message
      * sent by the client to the server for the given P4Runtime-internal device
@@ -32,6 +32,7 @@ import p4.v1.P4RuntimeOuterClass;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onosproject.p4runtime.ctl.codec.Codecs.CODECS;
@@ -91,7 +92,12 @@ public final class ReadResponseImpl implements P4RuntimeReadClient.ReadResponse
     }
 
     static Builder builder(DeviceId deviceId, PiPipeconf pipeconf) {
-        return new Builder(deviceId, pipeconf);
+        return new Builder(deviceId, pipeconf, null);
+    }
+
+    static Builder builder(DeviceId deviceId, PiPipeconf pipeconf,
+                           Consumer<PiEntity> consumer) {
+        return new Builder(deviceId, pipeconf, consumer);
     }
 
     /**
@@ -101,6 +107,9 @@ public final class ReadResponseImpl implements P4RuntimeReadClient.ReadResponse
 
         private final DeviceId deviceId;
         private final PiPipeconf pipeconf;
+        // If not null, entities are passed to the consumer instead of being
+        // accumulated in the response.
+        private final Consumer<PiEntity> consumer;
         private final List<PiEntity> entities = Lists.newArrayList();
         private final ListMultimap<Class<? extends PiEntity>, PiEntity>
                 typeToEntities = ArrayListMultimap.create();
@@ -109,14 +118,20 @@ public final class ReadResponseImpl implements P4RuntimeReadClient.ReadResponse
         private String explanation;
         private Throwable throwable;
 
-        private Builder(DeviceId deviceId, PiPipeconf pipeconf) {
+        private Builder(DeviceId deviceId, PiPipeconf pipeconf,
+                        Consumer<PiEntity> consumer) {
             this.deviceId = deviceId;
             this.pipeconf = pipeconf;
+            this.consumer = consumer;
         }
 
         void addEntity(P4RuntimeOuterClass.Entity entityMsg) {
             try {
                 final PiEntity piEntity = CODECS.entity().decode(entityMsg, null, pipeconf);
+                if (consumer != null) {
+                    consumer.accept(piEntity);
+                    return;
+                }
                 entities.add(piEntity);
                 typeToEntities.put(piEntity.getClass(), piEntity);
             } catch (CodecException e) {
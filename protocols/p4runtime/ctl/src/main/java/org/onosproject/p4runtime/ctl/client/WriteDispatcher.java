@@ -0,0 +1,347 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.p4runtime.ctl.client;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.google.common.collect.Lists;
+import com.google.protobuf.Any;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.TextFormat;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.onlab.util.SharedScheduledExecutors;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient;
+import org.onosproject.p4runtime.ctl.controller.P4RuntimeControllerImpl;
+import org.slf4j.Logger;
+import p4.v1.P4RuntimeOuterClass;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.onosproject.p4runtime.ctl.client.P4RuntimeClientImpl.SHORT_TIMEOUT_SECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Sends the updates of write requests to a device in Write RPCs.
+ * <p>
+ * Up to a window of Write RPCs may be in flight at the same time. Requests
+ * that cannot be sent yet are queued, and consecutive queued requests for the
+ * same P4Runtime-internal device ID and election ID are merged in the same
+ * RPC, up to a maximum serialized size; requests are never reordered. If
+ * enabled, the updates of a request are also split in chunks within that
+ * maximum size. Requests may also be held for a linger
+ * time, so that concurrent small requests are merged even when the window is
+ * not full. Only requests with atomicity CONTINUE_ON_ERROR are split or merged,
+ * as for the other modes the server applies the updates of an RPC as a whole.
+ * <p>
+ * The response to a request is built once all of its chunks have been
+ * answered by the server.
+ */
+final class WriteDispatcher {
+
+    private static final Logger log = getLogger(WriteDispatcher.class);
+
+    private static final P4RuntimeOuterClass.WriteResponse P4RT_DEFAULT_WRITE_RESPONSE_MSG =
+            P4RuntimeOuterClass.WriteResponse.getDefaultInstance();
+
+    private final P4RuntimeClientImpl client;
+    private final P4RuntimeControllerImpl controller;
+    private final Meter entityRate;
+    private final Histogram rpcLatency;
+
+    private final Deque<Chunk> queue = new ArrayDeque<>();
+    private int queuedSize;
+    private int inFlight;
+    private boolean flushScheduled;
+
+    /**
+     * Creates a new dispatcher for the given client.
+     *
+     * @param client     P4Runtime client
+     * @param controller P4Runtime controller, providing the configuration and
+     *                   metrics of the dispatcher
+     */
+    WriteDispatcher(P4RuntimeClientImpl client, P4RuntimeControllerImpl controller) {
+        this.client = client;
+        this.controller = controller;
+        final Meter entityRate = controller.writeEntityRate(client.deviceId());
+        this.entityRate = entityRate != null ? entityRate : new Meter();
+        final Histogram rpcLatency = controller.writeRpcLatency(client.deviceId());
+        this.rpcLatency = rpcLatency != null
+                ? rpcLatency : new Histogram(new ExponentiallyDecayingReservoir());
+    }
+
+    /**
+     * Submits the given write request, returning a future of the response
+     * built with the given builder. The i-th update of the request must
+     * correspond to the i-th pending update of the builder.
+     *
+     * @param request         write request
+     * @param responseBuilder response builder
+     * @return future of the write response
+     */
+    CompletableFuture<P4RuntimeWriteClient.WriteResponse> submit(
+            P4RuntimeOuterClass.WriteRequest request,
+            WriteResponseImpl.Builder responseBuilder) {
+        final Submission submission = new Submission(responseBuilder);
+        final int maxMessageSize = controller.writeMaxMessageSize();
+        final List<Chunk> chunks = split(request, submission,
+                                         controller.writeSplitRequests() ? maxMessageSize : 0);
+        final int lingerMillis = controller.writeLingerMillis();
+        synchronized (this) {
+            chunks.forEach(chunk -> {
+                queue.add(chunk);
+                queuedSize += chunk.size;
+            });
+            if (lingerMillis > 0 && (maxMessageSize <= 0 || queuedSize < maxMessageSize)) {
+                // Wait for other requests to fill the next RPC.
+                if (!flushScheduled) {
+                    flushScheduled = true;
+                    SharedScheduledExecutors.newTimeout(
+                            this::flush, lingerMillis, TimeUnit.MILLISECONDS);
+                }
+                return submission.future;
+            }
+        }
+        dispatch();
+        return submission.future;
+    }
+
+    private void flush() {
+        synchronized (this) {
+            flushScheduled = false;
+        }
+        dispatch();
+    }
+
+    private List<Chunk> split(P4RuntimeOuterClass.WriteRequest request,
+                              Submission submission, int maxMessageSize) {
+        final P4RuntimeOuterClass.WriteRequest header = request.toBuilder()
+                .clearUpdates().build();
+        final List<P4RuntimeOuterClass.Update> updates = request.getUpdatesList();
+        final boolean mergeable = request.getAtomicity()
+                == P4RuntimeOuterClass.WriteRequest.Atomicity.CONTINUE_ON_ERROR;
+        final List<Chunk> chunks = Lists.newArrayList();
+        int from = 0;
+        int size = 0;
+        for (int i = 0; i < updates.size(); i++) {
+            final int updateSize = CodedOutputStream.computeMessageSize(
+                    P4RuntimeOuterClass.WriteRequest.UPDATES_FIELD_NUMBER, updates.get(i));
+            if (mergeable && maxMessageSize > 0 && i > from && size + updateSize > maxMessageSize) {
+                chunks.add(new Chunk(header, mergeable, updates.subList(from, i), from, size, submission));
+                from = i;
+                size = 0;
+            }
+            size += updateSize;
+        }
+        chunks.add(new Chunk(header, mergeable, updates.subList(from, updates.size()), from, size, submission));
+        submission.remaining.set(chunks.size());
+        return chunks;
+    }
+
+    private void dispatch() {
+        final List<Rpc> rpcs = Lists.newArrayList();
+        synchronized (this) {
+            final int window = controller.writeWindow();
+            final int maxMessageSize = controller.writeMaxMessageSize();
+            while (!queue.isEmpty() && (window <= 0 || inFlight < window)) {
+                rpcs.add(nextRpc(maxMessageSize));
+                inFlight++;
+            }
+        }
+        rpcs.forEach(this::send);
+    }
+
+    private Rpc nextRpc(int maxMessageSize) {
+        final Rpc rpc = new Rpc(queue.remove());
+        if (rpc.first.mergeable) {
+            // Merge the chunks that follow, stopping at the first one that
+            // cannot be merged, so that the writes are never reordered.
+            Chunk chunk = queue.peek();
+            while (chunk != null && chunk.mergeable && chunk.header.equals(rpc.first.header)
+                    && (maxMessageSize <= 0 || rpc.size + chunk.size <= maxMessageSize)) {
+                rpc.add(queue.remove());
+                chunk = queue.peek();
+            }
+        }
+        queuedSize -= rpc.size;
+        return rpc;
+    }
+
+    private void send(Rpc rpc) {
+        final P4RuntimeOuterClass.WriteRequest.Builder requestMsg = rpc.first.header.toBuilder();
+        rpc.chunks.forEach(chunk -> requestMsg.addAllUpdates(chunk.updates));
+        final P4RuntimeOuterClass.WriteRequest request = requestMsg.build();
+        log.debug("Sending write request to {} with {} updates...",
+                  client.deviceId(), request.getUpdatesCount());
+        final long start = System.nanoTime();
+        final StreamObserver<P4RuntimeOuterClass.WriteResponse> observer =
+                new StreamObserver<P4RuntimeOuterClass.WriteResponse>() {
+                    @Override
+                    public void onNext(P4RuntimeOuterClass.WriteResponse value) {
+                        if (!P4RT_DEFAULT_WRITE_RESPONSE_MSG.equals(value)) {
+                            log.warn("Received invalid WriteResponse message from {}: {}",
+                                     client.deviceId(), TextFormat.shortDebugString(value));
+                            // Leave all entity responses in pending state.
+                        } else {
+                            log.debug("Received write response from {}...",
+                                      client.deviceId());
+                            // All good, all entities written successfully.
+                            rpc.chunks.forEach(chunk -> chunk.submission.responseBuilder
+                                    .setSuccess(chunk.offset, chunk.offset + chunk.updates.size()));
+                        }
+                        done(rpc, start);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        if (!setErrors(rpc, request.getUpdatesCount(), t)
+                                || Status.fromThrowable(t).getCode() != Status.Code.UNKNOWN) {
+                            // If UNKNOWN and the error details have been
+                            // reconciled, a log message has been produced for
+                            // each failed entity. No need to log the top level
+                            // SRE. Otherwise, log a generic WRITE error.
+                            client.handleRpcError(t, "WRITE");
+                        }
+                        done(rpc, start);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        // Nothing to do, unary call.
+                    }
+                };
+        entityRate.mark(request.getUpdatesCount());
+        try {
+            client.execRpc(s -> s.write(request, observer), SHORT_TIMEOUT_SECONDS);
+        } catch (IllegalStateException e) {
+            // Client has been shut down.
+            observer.onError(e);
+        }
+    }
+
+    /**
+     * Sets the status of the updates of the given RPC from the given error,
+     * returning false if the error details could not be reconciled with the
+     * updates, which are then left pending.
+     */
+    private boolean setErrors(Rpc rpc, int updatesCount, Throwable throwable) {
+        final List<Any> details = WriteResponseImpl.errorDetails(throwable, client.deviceId());
+        if (details == null) {
+            rpc.chunks.forEach(chunk -> chunk.submission.responseBuilder
+                    .setFailure(chunk.offset, chunk.offset + chunk.updates.size(), throwable));
+            return true;
+        }
+        // We expect one error for each entity...
+        if (details.size() != updatesCount) {
+            log.warn("Unable to reconcile write error details from {}, " +
+                             "sent {} updates, but server returned {} errors",
+                     client.deviceId(), updatesCount, details.size());
+            WriteResponseImpl.logErrors(details);
+            return false;
+        }
+        // ...in the same order as in the request.
+        int index = 0;
+        for (Chunk chunk : rpc.chunks) {
+            final int end = index + chunk.updates.size();
+            chunk.submission.responseBuilder.setErrors(chunk.offset, details.subList(index, end));
+            index = end;
+        }
+        return true;
+    }
+
+    private void done(Rpc rpc, long start) {
+        rpcLatency.update(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        synchronized (this) {
+            inFlight--;
+        }
+        rpc.chunks.forEach(chunk -> chunk.submission.chunkDone());
+        dispatch();
+    }
+
+    /**
+     * A request submitted to the dispatcher.
+     */
+    private static final class Submission {
+
+        private final WriteResponseImpl.Builder responseBuilder;
+        private final CompletableFuture<P4RuntimeWriteClient.WriteResponse> future =
+                new CompletableFuture<>();
+        private final AtomicInteger remaining = new AtomicInteger();
+
+        private Submission(WriteResponseImpl.Builder responseBuilder) {
+            this.responseBuilder = responseBuilder;
+        }
+
+        private void chunkDone() {
+            if (remaining.decrementAndGet() == 0) {
+                future.complete(responseBuilder.buildAsIs());
+            }
+        }
+    }
+
+    /**
+     * Contiguous updates of a request, starting at the given offset.
+     */
+    private static final class Chunk {
+
+        // Request without updates, used to match chunks that can be merged.
+        private final P4RuntimeOuterClass.WriteRequest header;
+        private final boolean mergeable;
+        private final List<P4RuntimeOuterClass.Update> updates;
+        private final int offset;
+        private final int size;
+        private final Submission submission;
+
+        private Chunk(P4RuntimeOuterClass.WriteRequest header, boolean mergeable,
+                      List<P4RuntimeOuterClass.Update> updates, int offset, int size,
+                      Submission submission) {
+            this.header = header;
+            this.mergeable = mergeable;
+            this.updates = updates;
+            this.offset = offset;
+            this.size = size;
+            this.submission = submission;
+        }
+    }
+
+    /**
+     * Chunks sent in the same Write RPC.
+     */
+    private static final class Rpc {
+
+        private final Chunk first;
+        private final List<Chunk> chunks = Lists.newArrayList();
+        private int size;
+
+        private Rpc(Chunk first) {
+            this.first = first;
+            add(first);
+        }
+
+        private void add(Chunk chunk) {
+            chunks.add(chunk);
+            size += chunk.size;
+        }
+    }
+}
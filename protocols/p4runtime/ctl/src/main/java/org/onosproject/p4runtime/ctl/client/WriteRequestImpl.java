@@ -17,9 +17,6 @@
 package org.onosproject.p4runtime.ctl.client;
 
 import com.google.common.util.concurrent.Futures;
-import com.google.protobuf.TextFormat;
-import io.grpc.Status;
-import io.grpc.stub.StreamObserver;
 import org.onosproject.net.pi.model.PiPipeconf;
 import org.onosproject.net.pi.runtime.PiEntity;
 import org.onosproject.net.pi.runtime.PiHandle;
@@ -36,8 +33,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
 import static java.util.concurrent.CompletableFuture.completedFuture;
-import static org.onosproject.p4runtime.api.P4RuntimeWriteClient.EntityUpdateStatus.PENDING;
-import static org.onosproject.p4runtime.ctl.client.P4RuntimeClientImpl.SHORT_TIMEOUT_SECONDS;
 import static org.onosproject.p4runtime.ctl.codec.Codecs.CODECS;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -49,9 +44,6 @@ final class WriteRequestImpl implements P4RuntimeWriteClient.WriteRequest {
 
     private static final Logger log = getLogger(WriteRequestImpl.class);
 
-    private static final P4RuntimeOuterClass.WriteResponse P4RT_DEFAULT_WRITE_RESPONSE_MSG =
-            P4RuntimeOuterClass.WriteResponse.getDefaultInstance();
-
     private final P4RuntimeClientImpl client;
     private final PiPipeconf pipeconf;
     private final AtomicBoolean submitted = new AtomicBoolean(false);
@@ -165,54 +157,13 @@ final class WriteRequestImpl implements P4RuntimeWriteClient.WriteRequest {
                 .setElectionId(client.lastUsedElectionId(
                         requestMsg.getDeviceId()))
                 .build();
-        log.debug("Sending write request to {} with {} updates...",
+        log.debug("Submitting write request to {} with {} updates...",
                   client.deviceId(), writeRequest.getUpdatesCount());
         if (writeRequest.getUpdatesCount() == 0) {
             // No need to ask the server.
             return completedFuture(WriteResponseImpl.EMPTY);
         }
-        final CompletableFuture<P4RuntimeWriteClient.WriteResponse> future =
-                new CompletableFuture<>();
-        final StreamObserver<P4RuntimeOuterClass.WriteResponse> observer =
-                new StreamObserver<P4RuntimeOuterClass.WriteResponse>() {
-                    @Override
-                    public void onNext(P4RuntimeOuterClass.WriteResponse value) {
-                        if (!P4RT_DEFAULT_WRITE_RESPONSE_MSG.equals(value)) {
-                            log.warn("Received invalid WriteResponse message from {}: {}",
-                                     client.deviceId(), TextFormat.shortDebugString(value));
-                            // Leave all entity responses in pending state.
-                            future.complete(responseBuilder.buildAsIs());
-                        } else {
-                            log.debug("Received write response from {}...",
-                                      client.deviceId());
-                            // All good, all entities written successfully.
-                            future.complete(responseBuilder.setSuccessAllAndBuild());
-                        }
-                    }
-
-                    @Override
-                    public void onError(Throwable t) {
-                        final WriteResponseImpl response = responseBuilder
-                                .setErrorsAndBuild(t);
-                        if (Status.fromThrowable(t).getCode() != Status.Code.UNKNOWN
-                                || !response.status(PENDING).isEmpty()) {
-                            // If UNKNOWN and no entities are in PENDING state,
-                            // it means we have processed the response error
-                            // details and a log message will be produced for
-                            // each failed entity. No need to log the top level
-                            // SRE. Otherwise, log a generic WRITE error.
-                            client.handleRpcError(t, "WRITE");
-                        }
-                        future.complete(response);
-                    }
-
-                    @Override
-                    public void onCompleted() {
-                        // Nothing to do, unary call.
-                    }
-                };
-        client.execRpc(s -> s.write(writeRequest, observer), SHORT_TIMEOUT_SECONDS);
-        return future;
+        return client.writeDispatcher().submit(writeRequest, responseBuilder);
     }
 
     private void appendToRequestMsg(P4RuntimeWriteClient.UpdateType updateType,
@@ -176,23 +176,56 @@ final class WriteResponseImpl implements P4RuntimeWriteClient.WriteResponse {
             }
         }
 
-        WriteResponseImpl setSuccessAllAndBuild() {
+        /**
+         * Sets as successful the pending updates in the given index range.
+         *
+         * @param from first index, inclusive
+         * @param to   last index, exclusive
+         */
+        void setSuccess(int from, int to) {
             synchronized (this) {
-                pendingResponses.values().forEach(this::doSetSuccess);
-                return buildAsIs();
+                for (int index = from; index < to; index++) {
+                    setSuccess(index);
+                }
             }
         }
 
-        WriteResponseImpl setFailAllAndBuild(Throwable throwable) {
+        /**
+         * Sets as failed with the given throwable the pending updates in the
+         * given index range.
+         *
+         * @param from      first index, inclusive
+         * @param to        last index, exclusive
+         * @param throwable throwable
+         */
+        void setFailure(int from, int to, Throwable throwable) {
             synchronized (this) {
-                pendingResponses.values().forEach(r -> r.setFailure(throwable));
-                return buildAsIs();
+                for (int index = from; index < to; index++) {
+                    final EntityUpdateResponseImpl resp = pendingResponses.get(index);
+                    if (resp != null) {
+                        resp.setFailure(throwable);
+                    } else {
+                        log.error("Missing pending response at index {}", index);
+                    }
+                }
             }
         }
 
-        WriteResponseImpl setErrorsAndBuild(Throwable throwable) {
+        /**
+         * Sets the status of the pending updates starting at the given index
+         * from the given P4Runtime errors, one for each update in the same
+         * order as in the request.
+         *
+         * @param from    index of the update of the first error
+         * @param details P4Runtime errors
+         */
+        void setErrors(int from, List<Any> details) {
             synchronized (this) {
-                return doSetErrorsAndBuild(throwable);
+                int index = from;
+                for (Any any : details) {
+                    unpackP4Error(index, any);
+                    index += 1;
+                }
             }
         }
 
@@ -200,18 +233,14 @@ final class WriteResponseImpl implements P4RuntimeWriteClient.WriteResponse {
             synchronized (this) {
                 final EntityUpdateResponseImpl resp = pendingResponses.get(index);
                 if (resp != null && resp.status == EntityUpdateStatus.PENDING) {
-                    doSetSuccess(resp);
+                    resp.setSuccess();
+                    statusMap.put(EntityUpdateStatus.OK, resp);
                 } else {
                     log.error("Missing pending response at index {}", index);
                 }
             }
         }
 
-        private void doSetSuccess(EntityUpdateResponseImpl resp) {
-            resp.setSuccess();
-            statusMap.put(EntityUpdateStatus.OK, resp);
-        }
-
         private void setFailure(int index,
                                 String explanation,
                                 EntityUpdateStatus status) {
@@ -232,98 +261,118 @@ final class WriteResponseImpl implements P4RuntimeWriteClient.WriteResponse {
             }
         }
 
-        private WriteResponseImpl doSetErrorsAndBuild(Throwable throwable) {
-            if (!(throwable instanceof StatusRuntimeException)) {
-                // Leave all entity responses in pending state.
-                return setFailAllAndBuild(throwable);
-            }
-            final StatusRuntimeException sre = (StatusRuntimeException) throwable;
-            if (sre.getStatus().getCode() != Status.Code.UNKNOWN) {
-                // Error trailers expected only if status is UNKNOWN.
-                return setFailAllAndBuild(throwable);
-            }
-            // Extract error details.
-            if (!sre.getTrailers().containsKey(STATUS_DETAILS_KEY)) {
-                log.warn("Cannot parse write error details from {}, " +
-                                 "missing status trailers in StatusRuntimeException",
-                         deviceId);
-                return setFailAllAndBuild(throwable);
-            }
-            com.google.rpc.Status status = sre.getTrailers().get(STATUS_DETAILS_KEY);
-            if (status == null) {
-                log.warn("Cannot parse write error details from {}, " +
-                                 "found NULL status trailers in StatusRuntimeException",
-                         deviceId);
-                return setFailAllAndBuild(throwable);
-            }
-            final boolean reconcilable = status.getDetailsList().size() == pendingResponses.size();
-            // We expect one error for each entity...
-            if (!reconcilable) {
-                log.warn("Unable to reconcile write error details from {}, " +
-                                 "sent {} updates, but server returned {} errors",
-                         deviceId, pendingResponses.size(), status.getDetailsList().size());
-            }
-            // ...in the same order as in the request.
-            int index = 0;
-            for (Any any : status.getDetailsList()) {
-                // Set response entities only if reconcilable, otherwise log.
-                unpackP4Error(index, any, reconcilable);
-                index += 1;
-            }
-            return buildAsIs();
-        }
-
-        private void unpackP4Error(int index, Any any, boolean reconcilable) {
-            final P4RuntimeOuterClass.Error p4Error;
-            try {
-                p4Error = any.unpack(P4RuntimeOuterClass.Error.class);
-            } catch (InvalidProtocolBufferException e) {
-                final String unpackErr = format(
-                        "P4Runtime Error message format not recognized [%s]",
-                        TextFormat.shortDebugString(any));
-                if (reconcilable) {
-                    setFailure(index, unpackErr, EntityUpdateStatus.OTHER_ERROR);
-                } else {
-                    log.warn(unpackErr);
-                }
+        private void unpackP4Error(int index, Any any) {
+            final P4RuntimeOuterClass.Error p4Error = unpack(any);
+            if (p4Error == null) {
+                setFailure(index, unpackErrorMessage(any), EntityUpdateStatus.OTHER_ERROR);
                 return;
             }
-            // Map gRPC status codes to our WriteResponseStatus codes.
-            final Status.Code p4Code = Status.fromCodeValue(
-                    p4Error.getCanonicalCode()).getCode();
-            final EntityUpdateStatus ourCode;
-            switch (p4Code) {
-                case OK:
-                    if (reconcilable) {
-                        setSuccess(index);
-                    }
-                    return;
-                case NOT_FOUND:
-                    ourCode = EntityUpdateStatus.NOT_FOUND;
-                    break;
-                case ALREADY_EXISTS:
-                    ourCode = EntityUpdateStatus.ALREADY_EXIST;
-                    break;
-                default:
-                    ourCode = EntityUpdateStatus.OTHER_ERROR;
-                    break;
-            }
-            // Put the p4Code in the explanation only if ourCode is OTHER_ERROR.
-            final String explanationCode = ourCode == EntityUpdateStatus.OTHER_ERROR
-                    ? p4Code.name() + " " : "";
-            final String details = p4Error.hasDetails()
-                    ? ", " + p4Error.getDetails().toString() : "";
-            final String explanation = format(
-                    "%s%s%s (%s:%d)", explanationCode, p4Error.getMessage(),
-                    details, p4Error.getSpace(), p4Error.getCode());
-            if (reconcilable) {
-                setFailure(index, explanation, ourCode);
+            final EntityUpdateStatus ourCode = entityUpdateStatus(p4Error);
+            if (ourCode == EntityUpdateStatus.OK) {
+                setSuccess(index);
             } else {
-                log.warn("P4Runtime write error: {}", explanation);
+                setFailure(index, explanation(p4Error, ourCode), ourCode);
             }
         }
     }
 
+    /**
+     * Returns the P4Runtime errors carried by the given error of a Write
+     * RPC, expected to be one for each update in the same order as in the
+     * request, or null if the error does not carry such details and
+     * applies to all updates.
+     *
+     * @param throwable error of the Write RPC
+     * @param deviceId  device ID
+     * @return P4Runtime errors or null
+     */
+    static List<Any> errorDetails(Throwable throwable, DeviceId deviceId) {
+        if (!(throwable instanceof StatusRuntimeException)) {
+            return null;
+        }
+        final StatusRuntimeException sre = (StatusRuntimeException) throwable;
+        if (sre.getStatus().getCode() != Status.Code.UNKNOWN) {
+            // Error trailers expected only if status is UNKNOWN.
+            return null;
+        }
+        // Extract error details.
+        if (sre.getTrailers() == null || !sre.getTrailers().containsKey(STATUS_DETAILS_KEY)) {
+            log.warn("Cannot parse write error details from {}, " +
+                             "missing status trailers in StatusRuntimeException",
+                     deviceId);
+            return null;
+        }
+        com.google.rpc.Status status = sre.getTrailers().get(STATUS_DETAILS_KEY);
+        if (status == null) {
+            log.warn("Cannot parse write error details from {}, " +
+                             "found NULL status trailers in StatusRuntimeException",
+                     deviceId);
+            return null;
+        }
+        return status.getDetailsList();
+    }
+
+    /**
+     * Logs the given P4Runtime errors that cannot be reconciled with the
+     * updates of a request.
+     *
+     * @param details P4Runtime errors
+     */
+    static void logErrors(List<Any> details) {
+        for (Any any : details) {
+            final P4RuntimeOuterClass.Error p4Error = unpack(any);
+            if (p4Error == null) {
+                log.warn(unpackErrorMessage(any));
+                continue;
+            }
+            final EntityUpdateStatus ourCode = entityUpdateStatus(p4Error);
+            if (ourCode != EntityUpdateStatus.OK) {
+                log.warn("P4Runtime write error: {}", explanation(p4Error, ourCode));
+            }
+        }
+    }
+
+    private static P4RuntimeOuterClass.Error unpack(Any any) {
+        try {
+            return any.unpack(P4RuntimeOuterClass.Error.class);
+        } catch (InvalidProtocolBufferException e) {
+            return null;
+        }
+    }
+
+    private static String unpackErrorMessage(Any any) {
+        return format("P4Runtime Error message format not recognized [%s]",
+                      TextFormat.shortDebugString(any));
+    }
+
+    private static EntityUpdateStatus entityUpdateStatus(P4RuntimeOuterClass.Error p4Error) {
+        // Map gRPC status codes to our WriteResponseStatus codes.
+        switch (Status.fromCodeValue(p4Error.getCanonicalCode()).getCode()) {
+            case OK:
+                return EntityUpdateStatus.OK;
+            case NOT_FOUND:
+                return EntityUpdateStatus.NOT_FOUND;
+            case ALREADY_EXISTS:
+                return EntityUpdateStatus.ALREADY_EXIST;
+            default:
+                return EntityUpdateStatus.OTHER_ERROR;
+        }
+    }
+
+    private static String explanation(P4RuntimeOuterClass.Error p4Error,
+                                      EntityUpdateStatus ourCode) {
+        final Status.Code p4Code = Status.fromCodeValue(
+                p4Error.getCanonicalCode()).getCode();
+        // Put the p4Code in the explanation only if ourCode is OTHER_ERROR.
+        final String explanationCode = ourCode == EntityUpdateStatus.OTHER_ERROR
+                ? p4Code.name() + " " : "";
+        final String details = p4Error.hasDetails()
+                ? ", " + p4Error.getDetails().toString() : "";
+        return format(
+                "%s%s%s (%s:%d)", explanationCode, p4Error.getMessage(),
+                details, p4Error.getSpace(), p4Error.getCode());
+    }
+
     /**
      * Internal implementation of EntityUpdateResponse.
      */
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.p4runtime.ctl.controller;
+
+/**
+ * Constants for default values of configurable properties.
+ */
+public final class OsgiPropertyConstants {
+
+    private OsgiPropertyConstants() {}
+
+    public static final String WRITE_SPLIT_REQUESTS = "writeSplitRequests";
+    public static final boolean WRITE_SPLIT_REQUESTS_DEFAULT = false;
+
+    public static final String WRITE_MAX_MESSAGE_SIZE = "writeMaxMessageSize";
+    public static final int WRITE_MAX_MESSAGE_SIZE_DEFAULT = 1024 * 1024;
+
+    public static final String WRITE_WINDOW = "writeWindow";
+    public static final int WRITE_WINDOW_DEFAULT = 4;
+
+    public static final String WRITE_LINGER_MILLIS = "writeLingerMillis";
+    public static final int WRITE_LINGER_MILLIS_DEFAULT = 0;
+
+}
@@ -16,7 +16,15 @@
 
 package org.onosproject.p4runtime.ctl.controller;
 
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import io.grpc.ManagedChannel;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.grpc.ctl.AbstractGrpcClientController;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.pi.service.PiPipeconfService;
@@ -25,14 +33,37 @@ import org.onosproject.p4runtime.api.P4RuntimeController;
 import org.onosproject.p4runtime.api.P4RuntimeEvent;
 import org.onosproject.p4runtime.api.P4RuntimeEventListener;
 import org.onosproject.p4runtime.ctl.client.P4RuntimeClientImpl;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.slf4j.Logger;
+
+import java.util.Dictionary;
+
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_LINGER_MILLIS;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_LINGER_MILLIS_DEFAULT;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_MAX_MESSAGE_SIZE;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_MAX_MESSAGE_SIZE_DEFAULT;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_SPLIT_REQUESTS;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_SPLIT_REQUESTS_DEFAULT;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_WINDOW;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_WINDOW_DEFAULT;
+import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * P4Runtime controller implementation.
  */
-@Component(immediate = true, service = P4RuntimeController.class)
+@Component(immediate = true, service = P4RuntimeController.class,
+        property = {
+                WRITE_SPLIT_REQUESTS + ":Boolean=" + WRITE_SPLIT_REQUESTS_DEFAULT,
+                WRITE_MAX_MESSAGE_SIZE + ":Integer=" + WRITE_MAX_MESSAGE_SIZE_DEFAULT,
+                WRITE_WINDOW + ":Integer=" + WRITE_WINDOW_DEFAULT,
+                WRITE_LINGER_MILLIS + ":Integer=" + WRITE_LINGER_MILLIS_DEFAULT,
+        })
 public class P4RuntimeControllerImpl
         extends AbstractGrpcClientController
         <P4RuntimeClient, P4RuntimeEvent, P4RuntimeEventListener>
@@ -44,16 +75,158 @@ public class P4RuntimeControllerImpl
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     private MasterElectionIdStore masterElectionIdStore;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected ComponentConfigService componentConfigService;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL)
+    protected MetricsService metricsService;
+
+    private static final String COMPONENT = "P4RuntimeController";
+    private static final String FEATURE = "write";
+    private static final String ENTITY_RATE = "entityRate";
+    private static final String RPC_LATENCY = "rpcLatency";
+
+    /** Enable splitting write requests in RPCs within the maximum message size. */
+    private boolean writeSplitRequests = WRITE_SPLIT_REQUESTS_DEFAULT;
+
+    /** Maximum size in bytes of the updates sent in a single Write RPC; 0 for no limit. */
+    private int writeMaxMessageSize = WRITE_MAX_MESSAGE_SIZE_DEFAULT;
+
+    /** Maximum number of Write RPCs in flight for each device; 0 for no limit. */
+    private int writeWindow = WRITE_WINDOW_DEFAULT;
+
+    /** Time in milliseconds a write request is held to be merged with others; 0 to send right away. */
+    private int writeLingerMillis = WRITE_LINGER_MILLIS_DEFAULT;
+
+    private final Logger log = getLogger(getClass());
+
+    private MetricsComponent metricsComponent;
+    private MetricsFeature metricsFeature;
+
     public P4RuntimeControllerImpl() {
         super(P4RuntimeEvent.class, "P4Runtime");
     }
 
+    @Activate
+    public void activate(ComponentContext context) {
+        super.activate();
+        componentConfigService.registerProperties(getClass());
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent(COMPONENT);
+            metricsFeature = metricsComponent.registerFeature(FEATURE);
+        }
+        modified(context);
+    }
+
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context != null) {
+            Dictionary<?, ?> properties = context.getProperties();
+            writeSplitRequests = Tools.isPropertyEnabled(
+                    properties, WRITE_SPLIT_REQUESTS, WRITE_SPLIT_REQUESTS_DEFAULT);
+            writeMaxMessageSize = Tools.getIntegerProperty(
+                    properties, WRITE_MAX_MESSAGE_SIZE, WRITE_MAX_MESSAGE_SIZE_DEFAULT);
+            writeWindow = Tools.getIntegerProperty(
+                    properties, WRITE_WINDOW, WRITE_WINDOW_DEFAULT);
+            writeLingerMillis = Tools.getIntegerProperty(
+                    properties, WRITE_LINGER_MILLIS, WRITE_LINGER_MILLIS_DEFAULT);
+            log.info("Configured. Write RPCs carry up to {} bytes (requests split: {}), " +
+                             "with up to {} RPCs in flight and {} ms linger time",
+                     writeMaxMessageSize, writeSplitRequests, writeWindow, writeLingerMillis);
+        }
+    }
+
+    @Deactivate
+    @Override
+    public void deactivate() {
+        componentConfigService.unregisterProperties(getClass(), false);
+        super.deactivate();
+    }
+
     @Override
     public void remove(DeviceId deviceId) {
         super.remove(deviceId);
         // Assuming that when a client is removed, it is done so by all nodes,
         // this is the best place to clear master election ID state.
         masterElectionIdStore.removeAll(deviceId);
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            metricsService.removeMetric(metricsComponent, metricsFeature, metricName(deviceId, ENTITY_RATE));
+            metricsService.removeMetric(metricsComponent, metricsFeature, metricName(deviceId, RPC_LATENCY));
+        }
+    }
+
+    /**
+     * Returns true if write requests larger than the maximum message size
+     * should be split in several Write RPCs.
+     *
+     * @return true if write requests should be split
+     */
+    public boolean writeSplitRequests() {
+        return writeSplitRequests;
+    }
+
+    /**
+     * Returns the maximum size in bytes of the updates sent to a device in a
+     * single Write RPC, or 0 if there is no limit. Requests are merged within
+     * that size, and split into it if enabled.
+     *
+     * @return maximum size in bytes
+     */
+    public int writeMaxMessageSize() {
+        return writeMaxMessageSize;
+    }
+
+    /**
+     * Returns the maximum number of Write RPCs in flight for each device, or
+     * 0 if there is no limit.
+     *
+     * @return number of Write RPCs
+     */
+    public int writeWindow() {
+        return writeWindow;
+    }
+
+    /**
+     * Returns the time in milliseconds a write request is held to be merged
+     * with others for the same device, or 0 if it should be sent right away.
+     *
+     * @return time in milliseconds
+     */
+    public int writeLingerMillis() {
+        return writeLingerMillis;
+    }
+
+    /**
+     * Returns the meter of the entities written to the given device.
+     *
+     * @param deviceId device ID
+     * @return meter
+     */
+    public Meter writeEntityRate(DeviceId deviceId) {
+        MetricsService metricsService = this.metricsService;
+        return metricsService != null
+                ? metricsService.createMeter(metricsComponent, metricsFeature, metricName(deviceId, ENTITY_RATE))
+                : new Meter();
+    }
+
+    /**
+     * Returns the histogram of the latency in microseconds of the Write RPCs
+     * to the given device.
+     *
+     * @param deviceId device ID
+     * @return histogram
+     */
+    public Histogram writeRpcLatency(DeviceId deviceId) {
+        MetricsService metricsService = this.metricsService;
+        return metricsService != null
+                ? metricsService.createHistogram(metricsComponent, metricsFeature, metricName(deviceId, RPC_LATENCY))
+                : new Histogram(new ExponentiallyDecayingReservoir());
+    }
+
+    private static String metricName(DeviceId deviceId, String name) {
+        return deviceId.toString() + "." + name;
     }
 
     @Override
@@ -45,6 +45,8 @@ import org.onosproject.net.pi.runtime.PiActionProfileGroup;
 import org.onosproject.net.pi.runtime.PiActionProfileGroupId;
 import org.onosproject.net.pi.runtime.PiActionProfileMember;
 import org.onosproject.net.pi.runtime.PiActionProfileMemberId;
+import org.onosproject.net.pi.runtime.PiEntity;
+import org.onosproject.p4runtime.api.P4RuntimeReadClient;
 import org.onosproject.p4runtime.ctl.client.P4RuntimeClientImpl;
 import org.onosproject.p4runtime.ctl.controller.P4RuntimeControllerImpl;
 import p4.v1.P4RuntimeOuterClass.ActionProfileGroup;
@@ -63,6 +65,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.easymock.EasyMock.niceMock;
+import static org.easymock.EasyMock.replay;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -157,6 +160,7 @@ public class P4RuntimeGroupTest {
     @Before
     public void setup() {
         controller = niceMock(org.onosproject.p4runtime.ctl.controller.P4RuntimeControllerImpl.class);
+        replay(controller);
         client = new P4RuntimeClientImpl(
                 DEVICE_ID, grpcChannel, controller, new MockPipeconfService(),
                 new MockMasterElectionIdStore());
@@ -264,6 +268,32 @@ public class P4RuntimeGroupTest {
 
     @Test
     public void testReadMembers() throws Exception {
+        p4RuntimeServerImpl.willReturnReadResult(memberReadResponses());
+        CompletableFuture<Void> complete = p4RuntimeServerImpl.expectRequests(1);
+        Collection<PiActionProfileMember> piMembers = client.read(P4_DEVICE_ID, PIPECONF)
+                .actionProfileMembers(ACT_PROF_ID).submitSync()
+                .all(PiActionProfileMember.class);
+        complete.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
+        assertEquals(3, piMembers.size());
+        assertTrue(GROUP_MEMBER_INSTANCES.containsAll(piMembers));
+        assertTrue(piMembers.containsAll(GROUP_MEMBER_INSTANCES));
+    }
+
+    @Test
+    public void testReadMembersWithConsumer() throws Exception {
+        p4RuntimeServerImpl.willReturnReadResult(memberReadResponses());
+        CompletableFuture<Void> complete = p4RuntimeServerImpl.expectRequests(1);
+        List<PiEntity> piMembers = Lists.newArrayList();
+        P4RuntimeReadClient.ReadResponse response = client.read(P4_DEVICE_ID, PIPECONF)
+                .actionProfileMembers(ACT_PROF_ID).submit(piMembers::add)
+                .get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
+        complete.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
+        assertTrue(response.isSuccess());
+        assertTrue(response.all().isEmpty());
+        assertEquals(GROUP_MEMBER_INSTANCES, piMembers);
+    }
+
+    private List<ReadResponse> memberReadResponses() {
         List<ActionProfileMember> members = Lists.newArrayList();
 
         MEMBER_IDS.forEach(id -> {
@@ -295,15 +325,6 @@ public class P4RuntimeGroupTest {
                                                               .setActionProfileMember(m).build())
                                                       .collect(Collectors.toList()))
                               .build());
-
-        p4RuntimeServerImpl.willReturnReadResult(responses);
-        CompletableFuture<Void> complete = p4RuntimeServerImpl.expectRequests(1);
-        Collection<PiActionProfileMember> piMembers = client.read(P4_DEVICE_ID, PIPECONF)
-                .actionProfileMembers(ACT_PROF_ID).submitSync()
-                .all(PiActionProfileMember.class);
-        complete.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
-        assertEquals(3, piMembers.size());
-        assertTrue(GROUP_MEMBER_INSTANCES.containsAll(piMembers));
-        assertTrue(piMembers.containsAll(GROUP_MEMBER_INSTANCES));
+        return responses;
     }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.p4runtime.ctl;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.onlab.util.ImmutableByteSequence;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.pi.model.DefaultPiPipeconf;
+import org.onosproject.net.pi.model.PiActionId;
+import org.onosproject.net.pi.model.PiActionParamId;
+import org.onosproject.net.pi.model.PiActionProfileId;
+import org.onosproject.net.pi.model.PiPipeconf;
+import org.onosproject.net.pi.model.PiPipeconfId;
+import org.onosproject.net.pi.model.PiPipelineModel;
+import org.onosproject.net.pi.runtime.PiAction;
+import org.onosproject.net.pi.runtime.PiActionParam;
+import org.onosproject.net.pi.runtime.PiActionProfileMember;
+import org.onosproject.net.pi.runtime.PiActionProfileMemberId;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient;
+import org.onosproject.p4runtime.ctl.client.P4RuntimeClientImpl;
+import org.onosproject.p4runtime.ctl.controller.P4RuntimeControllerImpl;
+import p4.v1.P4RuntimeOuterClass.WriteRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.pi.model.PiPipeconf.ExtensionType.P4_INFO_TEXT;
+
+/**
+ * Tests of the chunking, pipelining and merging of P4Runtime write requests.
+ */
+public class P4RuntimeWriteTest {
+
+    private static final PiPipeconf PIPECONF = DefaultPiPipeconf.builder()
+            .withId(new PiPipeconfId("p4runtime-mock-pipeconf"))
+            .withPipelineModel(EasyMock.niceMock(PiPipelineModel.class))
+            .addExtension(P4_INFO_TEXT, P4RuntimeWriteTest.class.getResource("/test.p4info"))
+            .build();
+    private static final PiActionProfileId ACT_PROF_ID = PiActionProfileId.of("ecmp_selector");
+    private static final DeviceId DEVICE_ID = DeviceId.deviceId("device:p4runtime:1");
+    private static final int P4_DEVICE_ID = 1;
+    private static final String GRPC_SERVER_NAME = "P4RuntimeWriteTest";
+    private static final long DEFAULT_TIMEOUT_TIME = 10;
+
+    private static MockP4RuntimeServer p4RuntimeServerImpl = new MockP4RuntimeServer();
+    private static Server grpcServer;
+    private static ManagedChannel grpcChannel;
+
+    private P4RuntimeClientImpl client;
+
+    private static List<PiActionProfileMember> members(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> PiActionProfileMember.builder()
+                .forActionProfile(ACT_PROF_ID)
+                .withAction(PiAction.builder()
+                                    .withId(PiActionId.of("set_egress_port"))
+                                    .withParameter(new PiActionParam(
+                                            PiActionParamId.of("port"),
+                                            ImmutableByteSequence.copyFrom((short) i)))
+                                    .build())
+                .withId(PiActionProfileMemberId.of(i))
+                .build())
+                .collect(Collectors.toList());
+    }
+
+    @BeforeClass
+    public static void globalSetup() throws IOException {
+        grpcServer = InProcessServerBuilder.forName(GRPC_SERVER_NAME).directExecutor()
+                .addService(p4RuntimeServerImpl)
+                .build().start();
+        grpcChannel = InProcessChannelBuilder.forName(GRPC_SERVER_NAME)
+                .directExecutor()
+                .build();
+    }
+
+    @AfterClass
+    public static void globalTearDown() {
+        grpcServer.shutdown();
+        grpcChannel.shutdown();
+    }
+
+    private void setup(boolean split, int maxMessageSize, int window, int lingerMillis) {
+        P4RuntimeControllerImpl controller = EasyMock.niceMock(P4RuntimeControllerImpl.class);
+        expect(controller.writeSplitRequests()).andReturn(split).anyTimes();
+        expect(controller.writeMaxMessageSize()).andReturn(maxMessageSize).anyTimes();
+        expect(controller.writeWindow()).andReturn(window).anyTimes();
+        expect(controller.writeLingerMillis()).andReturn(lingerMillis).anyTimes();
+        replay(controller);
+        client = new P4RuntimeClientImpl(
+                DEVICE_ID, grpcChannel, controller, new MockPipeconfService(),
+                new MockMasterElectionIdStore());
+    }
+
+    @After
+    public void teardown() {
+        client.shutdown();
+    }
+
+    /**
+     * Tests that the updates of a request are split in RPCs of bounded size.
+     */
+    @Test
+    public void chunking() throws Exception {
+        // Room for a single update in each RPC, sent one after the other.
+        setup(true, 1, 1, 0);
+        CompletableFuture<Void> complete = p4RuntimeServerImpl.expectRequests(3);
+        P4RuntimeWriteClient.WriteResponse response = client.write(P4_DEVICE_ID, PIPECONF)
+                .insert(members(1, 4)).submitSync();
+        complete.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
+        assertTrue(response.isSuccess());
+        assertEquals(3, response.success().size());
+        List<WriteRequest> requests = p4RuntimeServerImpl.getWriteReqs();
+        assertEquals(3, requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(1, requests.get(i).getUpdatesCount());
+            assertEquals(i + 1, requests.get(i).getUpdates(0).getEntity()
+                    .getActionProfileMember().getMemberId());
+        }
+    }
+
+    /**
+     * Tests that the updates of a request are not split unless enabled.
+     */
+    @Test
+    public void noChunking() throws Exception {
+        setup(false, 1, 1, 0);
+        CompletableFuture<Void> complete = p4RuntimeServerImpl.expectRequests(1);
+        P4RuntimeWriteClient.WriteResponse response = client.write(P4_DEVICE_ID, PIPECONF)
+                .insert(members(1, 4)).submitSync();
+        complete.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
+        assertTrue(response.isSuccess());
+        assertEquals(1, p4RuntimeServerImpl.getWriteReqs().size());
+        assertEquals(3, p4RuntimeServerImpl.getWriteReqs().get(0).getUpdatesCount());
+    }
+
+    /**
+     * Tests that queued requests are merged only with the ones that directly
+     * follow, so that they are sent in order.
+     */
+    @Test
+    public void mergeInOrder() throws Exception {
+        setup(false, 0, 1, 100);
+        CompletableFuture<Void> complete = p4RuntimeServerImpl.expectRequests(3);
+        CompletableFuture<P4RuntimeWriteClient.WriteResponse> first = client
+                .write(P4_DEVICE_ID, PIPECONF).insert(members(1, 2)).submit();
+        CompletableFuture<P4RuntimeWriteClient.WriteResponse> second = client
+                .write(P4_DEVICE_ID + 1, PIPECONF).insert(members(2, 3)).submit();
+        CompletableFuture<P4RuntimeWriteClient.WriteResponse> third = client
+                .write(P4_DEVICE_ID, PIPECONF).insert(members(3, 4)).submit();
+        complete.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
+        assertTrue(first.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS).isSuccess());
+        assertTrue(second.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS).isSuccess());
+        assertTrue(third.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS).isSuccess());
+        List<WriteRequest> requests = p4RuntimeServerImpl.getWriteReqs();
+        assertEquals(3, requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(1, requests.get(i).getUpdatesCount());
+            assertEquals(i + 1, requests.get(i).getUpdates(0).getEntity()
+                    .getActionProfileMember().getMemberId());
+        }
+    }
+
+    /**
+     * Tests that requests submitted within the linger time are merged.
+     */
+    @Test
+    public void linger() throws Exception {
+        setup(false, 0, 0, 100);
+        CompletableFuture<Void> complete = p4RuntimeServerImpl.expectRequests(1);
+        CompletableFuture<P4RuntimeWriteClient.WriteResponse> first = client
+                .write(P4_DEVICE_ID, PIPECONF).insert(members(1, 3)).submit();
+        CompletableFuture<P4RuntimeWriteClient.WriteResponse> second = client
+                .write(P4_DEVICE_ID, PIPECONF).insert(members(3, 4)).submit();
+        complete.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
+        assertEquals(2, first.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS).success().size());
+        assertEquals(1, second.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS).success().size());
+        assertEquals(1, p4RuntimeServerImpl.getWriteReqs().size());
+        assertEquals(3, p4RuntimeServerImpl.getWriteReqs().get(0).getUpdatesCount());
+    }
+}
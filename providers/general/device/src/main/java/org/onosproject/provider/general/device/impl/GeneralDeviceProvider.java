@@ -99,6 +99,8 @@ import static org.onosproject.provider.general.device.impl.OsgiPropertyConstants
 import static org.onosproject.provider.general.device.impl.OsgiPropertyConstants.CHECKUP_INTERVAL_DEFAULT;
 import static org.onosproject.provider.general.device.impl.OsgiPropertyConstants.STATS_POLL_INTERVAL;
 import static org.onosproject.provider.general.device.impl.OsgiPropertyConstants.STATS_POLL_INTERVAL_DEFAULT;
+import static org.onosproject.provider.general.device.impl.OsgiPropertyConstants.STATS_STREAMING;
+import static org.onosproject.provider.general.device.impl.OsgiPropertyConstants.STATS_STREAMING_DEFAULT;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -111,6 +113,7 @@ import static org.slf4j.LoggerFactory.getLogger;
         property = {
                 CHECKUP_INTERVAL + ":Integer=" + CHECKUP_INTERVAL_DEFAULT,
                 STATS_POLL_INTERVAL + ":Integer=" + STATS_POLL_INTERVAL_DEFAULT,
+                STATS_STREAMING + ":Boolean=" + STATS_STREAMING_DEFAULT,
         })
 public class GeneralDeviceProvider extends AbstractProvider
         implements DeviceProvider {
@@ -174,6 +177,12 @@ public class GeneralDeviceProvider extends AbstractProvider
      */
     private int statsPollInterval = STATS_POLL_INTERVAL_DEFAULT;
 
+    /**
+     * Configure streaming of port stats via gNMI subscription, with the stats
+     * poll interval as sample interval, instead of polling; default is false.
+     */
+    private boolean statsStreaming = STATS_STREAMING_DEFAULT;
+
     private final Map<DeviceId, DeviceHandshaker> handshakersWithListeners = Maps.newConcurrentMap();
     private final Map<DeviceId, Long> lastCheckups = Maps.newConcurrentMap();
     private final InternalPipeconfWatchdogListener pipeconfWatchdogListener = new InternalPipeconfWatchdogListener();
@@ -210,7 +219,8 @@ public class GeneralDeviceProvider extends AbstractProvider
                 gnmiController, deviceService, mastershipService, providerService);
         gnmiDeviceStateSubscriber.activate();
         startOrReschedulePeriodicCheckupTasks();
-        statsPoller = new StatsPoller(deviceService, mastershipService, providerService);
+        statsPoller = new StatsPoller(deviceService, mastershipService, providerService,
+                                      gnmiDeviceStateSubscriber::isStreamingStats);
         statsPoller.activate(statsPollInterval);
         modified(context);
         log.info("Started");
@@ -233,12 +243,20 @@ public class GeneralDeviceProvider extends AbstractProvider
                 properties, STATS_POLL_INTERVAL, STATS_POLL_INTERVAL_DEFAULT);
         log.info("Configured. {} is configured to {} seconds",
                  STATS_POLL_INTERVAL, statsPollInterval);
+        final boolean oldStatsStreaming = statsStreaming;
+        statsStreaming = Tools.isPropertyEnabled(
+                properties, STATS_STREAMING, STATS_STREAMING_DEFAULT);
+        log.info("Configured. {} is {}",
+                 STATS_STREAMING, statsStreaming ? "enabled" : "disabled");
 
         if (oldCheckupInterval != checkupInterval) {
             startOrReschedulePeriodicCheckupTasks();
         }
 
-        if (oldStatsPollFrequency != statsPollInterval) {
+        if (oldStatsPollFrequency != statsPollInterval
+                || oldStatsStreaming != statsStreaming) {
+            gnmiDeviceStateSubscriber.configureStatsStreaming(
+                    statsStreaming, statsPollInterval);
             statsPoller.reschedule(statsPollInterval);
         }
     }
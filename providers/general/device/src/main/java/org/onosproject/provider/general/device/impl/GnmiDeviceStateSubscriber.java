@@ -17,6 +17,7 @@
 package org.onosproject.provider.general.device.impl;
 
 import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.Striped;
 import gnmi.Gnmi.Notification;
@@ -40,29 +41,44 @@ import org.onosproject.net.DeviceId;
 import org.onosproject.net.Port;
 import org.onosproject.net.PortNumber;
 import org.onosproject.net.device.DefaultPortDescription;
+import org.onosproject.net.device.DefaultPortStatistics;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceProviderService;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.device.PortDescription;
+import org.onosproject.net.device.PortStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.onlab.util.Tools.groupedThreads;
+
 /**
  * Entity that manages gNMI subscription for devices using OpenConfig models and
- * that reports relevant events to the core.
+ * that reports relevant events to the core. Optionally, interface counters are
+ * also sampled via the subscription, and the latest values received for each
+ * device are periodically applied to the core as port statistics, in place of
+ * polling them.
  */
 @Beta
 class GnmiDeviceStateSubscriber {
 
     private static final String LAST_CHANGE = "last-changed";
+    private static final String OPER_STATUS = "oper-status";
+    private static final String COUNTERS = "counters";
+    // Sample intervals without samples after which statistics are polled.
+    private static final int SAMPLE_TIMEOUT_INTERVALS = 3;
 
     private static Logger log = LoggerFactory.getLogger(GnmiDeviceStateSubscriber.class);
 
@@ -74,10 +90,18 @@ class GnmiDeviceStateSubscriber {
     private final InternalGnmiEventListener gnmiEventListener = new InternalGnmiEventListener();
     private final InternalDeviceListener deviceEventListener = new InternalDeviceListener();
     private final InternalMastershipListener mastershipListener = new InternalMastershipListener();
-    private final Map<DeviceId, Set<PortNumber>> deviceSubscribed = Maps.newHashMap();
+    private final Map<DeviceId, SubscribeRequest> deviceSubscribed = Maps.newConcurrentMap();
+    // Port numbers by interface name, for each subscribed device.
+    private final Map<DeviceId, Map<String, PortNumber>> devicePorts = Maps.newConcurrentMap();
+    private final Map<DeviceId, DeviceCounters> deviceCounters = Maps.newConcurrentMap();
 
     private final Striped<Lock> deviceLocks = Striped.lock(30);
 
+    private ScheduledExecutorService statsExecutor;
+    private ScheduledFuture<?> statsTask;
+    private volatile boolean statsStreaming;
+    private volatile int statsSampleInterval;
+
     GnmiDeviceStateSubscriber(GnmiController gnmiController, DeviceService deviceService,
                               MastershipService mastershipService,
                               DeviceProviderService providerService) {
@@ -88,6 +112,8 @@ class GnmiDeviceStateSubscriber {
     }
 
     public void activate() {
+        statsExecutor = newSingleThreadScheduledExecutor(groupedThreads(
+                "onos/gdp-gnmi-stats", "%d", log));
         deviceService.addListener(deviceEventListener);
         mastershipService.addListener(mastershipListener);
         gnmiController.addListener(gnmiEventListener);
@@ -100,6 +126,54 @@ class GnmiDeviceStateSubscriber {
         deviceService.removeListener(deviceEventListener);
         mastershipService.removeListener(mastershipListener);
         gnmiController.removeListener(gnmiEventListener);
+        statsExecutor.shutdownNow();
+        statsExecutor = null;
+        statsTask = null;
+    }
+
+    /**
+     * Configures the streaming of port statistics. If enabled, interface
+     * counters are sampled by devices with the given interval and applied to
+     * the core with the same interval.
+     *
+     * @param streaming      true to stream port statistics
+     * @param sampleInterval sample interval in seconds
+     */
+    void configureStatsStreaming(boolean streaming, int sampleInterval) {
+        checkArgument(sampleInterval > 0, "sampleInterval must be greater than 0");
+        synchronized (this) {
+            statsStreaming = streaming;
+            statsSampleInterval = sampleInterval;
+            if (statsTask != null) {
+                statsTask.cancel(false);
+                statsTask = null;
+            }
+            if (streaming) {
+                statsTask = statsExecutor.scheduleAtFixedRate(
+                        this::applyPortStatistics, sampleInterval,
+                        sampleInterval, TimeUnit.SECONDS);
+            }
+        }
+        // Update existing subscriptions.
+        deviceService.getDevices().forEach(d -> checkSubscription(d.id()));
+    }
+
+    /**
+     * Returns true if port statistics of the given device are obtained via
+     * the gNMI subscription, hence they should not be polled. That is the
+     * case only if the device is subscribed to interface counters and
+     * samples were received within the last few sample intervals.
+     *
+     * @param deviceId device ID
+     * @return true if port statistics are streamed
+     */
+    boolean isStreamingStats(DeviceId deviceId) {
+        if (!statsStreaming || !deviceSubscribed.containsKey(deviceId)) {
+            return false;
+        }
+        DeviceCounters counters = deviceCounters.get(deviceId);
+        return counters != null && counters.receivedWithin(
+                TimeUnit.SECONDS.toMillis(statsSampleInterval) * SAMPLE_TIMEOUT_INTERVALS);
     }
 
     private void checkSubscription(DeviceId deviceId) {
@@ -136,8 +210,20 @@ class GnmiDeviceStateSubscriber {
                 .build();
     }
 
+    private Path interfaceCountersPath(String interfaceName) {
+        return Path.newBuilder()
+                .addElem(PathElem.newBuilder().setName("interfaces").build())
+                .addElem(PathElem.newBuilder()
+                                 .setName("interface").putKey("name", interfaceName).build())
+                .addElem(PathElem.newBuilder().setName("state").build())
+                .addElem(PathElem.newBuilder().setName(COUNTERS).build())
+                .build();
+    }
+
     private void unsubscribeIfNeeded(DeviceId deviceId) {
         gnmiController.get(deviceId).unsubscribe();
+        devicePorts.remove(deviceId);
+        deviceCounters.remove(deviceId);
         if (deviceSubscribed.remove(deviceId) != null) {
             log.info("Cancelled gNMI subscription for {}", deviceId);
         }
@@ -145,34 +231,52 @@ class GnmiDeviceStateSubscriber {
 
     private void subscribeIfNeeded(DeviceId deviceId) {
 
-        Set<PortNumber> ports = deviceService.getPorts(deviceId).stream()
+        Map<String, PortNumber> ports = deviceService.getPorts(deviceId).stream()
                 .map(Port::number)
-                .collect(Collectors.toSet());
+                .collect(Collectors.toMap(PortNumber::name, p -> p, (p1, p2) -> p1));
 
-        if (Objects.equals(ports, deviceSubscribed.get(deviceId))) {
+        // Build subscription request.
+        final List<String> interfaceNames = ports.keySet().stream()
+                .sorted().collect(Collectors.toList());
+        final SubscriptionList.Builder subscriptionList = SubscriptionList.newBuilder()
+                .setMode(SubscriptionList.Mode.STREAM)
+                .setUpdatesOnly(true)
+                .addAllSubscription(interfaceNames.stream().map(
+                        name -> Subscription.newBuilder()
+                                .setPath(interfaceOperStatusPath(name))
+                                .setMode(SubscriptionMode.ON_CHANGE)
+                                .build()).collect(Collectors.toList()));
+        if (statsStreaming) {
+            subscriptionList.addAllSubscription(interfaceNames.stream().map(
+                    name -> Subscription.newBuilder()
+                            .setPath(interfaceCountersPath(name))
+                            .setMode(SubscriptionMode.SAMPLE)
+                            .setSampleInterval(TimeUnit.SECONDS.toNanos(statsSampleInterval))
+                            .build()).collect(Collectors.toList()));
+        }
+        final SubscribeRequest request = SubscribeRequest.newBuilder()
+                .setSubscribe(subscriptionList)
+                .build();
+
+        if (request.equals(deviceSubscribed.get(deviceId))) {
             // Already subscribed for the same ports.
             return;
         }
 
         // Subscribe for the new set of ports.
-        deviceSubscribed.put(deviceId, ports);
+        deviceSubscribed.put(deviceId, request);
+        devicePorts.put(deviceId, ports);
+        if (statsStreaming) {
+            deviceCounters.putIfAbsent(deviceId, new DeviceCounters());
+        } else {
+            deviceCounters.remove(deviceId);
+        }
 
         // Send subscription request.
-        final SubscriptionList subscriptionList = SubscriptionList.newBuilder()
-                .setMode(SubscriptionList.Mode.STREAM)
-                .setUpdatesOnly(true)
-                .addAllSubscription(ports.stream().map(
-                        port -> Subscription.newBuilder()
-                                .setPath(interfaceOperStatusPath(port.name()))
-                                .setMode(SubscriptionMode.ON_CHANGE)
-                                .build()).collect(Collectors.toList()))
-                .build();
-        gnmiController.get(deviceId).subscribe(
-                SubscribeRequest.newBuilder()
-                        .setSubscribe(subscriptionList)
-                        .build());
+        gnmiController.get(deviceId).subscribe(request);
 
-        log.info("Started gNMI subscription for {} ports on {}", ports.size(), deviceId);
+        log.info("Started gNMI subscription for {} ports on {}{}", ports.size(),
+                 deviceId, statsStreaming ? " (with port statistics)" : "");
     }
 
     private void handleGnmiUpdate(GnmiUpdate eventSubject) {
@@ -183,55 +287,202 @@ class GnmiDeviceStateSubscriber {
             return;
         }
 
+        DeviceId deviceId = eventSubject.deviceId();
+        Map<String, PortNumber> ports = devicePorts.get(deviceId);
+        if (ports == null) {
+            return;
+        }
+        // Coalesce updates of the same port in the notification.
+        Map<PortNumber, Boolean> operStatus = Maps.newLinkedHashMap();
         List<Update> updateList = notification.getUpdateList();
         updateList.forEach(update -> {
             Path path = update.getPath();
             PathElem lastElem = path.getElem(path.getElemCount() - 1);
+            PortNumber port = portFromPath(ports, path);
+            if (port == null) {
+                log.debug("gNMI update for unknown interface:\n{}", update);
+                return;
+            }
 
             // Use last element to identify which state updated
-            if ("oper-status".equals(lastElem.getName())) {
-                handleOperStatusUpdate(eventSubject.deviceId(), update,
-                                       notification.getTimestamp());
+            if (OPER_STATUS.equals(lastElem.getName())) {
+                operStatus.put(port, update.getVal().getStringVal().equals("UP"));
+            } else if (path.getElemCount() == 5
+                    && COUNTERS.equals(path.getElem(3).getName())) {
+                DeviceCounters counters = deviceCounters.get(deviceId);
+                if (counters != null) {
+                    counters.update(port, lastElem.getName(),
+                                    update.getVal().getUintVal(),
+                                    notification.getTimestamp());
+                }
             } else {
                 log.debug("Unrecognized update {}", GnmiUtils.pathToString(path));
             }
         });
+        operStatus.forEach((port, enabled) -> handleOperStatusUpdate(
+                deviceId, port, enabled, notification.getTimestamp()));
     }
 
-    private void handleOperStatusUpdate(DeviceId deviceId, Update update, long timestamp) {
-        Path path = update.getPath();
+    private PortNumber portFromPath(Map<String, PortNumber> ports, Path path) {
         // first element should be "interface"
+        if (path.getElemCount() < 2) {
+            return null;
+        }
         String interfaceName = path.getElem(1).getKeyOrDefault("name", null);
-        if (interfaceName == null) {
-            log.error("No interface present in gNMI update, abort");
-            log.debug("gNMI update:\n{}", update);
+        return interfaceName == null ? null : ports.get(interfaceName);
+    }
+
+    private void handleOperStatusUpdate(DeviceId deviceId, PortNumber portNumber,
+                                        boolean enabled, long timestamp) {
+        Port port = deviceService.getPort(deviceId, portNumber);
+        if (port == null) {
             return;
         }
 
-        List<Port> portsFromDevice = deviceService.getPorts(deviceId);
-        portsFromDevice.forEach(port -> {
-            if (!port.number().name().equals(interfaceName)) {
-                return;
-            }
+        DefaultAnnotations portAnnotations = DefaultAnnotations.builder()
+                .putAll(port.annotations())
+                .set(LAST_CHANGE, String.valueOf(timestamp))
+                .build();
+
+        // Port/Interface name is identical in OpenConfig model, but not in ONOS
+        // This might cause some problem if we use one name to different port
+        PortDescription portDescription = DefaultPortDescription.builder()
+                .portSpeed(port.portSpeed())
+                .withPortNumber(port.number())
+                .isEnabled(enabled)
+                .type(port.type())
+                .annotations(portAnnotations)
+                .build();
+        providerService.portStatusChanged(deviceId, portDescription);
+    }
 
-            DefaultAnnotations portAnnotations = DefaultAnnotations.builder()
-                    .putAll(port.annotations())
-                    .set(LAST_CHANGE, String.valueOf(timestamp))
-                    .build();
-
-            // Port/Interface name is identical in OpenConfig model, but not in ONOS
-            // This might cause some problem if we use one name to different port
-            PortDescription portDescription = DefaultPortDescription.builder()
-                    .portSpeed(port.portSpeed())
-                    .withPortNumber(port.number())
-                    .isEnabled(update.getVal().getStringVal().equals("UP"))
-                    .type(port.type())
-                    .annotations(portAnnotations)
-                    .build();
-            providerService.portStatusChanged(deviceId, portDescription);
+    private void applyPortStatistics() {
+        deviceCounters.forEach((deviceId, counters) -> {
+            try {
+                Map<PortNumber, PortCounters> updated = counters.takeIfUpdated();
+                if (updated.isEmpty() || !deviceSubscribed.containsKey(deviceId)) {
+                    return;
+                }
+                providerService.updatePortStatistics(deviceId, updated.entrySet().stream()
+                        .map(e -> portStatistics(deviceId, e.getKey(), e.getValue()))
+                        .collect(Collectors.toList()));
+            } catch (Exception e) {
+                log.error("Unable to apply port statistics of " + deviceId, e);
+            }
         });
     }
 
+    private PortStatistics portStatistics(DeviceId deviceId, PortNumber portNumber,
+                                          PortCounters counters) {
+        Duration active = durationActive(deviceId, portNumber, counters);
+        return DefaultPortStatistics.builder()
+                .setDeviceId(deviceId)
+                .setPort(portNumber)
+                .setDurationSec(active.getSeconds())
+                .setDurationNano(active.getNano())
+                .setPacketsSent(counters.sum("out-unicast-pkts", "out-broadcast-pkts",
+                                             "out-multicast-pkts"))
+                .setPacketsReceived(counters.sum("in-unicast-pkts", "in-broadcast-pkts",
+                                                 "in-multicast-pkts", "in-unknown-protos"))
+                .setPacketsTxDropped(counters.sum("out-discards"))
+                .setPacketsRxDropped(counters.sum("in-discards", "in-fcs-errors"))
+                .setBytesSent(counters.sum("out-octets"))
+                .setBytesReceived(counters.sum("in-octets"))
+                .setPacketsTxErrors(counters.sum("out-errors"))
+                .setPacketsRxErrors(counters.sum("in-errors"))
+                .build();
+    }
+
+    private Duration durationActive(DeviceId deviceId, PortNumber portNumber,
+                                    PortCounters counters) {
+        Port port = deviceService.getPort(deviceId, portNumber);
+        if (port == null || !port.isEnabled()) {
+            return Duration.ZERO;
+        }
+        // Since the last oper-status change, or the first sample received.
+        long since = counters.firstTimestamp;
+        String lastChanged = port.annotations().value(LAST_CHANGE);
+        if (lastChanged != null) {
+            try {
+                since = Long.parseLong(lastChanged);
+            } catch (NumberFormatException e) {
+                log.debug("Invalid {} annotation for {}/{}: {}",
+                          LAST_CHANGE, deviceId, portNumber, lastChanged);
+            }
+        }
+        return Duration.ofNanos(Math.max(0, counters.timestamp - since));
+    }
+
+    /**
+     * Latest counter values received for the ports of a device.
+     */
+    private static final class DeviceCounters {
+
+        private final Map<PortNumber, PortCounters> ports = Maps.newHashMap();
+        private boolean updated;
+        private volatile long lastReceived;
+
+        synchronized void update(PortNumber port, String counter, long value, long timestamp) {
+            ports.computeIfAbsent(port, k -> new PortCounters(timestamp))
+                    .update(counter, value, timestamp);
+            updated = true;
+            lastReceived = System.currentTimeMillis();
+        }
+
+        // Returns true if a sample was received in the given number of
+        // milliseconds.
+        boolean receivedWithin(long millis) {
+            return lastReceived != 0
+                    && System.currentTimeMillis() - lastReceived <= millis;
+        }
+
+        // Returns a copy of the counters of all ports, if any was updated
+        // since the last call, otherwise an empty map.
+        synchronized Map<PortNumber, PortCounters> takeIfUpdated() {
+            if (!updated) {
+                return ImmutableMap.of();
+            }
+            updated = false;
+            return ImmutableMap.copyOf(Maps.transformValues(ports, PortCounters::copy));
+        }
+    }
+
+    /**
+     * Counter values of a port, with the timestamp of the latest and first
+     * sample.
+     */
+    private static final class PortCounters {
+
+        private final Map<String, Long> values = Maps.newHashMap();
+        private final long firstTimestamp;
+        private long timestamp;
+
+        private PortCounters(long firstTimestamp) {
+            this.firstTimestamp = firstTimestamp;
+            this.timestamp = firstTimestamp;
+        }
+
+        void update(String counter, long value, long sampleTimestamp) {
+            values.put(counter, value);
+            timestamp = Math.max(timestamp, sampleTimestamp);
+        }
+
+        long sum(String... counters) {
+            long sum = 0;
+            for (String counter : counters) {
+                sum += values.getOrDefault(counter, 0L);
+            }
+            return sum;
+        }
+
+        PortCounters copy() {
+            PortCounters copy = new PortCounters(firstTimestamp);
+            copy.values.putAll(values);
+            copy.timestamp = timestamp;
+            return copy;
+        }
+    }
+
     class InternalGnmiEventListener implements GnmiEventListener {
 
         @Override
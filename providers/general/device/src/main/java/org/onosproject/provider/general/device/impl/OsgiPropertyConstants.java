@@ -29,4 +29,7 @@ public final class OsgiPropertyConstants {
     public static final String CHECKUP_INTERVAL = "checkupInterval";
     public static final int CHECKUP_INTERVAL_DEFAULT = 10;
 
+    public static final String STATS_STREAMING = "statsStreaming";
+    public static final boolean STATS_STREAMING_DEFAULT = false;
+
 }
@@ -40,6 +40,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
 import java.util.stream.StreamSupport;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -61,6 +62,8 @@ public class StatsPoller {
     private final DeviceService deviceService;
     private final MastershipService mastershipService;
     private final DeviceProviderService providerService;
+    // Devices whose stats are obtained by other means, e.g. streamed.
+    private final Predicate<DeviceId> skipDevice;
 
     private final InternalDeviceListener deviceListener = new InternalDeviceListener();
     private final MastershipListener mastershipListener = new InternalMastershipListener();
@@ -72,10 +75,12 @@ public class StatsPoller {
     private int statsPollInterval;
 
     StatsPoller(DeviceService deviceService, MastershipService mastershipService,
-                DeviceProviderService providerService) {
+                DeviceProviderService providerService,
+                Predicate<DeviceId> skipDevice) {
         this.deviceService = deviceService;
         this.mastershipService = mastershipService;
         this.providerService = providerService;
+        this.skipDevice = skipDevice;
     }
 
 
@@ -135,7 +140,8 @@ public class StatsPoller {
                     && deviceService.getDevice(deviceId) != null
                     && deviceService.isAvailable(deviceId)
                     && mastershipService.isLocalMaster(deviceId)
-                    && deviceService.getDevice(deviceId).is(PortStatisticsDiscovery.class);
+                    && deviceService.getDevice(deviceId).is(PortStatisticsDiscovery.class)
+                    && !skipDevice.test(deviceId);
             final boolean pollIntervalChanged = !Objects.equals(
                     pollFrequencies.get(deviceId), statsPollInterval);
 
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import org.onosproject.openflow.controller.OpenFlowSwitch;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Pipelines the flow modifications sent to a switch.
+ * <p>
+ * Flow modifications are sent in windows, each closed by a barrier request.
+ * Up to a given number of windows may await their barrier reply; further
+ * windows are held back until the switch catches up, and are then written
+ * to the switch together in a single burst. Windows awaiting their barrier
+ * reply or held back for longer than the timeout are given up on when the
+ * pipeline is {@link #expire() expired}.
+ *
+ * @param <T> type of the batches the windows belong to
+ */
+class FlowModPipeline<T> {
+
+    private final Logger log = getLogger(getClass());
+
+    private final OpenFlowSwitch sw;
+    private final Consumer<T> sentCallback;
+    private final long timeoutNanos;
+    private final Meter flowModRate;
+    private final Histogram barrierRtt;
+
+    private final Deque<Window<T>> pending = new ArrayDeque<>();
+    private final Deque<Window<T>> inFlight = new ArrayDeque<>();
+    private int maxInFlight;
+
+    /**
+     * Creates a new flow modification pipeline for the given switch.
+     *
+     * @param sw           switch to send the windows to
+     * @param maxInFlight  maximum number of windows awaiting their barrier
+     *                     reply; 0 for no limit
+     * @param timeout      time in milliseconds after which a window still
+     *                     awaiting its barrier reply is presumed lost, or
+     *                     a window still held back is dropped
+     * @param sentCallback invoked with the batch of each window sent
+     * @param flowModRate  meter of the flow modifications sent
+     * @param barrierRtt   histogram of the barrier round trips, in microseconds
+     */
+    FlowModPipeline(OpenFlowSwitch sw, int maxInFlight, long timeout, Consumer<T> sentCallback,
+                    Meter flowModRate, Histogram barrierRtt) {
+        this.sw = sw;
+        this.maxInFlight = maxInFlight;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+        this.sentCallback = sentCallback;
+        this.flowModRate = flowModRate;
+        this.barrierRtt = barrierRtt;
+    }
+
+    /**
+     * Returns the switch of the pipeline.
+     *
+     * @return switch
+     */
+    OpenFlowSwitch sw() {
+        return sw;
+    }
+
+    /**
+     * Adjusts the maximum number of windows awaiting their barrier reply.
+     *
+     * @param maxInFlight maximum number of windows; 0 for no limit
+     */
+    synchronized void adjustMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        send();
+    }
+
+    /**
+     * Submits the windows of flow modifications of a batch, to be sent as
+     * soon as the switch keeps up.
+     *
+     * @param batch   batch the windows belong to
+     * @param xid     transaction id of the barrier requests closing the windows
+     * @param windows flow modifications of each window
+     */
+    synchronized void submit(T batch, long xid, List<? extends List<? extends OFMessage>> windows) {
+        long now = System.nanoTime();
+        windows.forEach(flowMods -> pending.add(new Window<>(batch, xid, flowMods, now)));
+        send();
+    }
+
+    /**
+     * Signals the reply to a barrier request, which completes the windows
+     * sent up to the one it closes and lets further windows be sent.
+     *
+     * @param xid transaction id of the barrier reply
+     * @return true if the reply matched a window awaiting it
+     */
+    synchronized boolean barrierReplied(long xid) {
+        if (inFlight.stream().noneMatch(window -> window.xid == xid)) {
+            return false;
+        }
+        long now = System.nanoTime();
+        Window<T> window;
+        do {
+            // Switches process barriers in order, so earlier windows are done
+            window = inFlight.remove();
+            barrierRtt.update(TimeUnit.NANOSECONDS.toMicros(now - window.sentNanos));
+        } while (window.xid != xid);
+        send();
+        return true;
+    }
+
+    /**
+     * Gives up on the windows that have awaited their barrier reply or have
+     * been held back for longer than the timeout, and sends further windows
+     * in place of those presumed lost.
+     *
+     * @return batches with windows that were dropped before being sent
+     */
+    synchronized Set<T> expire() {
+        long now = System.nanoTime();
+        while (!inFlight.isEmpty() && now - inFlight.peek().sentNanos >= timeoutNanos) {
+            log.debug("No barrier reply from {} for xid {}; presuming it lost",
+                      sw.getStringId(), inFlight.remove().xid);
+        }
+
+        // Windows are held back in the order submitted, oldest first
+        Set<T> expired = new LinkedHashSet<>();
+        while (!pending.isEmpty() && now - pending.peek().submittedNanos >= timeoutNanos) {
+            expired.add(pending.remove().batch);
+        }
+        if (!expired.isEmpty()) {
+            log.debug("Dropped windows of {} batches held back for {}", expired.size(), sw.getStringId());
+        }
+        send();
+        return expired;
+    }
+
+    /**
+     * Closes the pipeline, dropping the windows not sent yet.
+     *
+     * @return batches with windows that were not sent
+     */
+    synchronized Set<T> close() {
+        Set<T> unsent = new LinkedHashSet<>();
+        pending.forEach(window -> unsent.add(window.batch));
+        pending.clear();
+        inFlight.clear();
+        return unsent;
+    }
+
+    // Sends the pending windows in a single write, as far as allowed.
+    private void send() {
+        long now = System.nanoTime();
+        List<OFMessage> burst = new ArrayList<>();
+        while (!pending.isEmpty() && (maxInFlight <= 0 || inFlight.size() < maxInFlight)) {
+            Window<T> window = pending.remove();
+            burst.addAll(window.flowMods);
+            burst.add(sw.factory().buildBarrierRequest().setXid(window.xid).build());
+            window.sentNanos = now;
+            inFlight.add(window);
+            flowModRate.mark(window.flowMods.size());
+            sentCallback.accept(window.batch);
+        }
+        if (!burst.isEmpty()) {
+            sw.sendMsg(burst);
+        }
+    }
+
+    // Flow modifications closed by a barrier request.
+    private static final class Window<T> {
+        private final T batch;
+        private final long xid;
+        private final List<? extends OFMessage> flowMods;
+        private final long submittedNanos;
+        private long sentNanos;
+
+        private Window(T batch, long xid, List<? extends OFMessage> flowMods, long submittedNanos) {
+            this.batch = batch;
+            this.xid = xid;
+            this.flowMods = flowMods;
+            this.submittedNanos = submittedNanos;
+        }
+    }
+}
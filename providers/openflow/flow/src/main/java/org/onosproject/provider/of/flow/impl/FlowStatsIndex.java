@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the counters of the flow entries of a switch, as last reported
+ * in its flow statistics, used to tell apart the entries whose counters
+ * changed from one poll to the next.
+ * <p>
+ * Entries are indexed by cookie, which holds the flow id of the rules
+ * installed by ONOS; entries sharing a cookie are always considered changed.
+ */
+class FlowStatsIndex {
+
+    private final Map<Long, Counters> entries = new HashMap<>();
+    private long poll;
+
+    /**
+     * Starts a new poll of the flow statistics.
+     *
+     * @param fullSyncPolls number of polls between full synchronizations
+     * @return true if all entries of this poll must be reported
+     */
+    synchronized boolean startPoll(int fullSyncPolls) {
+        poll++;
+        return fullSyncPolls <= 1 || poll % fullSyncPolls == 1;
+    }
+
+    /**
+     * Returns whether the entries of a table polled at the given interval
+     * are due in the current poll.
+     *
+     * @param tablePolls number of polls between the reports of the table
+     * @return true if the entries of the table are due
+     */
+    synchronized boolean isDue(int tablePolls) {
+        return tablePolls <= 1 || poll % tablePolls == 1;
+    }
+
+    /**
+     * Records an entry seen in the current poll.
+     *
+     * @param entry flow statistics entry
+     * @param tag   further state of the entry whose change is to be reported,
+     *              such as its live type
+     * @return true if the entry is new or its counters or tag changed since
+     *         the previous poll
+     */
+    synchronized boolean update(OFFlowStatsEntry entry, int tag) {
+        long packets = entry.getPacketCount().getValue();
+        long bytes = entry.getByteCount().getValue();
+        int matchHash = entry.getMatch().hashCode();
+        int table = entry.getTableId().getValue();
+
+        Counters counters = entries.get(entry.getCookie().getValue());
+        if (counters == null) {
+            entries.put(entry.getCookie().getValue(), new Counters(table, matchHash, packets, bytes, tag, poll));
+            return true;
+        }
+        if (counters.poll == poll || counters.table != table || counters.matchHash != matchHash) {
+            // Another entry with the same cookie; never skip such entries
+            counters.set(table, matchHash, -1, -1, tag, poll);
+            return true;
+        }
+        boolean changed = counters.packets != packets || counters.bytes != bytes || counters.tag != tag;
+        counters.set(table, matchHash, packets, bytes, tag, poll);
+        return changed;
+    }
+
+    /**
+     * Records an entry seen in the current poll without checking it.
+     *
+     * @param entry flow statistics entry
+     */
+    synchronized void touch(OFFlowStatsEntry entry) {
+        Counters counters = entries.get(entry.getCookie().getValue());
+        if (counters != null) {
+            counters.poll = poll;
+        }
+    }
+
+    /**
+     * Ends the current poll, forgetting the entries not seen in it.
+     */
+    synchronized void endPoll() {
+        entries.values().removeIf(counters -> counters.poll != poll);
+    }
+
+    /**
+     * Forgets the counters of an entry, so that it is reported by the next
+     * poll.
+     *
+     * @param cookie cookie of the entry
+     */
+    synchronized void invalidate(long cookie) {
+        entries.remove(cookie);
+    }
+
+    /**
+     * Forgets the counters of all entries.
+     */
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    // Counters of an entry as of the poll that last saw it.
+    private static final class Counters {
+        private int table;
+        private int matchHash;
+        private long packets;
+        private long bytes;
+        private int tag;
+        private long poll;
+
+        private Counters(int table, int matchHash, long packets, long bytes, int tag, long poll) {
+            set(table, matchHash, packets, bytes, tag, poll);
+        }
+
+        private void set(int table, int matchHash, long packets, long bytes, int tag, long poll) {
+            this.table = table;
+            this.matchHash = matchHash;
+            this.packets = packets;
+            this.bytes = bytes;
+            this.tag = tag;
+            this.poll = poll;
+        }
+    }
+}
@@ -15,16 +15,23 @@
  */
 package org.onosproject.provider.of.flow.impl;
 
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.driver.DefaultDriverData;
@@ -60,13 +67,14 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.projectfloodlight.openflow.protocol.OFBadRequestCode;
-import org.projectfloodlight.openflow.protocol.OFBarrierRequest;
 import org.projectfloodlight.openflow.protocol.OFCapabilities;
 import org.projectfloodlight.openflow.protocol.OFErrorMsg;
 import org.projectfloodlight.openflow.protocol.OFFlowLightweightStatsReply;
 import org.projectfloodlight.openflow.protocol.OFFlowMod;
 import org.projectfloodlight.openflow.protocol.OFFlowRemoved;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
 import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.projectfloodlight.openflow.protocol.OFPortStatus;
@@ -85,15 +93,19 @@ import org.projectfloodlight.openflow.types.U16;
 import org.projectfloodlight.openflow.types.U64;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Dictionary;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Timer;
+import java.util.TimerTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -101,6 +113,14 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static org.onlab.util.Tools.get;
 import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.ADAPTIVE_FLOW_SAMPLING;
 import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.ADAPTIVE_FLOW_SAMPLING_DEFAULT;
+import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.FLOW_MOD_WINDOW;
+import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.FLOW_STATS_FULL_SYNC_POLLS;
+import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.FLOW_STATS_FULL_SYNC_POLLS_DEFAULT;
+import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.FLOW_STATS_TABLE_TIERS;
+import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.FLOW_STATS_TABLE_TIERS_DEFAULT;
+import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.FLOW_MOD_WINDOW_DEFAULT;
+import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.MAX_IN_FLIGHT_WINDOWS;
+import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.MAX_IN_FLIGHT_WINDOWS_DEFAULT;
 import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.POLL_FREQUENCY;
 import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.POLL_FREQUENCY_DEFAULT;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -113,6 +133,10 @@ import static org.slf4j.LoggerFactory.getLogger;
         property = {
                 POLL_FREQUENCY + ":Integer=" + POLL_FREQUENCY_DEFAULT,
                 ADAPTIVE_FLOW_SAMPLING + ":Boolean=" + ADAPTIVE_FLOW_SAMPLING_DEFAULT,
+                FLOW_MOD_WINDOW + ":Integer=" + FLOW_MOD_WINDOW_DEFAULT,
+                MAX_IN_FLIGHT_WINDOWS + ":Integer=" + MAX_IN_FLIGHT_WINDOWS_DEFAULT,
+                FLOW_STATS_FULL_SYNC_POLLS + ":Integer=" + FLOW_STATS_FULL_SYNC_POLLS_DEFAULT,
+                FLOW_STATS_TABLE_TIERS + "=" + FLOW_STATS_TABLE_TIERS_DEFAULT,
         })
 public class OpenFlowRuleProvider extends AbstractProvider
         implements FlowRuleProvider {
@@ -131,8 +155,19 @@ public class OpenFlowRuleProvider extends AbstractProvider
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected DriverService driverService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
     private static final int MIN_EXPECTED_BYTE_LEN = 56;
     private static final int SKIP_BYTES = 4;
+    private static final long BATCH_TIMEOUT_MILLIS = 10_000;
+    private static final long PIPELINE_EXPIRY_MILLIS = 1_000;
+
+    private static final String COMPONENT = "OpenFlowRuleProvider";
+    private static final String FEATURE = "flowMods";
+    private static final String FLOW_MOD_RATE = "rate";
+    private static final String BARRIER_RTT = "barrierRtt";
 
     /** Frequency (in seconds) for polling flow statistics. */
     private int flowPollFrequency = POLL_FREQUENCY_DEFAULT;
@@ -140,6 +175,25 @@ public class OpenFlowRuleProvider extends AbstractProvider
     /** Adaptive Flow Sampling is on or off. */
     private boolean adaptiveFlowSampling = ADAPTIVE_FLOW_SAMPLING_DEFAULT;
 
+    /** Maximum number of flow mods written to a switch per barrier request. */
+    private int flowModWindow = FLOW_MOD_WINDOW_DEFAULT;
+
+    /** Maximum number of barrier requests awaiting their reply per switch; 0 for no limit. */
+    private int maxInFlightWindows = MAX_IN_FLIGHT_WINDOWS_DEFAULT;
+
+    /**
+     * Number of flow statistics polls between full synchronizations with the
+     * store; in between, only the entries whose counters changed are pushed.
+     */
+    private int flowStatsFullSyncPolls = FLOW_STATS_FULL_SYNC_POLLS_DEFAULT;
+
+    /**
+     * Number of polls between the pushes of the changed entries of the given
+     * tables, as comma-separated table:polls pairs; other tables are pushed
+     * on every poll.
+     */
+    private String flowStatsTableTiers = FLOW_STATS_TABLE_TIERS_DEFAULT;
+
     private FlowRuleProviderService providerService;
 
     private final InternalFlowProvider listener = new InternalFlowProvider();
@@ -156,6 +210,17 @@ public class OpenFlowRuleProvider extends AbstractProvider
     private final Map<Dpid, NewAdaptiveFlowStatsCollector> afsCollectors = Maps.newConcurrentMap();
     private final Map<Dpid, TableStatisticsCollector> tableStatsCollectors = Maps.newConcurrentMap();
 
+    // Pipelines of the flow mods of the batches being executed
+    private final Map<Dpid, FlowModPipeline<InternalCacheEntry>> pipelines = Maps.newConcurrentMap();
+    private TimerTask pipelineExpiryTask;
+    private MetricsComponent metricsComponent;
+    private MetricsFeature metricsFeature;
+
+    // Counters last pushed of the flow entries of each switch, when polling
+    // flow statistics incrementally
+    private final Map<Dpid, FlowStatsIndex> statsIndexes = Maps.newConcurrentMap();
+    private volatile Map<Integer, Integer> tableTiers = ImmutableMap.of();
+
     /**
      * Creates an OpenFlow host provider.
      */
@@ -170,9 +235,22 @@ public class OpenFlowRuleProvider extends AbstractProvider
         controller.addListener(listener);
         controller.addEventListener(listener);
 
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent(COMPONENT);
+            metricsFeature = metricsComponent.registerFeature(FEATURE);
+        }
+
         modified(context);
 
         pendingBatches = createBatchCache();
+        pipelineExpiryTask = new TimerTask() {
+            @Override
+            public void run() {
+                expirePipelines();
+            }
+        };
+        timer.scheduleAtFixedRate(pipelineExpiryTask, PIPELINE_EXPIRY_MILLIS, PIPELINE_EXPIRY_MILLIS);
 
         createCollectors();
 
@@ -184,6 +262,8 @@ public class OpenFlowRuleProvider extends AbstractProvider
     protected void deactivate(ComponentContext context) {
         cfgService.unregisterProperties(getClass(), false);
         stopCollectors();
+        pipelineExpiryTask.cancel();
+        pipelines.keySet().forEach(this::closePipeline);
         providerRegistry.unregister(this);
         providerService = null;
 
@@ -222,11 +302,80 @@ public class OpenFlowRuleProvider extends AbstractProvider
         }
 
         log.info("Settings: adaptiveFlowSampling={}", adaptiveFlowSampling);
+
+        try {
+            s = get(properties, FLOW_MOD_WINDOW);
+            int newFlowModWindow = isNullOrEmpty(s) ? flowModWindow : Integer.parseInt(s.trim());
+            if (newFlowModWindow > 0) {
+                flowModWindow = newFlowModWindow;
+            }
+            s = get(properties, MAX_IN_FLIGHT_WINDOWS);
+            int newMaxInFlightWindows = isNullOrEmpty(s) ? maxInFlightWindows : Integer.parseInt(s.trim());
+            if (newMaxInFlightWindows >= 0 && newMaxInFlightWindows != maxInFlightWindows) {
+                maxInFlightWindows = newMaxInFlightWindows;
+                pipelines.values().forEach(pipeline -> pipeline.adjustMaxInFlight(maxInFlightWindows));
+            }
+        } catch (NumberFormatException | ClassCastException e) {
+            log.warn("Invalid flow mod pipelining settings", e);
+        }
+
+        log.info("Settings: flowModWindow={}, maxInFlightWindows={}", flowModWindow, maxInFlightWindows);
+
+        try {
+            s = get(properties, FLOW_STATS_FULL_SYNC_POLLS);
+            int newFlowStatsFullSyncPolls = isNullOrEmpty(s) ?
+                    flowStatsFullSyncPolls : Integer.parseInt(s.trim());
+            if (newFlowStatsFullSyncPolls > 0) {
+                flowStatsFullSyncPolls = newFlowStatsFullSyncPolls;
+            }
+            s = get(properties, FLOW_STATS_TABLE_TIERS);
+            if (s != null) {
+                tableTiers = parseTableTiers(s);
+                flowStatsTableTiers = s.trim();
+            }
+        } catch (NumberFormatException | ClassCastException e) {
+            log.warn("Invalid flow statistics settings", e);
+        }
+        if (flowStatsFullSyncPolls <= 1) {
+            statsIndexes.clear();
+        }
+
+        log.info("Settings: flowStatsFullSyncPolls={}, flowStatsTableTiers={}",
+                 flowStatsFullSyncPolls, flowStatsTableTiers);
+    }
+
+    private static Map<Integer, Integer> parseTableTiers(String tiers) {
+        ImmutableMap.Builder<Integer, Integer> builder = ImmutableMap.builder();
+        for (String tier : tiers.split(",")) {
+            if (tier.trim().isEmpty()) {
+                continue;
+            }
+            String[] fields = tier.split(":");
+            if (fields.length != 2) {
+                throw new NumberFormatException("Invalid table tier: " + tier);
+            }
+            builder.put(Integer.parseInt(fields[0].trim()), Integer.parseInt(fields[1].trim()));
+        }
+        return builder.build();
+    }
+
+    // Returns the index of the flow entries of a switch, if polled incrementally.
+    private FlowStatsIndex statsIndex(Dpid dpid) {
+        return flowStatsFullSyncPolls > 1 ? statsIndexes.computeIfAbsent(dpid, d -> new FlowStatsIndex()) : null;
+    }
+
+    // Has the next poll report the entry of a flow rule about to be installed,
+    // so that the store learns of it even if its counters do not change.
+    private void invalidateStats(Dpid dpid, FlowRule flowRule) {
+        FlowStatsIndex index = statsIndexes.get(dpid);
+        if (index != null) {
+            index.invalidate(flowRule.id().value());
+        }
     }
 
     private Cache<Long, InternalCacheEntry> createBatchCache() {
         return CacheBuilder.newBuilder()
-                .expireAfterWrite(10, TimeUnit.SECONDS)
+                .expireAfterWrite(BATCH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
                 .removalListener((RemovalNotification<Long, InternalCacheEntry> notification) -> {
                     if (notification.getCause() == RemovalCause.EXPIRED) {
                         providerService.batchOperationCompleted(notification.getKey(),
@@ -263,12 +412,85 @@ public class OpenFlowRuleProvider extends AbstractProvider
         }
     }
 
+    private FlowModPipeline<InternalCacheEntry> getPipeline(Dpid dpid, OpenFlowSwitch sw) {
+        Set<InternalCacheEntry> unsent = new LinkedHashSet<>();
+        FlowModPipeline<InternalCacheEntry> pipeline = pipelines.compute(dpid, (d, existing) -> {
+            if (existing != null) {
+                if (existing.sw() == sw) {
+                    return existing;
+                }
+                // Replace the pipeline of a previous connection of the switch
+                unsent.addAll(existing.close());
+                removeMetrics(dpid);
+            }
+            Meter flowModRate;
+            Histogram barrierRtt;
+            MetricsService metricsService = this.metricsService;
+            if (metricsService != null) {
+                flowModRate = metricsService.createMeter(metricsComponent, metricsFeature,
+                                                         metricName(dpid, FLOW_MOD_RATE));
+                barrierRtt = metricsService.createHistogram(metricsComponent, metricsFeature,
+                                                            metricName(dpid, BARRIER_RTT));
+            } else {
+                flowModRate = new Meter();
+                barrierRtt = new Histogram(new ExponentiallyDecayingReservoir());
+            }
+            return new FlowModPipeline<>(sw, maxInFlightWindows, BATCH_TIMEOUT_MILLIS,
+                                         entry -> pendingBatches.put(entry.operation.id(), entry),
+                                         flowModRate, barrierRtt);
+        });
+        unsent.forEach(this::failBatch);
+        return pipeline;
+    }
+
+    private void closePipeline(Dpid dpid) {
+        FlowModPipeline<InternalCacheEntry> pipeline = pipelines.remove(dpid);
+        if (pipeline == null) {
+            return;
+        }
+        // Batches in flight expire unless completed; fail those not fully sent
+        pipeline.close().forEach(this::failBatch);
+        removeMetrics(dpid);
+    }
+
+    // Gives up on the windows the switches never replied to or that were
+    // held back for too long, and has the batches left behind expire.
+    private void expirePipelines() {
+        try {
+            pipelines.values().forEach(pipeline -> pipeline.expire().forEach(this::failBatch));
+            pendingBatches.cleanUp();
+        } catch (RuntimeException e) {
+            log.warn("Unable to expire the flow mod pipelines", e);
+        }
+    }
+
+    // Fails a batch unless it has already been completed or has expired.
+    private void failBatch(InternalCacheEntry entry) {
+        FlowRuleProviderService service = providerService;
+        if (pendingBatches.asMap().remove(entry.operation.id()) != null && service != null) {
+            service.batchOperationCompleted(entry.operation.id(), entry.failedCompletion());
+        }
+    }
+
+    private void removeMetrics(Dpid dpid) {
+        MetricsService metricsService = this.metricsService;
+        if (metricsService != null) {
+            metricsService.removeMetric(metricsComponent, metricsFeature, metricName(dpid, FLOW_MOD_RATE));
+            metricsService.removeMetric(metricsComponent, metricsFeature, metricName(dpid, BARRIER_RTT));
+        }
+    }
+
+    private static String metricName(Dpid dpid, String name) {
+        return Dpid.uri(dpid) + "." + name;
+    }
+
     private void stopCollectorIfNeeded(SwitchDataCollector collector) {
         if (collector != null) {
             collector.stop();
         }
     }
 
+
     private void stopCollectors() {
         if (adaptiveFlowSampling) {
             // NewAdaptiveFlowStatsCollector Destructor
@@ -336,6 +558,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
             return;
         }
 
+        invalidateStats(dpid, flowRule);
         sw.sendMsg(FlowModBuilder.builder(flowRule, sw.factory(),
                 Optional.empty(), Optional.of(driverService)).buildFlowAdd());
 
@@ -377,7 +600,8 @@ public class OpenFlowRuleProvider extends AbstractProvider
                                                     new CompletedBatchOperation(false, failures, batch.deviceId()));
             return;
         }
-        pendingBatches.put(batch.id(), new InternalCacheEntry(batch));
+        InternalCacheEntry entry = new InternalCacheEntry(batch);
+        List<OFMessage> flowMods = new ArrayList<>(batch.getOperations().size());
         OFFlowMod mod;
         for (FlowRuleBatchEntry fbe : batch.getOperations()) {
             FlowModBuilder builder =
@@ -386,23 +610,31 @@ public class OpenFlowRuleProvider extends AbstractProvider
             switch (fbe.operator()) {
                 case ADD:
                     mod = builder.buildFlowAdd();
+                    invalidateStats(dpid, fbe.target());
                     break;
                 case REMOVE:
                     mod = builder.buildFlowDel();
                     break;
                 case MODIFY:
                     mod = builder.buildFlowMod();
+                    invalidateStats(dpid, fbe.target());
                     break;
                 default:
                     log.error("Unsupported batch operation {}; skipping flowmod {}",
                             fbe.operator(), fbe);
                     continue;
             }
-            sw.sendMsg(mod);
+            flowMods.add(mod);
         }
-        OFBarrierRequest.Builder builder = sw.factory().buildBarrierRequest()
-                .setXid(batch.id());
-        sw.sendMsg(builder.build());
+
+        // Write the flow mods in windows closed by barriers, so that large
+        // batches are pipelined instead of awaiting a single round trip
+        List<List<OFMessage>> windows = flowMods.isEmpty() ?
+                Collections.singletonList(flowMods) : Lists.partition(flowMods, flowModWindow);
+        entry.setWindows(windows.size());
+        // Track the batch right away, so that it expires even if never sent
+        pendingBatches.put(batch.id(), entry);
+        getPipeline(dpid, sw).submit(entry, batch.id(), windows);
 
         recordEvents(dpid, batch.getOperations().size());
     }
@@ -423,6 +655,8 @@ public class OpenFlowRuleProvider extends AbstractProvider
                 stopCollectorIfNeeded(simpleCollectors.remove(dpid));
             }
             stopCollectorIfNeeded(tableStatsCollectors.remove(dpid));
+            closePipeline(dpid);
+            statsIndexes.remove(dpid);
         }
 
         @Override
@@ -468,18 +702,25 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     }
                     break;
                 case BARRIER_REPLY:
-                    try {
-                        InternalCacheEntry entry = pendingBatches.getIfPresent(msg.getXid());
-                        if (entry != null) {
+                    FlowModPipeline<InternalCacheEntry> pipeline = pipelines.get(dpid);
+                    if (pipeline != null) {
+                        pipeline.barrierReplied(msg.getXid());
+                    }
+                    InternalCacheEntry entry = pendingBatches.getIfPresent(msg.getXid());
+                    if (entry == null) {
+                        log.warn("Received unknown Barrier Reply: {}",
+                                 msg.getXid());
+                    } else if (entry.windowCompleted()) {
+                        try {
                             providerService
                                     .batchOperationCompleted(msg.getXid(),
                                                              entry.completed());
-                        } else {
-                            log.warn("Received unknown Barrier Reply: {}",
-                                     msg.getXid());
+                        } finally {
+                            pendingBatches.invalidate(msg.getXid());
                         }
-                    } finally {
-                        pendingBatches.invalidate(msg.getXid());
+                    } else {
+                        // Restart the expiration of the batch
+                        pendingBatches.put(msg.getXid(), entry);
                     }
                     break;
                 case ERROR:
@@ -630,6 +871,11 @@ public class OpenFlowRuleProvider extends AbstractProvider
                                       RoleState response) {
             if (response == RoleState.MASTER) {
                 resetEvents(dpid);
+                // The store may have changed while another instance was master
+                FlowStatsIndex index = statsIndexes.get(dpid);
+                if (index != null) {
+                    index.clear();
+                }
             }
         }
 
@@ -645,36 +891,72 @@ public class OpenFlowRuleProvider extends AbstractProvider
             NewAdaptiveFlowStatsCollector afsc = afsCollectors.get(dpid);
 
             if (adaptiveFlowSampling && afsc != null)  {
-                List<FlowEntry> flowEntries = replies.getEntries().stream()
-                        .map(entry -> new FlowEntryBuilder(did, entry, handler).withSetAfsc(afsc).build())
-                        .collect(Collectors.toList());
-
                 // Check that OFFlowStatsReply Xid is same with the one of OFFlowStatsRequest?
                 if (afsc.getFlowMissingXid() != NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID) {
                         log.debug("OpenFlowRuleProvider:pushFlowMetrics, flowMissingXid={}, "
                                           + "OFFlowStatsReply Xid={}, for {}",
                                   afsc.getFlowMissingXid(), replies.getXid(), dpid);
                     if (afsc.getFlowMissingXid() == replies.getXid()) {
-                        // call entire flow stats update with flowMissing synchronization.
-                        // used existing pushFlowMetrics
-                        providerService.pushFlowMetrics(did, flowEntries);
+                        pushAllFlowMetrics(dpid, replies, handler, afsc);
                     }
                     // reset flowMissingXid to NO_FLOW_MISSING_XID
                     afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
                 } else {
                     // call individual flow stats update
-                    providerService.pushFlowMetricsWithoutFlowMissing(did, flowEntries);
+                    providerService.pushFlowMetricsWithoutFlowMissing(
+                            did, buildFlowEntries(did, replies, handler, afsc, null, true));
                 }
             } else {
-                List<FlowEntry> flowEntries = replies.getEntries().stream()
-                        .map(entry -> new FlowEntryBuilder(did, entry, handler).build())
-                        .collect(Collectors.toList());
+                pushAllFlowMetrics(dpid, replies, handler, null);
+            }
+        }
+
+        // Pushes the statistics of all the flow entries of a switch; when
+        // polling incrementally, only the entries that changed are pushed
+        // between full synchronizations.
+        private void pushAllFlowMetrics(Dpid dpid, OFFlowStatsReply replies, DriverHandler handler,
+                                        NewAdaptiveFlowStatsCollector afsc) {
+            DeviceId did = DeviceId.deviceId(Dpid.uri(dpid));
+            FlowStatsIndex index = statsIndex(dpid);
+            boolean fullSync = index == null || index.startPoll(flowStatsFullSyncPolls);
+            List<FlowEntry> flowEntries = buildFlowEntries(did, replies, handler, afsc, index, fullSync);
 
+            if (fullSync) {
                 // call existing entire flow stats update with flowMissing synchronization
                 providerService.pushFlowMetrics(did, flowEntries);
+            } else {
+                providerService.pushFlowMetricsWithoutFlowMissing(did, flowEntries);
             }
         }
 
+        // Builds the flow entries of a reply, skipping the entries that did
+        // not change since the previous poll, unless synchronizing fully.
+        private List<FlowEntry> buildFlowEntries(DeviceId did, OFFlowStatsReply replies, DriverHandler handler,
+                                                 NewAdaptiveFlowStatsCollector afsc, FlowStatsIndex index,
+                                                 boolean fullSync) {
+            Map<Integer, Integer> tiers = tableTiers;
+            List<FlowEntry> flowEntries = new ArrayList<>();
+            for (OFFlowStatsEntry entry : replies.getEntries()) {
+                if (index != null) {
+                    if (!fullSync && !index.isDue(tiers.getOrDefault(entry.getTableId().getValue(), 1))) {
+                        index.touch(entry);
+                        continue;
+                    }
+                    // Changes of the live type are pushed too, for the store to poll the entry accordingly
+                    int tag = afsc == null ? 0 : afsc.calFlowLiveType(entry.getDurationSec()).ordinal();
+                    if (!index.update(entry, tag) && !fullSync) {
+                        continue;
+                    }
+                }
+                FlowEntryBuilder builder = new FlowEntryBuilder(did, entry, handler);
+                flowEntries.add(afsc == null ? builder.build() : builder.withSetAfsc(afsc).build());
+            }
+            if (index != null) {
+                index.endPoll();
+            }
+            return flowEntries;
+        }
+
         private void pushTableStatistics(Dpid dpid, OFTableStatsReply replies) {
 
             DeviceId did = DeviceId.deviceId(Dpid.uri(dpid));
@@ -761,11 +1043,30 @@ public class OpenFlowRuleProvider extends AbstractProvider
 
         private final FlowRuleBatchOperation operation;
         private final Set<FlowRule> failures = Sets.newConcurrentHashSet();
+        private final AtomicInteger remainingWindows = new AtomicInteger(1);
 
         public InternalCacheEntry(FlowRuleBatchOperation operation) {
             this.operation = operation;
         }
 
+        /**
+         * Sets the number of windows the flow mods of the batch are sent in.
+         *
+         * @param windows number of windows
+         */
+        public void setWindows(int windows) {
+            remainingWindows.set(windows);
+        }
+
+        /**
+         * Signals the barrier reply closing one window of the batch.
+         *
+         * @return true if all windows of the batch are complete
+         */
+        public boolean windowCompleted() {
+            return remainingWindows.decrementAndGet() <= 0;
+        }
+
         /**
          * Appends a failed rule to the set of failed items.
          *
@@ -25,8 +25,16 @@ public final class OsgiPropertyConstants {
 
     public static final String POLL_FREQUENCY = "flowPollFrequency";
     public static final String ADAPTIVE_FLOW_SAMPLING = "adaptiveFlowSampling";
+    public static final String FLOW_MOD_WINDOW = "flowModWindow";
+    public static final String MAX_IN_FLIGHT_WINDOWS = "maxInFlightWindows";
+    public static final String FLOW_STATS_FULL_SYNC_POLLS = "flowStatsFullSyncPolls";
+    public static final String FLOW_STATS_TABLE_TIERS = "flowStatsTableTiers";
 
     public static final int POLL_FREQUENCY_DEFAULT = 5;
     public static final boolean ADAPTIVE_FLOW_SAMPLING_DEFAULT = false;
+    public static final int FLOW_MOD_WINDOW_DEFAULT = 1000;
+    public static final int MAX_IN_FLIGHT_WINDOWS_DEFAULT = 8;
+    public static final int FLOW_STATS_FULL_SYNC_POLLS_DEFAULT = 1;
+    public static final String FLOW_STATS_TABLE_TIERS_DEFAULT = "";
 
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.openflow.controller.OpenFlowSwitch;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.projectfloodlight.openflow.protocol.OFVersion.OF_13;
+
+/**
+ * Tests of the pipelining of flow mods.
+ */
+public class FlowModPipelineTest {
+
+    private static final OFFactory FACTORY = OFFactories.getFactory(OF_13);
+
+    private final Capture<List<OFMessage>> bursts = newCapture(CaptureType.ALL);
+    private final List<String> sent = new ArrayList<>();
+    private final Meter flowModRate = new Meter();
+    private final Histogram barrierRtt = new Histogram(new ExponentiallyDecayingReservoir());
+    private FlowModPipeline<String> pipeline;
+
+    @Before
+    public void setUp() {
+        OpenFlowSwitch sw = createMock(OpenFlowSwitch.class);
+        expect(sw.factory()).andReturn(FACTORY).anyTimes();
+        expect(sw.getStringId()).andReturn("of:0000000000000001").anyTimes();
+        sw.sendMsg(capture(bursts));
+        expectLastCall().anyTimes();
+        replay(sw);
+        pipeline = new FlowModPipeline<>(sw, 2, 10_000, sent::add, flowModRate, barrierRtt);
+    }
+
+    private static List<OFMessage> flowMods(long xid, int count) {
+        List<OFMessage> flowMods = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            flowMods.add(FACTORY.buildFlowAdd().setXid(xid).build());
+        }
+        return flowMods;
+    }
+
+    private static List<OFType> types(List<OFMessage> burst) {
+        return burst.stream().map(OFMessage::getType).collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that windows beyond the in-flight limit await the barrier replies.
+     */
+    @Test
+    public void pipelinedWindows() {
+        pipeline.submit("a", 1, ImmutableList.of(flowMods(1, 2), flowMods(1, 2), flowMods(1, 1)));
+
+        // The first two windows are written at once
+        assertEquals(1, bursts.getValues().size());
+        assertEquals(ImmutableList.of(OFType.FLOW_MOD, OFType.FLOW_MOD, OFType.BARRIER_REQUEST,
+                                      OFType.FLOW_MOD, OFType.FLOW_MOD, OFType.BARRIER_REQUEST),
+                     types(bursts.getValues().get(0)));
+        assertEquals(ImmutableList.of("a", "a"), sent);
+
+        // Batches submitted meanwhile are held back
+        pipeline.submit("b", 2, ImmutableList.of(flowMods(2, 1)));
+        assertEquals(1, bursts.getValues().size());
+
+        // Each barrier reply lets another window be sent; held back windows are coalesced
+        assertFalse(pipeline.barrierReplied(3));
+        assertTrue(pipeline.barrierReplied(1));
+        assertEquals(2, bursts.getValues().size());
+        assertEquals(ImmutableList.of(OFType.FLOW_MOD, OFType.BARRIER_REQUEST), types(bursts.getValues().get(1)));
+        assertTrue(pipeline.barrierReplied(1));
+        assertEquals(3, bursts.getValues().size());
+        assertEquals(2, bursts.getValues().get(2).get(1).getXid());
+        assertEquals(ImmutableList.of("a", "a", "a", "b"), sent);
+
+        assertEquals(6, flowModRate.getCount());
+        assertEquals(2, barrierRtt.getCount());
+    }
+
+    /**
+     * Tests that a barrier reply completes the windows sent before it.
+     */
+    @Test
+    public void lostBarrierReply() {
+        pipeline.submit("a", 1, ImmutableList.of(flowMods(1, 1)));
+        pipeline.submit("b", 2, ImmutableList.of(flowMods(2, 1)));
+        pipeline.submit("c", 3, ImmutableList.of(flowMods(3, 1)));
+        assertEquals(2, bursts.getValues().size());
+
+        assertTrue(pipeline.barrierReplied(2));
+        assertEquals(3, bursts.getValues().size());
+        assertEquals(2, barrierRtt.getCount());
+        assertFalse(pipeline.barrierReplied(1));
+    }
+
+    /**
+     * Tests that windows held back or awaiting their barrier reply for too
+     * long are given up on.
+     */
+    @Test
+    public void expire() {
+        OpenFlowSwitch sw = createMock(OpenFlowSwitch.class);
+        expect(sw.factory()).andReturn(FACTORY).anyTimes();
+        expect(sw.getStringId()).andReturn("of:0000000000000002").anyTimes();
+        sw.sendMsg(capture(bursts));
+        expectLastCall().anyTimes();
+        replay(sw);
+        FlowModPipeline<String> expiring = new FlowModPipeline<>(sw, 1, 0, sent::add, flowModRate, barrierRtt);
+
+        expiring.submit("a", 1, ImmutableList.of(flowMods(1, 1)));
+        expiring.submit("b", 2, ImmutableList.of(flowMods(2, 1), flowMods(2, 1)));
+        assertEquals(1, bursts.getValues().size());
+
+        // The window of a is presumed lost; the held back windows of b are dropped
+        assertEquals(ImmutableSet.of("b"), expiring.expire());
+        assertEquals(1, bursts.getValues().size());
+        assertFalse(expiring.barrierReplied(1));
+
+        // Windows submitted afterwards are sent right away
+        expiring.submit("c", 3, ImmutableList.of(flowMods(3, 1)));
+        assertEquals(2, bursts.getValues().size());
+        assertEquals(ImmutableList.of("a", "c"), sent);
+    }
+
+    /**
+     * Tests that closing the pipeline returns the batches never sent.
+     */
+    @Test
+    public void close() {
+        pipeline.submit("a", 1, ImmutableList.of(flowMods(1, 1), flowMods(1, 1), flowMods(1, 1)));
+        pipeline.submit("b", 2, ImmutableList.of(flowMods(2, 1)));
+        assertEquals(ImmutableSet.of("a", "b"), pipeline.close());
+        assertFalse(pipeline.barrierReplied(1));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import org.junit.Test;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
+import org.projectfloodlight.openflow.types.TableId;
+import org.projectfloodlight.openflow.types.U64;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.projectfloodlight.openflow.protocol.OFVersion.OF_13;
+
+/**
+ * Tests of the index of the flow statistics counters.
+ */
+public class FlowStatsIndexTest {
+
+    private static final OFFactory FACTORY = OFFactories.getFactory(OF_13);
+
+    private final FlowStatsIndex index = new FlowStatsIndex();
+
+    private static OFFlowStatsEntry entry(long cookie, int table, long packets) {
+        return FACTORY.buildFlowStatsEntry()
+                .setCookie(U64.of(cookie))
+                .setTableId(TableId.of(table))
+                .setMatch(FACTORY.matchWildcardAll())
+                .setPacketCount(U64.of(packets))
+                .setByteCount(U64.of(packets * 100))
+                .build();
+    }
+
+    /**
+     * Tests that only new and changed entries are reported.
+     */
+    @Test
+    public void changedEntries() {
+        assertTrue(index.startPoll(3));
+        assertTrue(index.update(entry(1, 0, 10), 0));
+        assertTrue(index.update(entry(2, 0, 10), 0));
+        index.endPoll();
+
+        assertFalse(index.startPoll(3));
+        assertFalse(index.update(entry(1, 0, 10), 0));
+        assertTrue(index.update(entry(2, 0, 20), 0));
+        assertTrue(index.update(entry(3, 0, 0), 0));
+        index.endPoll();
+
+        assertFalse(index.startPoll(3));
+        assertFalse(index.update(entry(1, 0, 10), 0));
+        assertTrue(index.update(entry(2, 0, 20), 1));
+        index.endPoll();
+
+        // Entries not seen in a poll are forgotten
+        assertTrue(index.startPoll(3));
+        assertTrue(index.update(entry(3, 0, 0), 0));
+    }
+
+    /**
+     * Tests that invalidated entries and entries sharing a cookie are reported.
+     */
+    @Test
+    public void invalidatedEntries() {
+        index.startPoll(2);
+        index.update(entry(1, 0, 10), 0);
+        index.update(entry(2, 0, 10), 0);
+        index.endPoll();
+
+        index.invalidate(1);
+        index.startPoll(2);
+        assertTrue(index.update(entry(1, 0, 10), 0));
+        assertFalse(index.update(entry(2, 0, 10), 0));
+        assertTrue(index.update(entry(2, 1, 10), 0));
+        index.endPoll();
+
+        index.clear();
+        index.startPoll(2);
+        assertTrue(index.update(entry(1, 0, 10), 0));
+    }
+
+    /**
+     * Tests that the entries of tiered tables are kept across the polls
+     * they are not due in.
+     */
+    @Test
+    public void tieredTables() {
+        index.startPoll(10);
+        assertTrue(index.isDue(2));
+        index.update(entry(1, 5, 10), 0);
+        index.endPoll();
+
+        index.startPoll(10);
+        assertFalse(index.isDue(2));
+        index.touch(entry(1, 5, 20));
+        index.endPoll();
+
+        index.startPoll(10);
+        assertTrue(index.isDue(2));
+        assertTrue(index.update(entry(1, 5, 20), 0));
+    }
+}
@@ -0,0 +1,51 @@
+"""
+ Copyright 2019-present Open Networking Foundation
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+"""
+
+load("//tools/build/bazel:generate_workspace.bzl", "JMH")
+
+"""
+    Creates a runnable JMH benchmark binary.
+
+    Benchmarks are compiled with the JMH annotation processor and run via the
+    JMH launcher, which accepts the usual JMH command line options, e.g.
+    bazel run //utils/misc:onlab-misc-jmh -- -f 1 -wi 3 -i 5 EthernetBenchmark
+
+    Args:
+        name: name of the benchmark binary
+        srcs: benchmark sources; defaults to src/jmh/java
+        deps: dependencies of the benchmarks
+        jvm_flags: flags given to the JVM running the JMH launcher
+        visibility: visibility of the binary
+"""
+
+def onos_jmh_benchmarks(
+        name,
+        srcs = None,
+        deps = [],
+        jvm_flags = [],
+        visibility = None):
+    if srcs == None:
+        srcs = native.glob(["src/jmh/java/**/*.java"])
+
+    native.java_binary(
+        name = name,
+        srcs = srcs,
+        main_class = "org.openjdk.jmh.Main",
+        plugins = ["//tools/build/bazel:jmh_annotation_processor"],
+        deps = deps + JMH,
+        jvm_flags = jvm_flags,
+        visibility = visibility,
+    )
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.onlab.graph.GraphSearchBenchmark.Link;
+import org.onlab.graph.GraphSearchBenchmark.LinkWeigher;
+import org.onlab.graph.GraphSearchBenchmark.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Compares the Dijkstra search with its compact counterpart on generated
+ * sparse graphs with randomly weighted edges.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactGraphSearchBenchmark {
+
+    private static final long SEED = 1234;
+    private static final int CHORDS = 3;
+
+    /**
+     * Path search algorithms being compared.
+     */
+    public enum Algorithm {
+        DIJKSTRA, COMPACT_DIJKSTRA
+    }
+
+    /**
+     * Number of vertexes in the graph.
+     */
+    @Param({"1000", "5000", "10000"})
+    public int vertexes;
+
+    @Param
+    public Algorithm algorithm;
+
+    private final EdgeWeigher<Node, Link> weigher = new LinkWeigher();
+
+    private GraphPathSearch<Node, Link> search;
+    private Graph<Node, Link> graph;
+    private Node src;
+    private Node dst;
+
+    @Setup
+    public void setUp() {
+        search = algorithm == Algorithm.DIJKSTRA ?
+                new DijkstraGraphSearch<>() : new CompactDijkstraGraphSearch<>();
+
+        // Connect the vertexes in a ring and add random chords from each.
+        Random random = new Random(SEED);
+        Node[] nodes = new Node[vertexes];
+        for (int i = 0; i < vertexes; i++) {
+            nodes[i] = new Node(i);
+        }
+        Set<Link> edges = new HashSet<>();
+        for (int i = 0; i < vertexes; i++) {
+            GraphSearchBenchmark.addLinks(edges, nodes[i], nodes[(i + 1) % vertexes], random);
+            for (int j = 0; j < CHORDS; j++) {
+                edges.add(new Link(nodes[i], nodes[random.nextInt(vertexes)], 1 + random.nextInt(10)));
+            }
+        }
+
+        graph = new AdjacencyListsGraph<>(new HashSet<>(Arrays.asList(nodes)), edges);
+        src = nodes[0];
+        dst = nodes[vertexes / 2];
+
+        // Prime the compact representation of the graph.
+        search.search(graph, src, dst, weigher, 1);
+    }
+
+    @Benchmark
+    public GraphPathSearch.Result<Node, Link> pair() {
+        return search.search(graph, src, dst, weigher, 1);
+    }
+
+    @Benchmark
+    public GraphPathSearch.Result<Node, Link> allPaths() {
+        return search.search(graph, src, dst, weigher, ALL_PATHS);
+    }
+
+    @Benchmark
+    public GraphPathSearch.Result<Node, Link> tree() {
+        return search.search(graph, src, null, weigher, ALL_PATHS);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Measures the path searches used for topology path computation on
+ * generated grid graphs with randomly weighted edges.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphSearchBenchmark {
+
+    private static final long SEED = 1234;
+    private static final int K = 4;
+
+    /**
+     * Number of vertexes along each side of the grid.
+     */
+    @Param({"10", "30"})
+    public int size;
+
+    private final DijkstraGraphSearch<Node, Link> dijkstra = new DijkstraGraphSearch<>();
+    private final KShortestPathsSearch<Node, Link> kShortest = new KShortestPathsSearch<>();
+    private final LazyKShortestPathsSearch<Node, Link> lazyKShortest = new LazyKShortestPathsSearch<>();
+    private final EdgeWeigher<Node, Link> weigher = new LinkWeigher();
+
+    private Graph<Node, Link> graph;
+    private Node src;
+    private Node dst;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        Node[][] nodes = new Node[size][size];
+        Set<Node> vertexes = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                nodes[i][j] = new Node(i * size + j);
+                vertexes.add(nodes[i][j]);
+            }
+        }
+
+        // Connect each vertex to its right and lower neighbours in both directions.
+        Set<Link> edges = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (j + 1 < size) {
+                    addLinks(edges, nodes[i][j], nodes[i][j + 1], random);
+                }
+                if (i + 1 < size) {
+                    addLinks(edges, nodes[i][j], nodes[i + 1][j], random);
+                }
+            }
+        }
+
+        graph = new AdjacencyListsGraph<>(vertexes, edges);
+        src = nodes[0][0];
+        dst = nodes[size - 1][size - 1];
+    }
+
+    static void addLinks(Set<Link> edges, Node one, Node two, Random random) {
+        double weight = 1 + random.nextInt(10);
+        edges.add(new Link(one, two, weight));
+        edges.add(new Link(two, one, weight));
+    }
+
+    @Benchmark
+    public GraphPathSearch.Result<Node, Link> dijkstraPair() {
+        return dijkstra.search(graph, src, dst, weigher, 1);
+    }
+
+    @Benchmark
+    public GraphPathSearch.Result<Node, Link> dijkstraAllPaths() {
+        return dijkstra.search(graph, src, dst, weigher, ALL_PATHS);
+    }
+
+    @Benchmark
+    public GraphPathSearch.Result<Node, Link> dijkstraTree() {
+        return dijkstra.search(graph, src, null, weigher, ALL_PATHS);
+    }
+
+    @Benchmark
+    public GraphPathSearch.Result<Node, Link> kShortestPaths() {
+        return kShortest.search(graph, src, dst, weigher, K);
+    }
+
+    @Benchmark
+    public List<Path<Node, Link>> lazyKShortestPaths() {
+        return lazyKShortest.lazyPathSearch(graph, src, dst, weigher)
+                .limit(K)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Graph vertex.
+     */
+    public static final class Node implements Vertex {
+        private final int id;
+
+        Node(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Node && ((Node) obj).id == id;
+        }
+
+        @Override
+        public String toString() {
+            return "n" + id;
+        }
+    }
+
+    /**
+     * Graph edge with a fixed weight.
+     */
+    public static final class Link extends AbstractEdge<Node> {
+        private final Weight weight;
+
+        Link(Node src, Node dst, double weight) {
+            super(src, dst);
+            this.weight = ScalarWeight.toWeight(weight);
+        }
+    }
+
+    static final class LinkWeigher implements EdgeWeigher<Node, Link> {
+        @Override
+        public Weight weight(Link edge) {
+            return edge.weight;
+        }
+
+        @Override
+        public Weight getInitialWeight() {
+            return ScalarWeight.toWeight(0);
+        }
+
+        @Override
+        public Weight getNonViableWeight() {
+            return ScalarWeight.NON_VIABLE_WEIGHT;
+        }
+    }
+}
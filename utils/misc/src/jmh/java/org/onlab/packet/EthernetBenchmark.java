@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import com.google.common.collect.ImmutableList;
+import org.onlab.packet.dhcp.DhcpOption;
+import org.onlab.packet.ndp.NeighborSolicitation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the eager and lazy deserialization of typical packet-in frames.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EthernetBenchmark {
+
+    private static final MacAddress SRC_MAC = MacAddress.valueOf("00:00:00:00:00:01");
+    private static final MacAddress DST_MAC = MacAddress.valueOf("00:00:00:00:00:02");
+    private static final Ip4Address SRC_IP4 = Ip4Address.valueOf("10.0.0.1");
+    private static final Ip4Address DST_IP4 = Ip4Address.valueOf("10.0.0.2");
+    private static final Ip6Address SRC_IP6 = Ip6Address.valueOf("2000::1");
+    private static final Ip6Address DST_IP6 = Ip6Address.valueOf("2000::2");
+
+    /**
+     * Kinds of frames being deserialized.
+     */
+    public enum Frame {
+        ARP, LLDP, DHCP, NDP
+    }
+
+    @Param
+    public Frame frame;
+
+    private byte[] data;
+
+    @Setup
+    public void setUp() {
+        Ethernet eth;
+        switch (frame) {
+            case ARP:
+                eth = ARP.buildArpRequest(SRC_MAC.toBytes(), SRC_IP4.toOctets(),
+                                          DST_IP4.toOctets(), Ethernet.VLAN_UNTAGGED);
+                break;
+            case LLDP:
+                eth = new Ethernet();
+                eth.setEtherType(Ethernet.TYPE_LLDP)
+                        .setDestinationMACAddress(MacAddress.ONOS_LLDP)
+                        .setSourceMACAddress(SRC_MAC)
+                        .setPayload(ONOSLLDP.onosSecureLLDP("of:0000000000000001",
+                                                            new ChassisId(1), 1, "secret"));
+                break;
+            case DHCP:
+                eth = dhcpDiscover();
+                break;
+            case NDP:
+                eth = NeighborSolicitation.buildNdpSolicit(DST_IP6, SRC_IP6, DST_IP6,
+                                                           SRC_MAC, DST_MAC, VlanId.NONE);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported frame " + frame);
+        }
+        data = eth.serialize();
+    }
+
+    private static Ethernet dhcpDiscover() {
+        DhcpOption type = new DhcpOption();
+        type.setCode(DHCP.DHCPOptionCode.OptionCode_MessageType.getValue())
+                .setLength((byte) 1)
+                .setData(new byte[]{(byte) DHCP.MsgType.DHCPDISCOVER.getValue()});
+        DhcpOption end = new DhcpOption();
+        end.setCode(DHCP.DHCPOptionCode.OptionCode_END.getValue());
+
+        DHCP dhcp = new DHCP();
+        dhcp.setOpCode(DHCP.OPCODE_REQUEST)
+                .setHardwareType(DHCP.HWTYPE_ETHERNET)
+                .setHardwareAddressLength((byte) 6)
+                .setTransactionId(1)
+                .setClientHardwareAddress(SRC_MAC.toBytes())
+                .setOptions(ImmutableList.of(type, end));
+
+        UDP udp = new UDP();
+        udp.setSourcePort(UDP.DHCP_CLIENT_PORT)
+                .setDestinationPort(UDP.DHCP_SERVER_PORT)
+                .setPayload(dhcp);
+
+        IPv4 ipv4 = new IPv4();
+        ipv4.setSourceAddress(0)
+                .setDestinationAddress(Ip4Address.valueOf("255.255.255.255").toInt())
+                .setProtocol(IPv4.PROTOCOL_UDP)
+                .setTtl((byte) 64)
+                .setPayload(udp);
+
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(Ethernet.TYPE_IPV4)
+                .setDestinationMACAddress(MacAddress.BROADCAST)
+                .setSourceMACAddress(SRC_MAC)
+                .setPayload(ipv4);
+        return eth;
+    }
+
+    /**
+     * Eagerly decodes the whole frame and inspects its ethertype.
+     *
+     * @return ethertype of the frame
+     * @throws DeserializationException if the frame cannot be decoded
+     */
+    @Benchmark
+    public short eagerEtherType() throws DeserializationException {
+        return Ethernet.deserializer().deserialize(data, 0, data.length).getEtherType();
+    }
+
+    /**
+     * Lazily decodes the frame and inspects its ethertype only.
+     *
+     * @return ethertype of the frame
+     * @throws DeserializationException if the frame cannot be decoded
+     */
+    @Benchmark
+    public short lazyEtherType() throws DeserializationException {
+        return Ethernet.lazyDeserializer().deserialize(data, 0, data.length).getEtherType();
+    }
+
+    /**
+     * Eagerly decodes the whole frame and accesses its payload.
+     *
+     * @return payload of the frame
+     * @throws DeserializationException if the frame cannot be decoded
+     */
+    @Benchmark
+    public IPacket eagerPayload() throws DeserializationException {
+        return Ethernet.deserializer().deserialize(data, 0, data.length).getPayload();
+    }
+
+    /**
+     * Lazily decodes the frame and accesses its payload, forcing it to be
+     * decoded.
+     *
+     * @return payload of the frame
+     * @throws DeserializationException if the frame cannot be decoded
+     */
+    @Benchmark
+    public IPacket lazyPayload() throws DeserializationException {
+        return Ethernet.lazyDeserializer().deserialize(data, 0, data.length).getPayload();
+    }
+}
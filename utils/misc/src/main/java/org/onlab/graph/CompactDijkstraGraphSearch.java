@@ -0,0 +1,473 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.math.DoubleMath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Dijkstra shortest-path graph search algorithm operating on the compact
+ * representation of the graph, capable of finding not just one, but all
+ * shortest paths between the source and destinations.
+ * <p>
+ * The search keeps the costs, the priority queue and the parent edges in
+ * primitive arrays which are reused by all searches carried out by the same
+ * thread, so that only the resulting paths are allocated. The compact
+ * representation of the most recently searched graph is retained; graphs
+ * searched by this algorithm must therefore be immutable, as the topology
+ * graphs are.
+ * <p>
+ * Costs are accrued as primitive doubles, which requires the weigher to
+ * produce {@link ScalarWeight}s; searches with other weights are delegated
+ * to {@link DijkstraGraphSearch}. Unlike the latter, the costs and parent
+ * edges of the result of a search towards a specific destination only cover
+ * the vertexes along the found paths.
+ * <p>
+ * The search can also produce a {@link ShortestPathTree} holding the shortest
+ * paths from a source to all other vertexes, for callers looking up paths
+ * from the same source towards many destinations.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class CompactDijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
+        extends AbstractGraphPathSearch<V, E> {
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final DijkstraGraphSearch<V, E> dijkstra = new DijkstraGraphSearch<>();
+
+    private volatile CompactGraph<V, E> compactGraph;
+
+    @Override
+    protected Result<V, E> internalSearch(Graph<V, E> graph, V src, V dst,
+                                          EdgeWeigher<V, E> weigher, int maxPaths) {
+        Weight initialWeight = weigher.getInitialWeight();
+        if (!(initialWeight instanceof ScalarWeight)) {
+            return dijkstra.search(graph, src, dst, weigher, maxPaths);
+        }
+
+        CompactGraph<V, E> compact = compactGraph(graph);
+        Scratch scratch = SCRATCH.get();
+        scratch.reset(compact.vertexCount(), compact.edgeCount());
+
+        int source = compact.index(src);
+        int target = dst != null ? compact.index(dst) : -1;
+        search(compact, scratch, source, target,
+               ((ScalarWeight) initialWeight).value(), weigher, maxPaths);
+
+        CompactResult result = new CompactResult(src, dst);
+        if (target >= 0) {
+            if (target != source && scratch.isReached(target)) {
+                buildPaths(compact, scratch.costs, scratch.parentHeads, scratch.parentNext,
+                           scratch.parentEdges, source, target, maxPaths, result.paths);
+                result.addVertex(compact, scratch, source);
+                for (Path<V, E> path : result.paths) {
+                    for (E edge : path.edges()) {
+                        result.addVertex(compact, scratch, compact.index(edge.dst()));
+                    }
+                }
+            }
+        } else {
+            for (int v = 0; v < compact.vertexCount(); v++) {
+                if (scratch.isReached(v)) {
+                    result.addVertex(compact, scratch, v);
+                    if (v != source && (maxPaths == ALL_PATHS || result.paths.size() < maxPaths)) {
+                        buildPaths(compact, scratch.costs, scratch.parentHeads, scratch.parentNext,
+                                   scratch.parentEdges, source, v, maxPaths, result.paths);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Searches for the shortest paths from the specified source to all
+     * vertexes reachable from it. The resulting tree yields the paths towards
+     * any destination without further searches.
+     *
+     * @param graph   compact graph to search
+     * @param src     source vertex; must belong to the graph
+     * @param weigher edge weigher producing scalar weights
+     * @return shortest-path tree rooted at the source
+     */
+    public ShortestPathTree<V, E> searchTree(CompactGraph<V, E> graph, V src,
+                                             EdgeWeigher<V, E> weigher) {
+        checkNotNull(graph, "Graph cannot be null");
+        checkNotNull(weigher, "Weigher cannot be null");
+        int source = graph.index(src);
+        checkArgument(source >= 0, "Source not in the graph");
+        Weight initialWeight = weigher.getInitialWeight();
+        checkArgument(initialWeight instanceof ScalarWeight, "Weigher must produce scalar weights");
+
+        Scratch scratch = SCRATCH.get();
+        scratch.reset(graph.vertexCount(), graph.edgeCount());
+        search(graph, scratch, source, -1, ((ScalarWeight) initialWeight).value(), weigher, ALL_PATHS);
+
+        double[] costs = new double[graph.vertexCount()];
+        int[] parentHeads = new int[graph.vertexCount()];
+        for (int v = 0; v < costs.length; v++) {
+            boolean reached = scratch.isReached(v);
+            costs[v] = reached ? scratch.costs[v] : Double.NaN;
+            parentHeads[v] = reached ? scratch.parentHeads[v] : -1;
+        }
+        return new ShortestPathTree<>(graph, source, costs, parentHeads,
+                                      Arrays.copyOf(scratch.parentNext, scratch.parentSize),
+                                      Arrays.copyOf(scratch.parentEdges, scratch.parentSize));
+    }
+
+    // Returns the compact representation of the given graph, reusing the
+    // previous one if it represents the same graph.
+    private CompactGraph<V, E> compactGraph(Graph<V, E> graph) {
+        CompactGraph<V, E> compact = compactGraph;
+        if (compact == null || compact.graph() != graph) {
+            compact = new CompactGraph<>(graph);
+            compactGraph = compact;
+        }
+        return compact;
+    }
+
+    // Settles the vertexes in the order of their cost from the source until
+    // the target, if one is given, or all reachable vertexes are settled.
+    private void search(CompactGraph<V, E> compact, Scratch scratch, int source, int target,
+                        double initialCost, EdgeWeigher<V, E> weigher, int maxPaths) {
+        double threshold = ScalarWeight.samenessThreshold();
+        scratch.reach(source, initialCost);
+        scratch.push(source);
+
+        while (scratch.heapSize > 0) {
+            int u = scratch.pop();
+            if (u == target) {
+                break;
+            }
+
+            double cost = scratch.costs[u];
+            for (int e = compact.offset(u), end = compact.offset(u + 1); e < end; e++) {
+                Weight hopWeight = weigher.weight(compact.edge(e));
+                if (!hopWeight.isViable() || hopWeight.isNegative()) {
+                    continue;
+                }
+
+                int v = compact.target(e);
+                double newCost = cost + ((ScalarWeight) hopWeight).value();
+                if (!scratch.isReached(v)) {
+                    scratch.reach(v, newCost);
+                    scratch.addParent(v, e);
+                    scratch.push(v);
+                    continue;
+                }
+
+                int compareResult = DoubleMath.fuzzyCompare(newCost, scratch.costs[v], threshold);
+                if (compareResult < 0) {
+                    scratch.costs[v] = newCost;
+                    scratch.clearParents(v);
+                    scratch.addParent(v, e);
+                    scratch.decreaseKey(v);
+                } else if (compareResult == 0 &&
+                        (maxPaths == ALL_PATHS || scratch.parentCounts[v] < maxPaths)) {
+                    scratch.addParent(v, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the loop-free paths from the source to the target by walking
+     * the parent edges backwards from the target, depth first, until the
+     * given set holds the maximum number of paths.
+     *
+     * @param compact     compact graph
+     * @param costs       costs of the vertexes from the source
+     * @param parentHeads index of the first parent entry of each vertex
+     * @param parentNext  index of the next parent entry of each entry
+     * @param parentEdges edge position of each parent entry
+     * @param source      source vertex index
+     * @param target      target vertex index, reached from the source
+     * @param maxPaths    limit on the number of paths
+     * @param paths       set to add the paths to
+     * @param <V>         vertex type
+     * @param <E>         edge type
+     */
+    static <V extends Vertex, E extends Edge<V>> void buildPaths(
+            CompactGraph<V, E> compact, double[] costs,
+            int[] parentHeads, int[] parentNext, int[] parentEdges,
+            int source, int target, int maxPaths, Set<Path<V, E>> paths) {
+        Scratch scratch = SCRATCH.get();
+        scratch.resetPath(compact.vertexCount());
+        int[] vertexes = scratch.pathVertexes;
+        int[] cursors = scratch.pathCursors;
+        int[] edges = scratch.pathEdges;
+        boolean[] onPath = scratch.onPath;
+        Weight cost = new ScalarWeight(costs[target]);
+
+        int depth = 0;
+        vertexes[0] = target;
+        cursors[0] = parentHeads[target];
+        onPath[target] = true;
+
+        while (depth >= 0) {
+            int v = vertexes[depth];
+            int parent = cursors[depth];
+            if (v == source || parent < 0) {
+                if (v == source) {
+                    List<E> pathEdges = new ArrayList<>(depth);
+                    for (int i = depth - 1; i >= 0; i--) {
+                        pathEdges.add(compact.edge(edges[i]));
+                    }
+                    paths.add(new DefaultPath<>(pathEdges, cost));
+                    if (maxPaths != ALL_PATHS && paths.size() >= maxPaths) {
+                        break;
+                    }
+                }
+                onPath[v] = false;
+                depth--;
+                continue;
+            }
+
+            cursors[depth] = parentNext[parent];
+            int e = parentEdges[parent];
+            int u = compact.source(e);
+            if (!onPath[u]) {
+                edges[depth] = e;
+                depth++;
+                vertexes[depth] = u;
+                cursors[depth] = parentHeads[u];
+                onPath[u] = true;
+            }
+        }
+
+        // Leave the path markers clear for the next destination.
+        for (int i = 0; i <= depth; i++) {
+            onPath[vertexes[i]] = false;
+        }
+    }
+
+    /**
+     * Result of the compact search, holding the found paths along with the
+     * costs and parent edges of the vertexes they traverse.
+     */
+    private final class CompactResult implements Result<V, E> {
+
+        private final V src;
+        private final V dst;
+        private final Set<Path<V, E>> paths = new HashSet<>();
+        private final Map<V, Weight> costs = new HashMap<>();
+        private final Map<V, Set<E>> parents = new HashMap<>();
+
+        private CompactResult(V src, V dst) {
+            this.src = src;
+            this.dst = dst;
+        }
+
+        @Override
+        public V src() {
+            return src;
+        }
+
+        @Override
+        public V dst() {
+            return dst;
+        }
+
+        @Override
+        public Set<Path<V, E>> paths() {
+            return paths;
+        }
+
+        @Override
+        public Map<V, Weight> costs() {
+            return costs;
+        }
+
+        @Override
+        public Map<V, Set<E>> parents() {
+            return parents;
+        }
+
+        // Records the cost and parent edges of the given vertex.
+        private void addVertex(CompactGraph<V, E> compact, Scratch scratch, int v) {
+            V vertex = compact.vertex(v);
+            if (costs.containsKey(vertex)) {
+                return;
+            }
+            costs.put(vertex, new ScalarWeight(scratch.costs[v]));
+            if (scratch.parentHeads[v] >= 0) {
+                Set<E> edges = new HashSet<>();
+                for (int p = scratch.parentHeads[v]; p >= 0; p = scratch.parentNext[p]) {
+                    edges.add(compact.edge(scratch.parentEdges[p]));
+                }
+                parents.put(vertex, edges);
+            }
+        }
+    }
+
+    /**
+     * Per-thread working arrays of the search, grown as needed and reused
+     * across searches. A vertex is reached in the current search if its stamp
+     * matches the current generation, which spares clearing the arrays.
+     */
+    private static final class Scratch {
+
+        private int generation;
+        private int[] stamps = new int[0];
+        private double[] costs = new double[0];
+
+        // Binary min-heap of vertex indexes ordered by cost, along with the
+        // position of each vertex in the heap; -1 once the vertex is settled.
+        private int[] heap = new int[0];
+        private int[] heapPositions = new int[0];
+        private int heapSize;
+
+        // Parent edges of each vertex as linked lists over shared arrays;
+        // each edge is added at most once per search.
+        private int[] parentHeads = new int[0];
+        private int[] parentCounts = new int[0];
+        private int[] parentNext = new int[0];
+        private int[] parentEdges = new int[0];
+        private int parentSize;
+
+        // Depth-first path building state.
+        private int[] pathVertexes = new int[0];
+        private int[] pathCursors = new int[0];
+        private int[] pathEdges = new int[0];
+        private boolean[] onPath = new boolean[0];
+
+        private void reset(int vertexCount, int edgeCount) {
+            if (stamps.length < vertexCount) {
+                stamps = new int[vertexCount];
+                costs = new double[vertexCount];
+                heap = new int[vertexCount];
+                heapPositions = new int[vertexCount];
+                parentHeads = new int[vertexCount];
+                parentCounts = new int[vertexCount];
+                generation = 0;
+            }
+            if (parentNext.length < edgeCount) {
+                parentNext = new int[edgeCount];
+                parentEdges = new int[edgeCount];
+            }
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+            heapSize = 0;
+            parentSize = 0;
+        }
+
+        private void resetPath(int vertexCount) {
+            if (onPath.length < vertexCount) {
+                pathVertexes = new int[vertexCount + 1];
+                pathCursors = new int[vertexCount + 1];
+                pathEdges = new int[vertexCount + 1];
+                onPath = new boolean[vertexCount];
+            }
+        }
+
+        private boolean isReached(int v) {
+            return stamps[v] == generation;
+        }
+
+        private void reach(int v, double cost) {
+            stamps[v] = generation;
+            costs[v] = cost;
+            heapPositions[v] = -1;
+            parentHeads[v] = -1;
+            parentCounts[v] = 0;
+        }
+
+        private void clearParents(int v) {
+            parentHeads[v] = -1;
+            parentCounts[v] = 0;
+        }
+
+        private void addParent(int v, int edge) {
+            parentEdges[parentSize] = edge;
+            parentNext[parentSize] = parentHeads[v];
+            parentHeads[v] = parentSize++;
+            parentCounts[v]++;
+        }
+
+        private void push(int v) {
+            heap[heapSize] = v;
+            heapPositions[v] = heapSize;
+            siftUp(heapSize++);
+        }
+
+        private int pop() {
+            int v = heap[0];
+            heapPositions[v] = -1;
+            if (--heapSize > 0) {
+                heap[0] = heap[heapSize];
+                heapPositions[heap[0]] = 0;
+                siftDown(0);
+            }
+            return v;
+        }
+
+        private void decreaseKey(int v) {
+            if (heapPositions[v] >= 0) {
+                siftUp(heapPositions[v]);
+            }
+        }
+
+        private void siftUp(int position) {
+            int v = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (costs[heap[parent]] <= costs[v]) {
+                    break;
+                }
+                move(heap[parent], position);
+                position = parent;
+            }
+            move(v, position);
+        }
+
+        private void siftDown(int position) {
+            int v = heap[position];
+            int half = heapSize >>> 1;
+            while (position < half) {
+                int child = 2 * position + 1;
+                int right = child + 1;
+                if (right < heapSize && costs[heap[right]] < costs[heap[child]]) {
+                    child = right;
+                }
+                if (costs[v] <= costs[heap[child]]) {
+                    break;
+                }
+                move(heap[child], position);
+                position = child;
+            }
+            move(v, position);
+        }
+
+        private void move(int v, int position) {
+            heap[position] = v;
+            heapPositions[v] = position;
+        }
+    }
+}
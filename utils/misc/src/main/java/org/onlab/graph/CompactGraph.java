@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compact, index-based representation of an immutable graph. Vertexes are
+ * numbered from 0 and the edges are kept in compressed sparse row form, i.e.
+ * the egress edges of vertex {@code i} occupy the positions from
+ * {@code offset(i)} inclusive to {@code offset(i + 1)} exclusive of the
+ * edge arrays.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public final class CompactGraph<V extends Vertex, E extends Edge<V>> {
+
+    private final Graph<V, E> graph;
+    private final Map<V, Integer> indexes;
+    private final Object[] vertexes;
+    private final Object[] edges;
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] targets;
+
+    /**
+     * Creates a compact representation of the specified graph.
+     *
+     * @param graph graph to represent; it must not change afterwards
+     */
+    @SuppressWarnings("unchecked")
+    public CompactGraph(Graph<V, E> graph) {
+        this.graph = checkNotNull(graph, "Graph cannot be null");
+
+        int vertexCount = graph.getVertexes().size();
+        this.indexes = new HashMap<>(vertexCount * 2);
+        this.vertexes = new Object[vertexCount];
+        for (V vertex : graph.getVertexes()) {
+            vertexes[indexes.size()] = vertex;
+            indexes.put(vertex, indexes.size());
+        }
+
+        int edgeCount = 0;
+        for (Object vertex : vertexes) {
+            edgeCount += graph.getEdgesFrom((V) vertex).size();
+        }
+        this.edges = new Object[edgeCount];
+        this.offsets = new int[vertexCount + 1];
+        this.sources = new int[edgeCount];
+        this.targets = new int[edgeCount];
+
+        int position = 0;
+        for (int i = 0; i < vertexCount; i++) {
+            offsets[i] = position;
+            for (E edge : graph.getEdgesFrom((V) vertexes[i])) {
+                Integer target = indexes.get(edge.dst());
+                if (target != null) {
+                    edges[position] = edge;
+                    sources[position] = i;
+                    targets[position] = target;
+                    position++;
+                }
+            }
+        }
+        offsets[vertexCount] = position;
+    }
+
+    /**
+     * Returns the graph represented by this compact graph.
+     *
+     * @return original graph
+     */
+    public Graph<V, E> graph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of vertexes.
+     *
+     * @return vertex count
+     */
+    public int vertexCount() {
+        return vertexes.length;
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return edge count
+     */
+    public int edgeCount() {
+        return offsets[vertexes.length];
+    }
+
+    /**
+     * Returns the index of the specified vertex.
+     *
+     * @param vertex graph vertex
+     * @return vertex index; -1 if the vertex is not in the graph
+     */
+    public int index(V vertex) {
+        Integer index = indexes.get(vertex);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the vertex with the specified index.
+     *
+     * @param index vertex index
+     * @return graph vertex
+     */
+    @SuppressWarnings("unchecked")
+    public V vertex(int index) {
+        return (V) vertexes[index];
+    }
+
+    /**
+     * Returns the edge at the specified position.
+     *
+     * @param position edge position
+     * @return graph edge
+     */
+    @SuppressWarnings("unchecked")
+    public E edge(int position) {
+        return (E) edges[position];
+    }
+
+    /**
+     * Returns the position of the first egress edge of the specified vertex;
+     * the egress edges of the last vertex end at {@code offset(vertexCount())}.
+     *
+     * @param index vertex index
+     * @return edge position
+     */
+    public int offset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Returns the index of the source vertex of the edge at the specified
+     * position.
+     *
+     * @param position edge position
+     * @return vertex index
+     */
+    public int source(int position) {
+        return sources[position];
+    }
+
+    /**
+     * Returns the index of the destination vertex of the edge at the
+     * specified position.
+     *
+     * @param position edge position
+     * @return vertex index
+     */
+    public int target(int position) {
+        return targets[position];
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("vertexCount", vertexCount())
+                .add("edgeCount", edgeCount())
+                .toString();
+    }
+}
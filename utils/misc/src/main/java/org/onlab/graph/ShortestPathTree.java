@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Shortest paths from a source vertex to all vertexes reachable from it, as
+ * found by {@link CompactDijkstraGraphSearch#searchTree}. The tree retains
+ * all equal-cost parent edges of each vertex, so that it yields the same
+ * paths as a search towards any single destination.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public final class ShortestPathTree<V extends Vertex, E extends Edge<V>> {
+
+    private final CompactGraph<V, E> graph;
+    private final int source;
+    private final double[] costs;
+    private final int[] parentHeads;
+    private final int[] parentNext;
+    private final int[] parentEdges;
+
+    /**
+     * Creates a shortest-path tree.
+     *
+     * @param graph       compact graph the tree spans
+     * @param source      source vertex index
+     * @param costs       cost of each vertex; NaN if not reachable
+     * @param parentHeads index of the first parent entry of each vertex
+     * @param parentNext  index of the next parent entry of each entry
+     * @param parentEdges edge position of each parent entry
+     */
+    ShortestPathTree(CompactGraph<V, E> graph, int source, double[] costs,
+                     int[] parentHeads, int[] parentNext, int[] parentEdges) {
+        this.graph = graph;
+        this.source = source;
+        this.costs = costs;
+        this.parentHeads = parentHeads;
+        this.parentNext = parentNext;
+        this.parentEdges = parentEdges;
+    }
+
+    /**
+     * Returns the source vertex of the tree.
+     *
+     * @return source vertex
+     */
+    public V src() {
+        return graph.vertex(source);
+    }
+
+    /**
+     * Returns the cost of the shortest paths to the specified vertex.
+     *
+     * @param dst destination vertex
+     * @return path cost; null if the vertex is not reachable
+     */
+    public Weight cost(V dst) {
+        int target = graph.index(dst);
+        return target >= 0 && !Double.isNaN(costs[target]) ? new ScalarWeight(costs[target]) : null;
+    }
+
+    /**
+     * Returns the shortest paths from the source to the specified vertex.
+     *
+     * @param dst      destination vertex
+     * @param maxPaths limit on the number of paths;
+     *                 {@link GraphPathSearch#ALL_PATHS} if no limit
+     * @return set of shortest paths; empty if the vertex is not reachable
+     *         or is the source itself
+     */
+    public Set<Path<V, E>> paths(V dst, int maxPaths) {
+        int target = graph.index(dst);
+        if (target < 0 || target == source || Double.isNaN(costs[target]) ||
+                (maxPaths != ALL_PATHS && maxPaths <= 0)) {
+            return ImmutableSet.of();
+        }
+        Set<Path<V, E>> paths = new HashSet<>();
+        CompactDijkstraGraphSearch.buildPaths(graph, costs, parentHeads, parentNext, parentEdges,
+                                              source, target, maxPaths, paths);
+        return paths;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("src", src())
+                .add("vertexCount", graph.vertexCount())
+                .toString();
+    }
+}
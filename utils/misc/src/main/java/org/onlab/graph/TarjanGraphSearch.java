@@ -15,8 +15,10 @@
  */
 package org.onlab.graph;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -108,7 +110,7 @@ public class TarjanGraphSearch<V extends Vertex, E extends Edge<V>>
 
         private int index = 0;
         private final Map<V, VertexData<V>> vertexData = new HashMap<>();
-        private final List<VertexData<V>> visited = new ArrayList<>();
+        private final Deque<VertexData<V>> visited = new ArrayDeque<>();
 
         private SccResult(Graph<V, E> graph) {
             this.graph = graph;
@@ -150,14 +152,16 @@ public class TarjanGraphSearch<V extends Vertex, E extends Edge<V>>
         private VertexData<V> addData(V vertex) {
             VertexData<V> d = new VertexData<>(vertex, index);
             vertexData.put(vertex, d);
-            visited.add(0, d);
+            visited.push(d);
+            d.onStack = true;
             index++;
             return d;
         }
 
-        // Indicates whether the given vertex has been visited
+        // Indicates whether the given vertex has been visited and is still
+        // awaiting assignment to a cluster
         private boolean visited(VertexData data) {
-            return visited.contains(data);
+            return data.onStack;
         }
 
         // Adds a new cluster for the specified vertex
@@ -171,7 +175,8 @@ public class TarjanGraphSearch<V extends Vertex, E extends Edge<V>>
             VertexData<V> nextVertexData;
             Set<V> vertexes = new HashSet<>();
             do {
-                nextVertexData = visited.remove(0);
+                nextVertexData = visited.pop();
+                nextVertexData.onStack = false;
                 vertexes.add(nextVertexData.vertex);
             } while (data != nextVertexData);
             return Collections.unmodifiableSet(vertexes);
@@ -201,6 +206,7 @@ public class TarjanGraphSearch<V extends Vertex, E extends Edge<V>>
         final V vertex;
         int index;
         int lowLink;
+        boolean onStack;
 
         private VertexData(V vertex, int index) {
             this.vertex = vertex;
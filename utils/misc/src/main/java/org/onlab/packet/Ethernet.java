@@ -25,6 +25,7 @@ import org.onlab.packet.ndp.RouterAdvertisement;
 import org.onlab.packet.ndp.RouterSolicitation;
 
 import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
@@ -33,11 +34,14 @@ import java.util.Map;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onlab.packet.PacketUtils.checkHeaderLength;
 import static org.onlab.packet.PacketUtils.checkInput;
+import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Ethernet Packet.
  */
 public class Ethernet extends BasePacket {
+    private static final Logger log = getLogger(Ethernet.class);
+
     private static final String HEXES = "0123456789ABCDEF";
     private static final String HEX_PROTO = "0x%s";
 
@@ -85,6 +89,11 @@ public class Ethernet extends BasePacket {
     protected short etherType;
     protected boolean pad = false;
 
+    // Payload bytes not yet decoded; set only by the lazy deserializer
+    private volatile PendingPayload pendingPayload;
+    // Error encountered while decoding the payload lazily, if any
+    private volatile DeserializationException payloadError;
+
     /**
      * By default, set Ethernet to untagged.
      */
@@ -95,6 +104,71 @@ public class Ethernet extends BasePacket {
         this.qinqTPID = TYPE_QINQ;
     }
 
+    @Override
+    public IPacket getPayload() {
+        if (pendingPayload != null) {
+            decodePayload();
+        }
+        return this.payload;
+    }
+
+    @Override
+    public IPacket setPayload(final IPacket payload) {
+        this.pendingPayload = null;
+        return super.setPayload(payload);
+    }
+
+    @Override
+    public void resetChecksum() {
+        // Have any pending payload decoded, so that it gets serialized anew
+        getPayload();
+        super.resetChecksum();
+    }
+
+    /**
+     * Indicates whether the payload of this frame is yet to be decoded.
+     *
+     * @return true if the payload has not been decoded yet
+     */
+    public boolean isPayloadPending() {
+        return pendingPayload != null;
+    }
+
+    /**
+     * Returns the error encountered while lazily decoding the payload of
+     * this frame, in which case the payload was retained as {@link Data}.
+     * This is the error the eager deserializer would have thrown.
+     *
+     * @return payload decoding error; null if there was none or the payload
+     * has not been decoded yet
+     */
+    public DeserializationException getPayloadError() {
+        return payloadError;
+    }
+
+    // Decodes the pending payload; should the payload turn out to be
+    // malformed, it is retained as raw data and the error recorded.
+    private synchronized void decodePayload() {
+        PendingPayload pending = pendingPayload;
+        if (pending == null) {
+            return;
+        }
+        IPacket decoded;
+        try {
+            decoded = payloadDeserializer(pending.etherType)
+                    .deserialize(pending.data, pending.offset, pending.length);
+        } catch (DeserializationException | RuntimeException e) {
+            payloadError = e instanceof DeserializationException ?
+                    (DeserializationException) e : new DeserializationException(e.toString());
+            log.debug("Unable to decode payload of ethertype 0x{}: {}",
+                     Integer.toHexString(pending.etherType & 0xffff), payloadError.getMessage());
+            decoded = new Data(pending.copy());
+        }
+        decoded.setParent(this);
+        this.payload = decoded;
+        this.pendingPayload = null;
+    }
+
     /**
      * Gets the destination MAC address.
      *
@@ -357,7 +431,11 @@ public class Ethernet extends BasePacket {
     @Override
     public byte[] serialize() {
         byte[] payloadData = null;
-        if (this.payload != null) {
+        PendingPayload pending = this.pendingPayload;
+        if (pending != null) {
+            // Undecoded payload cannot have changed; reuse its bytes as-is
+            payloadData = pending.copy();
+        } else if (this.payload != null) {
             this.payload.setParent(this);
             payloadData = this.payload.serialize();
         }
@@ -450,6 +528,7 @@ public class Ethernet extends BasePacket {
      */
     @Override
     public int hashCode() {
+        getPayload();
         final int prime = 7867;
         int result = super.hashCode();
         result = prime * result + this.destinationMACAddress.hashCode();
@@ -473,10 +552,12 @@ public class Ethernet extends BasePacket {
         if (this == obj) {
             return true;
         }
-        if (!super.equals(obj)) {
+        if (!(obj instanceof Ethernet)) {
             return false;
         }
-        if (!(obj instanceof Ethernet)) {
+        getPayload();
+        ((Ethernet) obj).getPayload();
+        if (!super.equals(obj)) {
             return false;
         }
         final Ethernet other = (Ethernet) obj;
@@ -726,64 +807,11 @@ public class Ethernet extends BasePacket {
         return (data, offset, length) -> {
             checkInput(data, offset, length, ETHERNET_HEADER_LENGTH);
 
-            byte[] addressBuffer = new byte[DATALAYER_ADDRESS_LENGTH];
-
             ByteBuffer bb = ByteBuffer.wrap(data, offset, length);
-            Ethernet eth = new Ethernet();
-            // Read destination MAC address into buffer
-            bb.get(addressBuffer);
-            eth.setDestinationMACAddress(addressBuffer);
-
-            // Read source MAC address into buffer
-            bb.get(addressBuffer);
-            eth.setSourceMACAddress(addressBuffer);
-
-            short ethType = bb.getShort();
-            if (ethType == TYPE_QINQ) {
-                // in this case we excpect 2 VLAN headers
-                checkHeaderLength(length, ETHERNET_HEADER_LENGTH + VLAN_HEADER_LENGTH + VLAN_HEADER_LENGTH);
-                final short tci = bb.getShort();
-                eth.setQinQPriorityCode((byte) (tci >> 13 & 0x07));
-                eth.setQinQVID((short) (tci & 0x0fff));
-                eth.setQinQTPID(TYPE_QINQ);
-                ethType = bb.getShort();
-            }
-            if (ethType == TYPE_VLAN) {
-                checkHeaderLength(length, ETHERNET_HEADER_LENGTH + VLAN_HEADER_LENGTH);
-                final short tci = bb.getShort();
-                eth.setPriorityCode((byte) (tci >> 13 & 0x07));
-                eth.setVlanID((short) (tci & 0x0fff));
-                ethType = bb.getShort();
+            Ethernet eth = deserializeHeader(bb, length);
 
-                if (ethType == TYPE_VLAN) {
-                    // We handle only double tagged packets here and assume that in this case
-                    // TYPE_QINQ above was not hit
-                    // We put the values retrieved above with TYPE_VLAN in
-                    // qInQ fields
-                    checkHeaderLength(length, ETHERNET_HEADER_LENGTH + VLAN_HEADER_LENGTH);
-                    eth.setQinQPriorityCode(eth.getPriorityCode());
-                    eth.setQinQVID(eth.getVlanID());
-                    eth.setQinQTPID(TYPE_VLAN);
-
-                    final short innerTci = bb.getShort();
-                    eth.setPriorityCode((byte) (innerTci >> 13 & 0x07));
-                    eth.setVlanID((short) (innerTci & 0x0fff));
-                    ethType = bb.getShort();
-                }
-            } else {
-                eth.setVlanID(Ethernet.VLAN_UNTAGGED);
-            }
-            eth.setEtherType(ethType);
-
-            IPacket payload;
-            Deserializer<? extends IPacket> deserializer;
-            if (Ethernet.ETHERTYPE_DESERIALIZER_MAP.containsKey(ethType)) {
-                deserializer = Ethernet.ETHERTYPE_DESERIALIZER_MAP.get(ethType);
-            } else {
-                deserializer = Data.deserializer();
-            }
-            payload = deserializer.deserialize(data, bb.position(),
-                                               bb.limit() - bb.position());
+            IPacket payload = payloadDeserializer(eth.getEtherType())
+                    .deserialize(data, bb.position(), bb.limit() - bb.position());
             payload.setParent(eth);
             eth.setPayload(payload);
 
@@ -791,6 +819,112 @@ public class Ethernet extends BasePacket {
         };
     }
 
+    /**
+     * Lazy deserializer function for Ethernet packets.
+     * <p>
+     * Only the Ethernet header is decoded upfront; the payload is decoded
+     * upon first access, e.g. via {@link #getPayload()}, so that frames which
+     * are only inspected for their addresses or ethertype avoid the cost of
+     * decoding the upper layers. Until then, the frame holds on to the given
+     * data array, which must therefore not be modified by the caller.
+     * Payloads which fail to decode are retained as {@link Data}, with the
+     * error available through {@link #getPayloadError()}.
+     * </p>
+     *
+     * @return lazy deserializer function
+     */
+    public static Deserializer<Ethernet> lazyDeserializer() {
+        return (data, offset, length) -> {
+            checkInput(data, offset, length, ETHERNET_HEADER_LENGTH);
+
+            ByteBuffer bb = ByteBuffer.wrap(data, offset, length);
+            Ethernet eth = deserializeHeader(bb, length);
+            eth.pendingPayload = new PendingPayload(eth.getEtherType(), data, bb.position(),
+                                                    bb.limit() - bb.position());
+            return eth;
+        };
+    }
+
+    // Decodes the Ethernet header, leaving the buffer positioned at the payload.
+    private static Ethernet deserializeHeader(ByteBuffer bb, int length)
+            throws DeserializationException {
+        byte[] addressBuffer = new byte[DATALAYER_ADDRESS_LENGTH];
+
+        Ethernet eth = new Ethernet();
+        // Read destination MAC address into buffer
+        bb.get(addressBuffer);
+        eth.setDestinationMACAddress(addressBuffer);
+
+        // Read source MAC address into buffer
+        bb.get(addressBuffer);
+        eth.setSourceMACAddress(addressBuffer);
+
+        short ethType = bb.getShort();
+        if (ethType == TYPE_QINQ) {
+            // in this case we excpect 2 VLAN headers
+            checkHeaderLength(length, ETHERNET_HEADER_LENGTH + VLAN_HEADER_LENGTH + VLAN_HEADER_LENGTH);
+            final short tci = bb.getShort();
+            eth.setQinQPriorityCode((byte) (tci >> 13 & 0x07));
+            eth.setQinQVID((short) (tci & 0x0fff));
+            eth.setQinQTPID(TYPE_QINQ);
+            ethType = bb.getShort();
+        }
+        if (ethType == TYPE_VLAN) {
+            checkHeaderLength(length, ETHERNET_HEADER_LENGTH + VLAN_HEADER_LENGTH);
+            final short tci = bb.getShort();
+            eth.setPriorityCode((byte) (tci >> 13 & 0x07));
+            eth.setVlanID((short) (tci & 0x0fff));
+            ethType = bb.getShort();
+
+            if (ethType == TYPE_VLAN) {
+                // We handle only double tagged packets here and assume that in this case
+                // TYPE_QINQ above was not hit
+                // We put the values retrieved above with TYPE_VLAN in
+                // qInQ fields
+                checkHeaderLength(length, ETHERNET_HEADER_LENGTH + VLAN_HEADER_LENGTH);
+                eth.setQinQPriorityCode(eth.getPriorityCode());
+                eth.setQinQVID(eth.getVlanID());
+                eth.setQinQTPID(TYPE_VLAN);
+
+                final short innerTci = bb.getShort();
+                eth.setPriorityCode((byte) (innerTci >> 13 & 0x07));
+                eth.setVlanID((short) (innerTci & 0x0fff));
+                ethType = bb.getShort();
+            }
+        } else {
+            eth.setVlanID(Ethernet.VLAN_UNTAGGED);
+        }
+        eth.setEtherType(ethType);
+        return eth;
+    }
+
+    private static Deserializer<? extends IPacket> payloadDeserializer(short ethType) {
+        Deserializer<? extends IPacket> deserializer = ETHERTYPE_DESERIALIZER_MAP.get(ethType);
+        return deserializer != null ? deserializer : Data.deserializer();
+    }
+
+    /**
+     * Slice of a frame holding its undecoded payload, along with the
+     * ethertype it was framed with.
+     */
+    private static final class PendingPayload {
+        private final short etherType;
+        private final byte[] data;
+        private final int offset;
+        private final int length;
+
+        private PendingPayload(short etherType, byte[] data, int offset, int length) {
+            this.etherType = etherType;
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private byte[] copy() {
+            return Arrays.copyOfRange(data, offset, offset + length);
+        }
+    }
+
     /**
      * Make an exact copy of the ethernet packet.
      *
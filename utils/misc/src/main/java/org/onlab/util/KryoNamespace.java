@@ -33,8 +33,6 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 import org.slf4j.Logger;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
@@ -72,6 +70,11 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
 
     private static final String NO_NAME = "(no name)";
 
+    // Heap output kept by each thread for serializing; an output whose buffer
+    // grew beyond the retained size gets a fresh buffer instead
+    private static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+    private static final ThreadLocal<Output> OUTPUT = new ThreadLocal<>();
+
     private static final Logger log = getLogger(KryoNamespace.class);
 
     private final KryoPool pool = new KryoPool.Builder(this)
@@ -299,19 +302,50 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
 
     /**
      * Serializes given object to byte array using Kryo instance in pool.
+     * <p>
+     * The object is serialized into a buffer kept by the calling thread, so
+     * the returned array is the only allocation made for the serialized bytes.
      *
      * @param obj Object to serialize
-     * @param bufferSize maximum size of serialized bytes
+     * @param bufferSize initial size of the buffer, grown as needed
      * @return serialized bytes
      */
     public byte[] serialize(final Object obj, final int bufferSize) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bufferSize);
-        Output out = new Output(outputStream);
-        return pool.run(kryo -> {
-            kryo.writeClassAndObject(out, obj);
-            out.flush();
-            return outputStream.toByteArray();
-        });
+        Output out = borrowOutput(bufferSize);
+        try {
+            Kryo kryo = borrow();
+            try {
+                kryo.writeClassAndObject(out, obj);
+            } finally {
+                release(kryo);
+            }
+            return out.toBytes();
+        } finally {
+            releaseOutput(out);
+        }
+    }
+
+    // Takes the output of the calling thread, so that a serializer nested
+    // in another one gets an output of its own.
+    private static Output borrowOutput(int bufferSize) {
+        Output out = OUTPUT.get();
+        if (out == null) {
+            return new Output(bufferSize, -1);
+        }
+        OUTPUT.set(null);
+        if (out.getBuffer().length < bufferSize) {
+            out.setBuffer(new byte[bufferSize], -1);
+        }
+        return out;
+    }
+
+    private static void releaseOutput(Output out) {
+        if (out.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+            out.setBuffer(new byte[DEFAULT_BUFFER_SIZE], -1);
+        } else {
+            out.clear();
+        }
+        OUTPUT.set(out);
     }
 
     /**
@@ -367,7 +401,7 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @return deserialized Object
      */
     public <T> T deserialize(final byte[] bytes) {
-        Input in = new Input(new ByteArrayInputStream(bytes));
+        Input in = new Input(bytes);
         Kryo kryo = borrow();
         try {
             @SuppressWarnings("unchecked")
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableSet.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Test of the Dijkstra algorithm operating on the compact graph
+ * representation. Searches using weights other than scalar ones are
+ * delegated to the plain Dijkstra algorithm, so the inherited tests cover
+ * the delegation, while the tests below compare the results of both
+ * algorithms using scalar weights.
+ */
+public class CompactDijkstraGraphSearchTest extends DijkstraGraphSearchTest {
+
+    private static final ScalarWeight S0 = new ScalarWeight(0);
+    private static final ScalarWeight S1 = new ScalarWeight(1);
+    private static final ScalarWeight S2 = new ScalarWeight(2);
+
+    private final EdgeWeigher<TestVertex, TestEdge> scalarWeigher =
+            new EdgeWeigher<TestVertex, TestEdge>() {
+                @Override
+                public Weight weight(TestEdge edge) {
+                    return edge.weight();
+                }
+
+                @Override
+                public Weight getInitialWeight() {
+                    return S0;
+                }
+
+                @Override
+                public Weight getNonViableWeight() {
+                    return ScalarWeight.NON_VIABLE_WEIGHT;
+                }
+            };
+
+    @Override
+    protected AbstractGraphPathSearch<TestVertex, TestEdge> graphSearch() {
+        return new CompactDijkstraGraphSearch<>();
+    }
+
+    @Test
+    public void scalarMultiplePath() {
+        graph = new AdjacencyListsGraph<>(of(A, B, C, D, E, F),
+                of(new TestEdge(A, B, S1),
+                        new TestEdge(A, C, S1),
+                        new TestEdge(B, D, S1),
+                        new TestEdge(C, D, S1),
+                        new TestEdge(D, E, S1),
+                        new TestEdge(A, E, S0),
+                        new TestEdge(E, F, ScalarWeight.NON_VIABLE_WEIGHT),
+                        new TestEdge(F, B, new ScalarWeight(-1)),
+                        new TestEdge(D, A, S0)));
+        executeSearch(graphSearch(), graph, A, D, scalarWeigher, 2, S2);
+        executeSinglePathSearch(graphSearch(), graph, A, D, scalarWeigher, 1, S2);
+        executeSearch(graphSearch(), graph, A, E, scalarWeigher, 1, S0);
+        executeSearch(graphSearch(), graph, A, F, scalarWeigher, 0, null);
+        executeSearch(graphSearch(), graph, A, A, scalarWeigher, 0, null);
+    }
+
+    @Test
+    public void pathVertexes() {
+        graph = new AdjacencyListsGraph<>(vertexes(), edges());
+        GraphPathSearch.Result<TestVertex, TestEdge> result =
+                graphSearch().search(graph, A, H, null, ALL_PATHS);
+        assertEquals("incorrect paths count", 1, result.paths().size());
+        assertEquals("incorrect costs", of(A, B, D, H), result.costs().keySet());
+        assertEquals("incorrect parents", of(B, D, H), result.parents().keySet());
+        assertEquals("incorrect cost", new ScalarWeight(3), result.costs().get(H));
+    }
+
+    @Test
+    public void reusedSearch() {
+        GraphPathSearch<TestVertex, TestEdge> search = graphSearch();
+        graph = new AdjacencyListsGraph<>(vertexes(), edges());
+        executeSearch(search, graph, A, H, null, 1, new ScalarWeight(3));
+
+        // Searching a different graph must not reuse the compact form of the first.
+        graph = new AdjacencyListsGraph<>(of(A, B, H),
+                of(new TestEdge(A, B, S1), new TestEdge(B, H, S1)));
+        executeSearch(search, graph, A, H, null, 1, S2);
+        executeSearch(search, graph, H, A, null, 0, null);
+    }
+
+    @Test
+    public void randomGraphs() {
+        Random random = new Random(42);
+        GraphPathSearch<TestVertex, TestEdge> compact = graphSearch();
+        GraphPathSearch<TestVertex, TestEdge> dijkstra = new DijkstraGraphSearch<>();
+
+        for (int round = 0; round < 20; round++) {
+            List<TestVertex> vertexes = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                vertexes.add(new TestVertex("V" + i));
+            }
+            Set<TestEdge> edges = new HashSet<>();
+            for (int i = 0; i < 200; i++) {
+                edges.add(new TestEdge(vertexes.get(random.nextInt(vertexes.size())),
+                                       vertexes.get(random.nextInt(vertexes.size())),
+                                       new ScalarWeight(1 + random.nextInt(3))));
+            }
+            graph = new AdjacencyListsGraph<>(new HashSet<>(vertexes), edges);
+
+            TestVertex src = vertexes.get(random.nextInt(vertexes.size()));
+            for (TestVertex dst : vertexes) {
+                assertSameResult(dijkstra.search(graph, src, dst, scalarWeigher, ALL_PATHS),
+                                 compact.search(graph, src, dst, scalarWeigher, ALL_PATHS));
+
+                GraphPathSearch.Result<TestVertex, TestEdge> single =
+                        compact.search(graph, src, dst, scalarWeigher, 1);
+                GraphPathSearch.Result<TestVertex, TestEdge> expected =
+                        dijkstra.search(graph, src, dst, scalarWeigher, 1);
+                assertEquals("incorrect paths count", expected.paths().size(), single.paths().size());
+                if (!single.paths().isEmpty()) {
+                    assertEquals("incorrect path cost",
+                                 expected.paths().iterator().next().cost(),
+                                 single.paths().iterator().next().cost());
+                }
+            }
+
+            GraphPathSearch.Result<TestVertex, TestEdge> tree =
+                    compact.search(graph, src, null, scalarWeigher, ALL_PATHS);
+            GraphPathSearch.Result<TestVertex, TestEdge> expected =
+                    dijkstra.search(graph, src, null, scalarWeigher, ALL_PATHS);
+            assertSameResult(expected, tree);
+            assertEquals("incorrect costs", expected.costs(), tree.costs());
+
+            ShortestPathTree<TestVertex, TestEdge> pathTree =
+                    new CompactDijkstraGraphSearch<TestVertex, TestEdge>()
+                            .searchTree(new CompactGraph<>(graph), src, scalarWeigher);
+            assertEquals("incorrect source", src, pathTree.src());
+            for (TestVertex dst : vertexes) {
+                assertEquals("incorrect paths",
+                             dijkstra.search(graph, src, dst, scalarWeigher, ALL_PATHS).paths(),
+                             pathTree.paths(dst, ALL_PATHS));
+                assertEquals("incorrect cost", expected.costs().get(dst), pathTree.cost(dst));
+                assertTrue("too many paths", pathTree.paths(dst, 1).size() <= 1);
+            }
+        }
+    }
+
+    // Asserts that the results hold the same paths with the same costs.
+    private void assertSameResult(GraphPathSearch.Result<TestVertex, TestEdge> expected,
+                                  GraphPathSearch.Result<TestVertex, TestEdge> actual) {
+        assertEquals("incorrect paths", expected.paths(), actual.paths());
+        for (Path<TestVertex, TestEdge> path : actual.paths()) {
+            assertTrue("incorrect path cost",
+                       expected.costs().get(path.dst()).compareTo(path.cost()) == 0);
+        }
+    }
+}
@@ -23,7 +23,13 @@ import java.nio.ByteBuffer;
 
 import java.util.Arrays;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Unit tests for the Ethernet class.
@@ -173,4 +179,102 @@ public class EthernetTest {
         assertEquals(Arrays.toString(encoded), Arrays.toString(qinqHeaderExpected));
     }
 
+    @Test
+    public void testLazyDeserializeBadInput() throws Exception {
+        PacketTestUtils.testDeserializeBadInput(Ethernet.lazyDeserializer());
+    }
+
+    @Test
+    public void testLazyDeserializeTruncated() throws DeserializationException {
+        PacketTestUtils.testDeserializeTruncated(Ethernet.lazyDeserializer(), vlanByteHeader);
+    }
+
+    @Test
+    public void testLazyDeserialize() throws Exception {
+        ARP arp = arp();
+        byte[] bytes = arpFrame(arp).serialize();
+
+        Ethernet eth = Ethernet.lazyDeserializer().deserialize(bytes, 0, bytes.length);
+        assertTrue(eth.isPayloadPending());
+        assertEquals(Ethernet.TYPE_ARP, eth.getEtherType());
+        assertEquals(vlan, eth.getVlanID());
+        assertArrayEquals(bytes, eth.serialize());
+        assertTrue(eth.isPayloadPending());
+
+        Ethernet eager = deserializer.deserialize(bytes, 0, bytes.length);
+        assertEquals(eager, eth);
+        assertFalse(eth.isPayloadPending());
+        assertNull(eth.getPayloadError());
+        assertEquals(arp, eth.getPayload());
+        assertEquals(eth, eth.getPayload().getParent());
+        assertArrayEquals(bytes, eth.serialize());
+    }
+
+    @Test
+    public void testLazyDeserializeEtherTypeChange() throws Exception {
+        ARP arp = arp();
+        byte[] bytes = arpFrame(arp).serialize();
+
+        // The payload is still decoded as the type it was framed with
+        Ethernet eth = Ethernet.lazyDeserializer().deserialize(bytes, 0, bytes.length);
+        eth.setEtherType(Ethernet.TYPE_IPV4);
+        assertEquals(arp, eth.getPayload());
+    }
+
+    @Test
+    public void testLazyDeserializeResetChecksum() throws Exception {
+        byte[] bytes = arpFrame(arp()).serialize();
+
+        Ethernet eth = Ethernet.lazyDeserializer().deserialize(bytes, 0, bytes.length);
+        eth.resetChecksum();
+        assertFalse(eth.isPayloadPending());
+        assertArrayEquals(bytes, eth.serialize());
+    }
+
+    private ARP arp() {
+        ARP arp = new ARP();
+        arp.setHardwareType(ARP.HW_TYPE_ETHERNET)
+                .setProtocolType(ARP.PROTO_TYPE_IP)
+                .setHardwareAddressLength((byte) Ethernet.DATALAYER_ADDRESS_LENGTH)
+                .setProtocolAddressLength((byte) Ip4Address.BYTE_LENGTH)
+                .setOpCode(ARP.OP_REQUEST)
+                .setSenderHardwareAddress(srcMac.toBytes())
+                .setSenderProtocolAddress(Ip4Address.valueOf("10.0.0.1").toOctets())
+                .setTargetHardwareAddress(MacAddress.ZERO.toBytes())
+                .setTargetProtocolAddress(Ip4Address.valueOf("10.0.0.2").toOctets());
+        return arp;
+    }
+
+    private Ethernet arpFrame(ARP arp) {
+        Ethernet frame = new Ethernet();
+        frame.setDestinationMACAddress(MacAddress.BROADCAST)
+                .setSourceMACAddress(srcMac)
+                .setVlanID(vlan)
+                .setEtherType(Ethernet.TYPE_ARP)
+                .setPayload(arp);
+        return frame;
+    }
+
+    @Test
+    public void testLazyDeserializeMalformedPayload() throws Exception {
+        byte[] bytes = Arrays.copyOf(byteHeader, byteHeader.length + 3);
+        bytes[12] = (byte) (Ethernet.TYPE_IPV4 >> 8);
+        bytes[13] = (byte) Ethernet.TYPE_IPV4;
+
+        Ethernet eth = Ethernet.lazyDeserializer().deserialize(bytes, 0, bytes.length);
+        assertEquals(Ethernet.TYPE_IPV4, eth.getEtherType());
+        assertNull(eth.getPayloadError());
+        assertTrue(eth.getPayload() instanceof Data);
+        assertNotNull(eth.getPayloadError());
+        assertArrayEquals(bytes, eth.serialize());
+
+        // The eager deserializer fails on the same frame
+        try {
+            deserializer.deserialize(bytes, 0, bytes.length);
+            fail("malformed payload not detected");
+        } catch (DeserializationException e) {
+            assertEquals(e.getMessage(), eth.getPayloadError().getMessage());
+        }
+    }
+
 }